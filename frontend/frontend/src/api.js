@@ -2,10 +2,12 @@ import axios from 'axios';
 
 const API_URL = 'http://localhost:9090/api/courses';
 
-export const getCourses = async () => {
+// One page of the course list. nextCursor is the X-Next-Cursor header, to pass back for the
+// following page, or undefined on the last page.
+export const getCourses = async (filters = {}, cursor) => {
   try {
-    const response = await axios.get(API_URL);
-    return response.data;
+    const response = await axios.get(API_URL, { params: { ...filters, cursor } });
+    return { courses: response.data, nextCursor: response.headers['x-next-cursor'] };
   } catch (error) {
     throw new Error('Failed to fetch courses');
   }
@@ -75,6 +77,17 @@ export const getCourseContent = async (courseId) => {
   }
 };
 
+// One lesson with its body. Long lesson bodies are stored apart from the course, so the course
+// and content list leave them out and set contentRef instead.
+export const getLesson = async (courseId, contentId) => {
+  try {
+    const response = await axios.get(`${API_URL}/${courseId}/content/${contentId}`);
+    return response.data;
+  } catch (error) {
+    throw new Error('Failed to fetch lesson');
+  }
+};
+
 export const addContentToCourse = async (courseId, content) => {
   try {
     const response = await axios.post(`${API_URL}/${courseId}/content`, content);
@@ -110,4 +123,13 @@ export const generateCourseContent = async (courseId) => {
   } catch (error) {
     throw new Error('Failed to generate course content');
   }
-};
\ No newline at end of file
+};
+// Ranked server-side search over course and lesson text
+export const searchCourses = async (query, limit = 100) => {
+  try {
+    const response = await axios.get('http://localhost:9090/api/search', { params: { q: query, limit } });
+    return response.data;
+  } catch (error) {
+    throw new Error('Failed to search courses');
+  }
+};
@@ -2,7 +2,7 @@ import { useState, useEffect } from 'react';
 import { Row, Col, Form, Button, InputGroup, Dropdown, Badge, Card } from 'react-bootstrap';
 import { Link } from 'react-router-dom';
 import CourseCard from '../components/CourseCard';
-import { getCourses } from '../api';
+import { getCourses, searchCourses } from '../api';
 import { getCourseImage } from '../utils/imageUtils';
 import { BsSearch, BsFilter, BsSortDown, BsX, BsBookHalf, BsPerson } from 'react-icons/bs';
 
@@ -20,7 +20,10 @@ function AllCourses() {
   const [courses, setCourses] = useState([]);
   const [filteredCourses, setFilteredCourses] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState(null);
+  // Cursor of the next page of the course list, or undefined once the last page is loaded
+  const [nextCursor, setNextCursor] = useState();
   
   // Filter states
   const [searchQuery, setSearchQuery] = useState('');
@@ -29,34 +32,38 @@ function AllCourses() {
   const [language, setLanguage] = useState('');
   const [selectedTags, setSelectedTags] = useState([]);
   const [sortBy, setSortBy] = useState('newest');
+  // Ranked hits from the server search, or null when no query is active
+  const [searchHits, setSearchHits] = useState(null);
   
   // Available languages and tags (derived from courses)
   const [availableLanguages, setAvailableLanguages] = useState([]);
   const [availableTags, setAvailableTags] = useState([]);
 
+  // Languages and tags offered as filters, from the courses loaded so far
+  useEffect(() => {
+    // Extract unique languages from courses
+    const languages = [...new Set(courses.map(course => course.language).filter(Boolean))];
+    setAvailableLanguages(languages);
+
+    // Extract unique tags from courses
+    const allTags = courses.reduce((tags, course) => {
+      if (course.tags && Array.isArray(course.tags)) {
+        return [...tags, ...course.tags];
+      }
+      return tags;
+    }, []);
+
+    const uniqueTags = [...new Set(allTags)];
+    setAvailableTags(uniqueTags);
+  }, [courses]);
+
   useEffect(() => {
     const fetchCourses = async () => {
       setLoading(true);
       try {
-        const data = await getCourses();
-        setCourses(data);
-        setFilteredCourses(data);
-        
-        // Extract unique languages from courses
-        const languages = [...new Set(data.map(course => course.language).filter(Boolean))];
-        setAvailableLanguages(languages);
-        
-        // Extract unique tags from courses
-        const allTags = data.reduce((tags, course) => {
-          if (course.tags && Array.isArray(course.tags)) {
-            return [...tags, ...course.tags];
-          }
-          return tags;
-        }, []);
-        
-        const uniqueTags = [...new Set(allTags)];
-        setAvailableTags(uniqueTags);
-        
+        const page = await getCourses();
+        setCourses(page.courses);
+        setNextCursor(page.nextCursor);
         setError(null);
       } catch (error) {
         console.error('Error fetching courses:', error);
@@ -68,17 +75,53 @@ function AllCourses() {
     fetchCourses();
   }, []);
 
+  // Further pages are only fetched when asked for
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const page = await getCourses({}, nextCursor);
+      setCourses(loaded => [...loaded, ...page.courses]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('Error fetching courses:', error);
+      setError('Failed to load courses. Please try again later.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  // Run the text search on the server, shortly after the user stops typing
+  useEffect(() => {
+    if (!searchQuery.trim()) {
+      setSearchHits(null);
+      return;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      try {
+        const results = await searchCourses(searchQuery);
+        if (!cancelled) {
+          setSearchHits(results);
+        }
+      } catch (error) {
+        console.error('Error searching courses:', error);
+      }
+    }, 200);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [searchQuery]);
+
   // Apply all filters and sorting
   useEffect(() => {
     let result = [...courses];
     
-    // Apply search filter
-    if (searchQuery) {
-      const query = searchQuery.toLowerCase();
-      result = result.filter(course => 
-        course.title.toLowerCase().includes(query) || 
-        (course.tags && course.tags.some(tag => tag.toLowerCase().includes(query)))
-      );
+    // Apply search results, keeping the server's ranking. The search covers the whole catalog,
+    // so hits on pages not loaded yet are shown from the hit itself.
+    if (searchHits) {
+      const coursesById = new Map(courses.map(course => [course.id, course]));
+      result = searchHits.map(hit => coursesById.get(hit.courseId) || { id: hit.courseId, title: hit.title });
     }
     
     // Apply category filter
@@ -105,8 +148,8 @@ function AllCourses() {
       );
     }
     
-    // Apply sorting
-    switch (sortBy) {
+    // Apply sorting; search results stay in relevance order
+    switch (searchHits ? null : sortBy) {
       case 'newest':
         result = result.sort((a, b) => b.id.localeCompare(a.id));
         break;
@@ -121,7 +164,7 @@ function AllCourses() {
     }
     
     setFilteredCourses(result);
-  }, [courses, searchQuery, category, level, language, selectedTags, sortBy]);
+  }, [courses, searchHits, category, level, language, selectedTags, sortBy]);
 
   const handleTagToggle = (tag) => {
     setSelectedTags(
@@ -635,31 +678,21 @@ function AllCourses() {
           </Row>
         )}
 
-        {/* Pagination - only show if there are courses */}
-        {filteredCourses.length > 0 && (
+        {/* Load more - only while the server has further pages */}
+        {!loading && !error && nextCursor && (
           <div className="d-flex justify-content-center mt-5">
-            <nav aria-label="Course pagination">
-              <ul className="pagination">
-                <li className="page-item disabled">
-                  <a className="page-link" href="#" tabIndex="-1" aria-disabled="true">Previous</a>
-                </li>
-                <li className="page-item active" aria-current="page">
-                  <a 
-                    className="page-link" 
-                    href="#"
-                    style={{ 
-                      backgroundColor: colors.primaryGreen, 
-                      borderColor: colors.primaryGreen 
-                    }}
-                  >1</a>
-                </li>
-                <li className="page-item"><a className="page-link" href="#">2</a></li>
-                <li className="page-item"><a className="page-link" href="#">3</a></li>
-                <li className="page-item">
-                  <a className="page-link" href="#">Next</a>
-                </li>
-              </ul>
-            </nav>
+            <Button
+              variant="outline-success"
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="rounded-pill px-4"
+              style={{
+                borderColor: colors.primaryGreen,
+                color: colors.primaryGreen
+              }}
+            >
+              {loadingMore ? 'Loading...' : 'Load more courses'}
+            </Button>
           </div>
         )}
 
@@ -684,13 +717,6 @@ function AllCourses() {
             opacity: 0.9;
           }
 
-          .page-link {
-            color: ${colors.primaryGreen};
-          }
-
-          .page-link:focus {
-            box-shadow: 0 0 0 0.25rem rgba(25, 135, 84, 0.25);
-          }
         `}</style>
       </div>
     </div>
@@ -14,7 +14,7 @@ import {
   Alert,
   Form,
 } from "react-bootstrap";
-import { getCourseById, getCourseContent, generateCourseContent } from "../api";
+import { getCourseById, getCourseContent, getLesson, generateCourseContent } from "../api";
 import {
   Clock,
   Globe,
@@ -44,6 +44,9 @@ function CourseView() {
   const [activeLesson, setActiveLesson] = useState(null);
   const [activeTab, setActiveTab] = useState("overview");
   const [progress, setProgress] = useState(0);
+  // Bodies of lessons stored apart from the course (contentRef set), fetched when opened
+  const [lessonBodies, setLessonBodies] = useState({});
+  const [lessonBodyError, setLessonBodyError] = useState(null);
 
   useEffect(() => {
     const fetchCourseAndContent = async () => {
@@ -86,6 +89,33 @@ function CourseView() {
     fetchCourseAndContent();
   }, [id]);
 
+  useEffect(() => {
+    if (!activeLesson?.contentRef || activeLesson.id in lessonBodies) {
+      return;
+    }
+    let cancelled = false;
+    setLessonBodyError(null);
+    getLesson(id, activeLesson.id)
+      .then((lesson) => {
+        if (!cancelled) {
+          setLessonBodies((bodies) => ({ ...bodies, [lesson.id]: lesson.content }));
+        }
+      })
+      .catch((err) => {
+        console.error("Error fetching lesson:", err);
+        if (!cancelled) {
+          setLessonBodyError("Failed to load this lesson. Please try again later.");
+        }
+      });
+    return () => {
+      cancelled = true;
+    };
+  }, [id, activeLesson, lessonBodies]);
+
+  // The lesson body, or undefined while one stored apart from the course is being fetched
+  const lessonBody = (lesson) =>
+    lesson.contentRef ? lessonBodies[lesson.id] : lesson.content;
+
   const handleEnroll = async () => {
     try {
       setLoading(true);
@@ -668,12 +698,20 @@ function CourseView() {
                                           className="rounded"
                                         ></iframe>
                                       </div>
-                                    ) : (
+                                    ) : lessonBody(activeLesson) !== undefined ? (
                                       <div
                                         dangerouslySetInnerHTML={{
-                                          __html: activeLesson.content,
+                                          __html: lessonBody(activeLesson),
                                         }}
                                       />
+                                    ) : lessonBodyError ? (
+                                      <Alert variant="danger">
+                                        {lessonBodyError}
+                                      </Alert>
+                                    ) : (
+                                      <p className="text-secondary">
+                                        Loading lesson...
+                                      </p>
                                     )}
                                   </>
                                 ) : (
@@ -8,13 +8,16 @@ function InstructorDashboard() {
   const [courses, setCourses] = useState([]);
   const [error, setError] = useState(null);
   const [loading, setLoading] = useState(true);
+  // Cursor of the next page of courses, or undefined once the last page is loaded
+  const [nextCursor, setNextCursor] = useState();
 
   useEffect(() => {
     const fetchCourses = async () => {
       setLoading(true);
       try {
-        const data = await getCourses();
-        setCourses(data); // In a real app with authentication, filter for instructor's courses
+        const page = await getCourses();
+        setCourses(page.courses); // In a real app with authentication, filter for instructor's courses
+        setNextCursor(page.nextCursor);
         setError(null);
       } catch (err) {
         console.error('Error fetching courses:', err);
@@ -27,6 +30,17 @@ function InstructorDashboard() {
     fetchCourses();
   }, []);
 
+  const loadMore = async () => {
+    try {
+      const page = await getCourses({}, nextCursor);
+      setCourses(loaded => [...loaded, ...page.courses]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      console.error('Error fetching courses:', err);
+      setError('Failed to load courses. Please try again later.');
+    }
+  };
+
   const handleDelete = async (id) => {
     if (window.confirm('Are you sure you want to delete this course?')) {
       try {
@@ -181,6 +195,13 @@ function InstructorDashboard() {
               )}
             </Row>
           )}
+          {!loading && nextCursor && (
+            <div className="text-center mt-4">
+              <Button variant="outline-primary" onClick={loadMore}>
+                Load more courses
+              </Button>
+            </div>
+          )}
         </Card.Body>
       </Card>
 
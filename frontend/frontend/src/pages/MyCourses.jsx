@@ -1,22 +1,27 @@
 import { useState, useEffect } from 'react';
-import { Container, Row, Col, Alert } from 'react-bootstrap';
+import { Container, Row, Col, Alert, Button } from 'react-bootstrap';
 import CourseCard from '../components/CourseCard';
 import { getCourses, deleteCourse } from '../api';
 
 function MyCourses() {
   const [courses, setCourses] = useState([]);
   const [error, setError] = useState(null);
+  // Cursor of the next page of courses, or undefined once the last page is loaded
+  const [nextCursor, setNextCursor] = useState();
+
+  // The first page replaces the list, later ones are appended to it
+  const fetchPage = async (cursor) => {
+    try {
+      const page = await getCourses({}, cursor);
+      setCourses(loaded => (cursor ? [...loaded, ...page.courses] : page.courses)); // Add client-side filtering if needed
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      setError('Failed to fetch courses.');
+    }
+  };
 
   useEffect(() => {
-    const fetchCourses = async () => {
-      try {
-        const data = await getCourses();
-        setCourses(data); // Add client-side filtering if needed
-      } catch (error) {
-        setError('Failed to fetch courses.');
-      }
-    };
-    fetchCourses();
+    fetchPage();
   }, []);
 
   const handleDelete = async (id) => {
@@ -121,6 +126,14 @@ function MyCourses() {
         )}
       </Row>
 
+      {nextCursor && (
+        <div className="text-center mt-4">
+          <Button variant="primary" onClick={() => fetchPage(nextCursor)}>
+            Load more courses
+          </Button>
+        </div>
+      )}
+
       {/* Custom CSS */}
       <style jsx>{`
         .btn-primary {
@@ -0,0 +1,58 @@
+package com.example.newCourse.benchmarks;
+
+import com.example.newCourse.model.Course;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Jackson (de)serialization of a full Course, as done for GET/PUT /api/courses/{id}
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseJsonBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int lessons;
+
+    // Characters of HTML per lesson body
+    @Param({"2000", "20000"})
+    public int contentChars;
+
+    private ObjectMapper objectMapper;
+    private Course course;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Configured like the mapper Spring MVC uses for request and response bodies
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        course = Courses.course(lessons, contentChars);
+        json = objectMapper.writeValueAsBytes(course);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(course);
+    }
+
+    @Benchmark
+    public Course deserialize() throws IOException {
+        return objectMapper.readValue(json, Course.class);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.newCourse.benchmarks;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Course documents shaped like the ones in production, for benchmarks that need realistic sizes
+public final class Courses {
+
+    private static final String PARAGRAPH = "<p>In this lesson we build the \"dashboard\" view step by step: "
+            + "<strong>routing</strong>, <em>state</em> and <a href=\"https://example.com/docs?page=2&amp;tab=api\">API calls</a>."
+            + "</p>\n<pre><code class=\"language-js\">const total = items.reduce((sum, item) =&gt; sum + item.price, 0);\n"
+            + "console.log(`Total: ${total}`);</code></pre>\n"
+            + "<ul><li>Résumé the data model</li><li>Wire the “save” button</li><li>Handle\terrors</li></ul>\n";
+
+    private static final String[] TOPICS = {
+            "Kubernetes", "Docker", "Python", "Java", "Kotlin", "Rust", "Go", "React", "Angular", "Vue",
+            "Spring", "Django", "Flutter", "Swift", "SQL", "MongoDB", "Redis", "Kafka", "Terraform", "Linux",
+            "Statistics", "Photography", "Drawing", "Guitar", "Piano", "Spanish", "Marketing", "Accounting",
+            "Leadership", "Negotiation", "Pottery", "Cooking", "Yoga", "Writing", "Excel", "Figma",
+            "Blender", "Unity", "Networking", "Security"};
+    private static final String[] CATEGORIES = {
+            "Cloud", "Programming", "Web Development", "Mobile", "Data", "Design", "Music", "Business"};
+    private static final String[] SUFFIXES = {
+            "Fundamentals", "in Practice", "Masterclass", "Bootcamp", "for Beginners", "Deep Dive", "Essentials"};
+    private static final String[] LEVELS = {"Beginner", "Intermediate", "Advanced"};
+    private static final String[] LANGUAGES = {"English", "English", "English", "Spanish", "German", "French"};
+    private static final String[] SYLLABLES = {"ka", "to", "ri", "mu", "sel", "van", "dor", "pi", "len", "zu", "qua", "bex"};
+
+    private Courses() {
+    }
+
+    /**
+     * A varied catalog of small courses for the in-memory indexes: 40 topics spread over 8
+     * categories, 3 levels, 4 languages and 30 tags, with text drawn from a vocabulary of
+     * about 1,700 words. Every other course says "introduction", so queries for it match half
+     * the catalog. The same count always gives the same catalog.
+     */
+    public static List<Course> catalog(int count) {
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>();
+        for (String first : SYLLABLES) {
+            for (String second : SYLLABLES) {
+                for (String third : SYLLABLES) {
+                    vocabulary.add(first + second + third);
+                }
+            }
+        }
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int topic = random.nextInt(TOPICS.length);
+            Course course = new Course();
+            course.setId(String.format("course-%06d", i));
+            course.setVersion(1L);
+            course.setTitle(TOPICS[topic] + " " + SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            course.setDescription((i % 2 == 0 ? "An introduction to " : "Advanced topics in ") + TOPICS[topic] + ". "
+                    + words(random, vocabulary, 25));
+            course.setCategory(CATEGORIES[topic % CATEGORIES.length]);
+            course.setLevel(LEVELS[random.nextInt(LEVELS.length)]);
+            course.setLanguage(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+            List<String> tags = new ArrayList<>();
+            while (tags.size() < 3) {
+                String tag = "tag" + random.nextInt(30);
+                if (!tags.contains(tag)) {
+                    tags.add(tag);
+                }
+            }
+            course.setTags(tags);
+            for (int order = 1; order <= 3; order++) {
+                CourseContent lesson = new CourseContent();
+                lesson.setId(course.getId() + "-" + order);
+                lesson.setTitle("Lesson " + order + ": " + TOPICS[topic] + " " + vocabulary.get(random.nextInt(vocabulary.size())));
+                lesson.setContentType("text");
+                lesson.setContent("<p>" + words(random, vocabulary, 60) + "</p>");
+                lesson.setOrder(order);
+                course.getContentList().add(lesson);
+            }
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    private static String words(Random random, List<String> vocabulary, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // The product of two uniform draws favors the start of the vocabulary, as real word use is skewed
+            double skewed = random.nextDouble() * random.nextDouble();
+            text.append(i == 0 ? "" : " ").append(vocabulary.get((int) (skewed * vocabulary.size())));
+        }
+        return text.toString();
+    }
+
+    public static Course course(int lessons, int contentChars) {
+        Course course = new Course();
+        course.setId(UUID.randomUUID().toString());
+        course.setVersion(42L);
+        course.setTitle("Full-Stack Web Development with React and Spring Boot");
+        course.setDescription("Build and deploy a production-ready course platform from scratch. " + html(600));
+        course.setCategory("Web Development");
+        course.setLevel("Intermediate");
+        course.setImagePath("/uploads/images/3f79bb7b435b05321651daefd374cdc681dc06faa65e374e38337b88ca046dea.jpg");
+        course.setDuration("42 hours");
+        course.setLanguage("English");
+        course.setTags(new ArrayList<>(List.of("react", "spring", "mongodb", "fullstack", "javascript")));
+        List<CourseContent> contentList = new ArrayList<>(lessons);
+        for (int i = 1; i <= lessons; i++) {
+            contentList.add(lesson(i, contentChars));
+        }
+        course.setContentList(contentList);
+        return course;
+    }
+
+    public static CourseContent lesson(int order, int contentChars) {
+        CourseContent lesson = new CourseContent();
+        lesson.setId(UUID.randomUUID().toString());
+        lesson.setTitle("Lesson " + order + ": Building the dashboard");
+        lesson.setContentType("text");
+        lesson.setContent(html(contentChars));
+        lesson.setOrder(order);
+        lesson.setLessonType("Video");
+        lesson.setDuration("15 minutes");
+        lesson.setVideoUrl("/uploads/videos/8d969eef6ecad3c29a3a629280e686cf0c3f5d5a86aff3ca12020c923adc6c92.mp4");
+        lesson.setPreviewEnabled(order == 1);
+        lesson.setResourceUrl("/uploads/resources/2c26b46b68ffc68ff99b453c1d30413413422d706483bfa0f98a5e886266e7ae.pdf");
+        return lesson;
+    }
+
+    // HTML lesson body of about the given length, with the quoting and non-ASCII text real lessons have
+    public static String html(int chars) {
+        StringBuilder html = new StringBuilder(chars + PARAGRAPH.length());
+        while (html.length() < chars) {
+            html.append(PARAGRAPH);
+        }
+        return html.substring(0, chars);
+    }
+}
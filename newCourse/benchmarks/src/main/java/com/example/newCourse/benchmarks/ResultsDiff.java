@@ -0,0 +1,91 @@
+package com.example.newCourse.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares two JMH JSON result files (-rf json), e.g. from the previous and the upcoming
+ * release. A change counts only when the scores differ by more than their combined error.
+ * Exits with status 1 if anything got significantly worse, so it can gate a build.
+ * <p>
+ * java -cp target/benchmarks.jar com.example.newCourse.benchmarks.ResultsDiff baseline.json candidate.json
+ */
+public final class ResultsDiff {
+
+    private ResultsDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: ResultsDiff <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(args[0]);
+        Map<String, JsonNode> candidate = load(args[1]);
+
+        boolean regressed = false;
+        System.out.printf("%-90s %14s %14s %9s  %s%n", "benchmark", "baseline", "candidate", "change", "unit");
+        for (String key : union(baseline, candidate)) {
+            JsonNode before = baseline.get(key);
+            JsonNode after = candidate.get(key);
+            if (before == null || after == null) {
+                System.out.printf("%-90s %14s %14s %9s%n", key, score(before), score(after), before == null ? "new" : "removed");
+                continue;
+            }
+            JsonNode beforeMetric = before.path("primaryMetric");
+            JsonNode afterMetric = after.path("primaryMetric");
+            double from = beforeMetric.path("score").asDouble();
+            double to = afterMetric.path("score").asDouble();
+            double error = errorOf(beforeMetric) + errorOf(afterMetric);
+            // Average-time modes: lower is better; throughput: higher is better
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            String verdict = "";
+            if (Math.abs(to - from) > error) {
+                boolean better = higherIsBetter ? to > from : to < from;
+                verdict = better ? "  faster" : "  SLOWER";
+                regressed |= !better;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", key, from, to,
+                    from == 0 ? 0 : (to - from) * 100 / from, afterMetric.path("scoreUnit").asText(), verdict);
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    // Results by benchmark name plus parameters, e.g. "CourseJsonBenchmark.serialize contentChars=2000 lessons=10"
+    private static Map<String, JsonNode> load(String file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(file))) {
+            String name = result.path("benchmark").asText();
+            StringBuilder key = new StringBuilder(name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1));
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            fields.forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            params.forEach((param, value) -> key.append(' ').append(param).append('=').append(value));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static TreeSet<String> union(Map<String, JsonNode> first, Map<String, JsonNode> second) {
+        TreeSet<String> keys = new TreeSet<>(first.keySet());
+        keys.addAll(second.keySet());
+        return keys;
+    }
+
+    private static String score(JsonNode result) {
+        return result == null ? "-" : String.format("%.3f", result.path("primaryMetric").path("score").asDouble());
+    }
+
+    // JMH reports NaN as the error of single-iteration runs
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.newCourse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-starts the application in each startup mode and measures the time from launching the
+ * process to the first successful GET /api/courses, and the resident set size at that moment.
+ * Each run is a fresh process; the modes whose build output is missing are skipped.
+ * The modes are jvm (the boot jar as built), aot (the extracted jar in target/application with
+ * -Dspring.aot.enabled=true), aot-cds (the same with its AppCDS archive) and native
+ * (target/newCourse). The JVM modes run on the JDK that runs the benchmark, which must be the
+ * one that recorded the archive.
+ * <p>
+ * java -cp target/benchmarks.jar com.example.newCourse.benchmarks.StartupBenchmark [--app=..] [--runs=5]
+ * [--port=18080] [--path=/api/courses] [--modes=jvm,aot,aot-cds,native] [-- application arguments]
+ */
+public final class StartupBenchmark {
+
+    private static final String JAR = "newCourse-0.0.1-SNAPSHOT.jar";
+    private static final Duration POLL = Duration.ofMillis(10);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                appArgs.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            }
+            if (!args[i].startsWith("--") || !args[i].contains("=")) {
+                System.err.println("usage: StartupBenchmark [--app=..] [--runs=5] [--port=18080] [--path=/api/courses]"
+                        + " [--modes=jvm,aot,aot-cds,native] [--timeout-seconds=120] [-- application arguments]");
+                System.exit(2);
+            }
+            options.put(args[i].substring(2, args[i].indexOf('=')), args[i].substring(args[i].indexOf('=') + 1));
+        }
+        Path app = Path.of(options.getOrDefault("app", "..")).toAbsolutePath().normalize();
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+        String path = options.getOrDefault("path", "/api/courses");
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout-seconds", "120")));
+        List<String> modes = List.of(options.getOrDefault("modes", "jvm,aot,aot-cds,native").split(","));
+
+        Path logs = Path.of("target", "startup");
+        Files.createDirectories(logs);
+        URI uri = URI.create("http://localhost:" + port + path);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+        System.out.printf("%-8s %5s %10s %10s %10s %10s%n", "mode", "runs", "median ms", "min ms", "max ms", "RSS MB");
+        for (String mode : modes) {
+            List<String> command = command(app, mode);
+            if (command == null) {
+                System.out.printf("%-8s skipped, build output not found (see docs/startup.md)%n", mode);
+                continue;
+            }
+            command.add("--server.port=" + port);
+            command.addAll(appArgs);
+            long[] millis = new long[runs];
+            long[] rss = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                File log = logs.resolve(mode + "-" + run + ".log").toFile();
+                long started = System.nanoTime();
+                Process process = new ProcessBuilder(command).directory(app.toFile())
+                        .redirectErrorStream(true).redirectOutput(log).start();
+                try {
+                    long elapsed = firstSuccess(client, uri, process, started, timeoutNanos);
+                    if (elapsed < 0) {
+                        System.out.printf("%-8s run %d never answered %s successfully, see %s%n", mode, run, path, log);
+                        System.exit(1);
+                    }
+                    millis[run] = TimeUnit.NANOSECONDS.toMillis(elapsed);
+                    rss[run] = residentKilobytes(process.pid());
+                } finally {
+                    stop(process);
+                }
+            }
+            System.out.printf("%-8s %5d %10d %10d %10d %10s%n", mode, runs, median(millis),
+                    Arrays.stream(millis).min().orElse(0), Arrays.stream(millis).max().orElse(0),
+                    median(rss) < 0 ? "n/a" : String.format("%.1f", median(rss) / 1024.0));
+        }
+    }
+
+    // The command line of a mode, or null when its build output is missing
+    private static List<String> command(Path app, String mode) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Path extracted = app.resolve("target/application");
+        return switch (mode) {
+            case "jvm" -> Files.exists(app.resolve("target").resolve(JAR))
+                    ? new ArrayList<>(List.of(java, "-jar", "target/" + JAR)) : null;
+            case "aot" -> Files.exists(extracted.resolve(JAR))
+                    ? new ArrayList<>(List.of(java, "-Dspring.aot.enabled=true", "-jar", extracted.resolve(JAR).toString()))
+                    : null;
+            case "aot-cds" -> Files.exists(extracted.resolve(JAR)) && Files.exists(extracted.resolve("application.jsa"))
+                    ? new ArrayList<>(List.of(java, "-XX:SharedArchiveFile=" + extracted.resolve("application.jsa"),
+                            "-Dspring.aot.enabled=true", "-jar", extracted.resolve(JAR).toString()))
+                    : null;
+            case "native" -> Files.exists(app.resolve("target/newCourse"))
+                    ? new ArrayList<>(List.of(app.resolve("target/newCourse").toString())) : null;
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+    }
+
+    // Nanoseconds from launch to the first 2xx answer, or -1 if the process died or timed out first
+    private static long firstSuccess(HttpClient client, URI uri, Process process, long started, long timeoutNanos)
+            throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+        while (System.nanoTime() - started < timeoutNanos && process.isAlive()) {
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status >= 200 && status < 300) {
+                    return System.nanoTime() - started;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL);
+        }
+        return -1;
+    }
+
+    // VmRSS from /proc on Linux, else ps; -1 if neither is available
+    private static long residentKilobytes(long pid) {
+        try {
+            Path status = Path.of("/proc", Long.toString(pid), "status");
+            if (Files.exists(status)) {
+                for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            }
+            Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+            String output = new String(ps.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return ps.waitFor() == 0 && !output.isEmpty() ? Long.parseLong(output) : -1;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.newCourse.benchmarks;
+
+import com.example.newCourse.repository.BlobRepository;
+import com.example.newCourse.service.BlobStorageService;
+import com.example.newCourse.service.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The multipart upload path after Tomcat has spooled the part to disk: reading it back through
+ * MultipartFile.getInputStream into BlobStorageService.store, which hashes and copies it, then
+ * moves it into the uploads tree. copyOnly is the plain disk copy underneath, for comparison.
+ * <p>
+ * Writes under ./uploads/benchmark and deletes what it wrote; run from a scratch directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UploadCopyBenchmark {
+
+    private static final String DIRECTORY = "benchmark";
+
+    @Param({"1", "16", "64"})
+    public int sizeMb;
+
+    private AnnotationConfigApplicationContext context;
+    private BlobStorageService blobStorageService;
+    private Path part;
+    private Path copy;
+    private long counter;
+    private String stored;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Reference counting is a MongoDB round trip, which is not what this measures
+        BlobRepository blobRepository = (BlobRepository) Proxy.newProxyInstance(
+                BlobRepository.class.getClassLoader(), new Class<?>[] { BlobRepository.class },
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+        // Wired as the application wires it, around the stand-in repository
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(BlobRepository.class, () -> blobRepository);
+        context.registerBean(MetricsRegistry.class);
+        context.registerBean(BlobStorageService.class);
+        context.refresh();
+        blobStorageService = context.getBean(BlobStorageService.class);
+
+        part = Files.createTempFile("upload-benchmark", ".part");
+        copy = Files.createTempFile("upload-benchmark", ".copy");
+        byte[] block = new byte[1024 * 1024];
+        Random random = new Random(42);
+        try (OutputStream out = Files.newOutputStream(part)) {
+            for (int i = 0; i < sizeMb; i++) {
+                random.nextBytes(block);
+                out.write(block);
+            }
+        }
+    }
+
+    @Benchmark
+    public String store() throws IOException {
+        // A different first block each time, so every upload is new content rather than a duplicate
+        byte[] prefix = ByteBuffer.allocate(Long.BYTES).putLong(counter++).array();
+        try (InputStream content = new SequenceInputStream(new ByteArrayInputStream(prefix), Files.newInputStream(part))) {
+            stored = blobStorageService.store(content, DIRECTORY, "lesson.mp4");
+        }
+        return stored;
+    }
+
+    @Benchmark
+    public long copyOnly() throws IOException {
+        try (InputStream content = Files.newInputStream(part)) {
+            return Files.copy(content, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteStored() throws IOException {
+        if (stored != null) {
+            Files.deleteIfExists(Paths.get(stored.substring(1)));
+            stored = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(part);
+        Files.deleteIfExists(copy);
+        Path directory = Paths.get("uploads", DIRECTORY);
+        if (Files.exists(directory)) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.benchmarks.Courses;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cost of the lesson endpoints (updateCourseContent, uploadLessonVideo). They no
+ * longer look the lesson up in a loaded course: each is one findAndModify with an array filter,
+ * so what is left on our side is mapping the query and update to BSON and reading back the
+ * single projected lesson. wholeCourseWrite is the load-modify-save they replaced, which
+ * converted the entire course on every lesson edit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LessonUpdateBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int lessons;
+
+    private MappingMongoConverter converter;
+    private QueryMapper queryMapper;
+    private UpdateMapper updateMapper;
+    private MongoPersistentEntity<?> entity;
+    private Course course;
+    private CourseContent lesson;
+    private Document previousLesson;
+
+    @Setup
+    public void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+        queryMapper = new QueryMapper(converter);
+        updateMapper = new UpdateMapper(converter);
+        entity = mappingContext.getRequiredPersistentEntity(Course.class);
+
+        course = Courses.course(lessons, 4000);
+        lesson = Courses.lesson(lessons / 2, 4000);
+        lesson.setId(course.getContentList().get(lessons / 2).getId());
+        Document lessonDocument = new Document();
+        converter.write(lesson, lessonDocument);
+        previousLesson = new Document("_id", course.getId()).append("version", 42L)
+                .append("contentList", List.of(lessonDocument));
+    }
+
+    // Query and update sent by updateCourseContent
+    @Benchmark
+    public Document replaceContent() {
+        Query query = CourseQueries.lesson(course.getId(), lesson.getId(), 42L);
+        Document mapped = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        mapped.putAll(updateMapper.getMappedObject(CourseQueries.replace(lesson, 43L).getUpdateObject(), entity));
+        return mapped;
+    }
+
+    // Query and update sent by uploadLessonVideo
+    @Benchmark
+    public Document setVideoUrl() {
+        Query query = CourseQueries.lesson(course.getId(), lesson.getId(), null);
+        Document mapped = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        mapped.putAll(updateMapper.getMappedObject(
+                CourseQueries.setProperty(lesson.getId(), "videoUrl", lesson.getVideoUrl(), 43L).getUpdateObject(), entity));
+        return mapped;
+    }
+
+    // Reading the lesson as it was before the update from the findAndModify result
+    @Benchmark
+    public CourseContent readPreviousLesson() {
+        return CourseQueries.previousLesson(converter.read(Course.class, previousLesson));
+    }
+
+    @Benchmark
+    public Document wholeCourseWrite() {
+        Document document = new Document();
+        converter.write(course, document);
+        return document;
+    }
+}
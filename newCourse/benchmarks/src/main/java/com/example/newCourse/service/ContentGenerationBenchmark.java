@@ -0,0 +1,70 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.CourseContent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ContentGeneratorService.generateContentForCourse and the template rendering under it, against
+// the string-concatenation generator it replaced (LegacyContentGenerator). Run with -prof gc to
+// compare allocation per call as well; see the README.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentGenerationBenchmark {
+
+    // Two keyword matches and one that falls back to the default templates
+    @Param({"Java Programming", "Web Development", "Pottery"})
+    public String category;
+
+    private ContentTemplateRegistry templates;
+    private ContentGeneratorService generator;
+    private LegacyContentGenerator legacyGenerator;
+    private String title;
+    private String[] values;
+
+    @Setup
+    public void setUp() throws IOException {
+        templates = new ContentTemplateRegistry(new ClassPathResource("content-templates.json"));
+        generator = new ContentGeneratorService(templates);
+        legacyGenerator = new LegacyContentGenerator();
+        title = "Complete " + category + " Bootcamp";
+        values = new String[CompiledTemplate.Variable.values().length];
+        values[CompiledTemplate.Variable.TITLE.ordinal()] = title;
+        values[CompiledTemplate.Variable.LEVEL.ordinal()] = "Intermediate";
+        values[CompiledTemplate.Variable.LEVEL_LOWER.ordinal()] = "intermediate";
+        values[CompiledTemplate.Variable.CATEGORY.ordinal()] = category;
+    }
+
+    @Benchmark
+    public List<CourseContent> generateContentForCourse() {
+        return generator.generateContentForCourse(title, category, "Intermediate");
+    }
+
+    @Benchmark
+    public List<CourseContent> legacyGenerateContentForCourse() {
+        return legacyGenerator.generateContentForCourse(title, category, "Intermediate");
+    }
+
+    // The longest lesson template on its own
+    @Benchmark
+    public String renderPractice() {
+        return templates.practice().render(values);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.benchmarks.Courses;
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.FacetFilter;
+import com.example.newCourse.model.FacetQuery;
+import com.example.newCourse.model.FacetResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CourseFacetIndex.query over a synthetic catalog (Courses.catalog): one page of ids plus
+ * counts for all four facets. "none" counts the whole catalog; "twoClauses" is the catalog
+ * page with a category and a level picked, which also counts each of those facets without
+ * its own clause; "allTags" ANDs two tags.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class FacetIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int courses;
+
+    @Param({"none", "twoClauses", "allTags"})
+    public String filters;
+
+    private CourseFacetIndex index;
+    private FacetQuery query;
+
+    @Setup
+    public void setUp() {
+        index = new CourseFacetIndex();
+        for (Course course : Courses.catalog(courses)) {
+            index.onCourseChanged(CourseChangedEvent.saved(course));
+        }
+        query = new FacetQuery();
+        query.setLimit(20);
+        switch (filters) {
+            case "twoClauses" -> query.setFilters(List.of(
+                    filter("category", "any", "Programming", "Web Development"),
+                    filter("level", "any", "Beginner")));
+            case "allTags" -> query.setFilters(List.of(filter("tags", "all", "tag3", "tag7")));
+            default -> query.setFilters(List.of());
+        }
+    }
+
+    @Benchmark
+    public FacetResult query() {
+        return index.query(query);
+    }
+
+    private static FacetFilter filter(String facet, String match, String... values) {
+        FacetFilter filter = new FacetFilter();
+        filter.setFacet(facet);
+        filter.setMatch(match);
+        filter.setValues(List.of(values));
+        return filter;
+    }
+}
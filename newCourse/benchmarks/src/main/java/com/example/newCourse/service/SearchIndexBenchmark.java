@@ -0,0 +1,62 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.benchmarks.Courses;
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CourseSearchIndex.search over a synthetic catalog (Courses.catalog), filled through the
+ * same CourseChangedEvent path that saved courses take. The queries range from a selective
+ * word to one matching half the catalog, plus a two-word query whose last word is a prefix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int courses;
+
+    // about 1 in 40 courses, 1 in 2, and two words with a prefix
+    @Param({"kubernetes", "introduction", "python ess"})
+    public String query;
+
+    private CourseSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new CourseSearchIndex();
+        for (Course course : Courses.catalog(courses)) {
+            index.onCourseChanged(CourseChangedEvent.saved(course));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    @Benchmark
+    public List<SearchResult> search() {
+        return index.search(query, 20);
+    }
+}
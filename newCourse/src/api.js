@@ -63,3 +63,38 @@ export const uploadLessonResource = async (courseId, lessonId, resourceFile) =>
     throw new Error('Failed to upload resource');
   }
 };
+
+// Long lesson bodies are left out of the course; this returns one lesson with its body
+export const getLesson = async (courseId, lessonId) => {
+  try {
+    const response = await axios.get(`${API_URL}/${courseId}/content/${lessonId}`);
+    return response.data;
+  } catch (error) {
+    throw new Error('Failed to fetch lesson');
+  }
+};
+
+// Courses written and deleted after a revision (0 for the whole catalog); while hasMore is
+// set, call again with the returned revision
+export const getCourseChanges = async (since = 0) => {
+  try {
+    const response = await axios.get(`${API_URL}/changes`, { params: { since } });
+    return response.data;
+  } catch (error) {
+    throw new Error('Failed to fetch course changes');
+  }
+};
+
+// Imports an NDJSON file of courses, one per line; the report lists the lines that failed
+export const importCourses = async (file) => {
+  try {
+    const response = await axios.post(`${API_URL}/import`, file, {
+      headers: {
+        'Content-Type': 'application/x-ndjson',
+      },
+    });
+    return response.data;
+  } catch (error) {
+    throw new Error('Failed to import courses');
+  }
+};
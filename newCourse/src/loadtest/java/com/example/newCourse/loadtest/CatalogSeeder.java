@@ -0,0 +1,198 @@
+package com.example.newCourse.loadtest;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.service.ProgressIngestionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills an empty database with a synthetic catalog: courses with lessons of a set size,
+ * and students enrolled in a few courses each with progress on every lesson. Ids are
+ * predictable (see courseId and lessonId) so the harness can address lessons without
+ * reading them first. Runs while the context starts, before the web server accepts
+ * requests: the HTTP port opens before startup runners run, and a harness that began
+ * while progress was still being seeded competed with the seeder for connections. This
+ * is also before the other startup runners and before the search and facet indexes are
+ * built. A database that already has courses is left alone.
+ */
+@Component
+@Profile("loadtest")
+public class CatalogSeeder implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSeeder.class);
+    private static final int BATCH_SIZE = 500;
+
+    static final String[] CATEGORIES = { "Java", "Python", "Web", "Data", "Design", "Business" };
+    private static final String[] LEVELS = { "Beginner", "Intermediate", "Advanced" };
+    private static final String[] LANGUAGES = { "English", "Spanish", "French", "German" };
+    private static final String[] LESSON_TYPES = { "Video", "Quiz", "PDF" };
+    private static final String[] WORDS = ("lesson course module practice example concept design data "
+            + "function class object pattern system network model review project skill method test "
+            + "build deploy query index stream value result").split(" ");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${loadtest.catalog.courses:2000}")
+    private int courses;
+
+    @Value("${loadtest.catalog.lessons-per-course:10}")
+    private int lessonsPerCourse;
+
+    @Value("${loadtest.catalog.lesson-chars:2000}")
+    private int lessonChars;
+
+    @Value("${loadtest.catalog.students:5000}")
+    private int students;
+
+    @Value("${loadtest.catalog.courses-per-student:3}")
+    private int coursesPerStudent;
+
+    @Value("${loadtest.catalog.seed:42}")
+    private long seed;
+
+    public static String courseId(int index) {
+        return String.format("lt-course-%06d", index);
+    }
+
+    // Lesson numbers start at 1, matching their order
+    public static String lessonId(String courseId, int number) {
+        return courseId + "-l" + number;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (mongoTemplate.getCollection("courses").estimatedDocumentCount() > 0) {
+            log.info("Database already has courses, not seeding the load-test catalog");
+            return;
+        }
+        long started = System.nanoTime();
+        Random random = new Random(seed);
+        seedCourses(random);
+        long progress = seedProgress(random);
+        log.info("Seeded {} courses with {} lessons each and {} progress entries for {} students in {} ms",
+                courses, lessonsPerCourse, progress, students, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void seedCourses(Random random) {
+        List<Course> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < courses; i++) {
+            batch.add(course(i, random));
+            if (batch.size() == BATCH_SIZE) {
+                mongoTemplate.insert(batch, Course.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, Course.class);
+        }
+    }
+
+    private long seedProgress(Random random) {
+        if (courses == 0) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        List<StudentProgress> batch = new ArrayList<>(BATCH_SIZE);
+        long total = 0;
+        for (int s = 0; s < students; s++) {
+            String studentId = String.format("lt-student-%06d", s);
+            Set<Integer> enrolled = new LinkedHashSet<>();
+            while (enrolled.size() < Math.min(coursesPerStudent, courses)) {
+                enrolled.add(random.nextInt(courses));
+            }
+            for (int index : enrolled) {
+                String courseId = courseId(index);
+                // Students work through lessons in order, so a prefix is completed
+                int completed = random.nextInt(lessonsPerCourse + 1);
+                for (int n = 1; n <= lessonsPerCourse; n++) {
+                    String status = n <= completed ? "Completed" : n == completed + 1 ? "In Progress" : "Not Started";
+                    batch.add(progress(courseId, studentId, lessonId(courseId, n), status, now));
+                }
+                String courseStatus = completed == lessonsPerCourse ? "Completed" : completed > 0 ? "In Progress" : "Not Started";
+                batch.add(progress(courseId, studentId, null, courseStatus, now));
+                if (batch.size() >= BATCH_SIZE) {
+                    mongoTemplate.insert(batch, StudentProgress.class);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, StudentProgress.class);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    private Course course(int index, Random random) {
+        Course course = new Course();
+        course.setId(courseId(index));
+        course.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        course.setLevel(LEVELS[random.nextInt(LEVELS.length)]);
+        course.setLanguage(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        course.setTitle(course.getCategory() + " " + words(random, 3) + " " + index);
+        course.setDescription(words(random, 30));
+        course.setDuration((2 + random.nextInt(40)) + " hours");
+        course.setTags(new ArrayList<>(List.of(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)])));
+        for (int n = 1; n <= lessonsPerCourse; n++) {
+            CourseContent lesson = new CourseContent();
+            lesson.setId(lessonId(course.getId(), n));
+            lesson.setOrder(n);
+            lesson.setTitle("Lesson " + n + ": " + words(random, 4));
+            lesson.setLessonType(LESSON_TYPES[random.nextInt(LESSON_TYPES.length)]);
+            lesson.setContentType(lesson.getLessonType().toLowerCase());
+            lesson.setDuration((5 + random.nextInt(55)) + " minutes");
+            lesson.setPreviewEnabled(n == 1);
+            lesson.setContent(html(random));
+            course.getContentList().add(lesson);
+        }
+        return course;
+    }
+
+    private static StudentProgress progress(String courseId, String studentId, String lessonId, String status, Instant at) {
+        StudentProgress progress = new StudentProgress();
+        progress.setId(ProgressIngestionService.progressId(courseId, studentId, lessonId));
+        progress.setCourseId(courseId);
+        progress.setStudentId(studentId);
+        progress.setLessonId(lessonId);
+        progress.setStatus(status);
+        progress.setUpdatedAt(at);
+        return progress;
+    }
+
+    // Paragraphs of filler words, about lessonChars long
+    private String html(Random random) {
+        StringBuilder html = new StringBuilder(lessonChars + 64);
+        while (html.length() < lessonChars) {
+            html.append("<p>").append(words(random, 40)).append("</p>\n");
+        }
+        return html.toString();
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
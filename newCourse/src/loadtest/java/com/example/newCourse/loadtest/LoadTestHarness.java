@@ -0,0 +1,520 @@
+package com.example.newCourse.loadtest;
+
+import com.example.newCourse.NewCourseApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Drives a scripted workload against the course API and reports throughput, p50/p99/p99.9
+ * latency and error rate per endpoint, for each concurrency step of the workload.
+ * <p>
+ * Without --base-url the application is started in this JVM with the "loadtest" profile,
+ * so it runs against the in-memory MongoDB stand-in with a freshly seeded catalog; any
+ * argument that is not a harness option is passed on to the application. With --base-url
+ * the harness targets an instance started separately with the same catalog settings.
+ * <p>
+ * mvn -Ploadtest spring-boot:run -Dspring-boot.run.main-class=com.example.newCourse.loadtest.LoadTestHarness
+ *     -Dspring-boot.run.arguments="--workload=mixed --concurrency=50,200"
+ */
+public final class LoadTestHarness {
+
+    enum Operation {
+        LIST("list", "GET /api/courses"),
+        DETAIL("detail", "GET /api/courses/{id}"),
+        CONTENT_EDIT("contentEdit", "PUT /api/courses/{id}/content/{contentId}"),
+        GENERATE_CONTENT("generateContent", "POST /api/courses/{id}/generate-content"),
+        UPLOAD("upload", "POST /api/courses/{id}/content/{contentId}/video"),
+        VIDEO_SEEK("videoSeek", "GET /uploads/videos/{file} with Range");
+
+        final String key;
+        final String endpoint;
+
+        Operation(String key, String endpoint) {
+            this.key = key;
+            this.endpoint = endpoint;
+        }
+
+        static Operation byKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation in workload mix: " + key);
+        }
+    }
+
+    private static final Set<String> OPTIONS = Set.of("workload", "base-url", "profiles", "concurrency",
+            "rate", "warmup", "duration", "courses", "lessons-per-course", "report-dir");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String BOUNDARY = "loadtest-boundary-7d1f3c";
+    private static final String TOTAL = "total";
+
+    private final String baseUrl;
+    private final Workload workload;
+    private final int courses;
+    private final int lessonsPerCourse;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final byte[] uploadPayload;
+    private final String editedContent;
+    private final AtomicLong uploads = new AtomicLong();
+    private String seekUrl;
+
+    LoadTestHarness(String baseUrl, Workload workload, int courses, int lessonsPerCourse) {
+        this.baseUrl = baseUrl;
+        this.workload = workload;
+        this.courses = courses;
+        this.lessonsPerCourse = lessonsPerCourse;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        List<Operation> mixed = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int sum = 0;
+        for (Map.Entry<String, Integer> entry : workload.getMix().entrySet()) {
+            Operation operation = Operation.byKey(entry.getKey());
+            if (entry.getValue() > 0) {
+                sum += entry.getValue();
+                mixed.add(operation);
+                weights.add(sum);
+            }
+        }
+        if (mixed.isEmpty()) {
+            throw new IllegalArgumentException("Workload " + workload.getName() + " has no operations");
+        }
+        this.operations = mixed.toArray(Operation[]::new);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+
+        this.uploadPayload = new byte[workload.getUploadBytes()];
+        ThreadLocalRandom.current().nextBytes(uploadPayload);
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 2000) {
+            content.append("<p>Edited under load. The quick brown fox jumps over the lazy dog.</p>\n");
+        }
+        this.editedContent = content.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String key = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (key != null && OPTIONS.contains(key)) {
+                options.put(key, arg.substring(equals + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        Workload workload = loadWorkload(options.getOrDefault("workload", "mixed"));
+        if (options.containsKey("concurrency")) {
+            workload.setConcurrency(new ArrayList<>());
+            for (String step : options.get("concurrency").split(",")) {
+                workload.getConcurrency().add(Integer.parseInt(step.trim()));
+            }
+        }
+        if (options.containsKey("rate")) {
+            workload.setRatePerSecond(Integer.parseInt(options.get("rate")));
+        }
+        if (options.containsKey("warmup")) {
+            workload.setWarmupSeconds(Integer.parseInt(options.get("warmup")));
+        }
+        if (options.containsKey("duration")) {
+            workload.setDurationSeconds(Integer.parseInt(options.get("duration")));
+        }
+
+        String baseUrl = options.get("base-url");
+        int courses = Integer.parseInt(options.getOrDefault("courses", "2000"));
+        int lessonsPerCourse = Integer.parseInt(options.getOrDefault("lessons-per-course", "10"));
+        ConfigurableApplicationContext application = null;
+        Path uploadRoot = null;
+        if (baseUrl == null) {
+            if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--server.port="))) {
+                applicationArgs.add("--server.port=0");
+            }
+            // Uploads of a run go to a directory of their own, removed afterwards, never the working tree
+            if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--uploads.root="))) {
+                uploadRoot = Files.createTempDirectory("newcourse-loadtest-uploads");
+                applicationArgs.add("--uploads.root=" + uploadRoot);
+            }
+            List<String> profiles = new ArrayList<>(List.of("loadtest"));
+            if (options.containsKey("profiles")) {
+                profiles.addAll(List.of(options.get("profiles").split(",")));
+            }
+            // Devtools would rerun main with only the application's arguments, dropping the options above
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            application = new SpringApplicationBuilder(NewCourseApplication.class)
+                    .profiles(profiles.toArray(String[]::new))
+                    .run(applicationArgs.toArray(String[]::new));
+            Environment environment = application.getEnvironment();
+            baseUrl = "http://localhost:" + environment.getProperty("local.server.port");
+            courses = environment.getProperty("loadtest.catalog.courses", Integer.class, 2000);
+            lessonsPerCourse = environment.getProperty("loadtest.catalog.lessons-per-course", Integer.class, 10);
+        }
+
+        try {
+            LoadTestHarness harness = new LoadTestHarness(baseUrl, workload, courses, lessonsPerCourse);
+            String startedAt = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            List<Map<String, Object>> steps = harness.run();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("workload", workload);
+            report.put("baseUrl", baseUrl);
+            report.put("startedAt", startedAt);
+            report.put("steps", steps);
+            Path reportFile = Path.of(options.getOrDefault("report-dir", "target/loadtest"))
+                    .resolve(workload.getName() + "-" + startedAt + ".json");
+            Files.createDirectories(reportFile.getParent());
+            harness.objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+            System.out.println("Report written to " + reportFile.toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (uploadRoot != null) {
+                deleteTree(uploadRoot);
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // A workload file path, or the name of one under loadtest/workloads on the classpath
+    static Workload loadWorkload(String nameOrPath) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path path = Path.of(nameOrPath);
+        if (Files.isRegularFile(path)) {
+            return objectMapper.readValue(path.toFile(), Workload.class);
+        }
+        try (InputStream in = LoadTestHarness.class.getClassLoader()
+                .getResourceAsStream("loadtest/workloads/" + nameOrPath + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No workload file or built-in workload named " + nameOrPath);
+            }
+            return objectMapper.readValue(in, Workload.class);
+        }
+    }
+
+    List<Map<String, Object>> run() throws Exception {
+        checkCatalog();
+        if (workload.getMix().getOrDefault(Operation.VIDEO_SEEK.key, 0) > 0) {
+            prepareSeekTarget();
+        }
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (int concurrency : workload.getConcurrency()) {
+            System.out.printf("%n%s: %d %s, %ds warm-up, %ds measured%n", workload.getName(), concurrency,
+                    workload.getRatePerSecond() > 0 ? "in flight at most, " + workload.getRatePerSecond() + " req/s" : "clients",
+                    workload.getWarmupSeconds(), workload.getDurationSeconds());
+            runPhase(concurrency, workload.getWarmupSeconds(), newStats());
+            Map<String, EndpointStats> stats = newStats();
+            long elapsedNanos = runPhase(concurrency, workload.getDurationSeconds(), stats);
+            Map<String, Object> step = report(concurrency, elapsedNanos, stats);
+            print(step);
+            steps.add(step);
+        }
+        return steps;
+    }
+
+    // Runs the mix for the given time and returns how long it actually took
+    private long runPhase(int concurrency, int seconds, Map<String, EndpointStats> stats) {
+        long started = System.nanoTime();
+        long deadline = started + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (workload.getRatePerSecond() > 0) {
+                // Open model: latency counts from when a request was due, not when it was sent,
+                // so a stalled server shows up in the percentiles instead of slowing the clients
+                long interval = 1_000_000_000L / workload.getRatePerSecond();
+                Semaphore inFlight = new Semaphore(concurrency);
+                for (long due = started; due < deadline; due += interval) {
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Operation operation = pick();
+                    if (!inFlight.tryAcquire()) {
+                        String error = "not sent, " + concurrency + " already in flight";
+                        stats.get(operation.key).failed(error);
+                        stats.get(TOTAL).failed(error);
+                        continue;
+                    }
+                    long dueAt = due;
+                    workers.submit(() -> {
+                        try {
+                            execute(operation, dueAt, stats);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } else {
+                for (int i = 0; i < concurrency; i++) {
+                    workers.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            execute(pick(), System.nanoTime(), stats);
+                            if (workload.getThinkTimeMs() > 0) {
+                                LockSupport.parkNanos(Duration.ofMillis(workload.getThinkTimeMs()).toNanos());
+                            }
+                        }
+                    });
+                }
+            }
+        }
+        return System.nanoTime() - started;
+    }
+
+    private void execute(Operation operation, long startedNanos, Map<String, EndpointStats> stats) {
+        String error;
+        try {
+            int status = send(operation);
+            if (operation == Operation.VIDEO_SEEK && status == 200) {
+                error = "HTTP 200, range ignored";
+            } else {
+                error = status >= 400 ? "HTTP " + status : null;
+            }
+        } catch (IOException e) {
+            error = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long micros = (System.nanoTime() - startedNanos) / 1000;
+        stats.get(operation.key).record(micros, error);
+        stats.get(TOTAL).record(micros, error);
+    }
+
+    private int send(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest request = switch (operation) {
+            case LIST -> {
+                String query = "?limit=" + workload.getListLimit();
+                if (random.nextInt(4) == 0) {
+                    query += "&category=" + CatalogSeeder.CATEGORIES[random.nextInt(CatalogSeeder.CATEGORIES.length)];
+                }
+                yield request("/api/courses" + query).GET().build();
+            }
+            case DETAIL -> request("/api/courses/" + randomCourse()).GET().build();
+            case CONTENT_EDIT -> {
+                String courseId = randomCourse();
+                // Lesson 1 holds the uploaded video, which an edit without videoUrl would release
+                int number = lessonsPerCourse > 1 ? 2 + random.nextInt(lessonsPerCourse - 1) : 1;
+                Map<String, Object> lesson = new LinkedHashMap<>();
+                lesson.put("title", "Lesson " + number + " edited " + random.nextInt(1_000_000));
+                lesson.put("contentType", "text");
+                lesson.put("lessonType", "PDF");
+                lesson.put("content", editedContent);
+                lesson.put("order", number);
+                lesson.put("duration", "10 minutes");
+                yield request("/api/courses/" + courseId + "/content/" + CatalogSeeder.lessonId(courseId, number))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(lesson)))
+                        .build();
+            }
+            case GENERATE_CONTENT -> request("/api/courses/" + randomCourse() + "/generate-content")
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case UPLOAD -> {
+                // A distinct first block per upload, so content-hash deduplication doesn't skip the write
+                byte[] unique = ByteBuffer.allocate(16).putLong(uploads.incrementAndGet()).putLong(System.nanoTime()).array();
+                yield upload(randomCourse(), unique, uploadPayload);
+            }
+            case VIDEO_SEEK -> {
+                long from = random.nextLong(Math.max(1, workload.getSeekFileBytes() - workload.getSeekChunkBytes()));
+                yield HttpRequest.newBuilder(URI.create(seekUrl)).timeout(REQUEST_TIMEOUT)
+                        .header("Range", "bytes=" + from + "-" + (from + workload.getSeekChunkBytes() - 1))
+                        .GET().build();
+            }
+        };
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Fails early when the target was seeded differently, rather than reporting only 404s
+    private void checkCatalog() throws IOException, InterruptedException {
+        String last = CatalogSeeder.courseId(courses - 1);
+        int status = client.send(request("/api/courses/" + last).GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET /api/courses/" + last + " returned " + status
+                    + "; start the target with the loadtest profile and the same loadtest.catalog settings");
+        }
+    }
+
+    // Uploads the video the seek operation reads, to the first lesson of the first course
+    private void prepareSeekTarget() throws IOException, InterruptedException {
+        byte[] video = new byte[workload.getSeekFileBytes()];
+        ThreadLocalRandom.current().nextBytes(video);
+        HttpResponse<String> response = client.send(upload(CatalogSeeder.courseId(0), new byte[0], video),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Uploading the seek target returned " + response.statusCode());
+        }
+        JsonNode lesson = objectMapper.readTree(response.body());
+        seekUrl = baseUrl + lesson.path("videoUrl").asText();
+    }
+
+    private HttpRequest upload(String courseId, byte[] prefix, byte[] payload) {
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"video\"; filename=\"loadtest.mp4\"\r\n"
+                + "Content-Type: video/mp4\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] body = new byte[head.length + prefix.length + payload.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(prefix, 0, body, head.length, prefix.length);
+        System.arraycopy(payload, 0, body, head.length + prefix.length, payload.length);
+        System.arraycopy(tail, 0, body, body.length - tail.length, tail.length);
+        return request("/api/courses/" + courseId + "/content/" + CatalogSeeder.lessonId(courseId, 1) + "/video")
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    // The first course is kept for the seek target, so other operations never replace its video
+    private String randomCourse() {
+        int index = courses > 1 ? 1 + ThreadLocalRandom.current().nextInt(courses - 1) : 0;
+        return CatalogSeeder.courseId(index);
+    }
+
+    private Operation pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private Map<String, EndpointStats> newStats() {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            stats.put(operation.key, new EndpointStats(operation.endpoint));
+        }
+        stats.put(TOTAL, new EndpointStats("all endpoints"));
+        return stats;
+    }
+
+    private Map<String, Object> report(int concurrency, long elapsedNanos, Map<String, EndpointStats> stats) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("concurrency", concurrency);
+        step.put("ratePerSecond", workload.getRatePerSecond());
+        step.put("seconds", Math.round(seconds * 10) / 10.0);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((key, endpointStats) -> endpoints.put(key, endpointStats.summary(seconds)));
+        step.put("endpoints", endpoints);
+        return step;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> step) {
+        String format = "%-58s %9s %9s %8s %9s %9s %9s %9s%n";
+        System.out.printf(format, "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Object value : ((Map<String, Object>) step.get("endpoints")).values()) {
+            Map<String, Object> summary = (Map<String, Object>) value;
+            System.out.printf(format, summary.get("endpoint"), summary.get("requests"), summary.get("throughput"),
+                    summary.get("errorRate") + "%", summary.get("p50Ms"), summary.get("p99Ms"),
+                    summary.get("p999Ms"), summary.get("maxMs"));
+            Map<String, Long> errors = (Map<String, Long>) summary.get("errors");
+            errors.forEach((kind, count) -> System.out.printf("    %s: %d%n", kind, count));
+        }
+    }
+
+    private static final class EndpointStats {
+        private final String endpoint;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(long micros, String error) {
+            latency.record(micros);
+            requests.increment();
+            if (error != null) {
+                errors.computeIfAbsent(error, kind -> new LongAdder()).increment();
+            }
+        }
+
+        // A request the client never sent still counts against the error rate
+        void failed(String error) {
+            requests.increment();
+            errors.computeIfAbsent(error, kind -> new LongAdder()).increment();
+        }
+
+        Map<String, Object> summary(double seconds) {
+            long count = requests.sum();
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((kind, adder) -> errorCounts.put(kind, adder.sum()));
+            long failed = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("endpoint", endpoint);
+            summary.put("requests", count);
+            summary.put("throughput", round(count / seconds));
+            summary.put("errorRate", count == 0 ? 0.0 : round(100.0 * failed / count));
+            summary.put("p50Ms", millis(latency.percentile(0.50)));
+            summary.put("p99Ms", millis(latency.percentile(0.99)));
+            summary.put("p999Ms", millis(latency.percentile(0.999)));
+            summary.put("maxMs", millis(latency.max()));
+            summary.put("errors", errorCounts);
+            return summary;
+        }
+
+        private static double millis(long micros) {
+            return round(micros / 1000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.newCourse.loadtest;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Replaces the Atlas client with one connected to an in-memory MongoDB stand-in running in
+ * this JVM, or to loadtest.mongo.uri when that is set (a local mongod, for numbers closer to
+ * production). The pool settings of MongoPoolConfig still apply.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestMongoConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestMongoConfig.class);
+
+    @Value("${loadtest.mongo.uri:}")
+    private String mongoUri;
+
+    private MongoServer standIn;
+
+    @Bean
+    public MongoClient mongoClient(ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers) {
+        String uri = mongoUri;
+        if (uri.isBlank()) {
+            standIn = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = standIn.bind();
+            uri = "mongodb://" + address.getHostString() + ":" + address.getPort();
+            log.info("In-memory MongoDB stand-in listening on {}", uri);
+        }
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        // Last, because Boot's own customizer applies spring.data.mongodb.uri (localhost:27017)
+        builder.applyConnectionString(new ConnectionString(uri));
+        return MongoClients.create(builder.build());
+    }
+
+    // Runs after the client bean is closed, since the client depends on this configuration
+    @PreDestroy
+    public void stopStandIn() {
+        if (standIn != null) {
+            standIn.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.newCourse.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// A scripted workload, read from loadtest/workloads/{name}.json; see docs/load-testing.md
+@Data
+public class Workload {
+    private String name;
+    private String description;
+    // Weight of each operation in the mix, by LoadTestHarness.Operation key
+    private Map<String, Integer> mix = new LinkedHashMap<>();
+    // One measured step per entry: concurrent clients, or the in-flight cap when ratePerSecond is set
+    private List<Integer> concurrency = new ArrayList<>(List.of(50));
+    // Above zero, requests start at this rate whatever the latency (open model)
+    private int ratePerSecond;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private int thinkTimeMs;
+    private int listLimit = 20;
+    private int uploadBytes = 262144;
+    private int seekFileBytes = 67108864;
+    private int seekChunkBytes = 1048576;
+}
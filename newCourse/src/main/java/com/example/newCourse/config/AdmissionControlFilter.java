@@ -0,0 +1,124 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.service.AdmissionControl;
+import com.example.newCourse.service.AdmissionLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Puts the expensive endpoints behind their AdmissionControl limiter. It runs before the
+ * DispatcherServlet, so a rejected upload is turned away before its multipart body is read
+ * and spooled. A request over its class's limit and queue gets 503 with Retry-After at once.
+ * Runs inside RequestMetricsFilter, so rejections are timed and counted under their route.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final List<Route> ROUTES = List.of(
+            new Route("POST", "/api/courses", AdmissionControl.UPLOADS, true),
+            new Route("POST", "/api/courses/{courseId}/content/{contentId}/video", AdmissionControl.UPLOADS, false),
+            new Route("POST", "/api/courses/{courseId}/content/{contentId}/resource", AdmissionControl.UPLOADS, false),
+            new Route("PUT", "/api/uploads/{uploadId}/chunks/{index}", AdmissionControl.UPLOADS, false),
+            new Route("POST", "/api/uploads/{uploadId}/complete", AdmissionControl.UPLOADS, false),
+            new Route("POST", "/api/courses/{courseId}/generate-content", AdmissionControl.GENERATION, false),
+            new Route("POST", "/api/courses/import", AdmissionControl.IMPORTS, false));
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Route route = match(request);
+        AdmissionLimiter limiter = route == null ? null : admissionControl.limiter(route.limiter);
+        if (limiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long started = System.nanoTime();
+        AdmissionLimiter.Outcome outcome;
+        try {
+            outcome = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = AdmissionLimiter.Outcome.TIMED_OUT;
+        }
+        long admitted = System.nanoTime();
+        admissionControl.recordOutcome(limiter, outcome, admitted - started);
+        if (outcome != AdmissionLimiter.Outcome.ADMITTED) {
+            reject(request, response, route);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - admitted);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Route route) {
+        // The handler never runs, so the route is recorded here for RequestMetricsFilter
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route.pattern.getPatternString());
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(admissionControl.getRetryAfterSeconds()));
+        // Whether or not CorsFilter has run yet, browsers must be able to read the rejection
+        if (request.getHeader(HttpHeaders.ORIGIN) != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS,
+                    HttpHeaders.RETRY_AFTER + ", " + RequestMetricsFilter.REQUEST_ID_HEADER);
+        }
+    }
+
+    private static Route match(HttpServletRequest request) {
+        PathContainer path = null;
+        for (Route route : ROUTES) {
+            if (!route.method.equals(request.getMethod())) {
+                continue;
+            }
+            if (route.multipartOnly && (request.getContentType() == null
+                    || !request.getContentType().toLowerCase().startsWith("multipart/"))) {
+                continue;
+            }
+            if (path == null) {
+                path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+            }
+            if (route.pattern.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static final class Route {
+        final String method;
+        final PathPattern pattern;
+        final String limiter;
+        final boolean multipartOnly; // POST /api/courses creates plain courses from JSON too
+
+        Route(String method, String pattern, String limiter, boolean multipartOnly) {
+            this.method = method;
+            this.pattern = PathPatternParser.defaultInstance.parse(pattern);
+            this.limiter = limiter;
+            this.multipartOnly = multipartOnly;
+        }
+    }
+}
@@ -17,7 +17,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins("http://localhost:5173", "http://localhost:3000", "*") // Explicitly list common dev URLs
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH") 
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "X-Next-Cursor", "ETag", "X-Request-Id", "Retry-After")
                 .allowCredentials(false); // Change to true if using credentials
     }
 
@@ -37,6 +37,10 @@ public class CorsConfig implements WebMvcConfigurer {
         
         config.addAllowedMethod("*");
         config.addAllowedHeader("*");
+        config.addExposedHeader("X-Next-Cursor");
+        config.addExposedHeader("ETag");
+        config.addExposedHeader("X-Request-Id");
+        config.addExposedHeader("Retry-After");
         config.setAllowCredentials(false); // Set to true if using credentials
         
         source.registerCorsConfiguration("/api/**", config);
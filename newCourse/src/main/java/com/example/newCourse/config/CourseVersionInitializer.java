@@ -0,0 +1,31 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// Courses saved before Course.version existed have no version field; give them one at startup
+@Component
+public class CourseVersionInitializer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseVersionInitializer.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long updated = courseRepository.initializeMissingVersions();
+            if (updated > 0) {
+                log.info("Initialized version on {} existing courses", updated);
+            }
+        } catch (Exception e) {
+            log.warn("Could not initialize course versions: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.LessonBody;
+import com.example.newCourse.service.CourseRevisions;
+import com.example.newCourse.service.LessonBodyStore;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Moves lesson bodies over lessons.body-offload-chars that are still stored inside their
+ * course document to lesson_bodies (see LessonBodyStore). Those are bodies written before
+ * offloading existed or while the threshold was higher. Each course is switched over with one
+ * update conditioned on its version; a course edited meanwhile keeps its inline bodies until
+ * the next startup. Safe to run on every startup.
+ */
+@Component
+public class LessonBodyMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LessonBodyMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    @Autowired
+    private CourseRevisions revisions;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long moved = migrateInlineBodies();
+            if (moved > 0) {
+                log.info("Moved {} long lesson bodies out of their course documents", moved);
+            }
+        } catch (Exception e) {
+            log.warn("Could not move long lesson bodies: {}", e.getMessage());
+        }
+    }
+
+    private long migrateInlineBodies() {
+        int minChars = lessonBodyStore.offloadChars();
+        // Only courses with a long inline body are sent back, and only their lesson ids and bodies
+        Document longLessons = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$contentList", List.of())))
+                .append("as", "lesson")
+                .append("cond", new Document("$gt", List.of(
+                        new Document("$strLenCP", new Document("$ifNull", List.of("$$lesson.content", ""))), minChars))));
+        Query query = new BasicQuery(
+                new Document("$expr", new Document("$gt", List.of(new Document("$size", longLessons), 0))),
+                new Document("version", 1).append("contentList._id", 1).append("contentList.content", 1));
+        long moved = 0;
+        try (Stream<Document> courses = mongoTemplate.stream(query, Document.class, "courses")) {
+            for (Document course : (Iterable<Document>) courses::iterator) {
+                moved += migrate(course, minChars);
+            }
+        }
+        return moved;
+    }
+
+    private int migrate(Document course, int minChars) {
+        String courseId = course.get("_id").toString();
+        Map<String, String> contentByLesson = new LinkedHashMap<>();
+        // Lesson ids as stored, for the array filters
+        Map<String, Object> storedIds = new HashMap<>();
+        for (Document lesson : course.getList("contentList", Document.class, List.of())) {
+            Object lessonId = lesson.get("_id");
+            // A lesson without an id can't be targeted by an update, so it stays inline
+            if (lessonId != null && lesson.get("content") instanceof String content && content.length() > minChars) {
+                contentByLesson.put(lessonId.toString(), content);
+                storedIds.put(lessonId.toString(), lessonId);
+            }
+        }
+        if (contentByLesson.isEmpty()) {
+            return 0;
+        }
+        List<LessonBody> bodies = lessonBodyStore.store(courseId, contentByLesson);
+
+        Object version = course.get("version");
+        Query target = Query.query(Criteria.where("_id").is(course.get("_id")));
+        target.addCriteria(version == null ? Criteria.where("version").exists(false) : Criteria.where("version").is(version));
+        Update update = new Update().inc("version", 1);
+        for (int i = 0; i < bodies.size(); i++) {
+            LessonBody body = bodies.get(i);
+            String lesson = "contentList.$[lesson" + i + "]";
+            update.unset(lesson + ".content")
+                    .set(lesson + ".contentRef", body.getId())
+                    .set(lesson + ".contentLength", body.getLength())
+                    .filterArray(Criteria.where("lesson" + i + "._id").is(storedIds.get(body.getLessonId())));
+        }
+        boolean updated = revisions.write(revision -> mongoTemplate.updateFirst(target, update.set("revision", revision),
+                "courses").getMatchedCount() > 0);
+        if (!updated) {
+            lessonBodyStore.delete(bodies.stream().map(LessonBody::getId).toList());
+            return 0;
+        }
+        eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+        return bodies.size();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.service.MetricsRegistry;
+import com.example.newCourse.service.MongoCommandMetrics;
+import com.example.newCourse.service.RequestTrace;
+import com.example.newCourse.service.SlowQueryExplainer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Hooks the metrics (MetricsRegistry, RequestTrace) into the libraries the hot paths go
+ * through: the MongoDB driver's command and pool listeners, every Spring Data repository
+ * proxy, and Jackson's request and response conversion. SlowQueryExplainer rides on the same
+ * command listener hook. RequestMetricsFilter times the
+ * requests themselves.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoMetricsCustomizer(MongoCommandMetrics mongoCommandMetrics,
+                                                                       SlowQueryExplainer slowQueryExplainer) {
+        return builder -> builder
+                .addCommandListener(mongoCommandMetrics)
+                .addCommandListener(slowQueryExplainer)
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(mongoCommandMetrics));
+    }
+
+    // Static so that registering it doesn't create this configuration before the repositories
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MetricsRegistry> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factory) {
+                    factory.addRepositoryFactoryCustomizer(repositoryFactory ->
+                            repositoryFactory.addRepositoryProxyPostProcessor((proxy, information) ->
+                                    proxy.addAdvice(new RepositoryMetricsInterceptor(
+                                            information.getRepositoryInterface().getSimpleName(), metrics))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Takes the place of Spring Boot's converter, configured with the same ObjectMapper
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2HttpMessageConverter timedJacksonConverter(ObjectMapper objectMapper, MetricsRegistry metrics) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+                long started = System.nanoTime();
+                try {
+                    return super.read(type, contextClass, inputMessage);
+                } finally {
+                    record(metrics, "read", System.nanoTime() - started);
+                }
+            }
+
+            // Includes writing to the response buffer, and to the socket once that buffer fills
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                long started = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    record(metrics, "write", System.nanoTime() - started);
+                }
+            }
+        };
+    }
+
+    private static void record(MetricsRegistry metrics, String direction, long nanos) {
+        metrics.timer("json_seconds", "Jackson reading request bodies and writing responses", "direction", direction)
+                .recordNanos(nanos);
+        RequestTrace.record(RequestTrace.Phase.JSON, nanos);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.repository.CourseRepository;
+import com.example.newCourse.repository.ProgressRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the course and progress indexes at startup and checks the server lists each of
+ * them. A missing index leaves the application working but scanning whole collections, so by
+ * default it is logged; with mongodb.indexes.required=true startup fails instead.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1) // Before the migrations, which query by the indexed fields
+public class MongoIndexInitializer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ProgressRepository progressRepository;
+
+    @Value("${mongodb.indexes.required:false}")
+    private boolean required;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> missing = new ArrayList<>();
+        try {
+            missing.addAll(courseRepository.ensureIndexes());
+            missing.addAll(progressRepository.ensureIndexes());
+        } catch (Exception e) {
+            missing.add("could not check indexes: " + e.getMessage());
+        }
+        if (missing.isEmpty()) {
+            log.info("Verified course and progress indexes");
+        } else if (required) {
+            throw new IllegalStateException("Missing MongoDB indexes: " + missing);
+        } else {
+            log.warn("Missing MongoDB indexes, queries that need them will scan whole collections: {}", missing);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.newCourse.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.concurrent.TimeUnit;
+
+// Sizes the MongoDB driver's connection pool. With a virtual thread per request the pool, not
+// Tomcat's worker pool, bounds how many requests talk to Atlas at once (application-virtual.properties).
+@Configuration
+public class MongoPoolConfig {
+
+    @Value("${mongodb.pool.max-size:100}")
+    private int maxSize;
+
+    @Value("${mongodb.pool.max-wait-ms:120000}")
+    private long maxWaitMs;
+
+    // Runs after the connection string is applied, so these win over pool options in the URI
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer() {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.repository.ProgressRepository;
+import com.example.newCourse.service.ProgressIngestionService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Moves progress that older versions embedded in course documents (Course.progressList)
+ * into the progress collection, and drops the per-lesson "completed" flag, which was
+ * shared by all students and has no per-student meaning to carry over. Safe to run on
+ * every startup: migrated entries never overwrite progress recorded since.
+ * Free-text statuses of old clients are mapped onto the three current ones. Entries that
+ * still cannot be stored are logged and left in the course's progressList.
+ */
+@Component
+public class ProgressMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressMigration.class);
+    private static final int BATCH_SIZE = 500;
+    // Legacy statuses, lower-cased with everything but letters removed
+    private static final Map<String, String> LEGACY_STATUSES = Map.ofEntries(
+            Map.entry("notstarted", "Not Started"), Map.entry("pending", "Not Started"),
+            Map.entry("todo", "Not Started"),
+            Map.entry("inprogress", "In Progress"), Map.entry("started", "In Progress"),
+            Map.entry("ongoing", "In Progress"),
+            Map.entry("completed", "Completed"), Map.entry("complete", "Completed"),
+            Map.entry("done", "Completed"), Map.entry("finished", "Completed"));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProgressRepository progressRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            Map<String, Long> counts = migrateProgressLists();
+            if (counts.get("entries") > 0) {
+                log.info("Moved {} embedded progress entries to the progress collection, {} courses fully",
+                        counts.get("entries"), counts.get("courses"));
+            }
+            if (counts.get("skippedEntries") > 0) {
+                log.warn("Left {} embedded progress entries of {} courses in place, see above",
+                        counts.get("skippedEntries"), counts.get("coursesWithSkipped"));
+            }
+            long cleared = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("contentList.completed").exists(true)),
+                    new Update().unset("contentList.$[].completed"), "courses").getModifiedCount();
+            if (cleared > 0) {
+                log.info("Removed the shared lesson completed flag from {} courses", cleared);
+            }
+        } catch (Exception e) {
+            log.warn("Could not migrate course progress: {}", e.getMessage());
+        }
+    }
+
+    // Counts of courses fully migrated, entries migrated, and entries skipped and the courses keeping them
+    Map<String, Long> migrateProgressLists() {
+        Query query = Query.query(Criteria.where("progressList").exists(true));
+        query.fields().include("progressList");
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("courses", 0L);
+        counts.put("entries", 0L);
+        counts.put("skippedEntries", 0L);
+        counts.put("coursesWithSkipped", 0L);
+        List<Object> courseIds = new ArrayList<>(BATCH_SIZE);
+        Map<Object, List<Document>> skipped = new LinkedHashMap<>();
+        Map<String, StudentProgress> progress = new LinkedHashMap<>();
+        Instant now = Instant.now();
+        try (Stream<Document> courses = mongoTemplate.stream(query, Document.class, "courses")) {
+            for (Document course : (Iterable<Document>) courses::iterator) {
+                Object id = course.get("_id");
+                String courseId = id.toString();
+                List<Document> entries = course.getList("progressList", Document.class, List.of());
+                List<Document> unmigrated = new ArrayList<>();
+                for (Document entry : entries) {
+                    String student = entry.getString("studentName");
+                    String status = canonicalStatus(entry.get("status"));
+                    // '|' separates the parts of the progress id
+                    if (student == null || student.isBlank() || student.contains("|") || courseId.contains("|")
+                            || status == null) {
+                        unmigrated.add(entry);
+                        continue;
+                    }
+                    StudentProgress migratedEntry = new StudentProgress();
+                    migratedEntry.setId(ProgressIngestionService.progressId(courseId, student, null));
+                    migratedEntry.setCourseId(courseId);
+                    migratedEntry.setStudentId(student);
+                    migratedEntry.setStatus(status);
+                    migratedEntry.setUpdatedAt(now);
+                    progress.put(migratedEntry.getId(), migratedEntry);
+                    counts.merge("entries", 1L, Long::sum);
+                }
+                if (unmigrated.isEmpty()) {
+                    courseIds.add(id);
+                } else {
+                    log.warn("Course {} keeps {} progress entries that could not be migrated: {}",
+                            courseId, unmigrated.size(), unmigrated);
+                    skipped.put(id, unmigrated);
+                    counts.merge("skippedEntries", (long) unmigrated.size(), Long::sum);
+                    counts.merge("coursesWithSkipped", 1L, Long::sum);
+                }
+                if (courseIds.size() + skipped.size() == BATCH_SIZE) {
+                    counts.merge("courses", (long) flush(courseIds, skipped, progress), Long::sum);
+                }
+            }
+            counts.merge("courses", (long) flush(courseIds, skipped, progress), Long::sum);
+        }
+        return counts;
+    }
+
+    // The current status a legacy one stands for, or null if there is none
+    static String canonicalStatus(Object status) {
+        if (!(status instanceof String text)) {
+            return null;
+        }
+        if (ProgressIngestionService.STATUSES.contains(text)) {
+            return text;
+        }
+        return LEGACY_STATUSES.get(text.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", ""));
+    }
+
+    // Progress is written before the embedded list is removed, so an interrupted run just repeats.
+    // Courses with skipped entries keep just those, so nothing is lost and later runs only report them.
+    private int flush(List<Object> courseIds, Map<Object, List<Document>> skipped, Map<String, StudentProgress> progress) {
+        if (courseIds.isEmpty() && skipped.isEmpty()) {
+            return 0;
+        }
+        progressRepository.upsertAll(progress.values(), true);
+        if (!courseIds.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(courseIds)),
+                    new Update().unset("progressList"), "courses");
+        }
+        skipped.forEach((id, entries) -> mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                new Update().set("progressList", entries), "courses"));
+        int migrated = courseIds.size();
+        courseIds.clear();
+        skipped.clear();
+        progress.clear();
+        return migrated;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.service.MetricsRegistry;
+import com.example.newCourse.service.MongoCommandMetrics;
+import com.example.newCourse.service.RequestTrace;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Times each repository method and records the document bytes its MongoDB commands read and wrote
+final class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final String repository;
+    // Looked up lazily: repositories are created before most beans, the registry included
+    private final ObjectProvider<MetricsRegistry> metrics;
+
+    RepositoryMetricsInterceptor(String repository, ObjectProvider<MetricsRegistry> metrics) {
+        this.repository = repository;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        long readBefore = MongoCommandMetrics.bytesRead();
+        long writtenBefore = MongoCommandMetrics.bytesWritten();
+        long started = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            long read = MongoCommandMetrics.bytesRead() - readBefore;
+            long written = MongoCommandMetrics.bytesWritten() - writtenBefore;
+            String method = invocation.getMethod().getName();
+            MetricsRegistry registry = metrics.getObject();
+            registry.timer("repository_call_seconds", "Repository calls, including MongoDB round trips and mapping",
+                    "repository", repository, "method", method).recordNanos(elapsed);
+            if (read > 0) {
+                registry.histogram("repository_document_bytes", "Document bytes read or written by one repository call",
+                        MetricsRegistry.SIZE_BUCKETS, "repository", repository, "method", method, "direction", "read").record(read);
+            }
+            if (written > 0) {
+                registry.histogram("repository_document_bytes", "Document bytes read or written by one repository call",
+                        MetricsRegistry.SIZE_BUCKETS, "repository", repository, "method", method, "direction", "written").record(written);
+            }
+            RequestTrace.record(RequestTrace.Phase.REPOSITORY, elapsed);
+            RequestTrace.span(repository + "." + method, elapsed,
+                    (read > 0 ? read + " B read " : "") + (written > 0 ? written + " B written" : ""));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.service.MetricsRegistry;
+import com.example.newCourse.service.RequestTrace;
+import com.example.newCourse.service.SlowRequestLog;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Times every request by method, route template and status, and traces where its time went
+ * (RequestTrace). Requests over the slow threshold go to the SlowRequestLog. Each response
+ * carries an X-Request-Id, taken from the request when the client sent a usable one, so a
+ * slow-request entry can be matched to client and proxy logs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    private static final Pattern USABLE_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !USABLE_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        RequestTrace trace = RequestTrace.begin(requestId);
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            RequestTrace.end();
+            long elapsed = System.nanoTime() - started;
+            // An exception escaping the chain becomes a 500 on the error dispatch
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            // The route template, not the path, so ids don't create a metric per course
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern == null ? "unmatched" : pattern.toString();
+            metrics.timer("http_server_requests_seconds", "Requests by method, route and status",
+                    "method", request.getMethod(), "route", route, "status", Integer.toString(status)).recordNanos(elapsed);
+            if (slowRequestLog.isSlow(elapsed)) {
+                slowRequestLog.record(request.getMethod(), request.getRequestURI(), route, status, trace, elapsed);
+            }
+        }
+    }
+}
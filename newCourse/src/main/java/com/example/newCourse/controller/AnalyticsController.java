@@ -0,0 +1,42 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.CourseAnalytics;
+import com.example.newCourse.service.CompletionAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    @Autowired
+    private CompletionAnalyticsService completionAnalyticsService;
+
+    // Completion and drop-off per lesson, served from the running counters
+    @GetMapping("/courses/{courseId}")
+    public ResponseEntity<CourseAnalytics> getCourseAnalytics(@PathVariable String courseId) {
+        return completionAnalyticsService.getCourseAnalytics(courseId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Recounts the course from the progress collection and compares it with the running counters
+    @GetMapping("/courses/{courseId}/verify")
+    public Map<String, Object> verifyCourse(@PathVariable String courseId) {
+        return completionAnalyticsService.verify(courseId);
+    }
+
+    @PostMapping("/recompute")
+    public Map<String, Object> recomputeAll() {
+        return completionAnalyticsService.recomputeAll();
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return completionAnalyticsService.stats();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.service.CourseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private CourseCache courseCache;
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return courseCache.stats();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        courseCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
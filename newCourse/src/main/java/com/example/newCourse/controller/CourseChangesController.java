@@ -0,0 +1,71 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.CourseChanges;
+import com.example.newCourse.service.CourseChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+// Catalog deltas by revision, so clients keep their course list current without reloading it;
+// see CourseChangeFeed. Served by the servlet stack only.
+@RestController
+@RequestMapping("/api/courses/changes")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CourseChangesController {
+
+    private static final int DEFAULT_LIMIT = 500;
+
+    @Autowired
+    private CourseChangeFeed courseChangeFeed;
+
+    // Courses written and deleted after "since" (0 for the whole catalog); while hasMore is
+    // set, ask again with since set to the returned revision. 410 when "since" is older than
+    // the tombstones kept, and the catalog has to be loaded again.
+    @GetMapping
+    public CourseChanges getChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, CourseChangeFeed.MAX_LIMIT));
+        return courseChangeFeed.changes(Math.max(0, since), pageSize);
+    }
+
+    // Server-sent "changes" events as writes happen. A reconnecting EventSource resumes after
+    // the Last-Event-ID it sends; without one the stream starts at "since", or at the current revision.
+    // 410 like getChanges for a revision that old.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long resumeAfter = parseRevision(lastEventId);
+        SseEmitter emitter = courseChangeFeed.subscribe(resumeAfter != null ? resumeAfter
+                : since == null ? null : Math.max(0, since));
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Subscribers, deltas broadcast, events sent and subscribers dropped for falling behind
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return courseChangeFeed.stats();
+    }
+
+    private static Long parseRevision(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,48 +1,104 @@
 package com.example.newCourse.controller;
 
+import com.example.newCourse.event.CourseChangedEvent;
 import com.example.newCourse.model.Course;
 import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseSummary;
 import com.example.newCourse.repository.CourseRepository;
+import com.example.newCourse.service.BlobStorageService;
 import com.example.newCourse.service.ContentGeneratorService;
+import com.example.newCourse.service.CourseCache;
+import com.example.newCourse.service.ImageVariantService;
+import com.example.newCourse.service.LessonBodyStore;
+import com.example.newCourse.service.ProgressIngestionService;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.util.StringUtils;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.UUID;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/courses")
 @CrossOrigin(origins = "*") 
+// Replaced by ReactiveCourseController when the app runs on WebFlux (the "reactive" profile)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CourseController {
 
+    private static final Logger log = LoggerFactory.getLogger(CourseController.class);
+
     @Autowired
     private CourseRepository courseRepository;
 
     @Autowired
     private ContentGeneratorService contentGeneratorService;
 
+    @Autowired
+    private CourseCache courseCache;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private ProgressIngestionService progressIngestionService;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Returns one keyset page of course summaries; full documents come from getCourseById.
+    // When more results exist, the id to pass as the next "cursor" is sent in X-Next-Cursor.
     @GetMapping
-    public List<Course> getAllCourses() {
-        return courseRepository.findAll();
+    public ResponseEntity<List<CourseSummary>> getAllCourses(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "level", required = false) String level,
+            @RequestParam(value = "tags", required = false) List<String> tags) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to learn whether another page follows
+        List<CourseSummary> summaries = courseRepository.findSummaries(category, level, tags, cursor, pageSize + 1);
+        if (summaries.size() <= pageSize) {
+            return ResponseEntity.ok(summaries);
+        }
+        List<CourseSummary> page = summaries.subList(0, pageSize);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.get(pageSize - 1).getId())
+                .body(page);
     }
     
-    // Add this new endpoint to get a course by ID
+    // Served from the course cache; a client revalidating with If-None-Match gets a 304
     @GetMapping("/{id}")
     public ResponseEntity<Course> getCourseById(@PathVariable String id) {
-        Optional<Course> courseOptional = courseRepository.findById(id);
+        Optional<Course> courseOptional = courseCache.findById(id);
         if (courseOptional.isPresent()) {
-            return ResponseEntity.ok(courseOptional.get());
+            return cacheable(courseOptional.get()).body(courseOptional.get());
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -50,27 +106,45 @@ public class CourseController {
 
     @PostMapping
     public Course createCourse(@RequestBody Course course) {
-        return courseRepository.save(course);
+        course.setVersion(null);
+        List<CourseContent> lessons = course.getContentList() == null ? List.of() : course.getContentList();
+        if (course.getId() == null && !lessons.isEmpty()) {
+            // Offloaded lesson bodies record their course, so it needs its id before it is saved
+            course.setId(new ObjectId().toHexString());
+        }
+        // The posted course may point at files that are already stored
+        Course savedCourse = writeLessons(course.getId(), lessons, BlobStorageService.paths(course),
+                () -> courseRepository.save(course), Objects::nonNull);
+        eventPublisher.publishEvent(CourseChangedEvent.saved(savedCourse));
+        return savedCourse;
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Course> updateCourse(@PathVariable String id, @RequestBody Course updatedCourse) {
-        Optional<Course> courseOptional = courseRepository.findById(id);
-        if (courseOptional.isPresent()) {
-            Course course = courseOptional.get();
-            course.setTitle(updatedCourse.getTitle());
-            course.setDescription(updatedCourse.getDescription());
-            course.setProgressList(updatedCourse.getProgressList());
-            return ResponseEntity.ok(courseRepository.save(course));
-        } else {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    public ResponseEntity<Course> updateCourse(
+            @PathVariable String id,
+            @RequestBody Course updatedCourse,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // Only the title and description change, so concurrent lesson writes are kept
+        Long expectedVersion = parseVersion(ifMatch);
+        Course savedCourse = courseRepository.updateDetails(
+                id, updatedCourse.getTitle(), updatedCourse.getDescription(), expectedVersion);
+        if (savedCourse != null) {
+            eventPublisher.publishEvent(CourseChangedEvent.saved(savedCourse));
+            return ResponseEntity.ok(savedCourse);
+        }
+        if (expectedVersion != null && courseRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteCourse(@PathVariable String id) {
-        if (courseRepository.existsById(id)) {
-            courseRepository.deleteById(id);
+        Course removed = courseRepository.removeCourse(id);
+        if (removed != null) {
+            eventPublisher.publishEvent(CourseChangedEvent.deleted(id));
+            blobStorageService.releaseAll(removed);
+            lessonBodyStore.releaseAll(removed);
             return ResponseEntity.ok("Course deleted successfully");
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Course not found");
@@ -79,74 +153,90 @@ public class CourseController {
 
     @GetMapping("/{courseId}/content")
     public ResponseEntity<List<CourseContent>> getCourseContent(@PathVariable String courseId) {
-        Optional<Course> courseOptional = courseRepository.findById(courseId);
+        Optional<Course> courseOptional = courseCache.findById(courseId);
         if (courseOptional.isPresent()) {
-            return ResponseEntity.ok(courseOptional.get().getContentList());
+            return cacheable(courseOptional.get()).body(courseOptional.get().getContentList());
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
+    // The lesson with its body, which for a long lesson is stored outside the course document
+    // and left out of the course and content list responses (see LessonBodyStore)
+    @GetMapping("/{courseId}/content/{contentId}")
+    public ResponseEntity<CourseContent> getLesson(@PathVariable String courseId, @PathVariable String contentId) {
+        Optional<Course> courseOptional = courseCache.findById(courseId);
+        Optional<CourseContent> lesson = courseOptional.flatMap(course -> findLesson(course, contentId));
+        if (lesson.isPresent()) {
+            return cacheable(courseOptional.get()).body(lessonBodyStore.withBody(lesson.get()));
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // Lesson mutations are applied as single atomic updates ($push, $set on contentList.$[elem],
+    // $pull) so concurrent edits to different lessons never overwrite each other. Sending
+    // If-Match with the course version turns on optimistic locking for the whole course.
     @PostMapping("/{courseId}/content")
     public ResponseEntity<CourseContent> addCourseContent(
             @PathVariable String courseId,
-            @RequestBody CourseContent content) {
-        Optional<Course> courseOptional = courseRepository.findById(courseId);
-        if (courseOptional.isPresent()) {
-            Course course = courseOptional.get();
-            if (course.getContentList() == null) {
-                course.setContentList(new ArrayList<>());
-            }
-            content.setId(UUID.randomUUID().toString());
-            course.getContentList().add(content);
-            courseRepository.save(course);
+            @RequestBody CourseContent content,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = parseVersion(ifMatch);
+        content.setId(UUID.randomUUID().toString());
+        boolean added = writeLessons(courseId, List.of(content), BlobStorageService.paths(content),
+                () -> courseRepository.pushContent(courseId, List.of(content), expectedVersion), Boolean::booleanValue);
+        eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+        if (added) {
             return ResponseEntity.status(HttpStatus.CREATED).body(content);
-        } else {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        if (expectedVersion != null && courseRepository.existsById(courseId)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
     @PutMapping("/{courseId}/content/{contentId}")
     public ResponseEntity<CourseContent> updateCourseContent(
             @PathVariable String courseId,
             @PathVariable String contentId,
-            @RequestBody CourseContent updatedContent) {
-        Optional<Course> courseOptional = courseRepository.findById(courseId);
-        if (courseOptional.isPresent()) {
-            Course course = courseOptional.get();
-            if (course.getContentList() != null) {
-                for (int i = 0; i < course.getContentList().size(); i++) {
-                    if (course.getContentList().get(i).getId().equals(contentId)) {
-                        updatedContent.setId(contentId);
-                        course.getContentList().set(i, updatedContent);
-                        courseRepository.save(course);
-                        return ResponseEntity.ok(updatedContent);
-                    }
-                }
-            }
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } else {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            @RequestBody CourseContent updatedContent,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = parseVersion(ifMatch);
+        updatedContent.setId(contentId);
+        CourseContent previous = writeLessons(courseId, List.of(updatedContent), BlobStorageService.paths(updatedContent),
+                () -> courseRepository.replaceContent(courseId, updatedContent, expectedVersion), Objects::nonNull);
+        eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+        if (previous != null) {
+            // The new files were retained before the write; unchanged ones keep their count
+            blobStorageService.releaseAll(previous);
+            lessonBodyStore.releaseReplaced(previous, updatedContent);
+            return ResponseEntity.ok(updatedContent);
         }
+        if (expectedVersion != null && courseRepository.contentExists(courseId, contentId)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
     @DeleteMapping("/{courseId}/content/{contentId}")
     public ResponseEntity<Void> deleteCourseContent(
             @PathVariable String courseId,
-            @PathVariable String contentId) {
-        Optional<Course> courseOptional = courseRepository.findById(courseId);
-        if (courseOptional.isPresent()) {
-            Course course = courseOptional.get();
-            if (course.getContentList() != null) {
-                if (course.getContentList().removeIf(content -> content.getId().equals(contentId))) {
-                    courseRepository.save(course);
-                    return ResponseEntity.noContent().build();
-                }
-            }
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } else {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            @PathVariable String contentId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = parseVersion(ifMatch);
+        CourseContent removed = courseRepository.pullContent(courseId, contentId, expectedVersion);
+        eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+        if (removed != null) {
+            blobStorageService.releaseAll(removed);
+            lessonBodyStore.release(removed);
+            progressIngestionService.lessonRemoved(courseId, contentId);
+            return ResponseEntity.noContent().build();
+        }
+        if (expectedVersion != null && courseRepository.contentExists(courseId, contentId)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
     @PostMapping("/{courseId}/generate-content")
@@ -159,12 +249,13 @@ public class CourseController {
             List<CourseContent> generatedContent = contentGeneratorService
                     .generateContentForCourse(course.getTitle(), course.getCategory(), course.getLevel());
             
-            // Add the generated content to the course
-            if (course.getContentList() == null) {
-                course.setContentList(new ArrayList<>());
+            // Append the generated lessons without rewriting the rest of the course
+            boolean added = writeLessons(courseId, generatedContent, List.of(),
+                    () -> courseRepository.pushContent(courseId, generatedContent, null), Boolean::booleanValue);
+            eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+            if (!added) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
-            course.getContentList().addAll(generatedContent);
-            courseRepository.save(course);
             
             return ResponseEntity.ok(generatedContent);
         } else {
@@ -200,35 +291,24 @@ public class CourseController {
             // Handle image upload
             if (imageFile != null && !imageFile.isEmpty()) {
                 String fileName = StringUtils.cleanPath(imageFile.getOriginalFilename());
-                // Generate unique filename to prevent collisions
-                String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-                
-                // Save file to disk
-                Path uploadDir = Paths.get("uploads");
-                if (!Files.exists(uploadDir)) {
-                    Files.createDirectories(uploadDir);
-                }
-                
-                Path filePath = uploadDir.resolve(uniqueFileName);
-                Files.copy(imageFile.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-                
-                // Store the path in the course entity
-                course.setImagePath("/uploads/" + uniqueFileName);
+                // Identical images are stored once, under their content hash
+                course.setImagePath(blobStorageService.store(imageFile.getInputStream(), "images", fileName));
             }
             
             // Initialize lists if needed
-            if (course.getProgressList() == null) {
-                course.setProgressList(new ArrayList<>());
-            }
-            
             if (course.getContentList() == null) {
                 course.setContentList(new ArrayList<>());
             }
             
             Course savedCourse = courseRepository.save(course);
+            eventPublisher.publishEvent(CourseChangedEvent.saved(savedCourse));
+            if (savedCourse.getImagePath() != null) {
+                // Resized variants are produced in the background; the response doesn't wait
+                imageVariantService.submit(savedCourse.getId(), savedCourse.getImagePath());
+            }
             return new ResponseEntity<>(savedCourse, HttpStatus.CREATED);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Creating course {} with image failed", title, e);
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
@@ -240,46 +320,30 @@ public class CourseController {
             @RequestParam("video") MultipartFile videoFile) {
         
         try {
-            // Find the course
-            Optional<Course> courseOptional = courseRepository.findById(courseId);
-            if (!courseOptional.isPresent()) {
+            // Make sure the lesson exists before writing anything to disk
+            if (!courseRepository.contentExists(courseId, contentId)) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
             
-            Course course = courseOptional.get();
-            CourseContent targetContent = null;
-            
-            // Find the specific content
-            for (CourseContent content : course.getContentList()) {
-                if (content.getId().equals(contentId)) {
-                    targetContent = content;
-                    break;
-                }
-            }
+            // Save the video file; identical files are stored once, under their content hash
+            String fileName = StringUtils.cleanPath(videoFile.getOriginalFilename());
+            String storedPath = blobStorageService.store(videoFile.getInputStream(), "videos", fileName);
             
+            // Update content with video path
+            CourseContent targetContent = courseRepository.setContentProperty(
+                    courseId, contentId, "videoUrl", storedPath);
+            eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
             if (targetContent == null) {
+                // Lesson was deleted while the file was uploading
+                blobStorageService.release(storedPath);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
-            
-            // Save the video file
-            String fileName = StringUtils.cleanPath(videoFile.getOriginalFilename());
-            String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-            Path uploadDir = Paths.get("uploads/videos");
-            
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-            
-            Path filePath = uploadDir.resolve(uniqueFileName);
-            Files.copy(videoFile.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Update content with video path
-            targetContent.setVideoUrl("/uploads/videos/" + uniqueFileName);
-            courseRepository.save(course);
+            blobStorageService.release(targetContent.getVideoUrl());
+            targetContent.setVideoUrl(storedPath);
             
             return ResponseEntity.ok(targetContent);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Uploading video for lesson {} of course {} failed", contentId, courseId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -291,47 +355,85 @@ public class CourseController {
             @RequestParam("resource") MultipartFile resourceFile) {
         
         try {
-            // Find the course
-            Optional<Course> courseOptional = courseRepository.findById(courseId);
-            if (!courseOptional.isPresent()) {
+            // Make sure the lesson exists before writing anything to disk
+            if (!courseRepository.contentExists(courseId, contentId)) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
             
-            Course course = courseOptional.get();
-            CourseContent targetContent = null;
-            
-            // Find the specific content
-            for (CourseContent content : course.getContentList()) {
-                if (content.getId().equals(contentId)) {
-                    targetContent = content;
-                    break;
-                }
-            }
+            // Save the resource file; identical files are stored once, under their content hash
+            String fileName = StringUtils.cleanPath(resourceFile.getOriginalFilename());
+            String storedPath = blobStorageService.store(resourceFile.getInputStream(), "resources", fileName);
             
+            // Update content with resource path
+            CourseContent targetContent = courseRepository.setContentProperty(
+                    courseId, contentId, "resourceUrl", storedPath);
+            eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
             if (targetContent == null) {
+                // Lesson was deleted while the file was uploading
+                blobStorageService.release(storedPath);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
-            
-            // Save the resource file
-            String fileName = StringUtils.cleanPath(resourceFile.getOriginalFilename());
-            String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-            Path uploadDir = Paths.get("uploads/resources");
-            
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-            
-            Path filePath = uploadDir.resolve(uniqueFileName);
-            Files.copy(resourceFile.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Update content with resource path
-            targetContent.setResourceUrl("/uploads/resources/" + uniqueFileName);
-            courseRepository.save(course);
+            blobStorageService.release(targetContent.getResourceUrl());
+            targetContent.setResourceUrl(storedPath);
             
             return ResponseEntity.ok(targetContent);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Uploading resource for lesson {} of course {} failed", contentId, courseId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    // Stores the long bodies of lessons about to be written (LessonBodyStore), after dropping
+    // body references the client may not use, and takes a reference on each of the files they
+    // point at, so none is collected before the write lands. Both are undone unless the write succeeds.
+    private <T> T writeLessons(String courseId, List<CourseContent> lessons, List<String> files,
+                               Supplier<T> write, Predicate<T> written) {
+        lessonBodyStore.checkReferences(courseId, lessons);
+        blobStorageService.retainPaths(files);
+        List<String> stored = List.of();
+        T result = null;
+        try {
+            stored = lessonBodyStore.offload(courseId, lessons);
+            result = write.get();
+            return result;
+        } finally {
+            if (result == null || !written.test(result)) {
+                lessonBodyStore.delete(stored);
+                blobStorageService.releasePaths(files);
+            }
+        }
+    }
+
+    static Optional<CourseContent> findLesson(Course course, String contentId) {
+        if (course.getContentList() == null) {
+            return Optional.empty();
+        }
+        return course.getContentList().stream().filter(lesson -> contentId.equals(lesson.getId())).findFirst();
+    }
+
+    // Strong ETag derived from the course version, so it changes on every write
+    static ResponseEntity.BodyBuilder cacheable(Course course) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        if (course.getVersion() != null) {
+            builder.eTag("\"" + course.getVersion() + "\"");
+        }
+        return builder;
+    }
+
+    // Accepts the course version as sent back in If-Match, quoted or not; "*" matches any version
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1L; // Never matches a stored version
+        }
+    }
+}
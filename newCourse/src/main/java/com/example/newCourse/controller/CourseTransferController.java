@@ -0,0 +1,43 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.CourseImportReport;
+import com.example.newCourse.service.CourseTransferService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+// Bulk export and import of whole courses as NDJSON, one course per line; see CourseTransferService
+@RestController
+@RequestMapping("/api/courses")
+@CrossOrigin(origins = "*")
+// Streams the raw servlet request and response, so it is only served by the servlet stack
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CourseTransferController {
+
+    @Autowired
+    private CourseTransferService courseTransferService;
+
+    // Every course, written as it is read from MongoDB; the response never holds the catalog
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportCourses(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("courses.ndjson").build().toString());
+        courseTransferService.export(response.getOutputStream());
+    }
+
+    // The body is read a line at a time while earlier lines are inserted. Lines that fail are
+    // listed in the report; the rest are imported.
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CourseImportReport importCourses(HttpServletRequest request) throws IOException {
+        return courseTransferService.importCourses(request.getInputStream());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.FacetFilter;
+import com.example.newCourse.model.FacetQuery;
+import com.example.newCourse.model.FacetResult;
+import com.example.newCourse.service.CourseFacetIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/facets")
+@CrossOrigin(origins = "*")
+public class FacetController {
+
+    @Autowired
+    private CourseFacetIndex courseFacetIndex;
+
+    // Catalog filters: values of one parameter are OR-ed (tags can be AND-ed with tagsMatch=all),
+    // different parameters are AND-ed
+    @GetMapping
+    public ResponseEntity<FacetResult> getFacets(
+            @RequestParam(value = "category", required = false) List<String> category,
+            @RequestParam(value = "level", required = false) List<String> level,
+            @RequestParam(value = "language", required = false) List<String> language,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "tagsMatch", defaultValue = "any") String tagsMatch,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        FacetQuery query = new FacetQuery();
+        addFilter(query, "category", category, "any");
+        addFilter(query, "level", level, "any");
+        addFilter(query, "language", language, "any");
+        addFilter(query, "tags", tags, tagsMatch);
+        query.setOffset(offset);
+        query.setLimit(limit);
+        return queryFacets(query);
+    }
+
+    @PostMapping("/query")
+    public ResponseEntity<FacetResult> queryFacets(@RequestBody FacetQuery query) {
+        try {
+            return ResponseEntity.ok(courseFacetIndex.query(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return courseFacetIndex.stats();
+    }
+
+    private static void addFilter(FacetQuery query, String facet, List<String> values, String match) {
+        if (values != null && !values.isEmpty()) {
+            FacetFilter filter = new FacetFilter();
+            filter.setFacet(facet);
+            filter.setValues(values);
+            filter.setMatch(match);
+            query.getFilters().add(filter);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.GenerationJobRequest;
+import com.example.newCourse.model.GenerationJobStatus;
+import com.example.newCourse.service.ContentGenerationJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Bulk version of POST /api/courses/{courseId}/generate-content
+@RestController
+@RequestMapping("/api/generation-jobs")
+@CrossOrigin(origins = "*")
+public class GenerationJobController {
+
+    @Autowired
+    private ContentGenerationJobService contentGenerationJobService;
+
+    @PostMapping
+    public ResponseEntity<GenerationJobStatus> startJob(@RequestBody GenerationJobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(contentGenerationJobService.start(request));
+    }
+
+    @GetMapping
+    public List<GenerationJobStatus> getJobs() {
+        return contentGenerationJobService.list();
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<GenerationJobStatus> getJob(@PathVariable String jobId) {
+        GenerationJobStatus status = contentGenerationJobService.status(jobId);
+        if (status != null) {
+            return ResponseEntity.ok(status);
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<GenerationJobStatus> cancelJob(@PathVariable String jobId) {
+        GenerationJobStatus status = contentGenerationJobService.cancel(jobId);
+        if (status != null) {
+            return ResponseEntity.ok(status);
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
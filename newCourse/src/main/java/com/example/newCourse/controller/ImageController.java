@@ -0,0 +1,32 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.service.ImageVariantService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/images")
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    // Generates variants for existing courses that were created before the pipeline existed
+    @PostMapping("/backfill")
+    public ResponseEntity<String> backfill() {
+        if (imageVariantService.startBackfill()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Image variant backfill started");
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Image variant backfill already running");
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return imageVariantService.stats();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.service.CompletionAnalyticsService;
+import com.example.newCourse.service.CourseCache;
+import com.example.newCourse.service.CourseChangeFeed;
+import com.example.newCourse.service.CourseFacetIndex;
+import com.example.newCourse.service.CourseRevisions;
+import com.example.newCourse.service.CourseSearchIndex;
+import com.example.newCourse.service.ImageVariantService;
+import com.example.newCourse.service.MetricsRegistry;
+import com.example.newCourse.service.PinnedThreadMonitor;
+import com.example.newCourse.service.ProgressIngestionService;
+import com.example.newCourse.service.SlowRequestLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Autowired
+    private CourseCache courseCache;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private CourseFacetIndex courseFacetIndex;
+
+    @Autowired
+    private ProgressIngestionService progressIngestionService;
+
+    @Autowired
+    private CompletionAnalyticsService completionAnalyticsService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private PinnedThreadMonitor pinnedThreadMonitor;
+
+    @Autowired
+    private CourseRevisions courseRevisions;
+
+    // Servlet stack only
+    @Autowired
+    private ObjectProvider<CourseChangeFeed> courseChangeFeed;
+
+    // Prometheus text format. Besides the registry's own metrics, the numeric stats of the
+    // in-memory services are exported as gauges (blob storage stats are left out: they query MongoDB)
+    @GetMapping(produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String scrape() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("course_cache", courseCache.stats());
+        stats.put("search_index", courseSearchIndex.stats());
+        stats.put("facet_index", courseFacetIndex.stats());
+        stats.put("progress", progressIngestionService.stats());
+        stats.put("analytics", completionAnalyticsService.stats());
+        stats.put("image_variants", imageVariantService.stats());
+        stats.put("pinned_threads", pinnedThreadMonitor.stats());
+        stats.put("slow_requests", slowRequestLog.stats());
+        stats.put("course_revisions", courseRevisions.stats());
+        courseChangeFeed.ifAvailable(feed -> stats.put("change_feed", feed.stats()));
+        return metricsRegistry.scrape(stats);
+    }
+
+    // The most recent requests over metrics.slow-request-ms, newest first, with where their time went
+    @GetMapping("/slow-requests")
+    public List<Map<String, Object>> getSlowRequests() {
+        return slowRequestLog.recent();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.ProgressEvent;
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.service.ProgressIngestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/progress")
+@CrossOrigin(origins = "*")
+public class ProgressController {
+
+    @Autowired
+    private ProgressIngestionService progressIngestionService;
+
+    // Accepts a batch of progress updates; they are written to MongoDB shortly after, not before responding
+    @PostMapping
+    public ResponseEntity<String> recordProgress(@RequestBody List<ProgressEvent> events) {
+        try {
+            if (progressIngestionService.submit(events)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+            }
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Progress buffer is full, retry shortly");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/courses/{courseId}/students/{studentId}")
+    public List<StudentProgress> getStudentProgress(@PathVariable String courseId, @PathVariable String studentId) {
+        return progressIngestionService.findForStudent(courseId, studentId);
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return progressIngestionService.stats();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.service.AdmissionControl;
+import com.example.newCourse.service.PinnedThreadMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/runtime")
+@CrossOrigin(origins = "*")
+public class RuntimeController {
+
+    @Autowired
+    private PinnedThreadMonitor pinnedThreadMonitor;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    // Whether requests run on virtual threads, and where they got pinned to a carrier
+    @GetMapping("/threads")
+    public Map<String, Object> getThreads() {
+        return pinnedThreadMonitor.stats();
+    }
+
+    // Per endpoint class: requests running and waiting, the current limit, and rejections
+    @GetMapping("/admission")
+    public Map<String, Object> getAdmission() {
+        return admissionControl.stats();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.SearchResult;
+import com.example.newCourse.service.CourseSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    // Ranked courses matching every word of q; the last word also matches as a prefix
+    @GetMapping
+    public List<SearchResult> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return courseSearchIndex.search(query, limit);
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return courseSearchIndex.stats();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.service.BlobStorageService;
+import com.example.newCourse.service.LessonBodyStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/storage")
+@CrossOrigin(origins = "*")
+public class StorageController {
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    // Blob count, physical vs. logical bytes, bytes saved and dedup ratio
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return blobStorageService.stats();
+    }
+
+    // Offloaded lesson bodies, course document sizes and long bodies still stored inline
+    @GetMapping("/lesson-bodies")
+    public Map<String, Object> getLessonBodyStats() {
+        return lessonBodyStore.stats();
+    }
+
+    @PostMapping("/gc")
+    public Map<String, Object> collectGarbage() {
+        return Map.of("collected", blobStorageService.collectGarbage());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.UploadRequest;
+import com.example.newCourse.model.UploadStatus;
+import com.example.newCourse.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+// Chunked, resumable upload protocol for lesson videos and resources:
+// POST /api/uploads -> PUT /api/uploads/{id}/chunks/{n} (repeat) -> POST /api/uploads/{id}/complete
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "*")
+// Reads the raw servlet request, so it is only served by the servlet stack
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UploadController {
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadStatus> initUpload(@RequestBody UploadRequest request) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.init(request));
+    }
+
+    // Clients resume an interrupted upload by re-sending the chunks missing from receivedChunks
+    @GetMapping("/{uploadId}")
+    public UploadStatus getUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.status(uploadId);
+    }
+
+    // The raw request body is the chunk; it is read as a stream, never through the multipart resolver
+    @PutMapping(value = "/{uploadId}/chunks/{index}", consumes = "application/octet-stream")
+    public UploadStatus uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String sha256,
+            HttpServletRequest request) throws IOException {
+        return chunkedUploadService.writeChunk(uploadId, index, sha256, request.getInputStream());
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public CourseContent completeUpload(@PathVariable String uploadId) throws IOException {
+        return chunkedUploadService.complete(uploadId);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) throws IOException {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.newCourse.event;
+
+import com.example.newCourse.model.Course;
+
+/**
+ * Published after every write to a course so that caches and in-memory indexes can follow
+ * it. {@code course} is the document as saved when the writer has it in hand, and null
+ * for partial updates (lesson edits, uploads, generated content) and deletes.
+ */
+public record CourseChangedEvent(String courseId, Course course, boolean deleted) {
+
+    public static CourseChangedEvent saved(Course course) {
+        return new CourseChangedEvent(course.getId(), course, false);
+    }
+
+    public static CourseChangedEvent modified(String courseId) {
+        return new CourseChangedEvent(courseId, null, false);
+    }
+
+    public static CourseChangedEvent deleted(String courseId) {
+        return new CourseChangedEvent(courseId, null, true);
+    }
+}
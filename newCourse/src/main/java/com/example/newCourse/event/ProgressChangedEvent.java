@@ -0,0 +1,18 @@
+package com.example.newCourse.event;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published by ProgressIngestionService after each bulk write of progress, listing every
+ * status transition it made (entries whose status did not change are left out). Courses
+ * whose progress changed in ways that can't be listed, such as a bulk write that failed
+ * part way or a deleted lesson, are named in recountCourseIds instead.
+ */
+public record ProgressChangedEvent(List<Change> changes, Set<String> recountCourseIds, Instant writtenAt) {
+
+    // previousStatus is null for a new entry
+    public record Change(String courseId, String lessonId, String previousStatus, String status) {
+    }
+}
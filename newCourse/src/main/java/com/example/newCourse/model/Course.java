@@ -1,25 +1,31 @@
 package com.example.newCourse.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 @Data
 @Document(collection = "courses")
 public class Course {
     @Id
     private String id;
+    @Version
+    private Long version; // Bumped on every write, including atomic lesson updates
+    private Long revision; // Catalog-wide write sequence number, set on every write (see CourseRevisions)
     private String title;
     private String description;
     private String category; // This could be repurposed or used alongside tags
     private String level;
     private String imagePath; // Store the path to the uploaded image
+    private Map<String, String> imageVariants; // Resized copies of imagePath by variant name ("thumbnail", "card", "hero")
     private String duration;  // New field for course duration
     private String language;  // New field for course language
     private List<String> tags = new ArrayList<>(); // New field for course tags
-    private List<StudentProgress> progressList;
+    // Student progress lives in its own collection (StudentProgress), not in the course
     private List<CourseContent> contentList = new ArrayList<>();
 }
@@ -0,0 +1,18 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CourseAnalytics {
+    private String courseId;
+    private long students; // students with any course or lesson progress
+    private long notStarted;
+    private long inProgress;
+    private long completed;
+    private double completionRate;
+    private List<LessonAnalytics> lessons = new ArrayList<>(); // in course order
+    private String biggestDropOffLessonId;
+}
@@ -0,0 +1,20 @@
+package com.example.newCourse.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Saved completion counters of one course; counts are [not started, in progress, completed]
+@Data
+@Document(collection = "progress_analytics")
+public class CourseAnalyticsCheckpoint {
+    @Id
+    private String id; // course id, or CompletionAnalyticsService.WATERMARK_ID for the checkpoint marker
+    private List<Long> courseCounts;
+    private Map<String, List<Long>> lessonCounts; // by lesson id
+    private Instant watermark; // progress written before this time is included; recovery recounts the rest
+}
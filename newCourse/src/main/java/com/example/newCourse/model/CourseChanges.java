@@ -0,0 +1,16 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Courses written and deleted after revision "since", up to and including "revision"
+@Data
+public class CourseChanges {
+    private long since;
+    private long revision; // Pass as "since" to get the changes that follow
+    private List<CourseSummary> upserted = new ArrayList<>();
+    private List<CourseTombstone> deleted = new ArrayList<>(); // Apply before upserted: a deleted id may have been reused
+    private boolean hasMore; // More changes follow "revision" already
+}
@@ -10,6 +10,10 @@ public class CourseContent {
     private String title;
     private String contentType; // "video", "text", "quiz", "pdf"
     private String content; // URL for videos, text content, etc.
+    // Set instead of content when the body is too large to keep inline (see LessonBodyStore);
+    // GET /api/courses/{courseId}/content/{contentId} returns the lesson with its body
+    private String contentRef;
+    private Integer contentLength; // Characters in the body behind contentRef
     private int order; // To maintain the sequence of content
     
     // New fields for enhanced lesson features
@@ -19,5 +23,5 @@ public class CourseContent {
     private boolean previewEnabled; // Allow preview without enrollment
     private String resourceUrl; // URL for downloadable resources
     private String quizLink; // Link to quiz or embedded quiz content
-    private boolean completed; // Track completion status
+    // Completion is per student; see StudentProgress
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of one NDJSON course import
+@Data
+public class CourseImportReport {
+    private long records; // Non-blank lines read
+    private long imported;
+    private long failed;
+    private List<String> errors = new ArrayList<>(); // First failures as "line N: message"
+    private String error; // Why the import stopped before the end of the body, if it did
+    private long bytesRead;
+    private long elapsedMs;
+    private double coursesPerSecond; // Courses imported per second
+    private double megabytesPerSecond; // Request body read per second
+}
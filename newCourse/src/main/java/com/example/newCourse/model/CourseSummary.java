@@ -0,0 +1,24 @@
+package com.example.newCourse.model;
+
+import org.springframework.data.annotation.Id;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lightweight listing view of a Course, projected server-side (no lesson bodies or progress)
+@Data
+public class CourseSummary {
+    @Id
+    private String id;
+    private String title;
+    private String description;
+    private String category;
+    private String level;
+    private String imagePath;
+    private String duration;
+    private String language;
+    private List<String> tags = new ArrayList<>();
+    private int lessonCount;
+    private Long revision;
+}
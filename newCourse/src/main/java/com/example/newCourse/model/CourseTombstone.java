@@ -0,0 +1,17 @@
+package com.example.newCourse.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Left behind by a deleted course so the change feed can report the delete; see CourseRevisions
+@Data
+@Document(collection = "course_tombstones")
+public class CourseTombstone {
+    @Id
+    private String id; // Id of the deleted course
+    private long revision;
+    private Instant deletedAt;
+}
@@ -0,0 +1,14 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One clause of a facet query: courses whose facet holds any (default) or all of the values
+@Data
+public class FacetFilter {
+    private String facet; // "category", "level", "language" or "tags"
+    private List<String> values = new ArrayList<>();
+    private String match = "any"; // "any" or "all"
+}
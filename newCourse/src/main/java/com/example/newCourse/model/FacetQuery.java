@@ -0,0 +1,17 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Filters are AND-ed together, and each one matches any or all of its values within one facet,
+// so a query is an AND of per-facet clauses. An OR across facets (this category or that tag)
+// cannot be written; run one query per branch instead.
+@Data
+public class FacetQuery {
+    private List<FacetFilter> filters = new ArrayList<>();
+    private List<String> facets; // facets to count; all of them when null
+    private int offset;
+    private int limit = 50;
+}
@@ -0,0 +1,16 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class FacetResult {
+    private int total;
+    private List<String> courseIds = new ArrayList<>();
+    // facet -> value -> number of matching courses, most frequent value first
+    private Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+}
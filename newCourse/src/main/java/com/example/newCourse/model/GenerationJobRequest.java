@@ -0,0 +1,17 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Body of POST /api/generation-jobs: explicit course ids, or a filter when courseIds is empty.
+// Without either, all has to be set to run over every course.
+@Data
+public class GenerationJobRequest {
+    private List<String> courseIds;
+    private String category;
+    private String level;
+    private List<String> tags;
+    private boolean all;
+    private Integer concurrency; // Optional cap on courses generated at once
+}
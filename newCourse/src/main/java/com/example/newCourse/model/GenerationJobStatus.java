@@ -0,0 +1,21 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+// Progress report for a bulk content generation job
+@Data
+public class GenerationJobStatus {
+    private String id;
+    private String state; // "RUNNING", "COMPLETED", "CANCELLED" or "FAILED"
+    private long processed;
+    private long succeeded;
+    private long failed;
+    private long written; // Courses whose generated lessons have been flushed to MongoDB
+    private List<String> failures; // First few failures as "courseId: message"
+    private double coursesPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,14 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+@Data
+public class LessonAnalytics {
+    private String lessonId;
+    private String title;
+    private long notStarted;
+    private long inProgress;
+    private long completed;
+    private double completionRate; // completed / course students
+    private long dropOff; // finished the previous lesson (or enrolled, for the first) but never started this one
+}
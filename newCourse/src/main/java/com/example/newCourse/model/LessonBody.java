@@ -0,0 +1,17 @@
+package com.example.newCourse.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+// Body of a lesson too large to keep inline in its course document; see LessonBodyStore
+@Data
+@Document(collection = "lesson_bodies")
+public class LessonBody {
+    @Id
+    private String id; // CourseContent.contentRef of the lesson it belongs to
+    private String courseId;
+    private String lessonId;
+    private String content;
+    private int length; // Characters in content
+}
@@ -0,0 +1,12 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+// Number of progress entries with one status for a course (lessonId null) or lesson
+@Data
+public class ProgressCount {
+    private String courseId;
+    private String lessonId;
+    private String status;
+    private long count;
+}
@@ -0,0 +1,12 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+// A progress update as posted by clients; lessonId is omitted for course-level status
+@Data
+public class ProgressEvent {
+    private String courseId;
+    private String studentId;
+    private String lessonId;
+    private String status;
+}
@@ -0,0 +1,13 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+// One ranked search hit; highlightedTitle and snippet are HTML-escaped with matches in <mark>
+@Data
+public class SearchResult {
+    private String courseId;
+    private String title;
+    private float score;
+    private String highlightedTitle;
+    private String snippet;
+}
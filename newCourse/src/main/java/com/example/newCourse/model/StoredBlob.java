@@ -0,0 +1,16 @@
+package com.example.newCourse.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+// One deduplicated upload on disk, keyed by its public path (e.g. /uploads/videos/<sha256>.mp4)
+@Data
+@Document(collection = "blobs")
+public class StoredBlob {
+    @Id
+    private String path;
+    private String digest; // Hex SHA-256 of the content
+    private long size;
+    private long refCount; // Number of course/lesson fields currently pointing at this path
+}
@@ -1,9 +1,20 @@
 package com.example.newCourse.model;
 
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
+import java.time.Instant;
+
+// One student's status in a course (lessonId null) or in one of its lessons
 @Data
+@Document(collection = "progress")
 public class StudentProgress {
-    private String studentName;
-    private String status; // e.g., "Completed", "In Progress"
+    @Id
+    private String id; // courseId|studentId|lessonId, see ProgressIngestionService.progressId
+    private String courseId;
+    private String studentId;
+    private String lessonId;
+    private String status; // "Not Started", "In Progress" or "Completed"
+    private Instant updatedAt;
 }
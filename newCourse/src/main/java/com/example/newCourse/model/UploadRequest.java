@@ -0,0 +1,14 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+// Body of POST /api/uploads, which opens a chunked upload session for one lesson file
+@Data
+public class UploadRequest {
+    private String courseId;
+    private String contentId;
+    private String kind; // "video" or "resource"
+    private String fileName;
+    private long totalSize;
+    private Integer chunkSize; // Optional, defaults to the server's preferred size
+}
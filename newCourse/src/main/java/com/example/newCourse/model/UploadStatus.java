@@ -0,0 +1,20 @@
+package com.example.newCourse.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+// State of a chunked upload session as reported to the client (see ChunkedUploadService)
+@Data
+public class UploadStatus {
+    private String uploadId;
+    private String courseId;
+    private String contentId;
+    private String kind; // "video" or "resource"
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private int chunkCount;
+    private List<Integer> receivedChunks; // Indexes already stored and verified
+    private boolean complete;
+}
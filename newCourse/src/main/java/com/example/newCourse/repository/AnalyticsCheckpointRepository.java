@@ -0,0 +1,6 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.CourseAnalyticsCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface AnalyticsCheckpointRepository extends MongoRepository<CourseAnalyticsCheckpoint, String> {}
@@ -0,0 +1,6 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.StoredBlob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface BlobRepository extends MongoRepository<StoredBlob, String>, BlobRepositoryCustom {}
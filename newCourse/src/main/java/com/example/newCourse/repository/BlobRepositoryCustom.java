@@ -0,0 +1,34 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.StoredBlob;
+
+import java.util.List;
+
+public interface BlobRepositoryCustom {
+
+    /**
+     * Adds one reference to a blob, creating its record if this is the first copy.
+     * Returns the reference count after the increment.
+     */
+    long addReference(String path, String digest, long size);
+
+    /**
+     * Adds one reference to an existing blob only; returns false for paths that are not
+     * managed blobs (such as files uploaded before deduplication).
+     */
+    boolean addReferenceIfPresent(String path);
+
+    /**
+     * Drops one reference and returns the blob as it is afterwards, or null if the path
+     * is not a managed blob.
+     */
+    StoredBlob removeReference(String path);
+
+    // Removes the record only if nothing references it; returns whether it was removed
+    boolean deleteIfUnreferenced(String path);
+
+    List<StoredBlob> findUnreferenced();
+
+    // [number of blobs, physical bytes, logical bytes (size x references)]
+    long[] totals();
+}
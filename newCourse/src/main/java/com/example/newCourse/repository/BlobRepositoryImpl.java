@@ -0,0 +1,73 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.StoredBlob;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+public class BlobRepositoryImpl implements BlobRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public long addReference(String path, String digest, long size) {
+        Update update = new Update().inc("refCount", 1).setOnInsert("digest", digest).setOnInsert("size", size);
+        StoredBlob blob = mongoTemplate.findAndModify(byPath(path), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), StoredBlob.class);
+        return blob.getRefCount();
+    }
+
+    @Override
+    public boolean addReferenceIfPresent(String path) {
+        return mongoTemplate.updateFirst(byPath(path), new Update().inc("refCount", 1), StoredBlob.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public StoredBlob removeReference(String path) {
+        return mongoTemplate.findAndModify(byPath(path), new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true), StoredBlob.class);
+    }
+
+    @Override
+    public boolean deleteIfUnreferenced(String path) {
+        Query query = byPath(path).addCriteria(Criteria.where("refCount").lte(0));
+        return mongoTemplate.remove(query, StoredBlob.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public List<StoredBlob> findUnreferenced() {
+        return mongoTemplate.find(Query.query(Criteria.where("refCount").lte(0)), StoredBlob.class);
+    }
+
+    @Override
+    public long[] totals() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group()
+                        .count().as("blobs")
+                        .sum("size").as("physicalBytes")
+                        .sum(ArithmeticOperators.Multiply.valueOf("size").multiplyBy("refCount")).as("logicalBytes"));
+        Document result = mongoTemplate.aggregate(aggregation, StoredBlob.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return new long[3];
+        }
+        return new long[] {
+                ((Number) result.get("blobs")).longValue(),
+                ((Number) result.get("physicalBytes")).longValue(),
+                ((Number) result.get("logicalBytes")).longValue()
+        };
+    }
+
+    private static Query byPath(String path) {
+        return Query.query(Criteria.where("path").is(path));
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Queries and updates of the course API, shared by the blocking and the reactive repository
+// so both stacks send MongoDB exactly the same commands
+final class CourseQueries {
+
+    // Id of the tombstone that records the newest revision purged; see purgeTombstones()
+    static final String PURGED_ID = "_purged";
+
+    private CourseQueries() {
+    }
+
+    // Indexes behind the queries below. Filters are matched on equality and paged by _id, so _id
+    // comes last wherever a filter can be the whole query. Keys use the stored field names.
+    static List<Index> indexes() {
+        return List.of(
+                // summaries and generation by category, or category and level
+                new Index().on("category", Sort.Direction.ASC).on("level", Sort.Direction.ASC).on("_id", Sort.Direction.ASC),
+                // summaries and generation by level alone
+                new Index().on("level", Sort.Direction.ASC).on("_id", Sort.Direction.ASC),
+                // catalog filters that include the language
+                new Index().on("language", Sort.Direction.ASC).on("category", Sort.Direction.ASC).on("level", Sort.Direction.ASC),
+                // tags.all(...) filters; multikey, one entry per tag
+                new Index().on("tags", Sort.Direction.ASC).on("_id", Sort.Direction.ASC),
+                // lesson lookups by id; multikey, one entry per lesson
+                new Index().on("contentList._id", Sort.Direction.ASC),
+                // the change feed, and finding where revisions continue
+                new Index().on("revision", Sort.Direction.ASC));
+    }
+
+    static List<Index> tombstoneIndexes() {
+        return List.of(new Index().on("revision", Sort.Direction.ASC),
+                // purging tombstones past the retention window
+                new Index().on("deletedAt", Sort.Direction.ASC));
+    }
+
+    // Keyset page of summaries ordered by id; a null limit returns every match after afterId
+    static Aggregation summaries(String category, String level, List<String> tags, String afterId, Integer limit) {
+        List<Criteria> filters = new ArrayList<>();
+        if (category != null && !category.isEmpty()) {
+            filters.add(Criteria.where("category").is(category));
+        }
+        if (level != null && !level.isEmpty()) {
+            filters.add(Criteria.where("level").is(level));
+        }
+        if (tags != null && !tags.isEmpty()) {
+            filters.add(Criteria.where("tags").all(tags));
+        }
+        if (afterId != null && !afterId.isEmpty()) {
+            filters.add(after(afterId));
+        }
+        Criteria criteria = filters.isEmpty()
+                ? new Criteria()
+                : new Criteria().andOperator(filters.toArray(new Criteria[0]));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(criteria));
+        stages.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+        if (limit != null) {
+            stages.add(Aggregation.limit(limit));
+        }
+        stages.add(summaryProjection());
+        return Aggregation.newAggregation(stages);
+    }
+
+    // Ids are either strings (seeded, imported) or ObjectIds (created), and MongoDB sorts every
+    // string before every ObjectId. $gt only compares values of the same type, so a string cursor
+    // must let all ObjectIds through; an ObjectId cursor is already past every string.
+    // The cursor's own form gives its type, as toIdValue() mirrors how ids are stored.
+    static Criteria after(String afterId) {
+        Object id = toIdValue(afterId);
+        if (id instanceof ObjectId) {
+            return Criteria.where("_id").gt(id);
+        }
+        return new Criteria().orOperator(Criteria.where("_id").gt(id),
+                Criteria.where("_id").type(JsonSchemaObject.Type.objectIdType()));
+    }
+
+    // Summaries of the courses written after revision "after", up to "upTo", in revision order
+    static Aggregation changedSummaries(long after, long upTo, int limit) {
+        return Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("revision").gt(after).lte(upTo)),
+                Aggregation.sort(Sort.Direction.ASC, "revision"),
+                Aggregation.limit(limit),
+                summaryProjection());
+    }
+
+    // Tombstones of the courses deleted after revision "after", up to "upTo", in revision order
+    static Query deletedBetween(long after, long upTo, int limit) {
+        return Query.query(Criteria.where("revision").gt(after).lte(upTo).and("_id").ne(PURGED_ID))
+                .with(Sort.by(Sort.Direction.ASC, "revision"))
+                .limit(limit);
+    }
+
+    // Tombstones of the courses deleted before "deletedBefore" (never the purge record, which
+    // has no deletedAt), newest revision first
+    static Query deletedBefore(Instant deletedBefore) {
+        return Query.query(Criteria.where("deletedAt").lt(deletedBefore))
+                .with(Sort.by(Sort.Direction.DESC, "revision"));
+    }
+
+    // Those of them up to "revision", the newest one purged
+    static Query purgeable(Instant deletedBefore, long revision) {
+        return Query.query(Criteria.where("deletedAt").lt(deletedBefore).and("revision").lte(revision));
+    }
+
+    static Query purgeRecord() {
+        return Query.query(Criteria.where("_id").is(PURGED_ID));
+    }
+
+    // Revisions purged never go back, whatever order purges finish in
+    static Update purged(long revision) {
+        return new Update().max("revision", revision);
+    }
+
+    private static AggregationOperation summaryProjection() {
+        return Aggregation.project("title", "description", "category", "level",
+                        "duration", "language", "tags", "revision")
+                // Catalog cards get the card-sized variant once it has been generated
+                .and(ConditionalOperators.ifNull("imageVariants.card").then("$imagePath"))
+                .as("imagePath")
+                .and(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("contentList").then(Collections.emptyList())))
+                .as("lessonCount");
+    }
+
+    static Query course(String courseId, Long expectedVersion) {
+        Query query = Query.query(Criteria.where("id").is(courseId));
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where("version").is(expectedVersion));
+        }
+        return query;
+    }
+
+    // Matches the course only while it has the lesson, and projects just that lesson
+    static Query lesson(String courseId, String contentId, Long expectedVersion) {
+        Query query = course(courseId, expectedVersion)
+                .addCriteria(Criteria.where("contentList.id").is(contentId));
+        query.fields().include("version").elemMatch("contentList", Criteria.where("_id").is(contentId));
+        return query;
+    }
+
+    static Query contentExists(String courseId, String contentId) {
+        return course(courseId, null).addCriteria(Criteria.where("contentList.id").is(contentId));
+    }
+
+    // Projects the uploaded file and lesson body references, which the caller releases after the delete
+    static Query removal(String courseId) {
+        Query query = course(courseId, null);
+        query.fields().include("imagePath").include("contentList.videoUrl").include("contentList.resourceUrl")
+                .include("contentList.contentRef");
+        return query;
+    }
+
+    // Every update below bumps the version and stores the revision of the write (CourseRevisions)
+
+    static Update push(List<CourseContent> contents, long revision) {
+        return new Update().push("contentList").each(contents.toArray()).inc("version", 1).set("revision", revision);
+    }
+
+    static Update details(String title, String description, long revision) {
+        return new Update().set("title", title).set("description", description).inc("version", 1)
+                .set("revision", revision);
+    }
+
+    static Update replace(CourseContent content, long revision) {
+        // Array filters are passed to the server verbatim, so they use the stored field name
+        return new Update().set("contentList.$[elem]", content)
+                .filterArray(Criteria.where("elem._id").is(content.getId()))
+                .inc("version", 1)
+                .set("revision", revision);
+    }
+
+    static Update pull(String contentId, long revision) {
+        return new Update().pull("contentList", new Document("_id", contentId)).inc("version", 1)
+                .set("revision", revision);
+    }
+
+    static Update setProperty(String contentId, String property, Object value, long revision) {
+        return new Update().set("contentList.$[elem]." + property, value)
+                .filterArray(Criteria.where("elem._id").is(contentId))
+                .inc("version", 1)
+                .set("revision", revision);
+    }
+
+    // Upserted once a course is removed, under the same revision, so the change feed reports the delete
+    static Update tombstone(long revision) {
+        return new Update().set("revision", revision).set("deletedAt", Instant.now());
+    }
+
+    // The lesson projected by lesson(), as findAndModify returned it before the update
+    static CourseContent previousLesson(Course previous) {
+        if (previous == null || previous.getContentList() == null || previous.getContentList().isEmpty()) {
+            return null;
+        }
+        return previous.getContentList().get(0);
+    }
+
+    // Ids generated by Mongo are ObjectIds, and so is any string id that is a valid ObjectId, which
+    // Spring Data converts on write; anything else was stored as a plain string
+    static Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -3,4 +3,9 @@ package com.example.newCourse.repository;
 import com.example.newCourse.model.Course;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface CourseRepository extends MongoRepository<Course, String> {}
+public interface CourseRepository extends MongoRepository<Course, String>, CourseRepositoryCustom {
+
+    // Implemented by CourseRepositoryImpl, which gives every saved course a new revision
+    @Override
+    <S extends Course> S save(S course);
+}
@@ -0,0 +1,117 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.model.CourseTombstone;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface CourseRepositoryCustom {
+
+    /**
+     * Keyset page of course summaries ordered by id, string ids before ObjectIds as MongoDB
+     * sorts them. Only ids strictly after {@code afterId} are returned; null filters are
+     * ignored, tags must all match.
+     */
+    List<CourseSummary> findSummaries(String category, String level, List<String> tags,
+                                      String afterId, int limit);
+
+    /**
+     * Saves the course with a new revision (CourseRevisions). Replaces the repository's own
+     * save, including its optimistic locking on the version.
+     */
+    <S extends Course> S save(S course);
+
+    // Summaries of the courses written after revision "after", up to "upTo", in revision order
+    List<CourseSummary> findChangedSummaries(long after, long upTo, int limit);
+
+    // Courses deleted after revision "after", up to "upTo", in revision order
+    List<CourseTombstone> findDeleted(long after, long upTo, int limit);
+
+    /**
+     * Removes the tombstones of courses deleted before {@code deletedBefore}. The newest revision
+     * removed is recorded first, in a tombstone of its own, and returned; 0 if none ever was.
+     */
+    long purgeTombstones(Instant deletedBefore);
+
+    // The newest tombstone revision purged so far, or 0
+    long findPurgedRevision();
+
+    // Lesson mutations below are single atomic updates on the course document. Each one bumps
+    // the course version and sets a new revision; when expectedVersion is non-null the update only applies if the
+    // stored version still matches. pushContent returns false when nothing matched; the others
+    // return the affected lesson as it was before the update, or null when nothing matched.
+
+    boolean pushContent(String courseId, List<CourseContent> contents, Long expectedVersion);
+
+    // Sets the title and description in place, leaving the lessons alone; returns the updated
+    // course, or null when nothing matched
+    Course updateDetails(String courseId, String title, String description, Long expectedVersion);
+
+    CourseContent replaceContent(String courseId, CourseContent content, Long expectedVersion);
+
+    CourseContent pullContent(String courseId, String contentId, Long expectedVersion);
+
+    CourseContent setContentProperty(String courseId, String contentId, String property, Object value);
+
+    boolean contentExists(String courseId, String contentId);
+
+    /**
+     * Deletes a course, leaving a tombstone for the change feed, and returns its uploaded file
+     * references (imagePath and lesson video/resource URLs) and lesson body references, or null
+     * if it did not exist.
+     */
+    Course removeCourse(String courseId);
+
+    /**
+     * Gives documents written before versioning was introduced an initial version so
+     * that save() treats them as existing rather than trying to insert them again.
+     */
+    long initializeMissingVersions();
+
+    /**
+     * Records resized variants of a cover image, provided the course still uses that image.
+     */
+    boolean setImageVariants(String courseId, String imagePath, Map<String, String> variants);
+
+    // Id and imagePath of every course that has a cover image but no variants yet
+    Stream<Course> streamCoursesMissingImageVariants();
+
+    /**
+     * Appends lessons to many courses with one unordered bulk write; returns the ids of the
+     * courses that matched, so the caller can clean up after those that no longer exist.
+     */
+    Set<String> pushContentBulk(Map<String, List<CourseContent>> contentsByCourse);
+
+    /**
+     * Inserts new courses with one unordered bulk write, each with version 0 and a new
+     * revision. Returns the error of each course that was not inserted, by its index in the list.
+     */
+    Map<Integer, String> insertBulk(List<Course> courses);
+
+    // Every course in id order, read in batches as the stream is consumed
+    Stream<Course> streamAll();
+
+    // Id, title, category and level of the given courses, or of all courses matching the filter
+    Stream<Course> streamForGeneration(List<String> courseIds, String category, String level, List<String> tags);
+
+    // The searchable fields (no progress) of the given courses, or of every course when null;
+    // offloaded lesson bodies are left as references
+    Stream<Course> streamForIndexing(Collection<String> courseIds);
+
+    // Id, version, category, level, language and tags of every course
+    Stream<Course> streamFacetFields();
+
+    /**
+     * Creates the category/level/language, tags, lesson id and revision indexes, and the
+     * tombstone revision and deletedAt indexes, if they are missing, and returns a description of each one
+     * still lacking afterwards.
+     */
+    List<String> ensureIndexes();
+}
@@ -0,0 +1,264 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.model.CourseTombstone;
+import com.example.newCourse.service.CourseRevisions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CourseRepositoryImpl implements CourseRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CourseRevisions revisions;
+
+    @Override
+    public List<CourseSummary> findSummaries(String category, String level, List<String> tags,
+                                             String afterId, int limit) {
+        return mongoTemplate.aggregate(CourseQueries.summaries(category, level, tags, afterId, limit),
+                Course.class, CourseSummary.class).getMappedResults();
+    }
+
+    @Override
+    public <S extends Course> S save(S course) {
+        return revisions.write(revision -> {
+            course.setRevision(revision);
+            return mongoTemplate.save(course);
+        });
+    }
+
+    @Override
+    public List<CourseSummary> findChangedSummaries(long after, long upTo, int limit) {
+        return mongoTemplate.aggregate(CourseQueries.changedSummaries(after, upTo, limit),
+                Course.class, CourseSummary.class).getMappedResults();
+    }
+
+    @Override
+    public List<CourseTombstone> findDeleted(long after, long upTo, int limit) {
+        return mongoTemplate.find(CourseQueries.deletedBetween(after, upTo, limit), CourseTombstone.class);
+    }
+
+    @Override
+    public long purgeTombstones(Instant deletedBefore) {
+        CourseTombstone newest = mongoTemplate.findOne(CourseQueries.deletedBefore(deletedBefore).limit(1),
+                CourseTombstone.class);
+        if (newest == null) {
+            return findPurgedRevision();
+        }
+        // Recorded before the tombstones go, so a failure in between never hides a purge
+        CourseTombstone record = mongoTemplate.findAndModify(CourseQueries.purgeRecord(),
+                CourseQueries.purged(newest.getRevision()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), CourseTombstone.class);
+        mongoTemplate.remove(CourseQueries.purgeable(deletedBefore, newest.getRevision()), CourseTombstone.class);
+        return record.getRevision();
+    }
+
+    @Override
+    public long findPurgedRevision() {
+        CourseTombstone record = mongoTemplate.findOne(CourseQueries.purgeRecord(), CourseTombstone.class);
+        return record == null ? 0 : record.getRevision();
+    }
+
+    @Override
+    public boolean pushContent(String courseId, List<CourseContent> contents, Long expectedVersion) {
+        return revisions.write(revision -> mongoTemplate.updateFirst(CourseQueries.course(courseId, expectedVersion),
+                CourseQueries.push(contents, revision), Course.class).getMatchedCount() > 0);
+    }
+
+    @Override
+    public Course updateDetails(String courseId, String title, String description, Long expectedVersion) {
+        return revisions.write(revision -> mongoTemplate.findAndModify(CourseQueries.course(courseId, expectedVersion),
+                CourseQueries.details(title, description, revision), FindAndModifyOptions.options().returnNew(true),
+                Course.class));
+    }
+
+    @Override
+    public CourseContent replaceContent(String courseId, CourseContent content, Long expectedVersion) {
+        return revisions.write(revision -> modifyLesson(courseId, content.getId(), expectedVersion,
+                CourseQueries.replace(content, revision)));
+    }
+
+    @Override
+    public CourseContent pullContent(String courseId, String contentId, Long expectedVersion) {
+        return revisions.write(revision -> modifyLesson(courseId, contentId, expectedVersion,
+                CourseQueries.pull(contentId, revision)));
+    }
+
+    @Override
+    public CourseContent setContentProperty(String courseId, String contentId, String property, Object value) {
+        return revisions.write(revision -> modifyLesson(courseId, contentId, null,
+                CourseQueries.setProperty(contentId, property, value, revision)));
+    }
+
+    @Override
+    public Course removeCourse(String courseId) {
+        return revisions.write(revision -> {
+            Course removed = mongoTemplate.findAndRemove(CourseQueries.removal(courseId), Course.class);
+            if (removed != null) {
+                mongoTemplate.upsert(CourseQueries.course(courseId, null), CourseQueries.tombstone(revision),
+                        CourseTombstone.class);
+            }
+            return removed;
+        });
+    }
+
+    // Applies a lesson update and returns that lesson as it was before, or null if nothing matched
+    private CourseContent modifyLesson(String courseId, String contentId, Long expectedVersion, Update update) {
+        return CourseQueries.previousLesson(mongoTemplate.findAndModify(
+                CourseQueries.lesson(courseId, contentId, expectedVersion), update, Course.class));
+    }
+
+    @Override
+    public boolean contentExists(String courseId, String contentId) {
+        return mongoTemplate.exists(CourseQueries.contentExists(courseId, contentId), Course.class);
+    }
+
+    @Override
+    public long initializeMissingVersions() {
+        return mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L), Course.class).getModifiedCount();
+    }
+
+    @Override
+    public boolean setImageVariants(String courseId, String imagePath, Map<String, String> variants) {
+        Query query = CourseQueries.course(courseId, null).addCriteria(Criteria.where("imagePath").is(imagePath));
+        return revisions.write(revision -> {
+            Update update = new Update().set("imageVariants", variants).inc("version", 1).set("revision", revision);
+            return mongoTemplate.updateFirst(query, update, Course.class).getMatchedCount() > 0;
+        });
+    }
+
+    @Override
+    public Stream<Course> streamCoursesMissingImageVariants() {
+        Query query = Query.query(Criteria.where("imagePath").ne(null).and("imageVariants").exists(false));
+        query.fields().include("imagePath");
+        return mongoTemplate.stream(query, Course.class);
+    }
+
+    @Override
+    public Set<String> pushContentBulk(Map<String, List<CourseContent>> contentsByCourse) {
+        if (contentsByCourse.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Course.class);
+        // One revision per course, all in flight until the bulk write returns
+        List<Long> allocated = new ArrayList<>(contentsByCourse.size());
+        try {
+            contentsByCourse.forEach((courseId, contents) -> {
+                long revision = revisions.next();
+                allocated.add(revision);
+                bulk.updateOne(CourseQueries.course(courseId, null), CourseQueries.push(contents, revision));
+            });
+            if (bulk.execute().getMatchedCount() == contentsByCourse.size()) {
+                return new HashSet<>(contentsByCourse.keySet());
+            }
+        } finally {
+            allocated.forEach(revisions::done);
+        }
+        // A bulk write only counts its matches, so look up which of the courses are still there
+        Query query = Query.query(Criteria.where("id").in(contentsByCourse.keySet()));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Course.class).stream().map(Course::getId).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Map<Integer, String> insertBulk(List<Course> courses) {
+        if (courses.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> allocated = new ArrayList<>(courses.size());
+        try {
+            for (Course course : courses) {
+                long revision = revisions.next();
+                allocated.add(revision);
+                course.setRevision(revision);
+                course.setVersion(0L);
+            }
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Course.class).insert(courses).execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            // The other inserts of an unordered bulk write still happen
+            Map<Integer, String> failures = new HashMap<>();
+            e.getErrors().forEach(error -> failures.put(error.getIndex(), error.getMessage()));
+            return failures;
+        } finally {
+            allocated.forEach(revisions::done);
+        }
+    }
+
+    @Override
+    public Stream<Course> streamAll() {
+        return mongoTemplate.stream(new Query().with(Sort.by("id")), Course.class);
+    }
+
+    @Override
+    public Stream<Course> streamForGeneration(List<String> courseIds, String category, String level,
+                                              List<String> tags) {
+        Query query = new Query();
+        if (courseIds != null && !courseIds.isEmpty()) {
+            query.addCriteria(Criteria.where("id").in(courseIds));
+        } else {
+            if (category != null && !category.isEmpty()) {
+                query.addCriteria(Criteria.where("category").is(category));
+            }
+            if (level != null && !level.isEmpty()) {
+                query.addCriteria(Criteria.where("level").is(level));
+            }
+            if (tags != null && !tags.isEmpty()) {
+                query.addCriteria(Criteria.where("tags").all(tags));
+            }
+        }
+        query.fields().include("title").include("category").include("level");
+        return mongoTemplate.stream(query, Course.class);
+    }
+
+    @Override
+    public Stream<Course> streamForIndexing(Collection<String> courseIds) {
+        Query query = new Query();
+        if (courseIds != null) {
+            query.addCriteria(Criteria.where("id").in(courseIds));
+        }
+        query.fields().include("version").include("title").include("description").include("category").include("tags")
+                .include("contentList._id").include("contentList.title").include("contentList.content")
+                .include("contentList.contentRef");
+        return mongoTemplate.stream(query, Course.class);
+    }
+
+    @Override
+    public Stream<Course> streamFacetFields() {
+        Query query = new Query();
+        query.fields().include("version").include("category").include("level").include("language").include("tags");
+        return mongoTemplate.stream(query, Course.class);
+    }
+
+    @Override
+    public List<String> ensureIndexes() {
+        List<String> missing = new ArrayList<>(
+                MongoIndexes.ensure(mongoTemplate.indexOps(Course.class), "courses", CourseQueries.indexes()));
+        missing.addAll(MongoIndexes.ensure(mongoTemplate.indexOps(CourseTombstone.class), "course_tombstones",
+                CourseQueries.tombstoneIndexes()));
+        return missing;
+    }
+}
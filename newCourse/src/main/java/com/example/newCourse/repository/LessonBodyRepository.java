@@ -0,0 +1,9 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.LessonBody;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface LessonBodyRepository extends MongoRepository<LessonBody, String> {
+
+    boolean existsByIdAndCourseIdAndLessonId(String id, String courseId, String lessonId);
+}
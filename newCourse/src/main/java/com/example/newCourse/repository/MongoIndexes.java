@@ -0,0 +1,62 @@
+package com.example.newCourse.repository;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Creates indexes, then checks the server actually lists each one
+final class MongoIndexes {
+
+    private MongoIndexes() {
+    }
+
+    /**
+     * Creates any of the given indexes that are missing. Returns a description of each index
+     * the collection still lacks afterwards, so an empty list means all of them are in place.
+     */
+    static List<String> ensure(IndexOperations operations, String collection, List<Index> definitions) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (Index definition : definitions) {
+            try {
+                operations.ensureIndex(definition);
+            } catch (RuntimeException e) {
+                // Typically an index on the same keys that exists with different options
+                failures.put(keys(definition.getIndexKeys()), e.getMessage());
+            }
+        }
+        // Matched on keys rather than names, so indexes created by hand under another name count
+        Set<String> present = operations.getIndexInfo().stream()
+                .map(MongoIndexes::keys)
+                .collect(Collectors.toSet());
+        List<String> missing = new ArrayList<>();
+        for (Index definition : definitions) {
+            String keys = keys(definition.getIndexKeys());
+            if (!present.contains(keys)) {
+                String failure = failures.get(keys);
+                missing.add(collection + " {" + keys + "}" + (failure == null ? "" : ": " + failure));
+            }
+        }
+        return missing;
+    }
+
+    private static String keys(Document keys) {
+        return keys.entrySet().stream()
+                .map(key -> key.getKey() + ": " + key.getValue())
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String keys(IndexInfo index) {
+        return index.getIndexFields().stream()
+                .map(field -> field.getKey() + ": " + (field.getDirection() == Sort.Direction.DESC ? -1 : 1))
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.StudentProgress;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface ProgressRepository extends MongoRepository<StudentProgress, String>, ProgressRepositoryCustom {
+
+    List<StudentProgress> findByCourseIdAndStudentId(String courseId, String studentId);
+
+    long deleteByCourseId(String courseId);
+
+    long deleteByCourseIdAndLessonId(String courseId, String lessonId);
+}
@@ -0,0 +1,34 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.ProgressCount;
+import com.example.newCourse.model.StudentProgress;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProgressRepositoryCustom {
+
+    /**
+     * Writes every entry with one unordered bulk upsert keyed by id. With onlyIfAbsent,
+     * existing entries are left alone (used when migrating older data).
+     */
+    int upsertAll(Collection<StudentProgress> progress, boolean onlyIfAbsent);
+
+    // Current status of each of the given progress ids that exists
+    Map<String, String> findStatuses(Collection<String> ids);
+
+    // Number of progress entries per (courseId, lessonId, status), for the given courses or all when null
+    List<ProgressCount> countByStatus(Collection<String> courseIds);
+
+    // Courses with progress written at or after the given time
+    Set<String> findCourseIdsUpdatedSince(Instant time);
+
+    /**
+     * Creates the (courseId, studentId), (courseId, lessonId) and updatedAt indexes if they are
+     * missing, and returns a description of each one the collection still lacks afterwards.
+     */
+    List<String> ensureIndexes();
+}
@@ -0,0 +1,101 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.ProgressCount;
+import com.example.newCourse.model.StudentProgress;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProgressRepositoryImpl implements ProgressRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public int upsertAll(Collection<StudentProgress> progress, boolean onlyIfAbsent) {
+        if (progress.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StudentProgress.class);
+        for (StudentProgress entry : progress) {
+            Update update = new Update()
+                    .setOnInsert("courseId", entry.getCourseId())
+                    .setOnInsert("studentId", entry.getStudentId())
+                    .setOnInsert("lessonId", entry.getLessonId());
+            if (onlyIfAbsent) {
+                update.setOnInsert("status", entry.getStatus()).setOnInsert("updatedAt", entry.getUpdatedAt());
+            } else {
+                update.set("status", entry.getStatus()).set("updatedAt", entry.getUpdatedAt());
+            }
+            bulk.upsert(Query.query(Criteria.where("id").is(entry.getId())), update);
+        }
+        BulkWriteResult result = bulk.execute();
+        return result.getMatchedCount() + result.getUpserts().size();
+    }
+
+    @Override
+    public Map<String, String> findStatuses(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("id").in(ids));
+        query.fields().include("status");
+        Map<String, String> statuses = new HashMap<>();
+        for (StudentProgress progress : mongoTemplate.find(query, StudentProgress.class)) {
+            statuses.put(progress.getId(), progress.getStatus());
+        }
+        return statuses;
+    }
+
+    @Override
+    public List<ProgressCount> countByStatus(Collection<String> courseIds) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (courseIds != null) {
+            stages.add(Aggregation.match(Criteria.where("courseId").in(courseIds)));
+        }
+        stages.add(Aggregation.group("courseId", "lessonId", "status").count().as("count"));
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<ProgressCount> counts = new ArrayList<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, StudentProgress.class, Document.class)) {
+            Document key = group.get("_id", Document.class);
+            ProgressCount count = new ProgressCount();
+            count.setCourseId(key.getString("courseId"));
+            count.setLessonId(key.getString("lessonId"));
+            count.setStatus(key.getString("status"));
+            count.setCount(group.get("count", Number.class).longValue());
+            counts.add(count);
+        }
+        return counts;
+    }
+
+    @Override
+    public Set<String> findCourseIdsUpdatedSince(Instant time) {
+        Query query = Query.query(Criteria.where("updatedAt").gte(time));
+        return new HashSet<>(mongoTemplate.findDistinct(query, "courseId", StudentProgress.class, String.class));
+    }
+
+    @Override
+    public List<String> ensureIndexes() {
+        return MongoIndexes.ensure(mongoTemplate.indexOps(StudentProgress.class), "progress", List.of(
+                new Index().on("courseId", Sort.Direction.ASC).on("studentId", Sort.Direction.ASC),
+                new Index().on("courseId", Sort.Direction.ASC).on("lessonId", Sort.Direction.ASC),
+                new Index().on("updatedAt", Sort.Direction.ASC)));
+    }
+}
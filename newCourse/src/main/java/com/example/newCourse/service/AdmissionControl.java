@@ -0,0 +1,111 @@
+package com.example.newCourse.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The admission limiters of the expensive endpoint classes: file uploads, synchronous content
+ * generation and NDJSON imports. Each class gets its own AdmissionLimiter, so a burst of one
+ * never takes more than its share of the server's threads, and the cheap reads keep the rest.
+ * AdmissionControlFilter sorts requests into the classes; everything else is not limited.
+ */
+@Service
+public class AdmissionControl {
+
+    public static final String UPLOADS = "uploads";
+    public static final String GENERATION = "generation";
+    public static final String IMPORTS = "imports";
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${admission.uploads.max-concurrent:8}")
+    private int uploadsMaxConcurrent;
+
+    @Value("${admission.uploads.max-queued:16}")
+    private int uploadsMaxQueued;
+
+    @Value("${admission.uploads.max-wait-ms:10000}")
+    private long uploadsMaxWaitMs;
+
+    @Value("${admission.uploads.target-latency-ms:0}")
+    private long uploadsTargetLatencyMs;
+
+    @Value("${admission.generation.max-concurrent:4}")
+    private int generationMaxConcurrent;
+
+    @Value("${admission.generation.max-queued:8}")
+    private int generationMaxQueued;
+
+    @Value("${admission.generation.max-wait-ms:5000}")
+    private long generationMaxWaitMs;
+
+    @Value("${admission.generation.target-latency-ms:0}")
+    private long generationTargetLatencyMs;
+
+    @Value("${admission.imports.max-concurrent:1}")
+    private int importsMaxConcurrent;
+
+    @Value("${admission.imports.max-queued:0}")
+    private int importsMaxQueued;
+
+    private final Map<String, AdmissionLimiter> limiters = new LinkedHashMap<>();
+
+    @PostConstruct
+    void start() {
+        register(new AdmissionLimiter(UPLOADS, uploadsMaxConcurrent, uploadsMaxQueued,
+                uploadsMaxWaitMs, uploadsTargetLatencyMs));
+        register(new AdmissionLimiter(GENERATION, generationMaxConcurrent, generationMaxQueued,
+                generationMaxWaitMs, generationTargetLatencyMs));
+        // An import runs for as long as its file takes to read, so a second one is turned away rather than queued
+        register(new AdmissionLimiter(IMPORTS, importsMaxConcurrent, importsMaxQueued, 0, 0));
+    }
+
+    // The limiter of a class, or null when admission control is off
+    public AdmissionLimiter limiter(String name) {
+        return enabled ? limiters.get(name) : null;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    // Records how long a request waited for its slot, and whether it got one
+    public void recordOutcome(AdmissionLimiter limiter, AdmissionLimiter.Outcome outcome, long waitedNanos) {
+        metrics.timer("admission_wait_seconds", "Time requests waited for an admission slot",
+                "class", limiter.getName()).recordNanos(waitedNanos);
+        if (outcome != AdmissionLimiter.Outcome.ADMITTED) {
+            metrics.counter("admission_rejected_total", "Requests turned away with 503 by admission control",
+                    "class", limiter.getName(), "reason", outcome.name().toLowerCase()).increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("retryAfterSeconds", retryAfterSeconds);
+        limiters.forEach((name, limiter) -> stats.put(name, limiter.stats()));
+        return stats;
+    }
+
+    private void register(AdmissionLimiter limiter) {
+        limiters.put(limiter.getName(), limiter);
+        metrics.gauge("admission_active", "Requests holding an admission slot", limiter::getActive,
+                "class", limiter.getName());
+        metrics.gauge("admission_queued", "Requests waiting for an admission slot", limiter::getQueued,
+                "class", limiter.getName());
+        metrics.gauge("admission_limit", "Current concurrency limit", limiter::getLimit,
+                "class", limiter.getName());
+    }
+}
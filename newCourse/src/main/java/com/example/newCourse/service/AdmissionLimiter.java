@@ -0,0 +1,190 @@
+package com.example.newCourse.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds how many requests of one class run at once. Up to maxQueued more wait, in arrival
+ * order, for at most maxWait; anything beyond that is turned away at once instead of tying up
+ * another server thread. A lock rather than synchronized, so waiting virtual threads don't pin
+ * their carrier.
+ * <p>
+ * With a target latency the limit adapts between 1 and maxConcurrent: once per round of
+ * {@code limit} completions, it shrinks by a quarter if the round's average latency was over
+ * the target, and grows by one if it was under and the limit was reached during the round.
+ */
+public class AdmissionLimiter {
+
+    public enum Outcome { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final long targetLatencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private int limit;
+    private int active;
+    private int queued;
+
+    // The current adaptive round
+    private int roundCompleted;
+    private long roundNanos;
+    private boolean roundSaturated;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimedOut = new LongAdder();
+
+    public AdmissionLimiter(String name, int maxConcurrent, int maxQueued, long maxWaitMs, long targetLatencyMs) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, targetLatencyMs));
+        this.limit = this.maxConcurrent;
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if the limit is reached. Only ADMITTED takes a slot,
+     * which must then be given back with {@link #release(long)}.
+     */
+    public Outcome acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            // Requests already waiting go first
+            if (queued == 0 && active < limit) {
+                return admit();
+            }
+            roundSaturated = true;
+            if (queued >= maxQueued) {
+                rejectedQueueFull.increment();
+                return Outcome.QUEUE_FULL;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (active >= limit) {
+                    if (remaining <= 0) {
+                        rejectedTimedOut.increment();
+                        return Outcome.TIMED_OUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                // The signal may have been meant for this waiter; pass it on
+                if (active < limit) {
+                    released.signal();
+                }
+                throw e;
+            } finally {
+                queued--;
+            }
+            return admit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gives back a slot taken by acquire(); elapsedNanos is how long the request held it
+    public void release(long elapsedNanos) {
+        lock.lock();
+        try {
+            active--;
+            if (targetLatencyNanos > 0) {
+                adapt(elapsedNanos);
+            }
+            if (active < limit) {
+                released.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActive() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("active", active);
+            stats.put("queued", queued);
+            stats.put("limit", limit);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("maxQueued", maxQueued);
+        stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+        stats.put("adaptive", targetLatencyNanos > 0);
+        stats.put("targetLatencyMs", TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos));
+        stats.put("admitted", admitted.sum());
+        stats.put("rejectedQueueFull", rejectedQueueFull.sum());
+        stats.put("rejectedTimedOut", rejectedTimedOut.sum());
+        return stats;
+    }
+
+    private Outcome admit() {
+        active++;
+        if (active >= limit) {
+            roundSaturated = true;
+        }
+        admitted.increment();
+        return Outcome.ADMITTED;
+    }
+
+    // Called under the lock
+    private void adapt(long elapsedNanos) {
+        roundCompleted++;
+        roundNanos += elapsedNanos;
+        if (roundCompleted < limit) {
+            return;
+        }
+        long average = roundNanos / roundCompleted;
+        if (average > targetLatencyNanos) {
+            limit = Math.max(1, limit - Math.max(1, limit / 4));
+        } else if (roundSaturated && limit < maxConcurrent) {
+            limit++;
+            released.signal();
+        }
+        roundCompleted = 0;
+        roundNanos = 0;
+        roundSaturated = false;
+    }
+}
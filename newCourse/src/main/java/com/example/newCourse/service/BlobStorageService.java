@@ -0,0 +1,326 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.StoredBlob;
+import com.example.newCourse.repository.BlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for uploaded files. Content is hashed with SHA-256 while it
+ * streams to a temporary file and then stored once as uploads/&lt;dir&gt;/&lt;digest&gt;.&lt;ext&gt;;
+ * identical uploads share that file. Every course or lesson field pointing at a blob holds
+ * one reference, and a blob's file is deleted as soon as its last reference is released.
+ * Paths that were uploaded before deduplication are not tracked and are never deleted.
+ */
+@Service
+public class BlobStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStorageService.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("[a-z0-9]{1,8}");
+    // The paths store() hands out; anything else predates deduplication
+    private static final Pattern STORED_PATH = Pattern.compile("/uploads/[a-z]+/[0-9a-f]{64}(\\.[a-z0-9]{1,8})?");
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Value("${uploads.root:uploads}")
+    private Path uploadRoot;
+
+    // Serialize reference changes with the file move/delete they imply, so a blob that is being
+    // collected cannot lose its file to a concurrent upload of the same content. Striped by path:
+    // changes to different blobs never wait for each other. Locks rather than monitors: they are
+    // held across MongoDB and file I/O, which would pin a virtual thread.
+    private final ReentrantLock[] pathLocks = new ReentrantLock[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            pathLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Stores the stream under uploads/{directory} and returns its public path
+     * ("/uploads/{directory}/{digest}.{ext}") with one reference taken.
+     */
+    public String store(InputStream content, String directory, String originalFileName) throws IOException {
+        Path tempDir = uploadRoot.resolve("parts");
+        Files.createDirectories(tempDir);
+        Path temp = tempDir.resolve(UUID.randomUUID() + ".upload");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long started = System.nanoTime();
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            recordCopy(directory, "store", size, System.nanoTime() - started);
+            return commit(temp, HexFormat.of().formatHex(digest.digest()), size, directory, originalFileName);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Same as {@link #store} for a file that is already on disk in the uploads tree,
+     * such as an assembled chunked upload. The file is moved, not copied, and is left
+     * in place if storing fails.
+     */
+    public String storeFile(Path file, String directory, String originalFileName) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long started = System.nanoTime();
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        // Its bytes were counted as they arrived, when the chunks were written
+        recordCopy(directory, "hash", 0, System.nanoTime() - started);
+        return commit(file, HexFormat.of().formatHex(digest.digest()), Files.size(file), directory, originalFileName);
+    }
+
+    /**
+     * Records file I/O under uploads/: the bytes received (rate() of upload_bytes_total is the
+     * upload throughput) and how long streaming them to disk took. Also used for chunked uploads.
+     */
+    public void recordCopy(String directory, String operation, long bytes, long elapsedNanos) {
+        if (bytes > 0) {
+            metrics.counter("upload_bytes_total", "Bytes uploaded and written under uploads/", "directory", directory).add(bytes);
+        }
+        metrics.timer("file_copy_seconds", "Time to stream and hash files under uploads/",
+                "directory", directory, "operation", operation).recordNanos(elapsedNanos);
+        RequestTrace.record(RequestTrace.Phase.FILES, elapsedNanos);
+    }
+
+    /**
+     * Takes a reference on a path that is about to be used by another course or lesson field.
+     * Call it before the field is written and release the path if the write fails. Fails with
+     * 409 when the path names a stored blob that has been collected in the meantime.
+     */
+    public void retain(String path) {
+        if (path == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(path);
+        lock.lock();
+        try {
+            if (!blobRepository.addReferenceIfPresent(path) && STORED_PATH.matcher(path).matches()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "File " + path + " is no longer stored; upload it again");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Retains every path, or none of them when one of them fails
+    public void retainPaths(List<String> paths) {
+        List<String> retained = new ArrayList<>(paths.size());
+        try {
+            for (String path : paths) {
+                retain(path);
+                retained.add(path);
+            }
+        } catch (RuntimeException e) {
+            releasePaths(retained);
+            throw e;
+        }
+    }
+
+    // Drops a reference; the file is deleted when nothing points at it any more
+    public void release(String path) {
+        if (path == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(path);
+        lock.lock();
+        try {
+            StoredBlob blob = blobRepository.removeReference(path);
+            if (blob != null && blob.getRefCount() <= 0) {
+                collect(blob);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void releasePaths(List<String> paths) {
+        for (String path : paths) {
+            release(path);
+        }
+    }
+
+    public void releaseAll(Course course) {
+        if (course != null) {
+            releasePaths(paths(course));
+        }
+    }
+
+    public void releaseAll(CourseContent content) {
+        if (content != null) {
+            releasePaths(paths(content));
+        }
+    }
+
+    // The file paths a course points at, each holding one reference
+    public static List<String> paths(Course course) {
+        List<String> paths = new ArrayList<>();
+        paths.add(course.getImagePath());
+        if (course.getContentList() != null) {
+            for (CourseContent content : course.getContentList()) {
+                paths.addAll(paths(content));
+            }
+        }
+        paths.removeIf(path -> path == null);
+        return paths;
+    }
+
+    public static List<String> paths(CourseContent content) {
+        List<String> paths = new ArrayList<>(2);
+        if (content.getVideoUrl() != null) {
+            paths.add(content.getVideoUrl());
+        }
+        if (content.getResourceUrl() != null) {
+            paths.add(content.getResourceUrl());
+        }
+        return paths;
+    }
+
+    /**
+     * Deletes every blob left without references, e.g. after a crash between a release
+     * and the file deletion. Returns the number of blobs removed.
+     */
+    public int collectGarbage() {
+        int collected = 0;
+        for (StoredBlob blob : blobRepository.findUnreferenced()) {
+            ReentrantLock lock = lockFor(blob.getPath());
+            lock.lock();
+            try {
+                if (collect(blob)) {
+                    collected++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return collected;
+    }
+
+    public Map<String, Object> stats() {
+        long[] totals = blobRepository.totals();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("blobs", totals[0]);
+        stats.put("physicalBytes", totals[1]);
+        stats.put("logicalBytes", totals[2]);
+        stats.put("bytesSaved", Math.max(0, totals[2] - totals[1]));
+        stats.put("dedupRatio", totals[1] == 0 ? 1.0 : (double) totals[2] / totals[1]);
+        return stats;
+    }
+
+    private String commit(Path source, String digest, long size, String directory, String originalFileName)
+            throws IOException {
+        String path = "/uploads/" + directory + "/" + digest + extensionOf(originalFileName);
+        Path target = fileOf(path);
+        Files.createDirectories(target.getParent());
+        ReentrantLock lock = lockFor(path);
+        lock.lock();
+        try {
+            blobRepository.addReference(path, digest, size);
+            if (Files.exists(target)) {
+                Files.delete(source);
+            } else {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return path;
+    }
+
+    private boolean collect(StoredBlob blob) {
+        if (!blobRepository.deleteIfUnreferenced(blob.getPath())) {
+            return false;
+        }
+        try {
+            Path file = fileOf(blob.getPath());
+            Files.deleteIfExists(file);
+            // Cover images also have resized variants named after the original
+            String baseName = file.getFileName().toString();
+            int dot = baseName.lastIndexOf('.');
+            String prefix = (dot > 0 ? baseName.substring(0, dot) : baseName) + "_";
+            for (String variant : ImageVariantService.VARIANT_WIDTHS.keySet()) {
+                Files.deleteIfExists(uploadRoot.resolve("variants").resolve(prefix + variant + ".jpg"));
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete blob file {}: {}", blob.getPath(), e.getMessage());
+        }
+        return true;
+    }
+
+    private ReentrantLock lockFor(String path) {
+        return pathLocks[Math.floorMod(path.hashCode(), LOCK_STRIPES)];
+    }
+
+    // The file behind a public "/uploads/..." path
+    private Path fileOf(String path) {
+        return uploadRoot.resolve(path.substring("/uploads/".length()));
+    }
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return "";
+        }
+        String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return SAFE_EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.UploadRequest;
+import com.example.newCourse.model.UploadStatus;
+import com.example.newCourse.repository.CourseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable uploads for large lesson videos and resources. A client opens a session,
+ * PUTs numbered chunks in any order (re-sending any that failed) and then completes
+ * the session. Each chunk is streamed through a fixed-size buffer straight to its
+ * offset in a preallocated part file, so heap use does not grow with the file size.
+ * <p>
+ * Sessions live in memory only. Part files left behind by a restart, or by sessions that
+ * were never completed, are swept from uploads/parts at startup and then periodically.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Value("${uploads.chunk.default-size:8388608}")
+    private int defaultChunkSize;
+
+    @Value("${uploads.chunk.max-size:67108864}")
+    private int maxChunkSize;
+
+    @Value("${uploads.chunk.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${uploads.chunk.max-count:100000}")
+    private int maxChunkCount;
+
+    @Value("${uploads.max-total-size:10737418240}")
+    private long maxTotalSize;
+
+    @Value("${uploads.max-sessions:256}")
+    private int maxSessions;
+
+    @Value("${uploads.sweep-interval-minutes:60}")
+    private long sweepIntervalMinutes;
+
+    @Value("${uploads.root:uploads}/parts")
+    private Path partDir;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Held while checking the session limit and adding a session, so the limit is exact
+    private final ReentrantLock sessionLimitLock = new ReentrantLock();
+    // Part files older than this were left by an earlier run
+    private final long startedAt = System.currentTimeMillis();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "upload-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UploadStatus init(UploadRequest request) throws IOException {
+        expireStaleSessions();
+        Target target = Target.of(request.getKind());
+        if (request.getFileName() == null || request.getFileName().isBlank() || request.getTotalSize() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fileName and totalSize are required");
+        }
+        if (request.getTotalSize() > maxTotalSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "totalSize must be at most " + maxTotalSize + " bytes");
+        }
+        int chunkSize = request.getChunkSize() == null ? defaultChunkSize : request.getChunkSize();
+        if (chunkSize <= 0 || chunkSize > maxChunkSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize must be between 1 and " + maxChunkSize);
+        }
+        if ((request.getTotalSize() + chunkSize - 1) / chunkSize > maxChunkCount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "chunkSize is too small; an upload may have at most " + maxChunkCount + " chunks");
+        }
+        if (!courseRepository.contentExists(request.getCourseId(), request.getContentId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Lesson not found");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Session session = new Session(id, request, target, chunkSize, partDir.resolve(id + ".part"));
+        sessionLimitLock.lock();
+        try {
+            if (sessions.size() >= maxSessions) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many uploads in progress");
+            }
+            sessions.put(session.id, session);
+        } finally {
+            sessionLimitLock.unlock();
+        }
+        try {
+            Files.createDirectories(partDir);
+            // Preallocating by writing the last byte lets chunks land at any offset in any order
+            try (FileChannel channel = FileChannel.open(session.partFile,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(1), session.totalSize - 1);
+            }
+        } catch (IOException e) {
+            sessions.remove(session.id);
+            throw e;
+        }
+        return session.status();
+    }
+
+    public UploadStatus status(String uploadId) {
+        return requireSession(uploadId).status();
+    }
+
+    /**
+     * Streams one chunk from the request body into place and verifies its SHA-256.
+     * A chunk that fails verification is left unmarked so the client can resend it.
+     * Only one write of a given chunk runs at a time, and none once complete() has started,
+     * so the checksum verified is that of the bytes left in the part file.
+     */
+    public UploadStatus writeChunk(String uploadId, int index, String expectedSha256, InputStream body)
+            throws IOException {
+        Session session = requireSession(uploadId);
+        if (index < 0 || index >= session.chunkCount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk index out of range");
+        }
+        if (expectedSha256 == null || expectedSha256.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "X-Chunk-Sha256 header is required");
+        }
+
+        // A resent chunk counts as missing until it has been rewritten and verified
+        session.beginWrite(index);
+        boolean verified = false;
+        try {
+            copyChunk(session, index, expectedSha256, body);
+            verified = true;
+        } finally {
+            session.endWrite(index, verified);
+        }
+        return session.status();
+    }
+
+    private void copyChunk(Session session, int index, String expectedSha256, InputStream body) throws IOException {
+        long offset = (long) index * session.chunkSize;
+        long expectedLength = Math.min(session.chunkSize, session.totalSize - offset);
+        MessageDigest digest = sha256();
+        long written = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(session.partFile, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = body.read(buffer, 0, (int) Math.min(buffer.length, expectedLength - written + 1))) != -1) {
+                if (written + read > expectedLength) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk is larger than expected");
+                }
+                digest.update(buffer, 0, read);
+                ByteBuffer source = ByteBuffer.wrap(buffer, 0, read);
+                while (source.hasRemaining()) {
+                    channel.write(source, offset + written + source.position());
+                }
+                written += read;
+            }
+        } finally {
+            // Includes receiving the body: chunks are streamed from the request, not buffered
+            blobStorageService.recordCopy("parts", "chunk", written, System.nanoTime() - started);
+        }
+        if (written != expectedLength) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk " + index + " should be " + expectedLength + " bytes but was " + written);
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(expectedSha256.trim())) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Checksum mismatch for chunk " + index);
+        }
+    }
+
+    /**
+     * Hands the assembled file to blob storage and points the lesson at it with a single
+     * atomic update.
+     */
+    public CourseContent complete(String uploadId) throws IOException {
+        Session session = requireSession(uploadId);
+        session.close(true);
+
+        String storedPath;
+        try {
+            storedPath = blobStorageService.storeFile(session.partFile, session.target.directory, session.fileName);
+        } catch (IOException e) {
+            session.reopen();
+            throw e;
+        }
+        sessions.remove(uploadId);
+
+        // As CourseController.writeLessons: unless the lesson now points at the stored file,
+        // whether it was deleted meanwhile or the update failed, nothing else refers to it
+        CourseContent previous = null;
+        try {
+            previous = courseRepository.setContentProperty(session.courseId, session.contentId,
+                    session.target.property, storedPath);
+        } finally {
+            if (previous == null) {
+                blobStorageService.release(storedPath);
+            }
+        }
+        eventPublisher.publishEvent(CourseChangedEvent.modified(session.courseId));
+        if (previous == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Lesson was deleted during the upload");
+        }
+        if (session.target == Target.VIDEO) {
+            blobStorageService.release(previous.getVideoUrl());
+            previous.setVideoUrl(storedPath);
+        } else {
+            blobStorageService.release(previous.getResourceUrl());
+            previous.setResourceUrl(storedPath);
+        }
+        return previous;
+    }
+
+    public void abort(String uploadId) throws IOException {
+        Session session = requireSession(uploadId);
+        session.close(false);
+        sessions.remove(uploadId);
+        Files.deleteIfExists(session.partFile);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeping() {
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Expires idle sessions, then deletes every file in uploads/parts that no session owns and
+     * that is either from an earlier run or has not been written to for a session TTL. Blob
+     * storage spools whole-file uploads there too; those are written continuously while alive.
+     */
+    void sweep() {
+        expireStaleSessions();
+        if (!Files.isDirectory(partDir)) {
+            return;
+        }
+        long idleCutoff = System.currentTimeMillis() - sessionTtlHours * 3_600_000L;
+        Set<Path> live = new HashSet<>();
+        sessions.values().forEach(session -> live.add(session.partFile.getFileName()));
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(partDir)) {
+            for (Path file : files) {
+                if (live.contains(file.getFileName())) {
+                    continue;
+                }
+                try {
+                    long modified = Files.getLastModifiedTime(file).toMillis();
+                    if (modified < startedAt || modified < idleCutoff) {
+                        Files.deleteIfExists(file);
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not sweep {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep {}: {}", partDir, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Swept {} abandoned upload part files", deleted);
+        }
+    }
+
+    private Session requireSession(String uploadId) {
+        Session session = sessions.get(uploadId);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found");
+        }
+        session.touch();
+        return session;
+    }
+
+    private void expireStaleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtlHours * 3_600_000L;
+        sessions.values().removeIf(session -> {
+            if (session.lastActivity >= cutoff || !session.closeIfIdle()) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(session.partFile);
+            } catch (IOException ignored) {
+                // Best effort; the part directory can be cleaned up by hand
+            }
+            return true;
+        });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private enum Target {
+        VIDEO("videos", "videoUrl"),
+        RESOURCE("resources", "resourceUrl");
+
+        final String directory;
+        final String property;
+
+        Target(String directory, String property) {
+            this.directory = directory;
+            this.property = property;
+        }
+
+        static Target of(String kind) {
+            if ("video".equalsIgnoreCase(kind)) {
+                return VIDEO;
+            }
+            if ("resource".equalsIgnoreCase(kind)) {
+                return RESOURCE;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "kind must be 'video' or 'resource'");
+        }
+    }
+
+    private static final class Session {
+        final String id;
+        final String courseId;
+        final String contentId;
+        final Target target;
+        final String fileName;
+        final long totalSize;
+        final int chunkSize;
+        final int chunkCount;
+        final Path partFile;
+        private final BitSet received;
+        // Chunks being written right now
+        private final BitSet writing = new BitSet();
+        // Set once the session is being completed or aborted; no more chunks are accepted
+        private boolean closed;
+        volatile long lastActivity = System.currentTimeMillis();
+
+        Session(String id, UploadRequest request, Target target, int chunkSize, Path partFile) {
+            this.id = id;
+            this.courseId = request.getCourseId();
+            this.contentId = request.getContentId();
+            this.target = target;
+            this.fileName = StringUtils.getFilename(StringUtils.cleanPath(request.getFileName()));
+            this.totalSize = request.getTotalSize();
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((totalSize + chunkSize - 1) / chunkSize);
+            this.partFile = partFile;
+            this.received = new BitSet(chunkCount);
+        }
+
+        void touch() {
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized void beginWrite(int index) {
+            if (closed) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is being completed");
+            }
+            if (writing.get(index)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Chunk " + index + " is already being written");
+            }
+            writing.set(index);
+            received.clear(index);
+        }
+
+        synchronized void endWrite(int index, boolean verified) {
+            writing.clear(index);
+            received.set(index, verified);
+        }
+
+        // Stops accepting chunks so the part file no longer changes; completing needs every chunk
+        synchronized void close(boolean completing) {
+            if (closed) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is already being completed");
+            }
+            if (!writing.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Chunks are still being written");
+            }
+            if (completing && received.cardinality() != chunkCount) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Not all chunks have been received");
+            }
+            closed = true;
+        }
+
+        synchronized boolean closeIfIdle() {
+            if (closed || !writing.isEmpty()) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+
+        synchronized void reopen() {
+            closed = false;
+        }
+
+        synchronized UploadStatus status() {
+            UploadStatus status = new UploadStatus();
+            status.setUploadId(id);
+            status.setCourseId(courseId);
+            status.setContentId(contentId);
+            status.setKind(target.name().toLowerCase());
+            status.setFileName(fileName);
+            status.setTotalSize(totalSize);
+            status.setChunkSize(chunkSize);
+            status.setChunkCount(chunkCount);
+            List<Integer> chunks = new ArrayList<>(received.cardinality());
+            received.stream().forEach(chunks::add);
+            status.setReceivedChunks(chunks);
+            status.setComplete(received.cardinality() == chunkCount);
+            return status;
+        }
+    }
+}
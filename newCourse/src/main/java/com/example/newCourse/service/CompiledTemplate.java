@@ -0,0 +1,85 @@
+package com.example.newCourse.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lesson template pre-split into literal text and variable slots. Rendering is a
+ * single pass of appends into a builder sized up front; a template without variables
+ * returns its text without allocating.
+ */
+final class CompiledTemplate {
+
+    enum Variable {
+        TITLE("title"), LEVEL("level"), LEVEL_LOWER("levelLower"), CATEGORY("category");
+
+        final String placeholder;
+
+        Variable(String placeholder) {
+            this.placeholder = "{{" + placeholder + "}}";
+        }
+    }
+
+    private static final Variable[] VARIABLES = Variable.values();
+
+    // literals[i] precedes variables[i]; the last literal follows the last variable
+    private final String[] literals;
+    private final Variable[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, Variable[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Variable> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int next = -1;
+            Variable found = null;
+            for (Variable variable : VARIABLES) {
+                int index = source.indexOf(variable.placeholder, position);
+                if (index >= 0 && (next < 0 || index < next)) {
+                    next = index;
+                    found = variable;
+                }
+            }
+            if (found == null) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, next));
+            variables.add(found);
+            position = next + found.placeholder.length();
+        }
+        for (String literal : literals) {
+            if (literal.contains("{{")) {
+                throw new IllegalArgumentException("Unknown placeholder in template: " + source);
+            }
+        }
+        return new CompiledTemplate(literals.toArray(new String[0]), variables.toArray(new Variable[0]));
+    }
+
+    // values is indexed by Variable.ordinal()
+    String render(String[] values) {
+        if (variables.length == 0) {
+            return literals[0];
+        }
+        int length = literalLength;
+        for (Variable variable : variables) {
+            length += values[variable.ordinal()].length();
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]).append(values[variables[i].ordinal()]);
+        }
+        return out.append(literals[variables.length]).toString();
+    }
+}
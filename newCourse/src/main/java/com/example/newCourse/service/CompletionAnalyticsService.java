@@ -0,0 +1,452 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.event.ProgressChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseAnalytics;
+import com.example.newCourse.model.CourseAnalyticsCheckpoint;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.LessonAnalytics;
+import com.example.newCourse.model.ProgressCount;
+import com.example.newCourse.repository.AnalyticsCheckpointRepository;
+import com.example.newCourse.repository.ProgressRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running counts of course and lesson progress by status, updated from the status
+ * transitions ProgressIngestionService reports after each bulk write, so dashboards never
+ * scan the progress collection. Counters are checkpointed to MongoDB periodically with a
+ * watermark; on startup they are loaded back and only courses with progress written at or after
+ * the watermark are recounted.
+ */
+@Service
+public class CompletionAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CompletionAnalyticsService.class);
+
+    public static final String WATERMARK_ID = "_watermark";
+    // Index of each status in the counter arrays
+    private static final List<String> STATUS_ORDER = List.of("Not Started", "In Progress", "Completed");
+
+    @Autowired
+    private ProgressRepository progressRepository;
+
+    @Autowired
+    private AnalyticsCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private CourseCache courseCache;
+
+    @Autowired
+    private ProgressIngestionService progressIngestionService;
+
+    @Value("${analytics.checkpoint-interval-seconds:60}")
+    private long checkpointIntervalSeconds;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Serializes applying changes, recounting and snapshotting. Recounts also run inside
+    // ProgressIngestionService.whileNotWriting so they line up with the published changes.
+    private final ReentrantLock updateLock = new ReentrantLock();
+    // Progress written before this time is reflected in the counters, and some written at it
+    // may be; guarded by updateLock
+    private Instant appliedUpTo = Instant.EPOCH;
+    private volatile boolean ready;
+    private volatile Instant lastCheckpoint;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "completion-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Completion figures of one course from the running counters, or empty if the course
+     * does not exist. Costs one pass over the course's lessons, however much progress there is.
+     */
+    public Optional<CourseAnalytics> getCourseAnalytics(String courseId) {
+        Optional<Course> course = courseCache.findById(courseId);
+        if (course.isEmpty()) {
+            return Optional.empty();
+        }
+        Counters courseCounters = counters.get(courseId);
+        return Optional.of(render(course.get(), courseCounters == null ? new Counters() : courseCounters.copy()));
+    }
+
+    /**
+     * Recounts one course from the progress collection and compares it with the running
+     * counters, without changing them.
+     */
+    public Map<String, Object> verify(String courseId) {
+        return progressIngestionService.whileNotWriting(() -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            updateLock.lock();
+            try {
+                Counters recounted = recount(List.of(courseId)).getOrDefault(courseId, new Counters());
+                Counters current = counters.getOrDefault(courseId, new Counters()).copy();
+                result.put("consistent", recounted.sameAs(current));
+                result.put("incremental", current.toCheckpoint(courseId, appliedUpTo));
+                result.put("recomputed", recounted.toCheckpoint(courseId, appliedUpTo));
+            } finally {
+                updateLock.unlock();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Rebuilds every counter from the progress collection and reports how many courses
+     * disagreed with the running counters. Blocks progress flushes while it runs.
+     */
+    public Map<String, Object> recomputeAll() {
+        return progressIngestionService.whileNotWriting(() -> {
+            updateLock.lock();
+            try {
+                return recountAll();
+            } finally {
+                updateLock.unlock();
+            }
+        });
+    }
+
+    // Callers hold updateLock inside whileNotWriting
+    private Map<String, Object> recountAll() {
+        long started = System.nanoTime();
+        Map<String, Counters> recounted = recount(null);
+        int mismatched = 0;
+        for (String courseId : union(recounted.keySet(), counters.keySet())) {
+            if (!recounted.getOrDefault(courseId, new Counters()).sameAs(counters.getOrDefault(courseId, new Counters()))) {
+                mismatched++;
+            }
+        }
+        dirty.addAll(counters.keySet());
+        dirty.addAll(recounted.keySet());
+        counters.clear();
+        counters.putAll(recounted);
+        // Every write so far is counted, and later ones are stamped later than now
+        appliedUpTo = Instant.now();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("courses", recounted.size());
+        result.put("mismatched", mismatched);
+        result.put("millis", (System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("courses", counters.size());
+        stats.put("dirty", dirty.size());
+        stats.put("lastCheckpoint", lastCheckpoint);
+        return stats;
+    }
+
+    // Runs on the progress flusher thread right after each bulk write
+    @EventListener
+    public void onProgressChanged(ProgressChangedEvent event) {
+        updateLock.lock();
+        try {
+            if (!ready) {
+                // Recovery counts everything written before it goes live, this included
+                return;
+            }
+            for (ProgressChangedEvent.Change change : event.changes()) {
+                Counters courseCounters = counters.computeIfAbsent(change.courseId(), id -> new Counters());
+                synchronized (courseCounters) {
+                    long[] counts = courseCounters.countsFor(change.lessonId());
+                    if (change.previousStatus() != null) {
+                        counts[STATUS_ORDER.indexOf(change.previousStatus())]--;
+                    }
+                    counts[STATUS_ORDER.indexOf(change.status())]++;
+                }
+                dirty.add(change.courseId());
+            }
+            if (!event.recountCourseIds().isEmpty()) {
+                Set<String> courseIds = Set.copyOf(event.recountCourseIds());
+                scheduler.execute(() -> recountCourses(courseIds));
+            }
+            appliedUpTo = event.writtenAt();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.deleted()) {
+            updateLock.lock();
+            try {
+                counters.remove(event.courseId());
+                dirty.remove(event.courseId());
+            } finally {
+                updateLock.unlock();
+            }
+            checkpointRepository.deleteById(event.courseId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        scheduler.execute(this::recover);
+        scheduler.scheduleWithFixedDelay(this::checkpoint, checkpointIntervalSeconds, checkpointIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (ready) {
+            checkpoint();
+        }
+    }
+
+    private void recover() {
+        long started = System.nanoTime();
+        try {
+            Optional<CourseAnalyticsCheckpoint> marker = checkpointRepository.findById(WATERMARK_ID);
+            Instant watermark = marker.map(CourseAnalyticsCheckpoint::getWatermark).orElse(null);
+            if (watermark != null) {
+                for (CourseAnalyticsCheckpoint checkpoint : checkpointRepository.findAll()) {
+                    if (!WATERMARK_ID.equals(checkpoint.getId())) {
+                        counters.put(checkpoint.getId(), Counters.fromCheckpoint(checkpoint));
+                    }
+                }
+            }
+            // Writes are held off from here, so nothing falls between the recount and going live
+            String outcome = progressIngestionService.whileNotWriting(() -> {
+                updateLock.lock();
+                try {
+                    String counted;
+                    if (watermark == null) {
+                        counted = "counted " + recountAll().get("courses") + " courses from scratch";
+                    } else {
+                        // At or after: every chunk of a flush is stamped with the same time, and a
+                        // checkpoint between two chunks has the later ones still to count
+                        Set<String> changed = progressRepository.findCourseIdsUpdatedSince(watermark);
+                        replace(changed, recount(changed));
+                        appliedUpTo = Instant.now();
+                        counted = "loaded " + counters.size() + " courses, recounted " + changed.size()
+                                + " changed since " + watermark;
+                    }
+                    ready = true;
+                    return counted;
+                } finally {
+                    updateLock.unlock();
+                }
+            });
+            log.info("Completion analytics {} in {} ms", outcome, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Could not load completion analytics: {}", e.getMessage());
+        }
+    }
+
+    private void recountCourses(Set<String> courseIds) {
+        try {
+            progressIngestionService.whileNotWriting(() -> {
+                updateLock.lock();
+                try {
+                    replace(courseIds, recount(courseIds));
+                } finally {
+                    updateLock.unlock();
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not recount progress of {} courses: {}", courseIds.size(), e.getMessage());
+        }
+    }
+
+    // Callers hold updateLock
+    private void replace(Collection<String> courseIds, Map<String, Counters> recounted) {
+        for (String courseId : courseIds) {
+            Counters courseCounters = recounted.get(courseId);
+            if (courseCounters == null) {
+                counters.remove(courseId);
+            } else {
+                counters.put(courseId, courseCounters);
+            }
+            dirty.add(courseId);
+        }
+    }
+
+    private Map<String, Counters> recount(Collection<String> courseIds) {
+        Map<String, Counters> recounted = new HashMap<>();
+        for (ProgressCount count : progressRepository.countByStatus(courseIds)) {
+            int status = STATUS_ORDER.indexOf(count.getStatus());
+            if (status >= 0) {
+                recounted.computeIfAbsent(count.getCourseId(), id -> new Counters())
+                        .countsFor(count.getLessonId())[status] += count.getCount();
+            }
+        }
+        return recounted;
+    }
+
+    private void checkpoint() {
+        if (!ready) {
+            return;
+        }
+        List<CourseAnalyticsCheckpoint> checkpoints = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        Instant watermark;
+        updateLock.lock();
+        try {
+            watermark = appliedUpTo;
+            for (String courseId : dirty) {
+                Counters courseCounters = counters.get(courseId);
+                if (courseCounters == null) {
+                    deleted.add(courseId);
+                } else {
+                    checkpoints.add(courseCounters.copy().toCheckpoint(courseId, watermark));
+                }
+            }
+            dirty.clear();
+        } finally {
+            updateLock.unlock();
+        }
+        try {
+            checkpointRepository.saveAll(checkpoints);
+            checkpointRepository.deleteAllById(deleted);
+            // Written last: if anything above failed, recovery starts from the previous watermark
+            CourseAnalyticsCheckpoint marker = new CourseAnalyticsCheckpoint();
+            marker.setId(WATERMARK_ID);
+            marker.setWatermark(watermark);
+            checkpointRepository.save(marker);
+            lastCheckpoint = Instant.now();
+        } catch (Exception e) {
+            checkpoints.forEach(checkpoint -> dirty.add(checkpoint.getId()));
+            dirty.addAll(deleted);
+            log.warn("Could not checkpoint completion analytics: {}", e.getMessage());
+        }
+    }
+
+    private static CourseAnalytics render(Course course, Counters courseCounters) {
+        CourseAnalytics analytics = new CourseAnalytics();
+        analytics.setCourseId(course.getId());
+        analytics.setNotStarted(courseCounters.course[0]);
+        analytics.setInProgress(courseCounters.course[1]);
+        analytics.setCompleted(courseCounters.course[2]);
+
+        List<CourseContent> lessons = new ArrayList<>(course.getContentList() == null ? List.of() : course.getContentList());
+        lessons.sort(Comparator.comparingInt(CourseContent::getOrder));
+        // Students may report lesson progress without a course-level status
+        long students = Arrays.stream(courseCounters.course).sum();
+        for (CourseContent lesson : lessons) {
+            long[] counts = courseCounters.lessons.getOrDefault(lesson.getId(), new long[3]);
+            students = Math.max(students, counts[1] + counts[2]);
+        }
+        analytics.setStudents(students);
+        analytics.setCompletionRate(students == 0 ? 0 : (double) analytics.getCompleted() / students);
+
+        long previousCompleted = students;
+        long biggestDropOff = 0;
+        for (CourseContent lesson : lessons) {
+            long[] counts = courseCounters.lessons.getOrDefault(lesson.getId(), new long[3]);
+            LessonAnalytics lessonAnalytics = new LessonAnalytics();
+            lessonAnalytics.setLessonId(lesson.getId());
+            lessonAnalytics.setTitle(lesson.getTitle());
+            lessonAnalytics.setNotStarted(counts[0]);
+            lessonAnalytics.setInProgress(counts[1]);
+            lessonAnalytics.setCompleted(counts[2]);
+            lessonAnalytics.setCompletionRate(students == 0 ? 0 : (double) counts[2] / students);
+            lessonAnalytics.setDropOff(Math.max(0, previousCompleted - counts[1] - counts[2]));
+            if (lessonAnalytics.getDropOff() > biggestDropOff) {
+                biggestDropOff = lessonAnalytics.getDropOff();
+                analytics.setBiggestDropOffLessonId(lesson.getId());
+            }
+            analytics.getLessons().add(lessonAnalytics);
+            previousCompleted = counts[2];
+        }
+        return analytics;
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    // Counts per status for a course (course-level entries) and for each of its lessons
+    private static final class Counters {
+        final long[] course = new long[3];
+        final Map<String, long[]> lessons = new HashMap<>();
+
+        long[] countsFor(String lessonId) {
+            return lessonId == null ? course : lessons.computeIfAbsent(lessonId, id -> new long[3]);
+        }
+
+        synchronized Counters copy() {
+            Counters copy = new Counters();
+            System.arraycopy(course, 0, copy.course, 0, 3);
+            lessons.forEach((lessonId, counts) -> copy.lessons.put(lessonId, counts.clone()));
+            return copy;
+        }
+
+        // Lessons whose counts are all zero are the same as absent ones
+        synchronized boolean sameAs(Counters other) {
+            if (!Arrays.equals(course, other.course)) {
+                return false;
+            }
+            for (String lessonId : union(lessons.keySet(), other.lessons.keySet())) {
+                if (!Arrays.equals(lessons.getOrDefault(lessonId, new long[3]),
+                        other.lessons.getOrDefault(lessonId, new long[3]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        CourseAnalyticsCheckpoint toCheckpoint(String courseId, Instant watermark) {
+            CourseAnalyticsCheckpoint checkpoint = new CourseAnalyticsCheckpoint();
+            checkpoint.setId(courseId);
+            checkpoint.setCourseCounts(Arrays.stream(course).boxed().toList());
+            Map<String, List<Long>> lessonCounts = new LinkedHashMap<>();
+            lessons.forEach((lessonId, counts) -> lessonCounts.put(lessonId, Arrays.stream(counts).boxed().toList()));
+            checkpoint.setLessonCounts(lessonCounts);
+            checkpoint.setWatermark(watermark);
+            return checkpoint;
+        }
+
+        static Counters fromCheckpoint(CourseAnalyticsCheckpoint checkpoint) {
+            Counters restored = new Counters();
+            if (checkpoint.getCourseCounts() != null) {
+                for (int i = 0; i < 3 && i < checkpoint.getCourseCounts().size(); i++) {
+                    restored.course[i] = checkpoint.getCourseCounts().get(i);
+                }
+            }
+            if (checkpoint.getLessonCounts() != null) {
+                checkpoint.getLessonCounts().forEach((lessonId, counts) -> {
+                    long[] lessonCounts = restored.countsFor(lessonId);
+                    for (int i = 0; i < 3 && i < counts.size(); i++) {
+                        lessonCounts[i] = counts.get(i);
+                    }
+                });
+            }
+            return restored;
+        }
+    }
+}
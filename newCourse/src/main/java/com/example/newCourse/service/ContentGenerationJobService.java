@@ -0,0 +1,289 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.GenerationJobRequest;
+import com.example.newCourse.model.GenerationJobStatus;
+import com.example.newCourse.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs ContentGeneratorService over many courses in the background. Each course is
+ * generated on its own virtual thread, with a semaphore capping how many run at once;
+ * finished results are handed to a single writer that appends them to MongoDB in
+ * unordered bulk writes.
+ */
+@Service
+public class ContentGenerationJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentGenerationJobService.class);
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ContentGeneratorService contentGeneratorService;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${generation.jobs.default-concurrency:64}")
+    private int defaultConcurrency;
+
+    @Value("${generation.jobs.max-concurrency:1024}")
+    private int maxConcurrency;
+
+    @Value("${generation.jobs.batch-size:500}")
+    private int batchSize;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public GenerationJobStatus start(GenerationJobRequest request) {
+        if (isEmpty(request.getCourseIds()) && isEmpty(request.getCategory()) && isEmpty(request.getLevel())
+                && isEmpty(request.getTags()) && !request.isAll()) {
+            // An empty filter matches every course; that has to be asked for explicitly
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Give courseIds or a category, level or tags filter, or set all to generate for every course");
+        }
+        int concurrency = request.getConcurrency() == null ? defaultConcurrency
+                : Math.max(1, Math.min(request.getConcurrency(), maxConcurrency));
+        Job job = new Job(UUID.randomUUID().toString(), concurrency);
+        pruneFinishedJobs();
+        jobs.put(job.id, job);
+        Thread.ofVirtual().name("generation-job-" + job.id).start(() -> run(job, request));
+        return job.status();
+    }
+
+    public GenerationJobStatus status(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.status();
+    }
+
+    public List<GenerationJobStatus> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.startedAt).reversed())
+                .map(Job::status)
+                .toList();
+    }
+
+    // Stops scheduling new courses; lessons already generated are still written
+    public GenerationJobStatus cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        job.cancelled = true;
+        return job.status();
+    }
+
+    private void run(Job job, GenerationJobRequest request) {
+        BlockingQueue<Generated> results = new ArrayBlockingQueue<>(Math.max(batchSize, job.concurrency) * 2);
+        Thread writer = Thread.ofVirtual().name("generation-writer-" + job.id).start(() -> writeResults(job, results));
+        Semaphore permits = new Semaphore(job.concurrency);
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+             Stream<Course> courses = courseRepository.streamForGeneration(request.getCourseIds(),
+                     request.getCategory(), request.getLevel(), request.getTags())) {
+            for (Course course : (Iterable<Course>) courses::iterator) {
+                if (job.cancelled) {
+                    break;
+                }
+                permits.acquire();
+                workers.submit(() -> {
+                    try {
+                        List<CourseContent> lessons = contentGeneratorService
+                                .generateContentForCourse(course.getTitle(), course.getCategory(), course.getLevel());
+                        results.put(new Generated(course.getId(), lessons));
+                        job.succeeded.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        job.fail(course.getId(), e.getMessage());
+                    } finally {
+                        job.processed.incrementAndGet();
+                        permits.release();
+                    }
+                });
+            }
+            // Closing the executor waits for the in-flight courses
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.error = e;
+        } catch (Exception e) {
+            log.warn("Generation job {} stopped: {}", job.id, e.getMessage());
+            job.error = e;
+        }
+
+        try {
+            results.put(Generated.END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        job.finishedAt = Instant.now();
+    }
+
+    private void writeResults(Job job, BlockingQueue<Generated> results) {
+        List<Generated> batch = new ArrayList<>(batchSize);
+        boolean done = false;
+        while (!done) {
+            try {
+                Generated first = results.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    results.drainTo(batch, batchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done = true;
+            }
+            if (!batch.isEmpty() && batch.get(batch.size() - 1) == Generated.END) {
+                batch.remove(batch.size() - 1);
+                done = true;
+            }
+            if (!batch.isEmpty() && (done || batch.size() >= batchSize || results.isEmpty())) {
+                flush(job, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(Job job, List<Generated> batch) {
+        Map<String, List<CourseContent>> byCourse = new LinkedHashMap<>();
+        for (Generated generated : batch) {
+            byCourse.put(generated.courseId, generated.lessons);
+        }
+        Map<String, List<String>> storedBodies = new LinkedHashMap<>();
+        try {
+            // Rarely needed: only templates that render very long lessons are stored apart
+            byCourse.forEach((courseId, lessons) -> storedBodies.put(courseId, lessonBodyStore.offload(courseId, lessons)));
+            Set<String> matched = courseRepository.pushContentBulk(byCourse);
+            job.written.addAndGet(matched.size());
+            // Courses deleted while their lessons were generated keep nothing of them
+            storedBodies.forEach((courseId, refs) -> {
+                if (!matched.contains(courseId)) {
+                    lessonBodyStore.delete(refs);
+                    job.fail(courseId, "course no longer exists");
+                }
+            });
+        } catch (Exception e) {
+            storedBodies.values().forEach(lessonBodyStore::delete);
+            for (String courseId : byCourse.keySet()) {
+                job.fail(courseId, e.getMessage());
+            }
+        } finally {
+            byCourse.keySet().forEach(id -> eventPublisher.publishEvent(CourseChangedEvent.modified(id)));
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static boolean isEmpty(List<String> values) {
+        return values == null || values.isEmpty();
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((Job job) -> job.finishedAt))
+                .limit(jobs.size() - MAX_RETAINED_JOBS + 1)
+                .map(job -> job.id)
+                .toList()
+                .forEach(jobs::remove);
+    }
+
+    private record Generated(String courseId, List<CourseContent> lessons) {
+        static final Generated END = new Generated(null, null);
+    }
+
+    private static final class Job {
+        final String id;
+        final int concurrency;
+        final Instant startedAt = Instant.now();
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong written = new AtomicLong();
+        final Collection<String> failures = new ArrayList<>();
+        volatile boolean cancelled;
+        volatile Exception error;
+        volatile Instant finishedAt;
+
+        Job(String id, int concurrency) {
+            this.id = id;
+            this.concurrency = concurrency;
+        }
+
+        void fail(String courseId, String message) {
+            failed.incrementAndGet();
+            synchronized (failures) {
+                if (failures.size() < MAX_REPORTED_FAILURES) {
+                    failures.add(courseId + ": " + message);
+                }
+            }
+        }
+
+        GenerationJobStatus status() {
+            GenerationJobStatus status = new GenerationJobStatus();
+            status.setId(id);
+            Instant end = finishedAt;
+            if (end == null) {
+                status.setState("RUNNING");
+            } else if (error != null) {
+                status.setState("FAILED");
+            } else {
+                status.setState(cancelled ? "CANCELLED" : "COMPLETED");
+            }
+            status.setProcessed(processed.get());
+            status.setSucceeded(succeeded.get());
+            status.setFailed(failed.get());
+            status.setWritten(written.get());
+            synchronized (failures) {
+                status.setFailures(new ArrayList<>(failures));
+            }
+            long millis = Duration.between(startedAt, end == null ? Instant.now() : end).toMillis();
+            status.setCoursesPerSecond(millis == 0 ? 0 : processed.get() * 1000.0 / millis);
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(end);
+            return status;
+        }
+    }
+}
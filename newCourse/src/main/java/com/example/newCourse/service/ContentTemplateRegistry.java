@@ -0,0 +1,159 @@
+package com.example.newCourse.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the lesson templates used by ContentGeneratorService (content-templates.json by
+ * default) once at startup and compiles them. Category-specific bullet lists are expanded
+ * into each category's templates ahead of time, so rendering a course only fills in the
+ * course variables. Categories are matched in file order by keyword, the first keyword
+ * contained in the lower-cased course category wins; the result is memoized per category.
+ */
+@Component
+@ImportRuntimeHints(ContentTemplateRegistry.Hints.class)
+public class ContentTemplateRegistry {
+
+    private static final int MAX_MEMOIZED_CATEGORIES = 4096;
+
+    private final CompiledTemplate introTitle;
+    private final CompiledTemplate intro;
+    private final CompiledTemplate overviewTitle;
+    private final CompiledTemplate keyConceptsTitle;
+    private final CompiledTemplate practiceTitle;
+    private final CompiledTemplate practice;
+    private final List<CategoryTemplates> categories = new ArrayList<>();
+    private final CategoryTemplates defaultCategory;
+    private final Map<String, CategoryTemplates> byCategory = new ConcurrentHashMap<>();
+
+    public ContentTemplateRegistry(@Value("${content.templates.location:classpath:content-templates.json}")
+                                   Resource location) throws IOException {
+        TemplateFile file;
+        try (InputStream in = location.getInputStream()) {
+            file = new ObjectMapper()
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .readValue(in, TemplateFile.class);
+        }
+        Lessons lessons = file.getLessons();
+        introTitle = CompiledTemplate.compile(lessons.getIntroTitle());
+        intro = CompiledTemplate.compile(lessons.getIntro());
+        overviewTitle = CompiledTemplate.compile(lessons.getOverviewTitle());
+        keyConceptsTitle = CompiledTemplate.compile(lessons.getKeyConceptsTitle());
+        practiceTitle = CompiledTemplate.compile(lessons.getPracticeTitle());
+        practice = CompiledTemplate.compile(lessons.getPractice());
+        for (Category category : file.getCategories()) {
+            categories.add(compileCategory(lessons, category));
+        }
+        defaultCategory = compileCategory(lessons, file.getDefaultCategory());
+    }
+
+    CategoryTemplates forCategory(String category) {
+        if (category == null) {
+            return defaultCategory;
+        }
+        CategoryTemplates templates = byCategory.get(category);
+        if (templates == null) {
+            templates = match(category.toLowerCase());
+            if (byCategory.size() < MAX_MEMOIZED_CATEGORIES) {
+                byCategory.put(category, templates);
+            }
+        }
+        return templates;
+    }
+
+    CompiledTemplate introTitle() { return introTitle; }
+    CompiledTemplate intro() { return intro; }
+    CompiledTemplate overviewTitle() { return overviewTitle; }
+    CompiledTemplate keyConceptsTitle() { return keyConceptsTitle; }
+    CompiledTemplate practiceTitle() { return practiceTitle; }
+    CompiledTemplate practice() { return practice; }
+
+    private CategoryTemplates match(String lowerCaseCategory) {
+        for (CategoryTemplates templates : categories) {
+            for (String keyword : templates.keywords) {
+                if (lowerCaseCategory.contains(keyword)) {
+                    return templates;
+                }
+            }
+        }
+        return defaultCategory;
+    }
+
+    private static CategoryTemplates compileCategory(Lessons lessons, Category category) {
+        String overview = lessons.getOverview()
+                .replace("{{overviewBullets}}", listItems(category.getOverviewBullets()));
+        String keyConcepts = lessons.getKeyConcepts()
+                .replace("{{keyConcepts}}", listItems(category.getKeyConcepts()));
+        List<String> keywords = new ArrayList<>();
+        if (category.getKeywords() != null) {
+            category.getKeywords().forEach(keyword -> keywords.add(keyword.toLowerCase(Locale.ROOT)));
+        }
+        return new CategoryTemplates(category.getName(), keywords,
+                CompiledTemplate.compile(overview), CompiledTemplate.compile(keyConcepts));
+    }
+
+    private static String listItems(List<String> items) {
+        StringBuilder html = new StringBuilder();
+        for (String item : items) {
+            html.append("<li>").append(item).append("</li>");
+        }
+        return html.toString();
+    }
+
+    record CategoryTemplates(String name, List<String> keywords,
+                             CompiledTemplate overview, CompiledTemplate keyConcepts) {}
+
+    // The default template file and its Jackson binding, which AOT processing cannot see, for native images
+    static class Hints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("content-templates.json");
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), TemplateFile.class);
+        }
+    }
+
+    // Shape of content-templates.json
+
+    @Data
+    static class TemplateFile {
+        private Lessons lessons;
+        private List<Category> categories = new ArrayList<>();
+        private Category defaultCategory;
+    }
+
+    @Data
+    static class Lessons {
+        private String introTitle;
+        private String intro;
+        private String overviewTitle;
+        private String overview;
+        private String keyConceptsTitle;
+        private String keyConcepts;
+        private String practiceTitle;
+        private String practice;
+    }
+
+    @Data
+    static class Category {
+        private String name;
+        private List<String> keywords;
+        private List<String> overviewBullets = new ArrayList<>();
+        private List<String> keyConcepts = new ArrayList<>();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.repository.CourseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of full Course documents in front of CourseRepository.
+ * Entries are evicted least-recently-used once the estimated total weight exceeds
+ * the configured budget, and expire after a fixed time-to-live. Entries are invalidated
+ * by the CourseChangedEvent every writer publishes.
+ */
+@Service
+public class CourseCache {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Value("${course.cache.max-weight-bytes:67108864}")
+    private long maxWeight;
+
+    @Value("${course.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Access-ordered so iteration starts at the least recently used entry; guarded by "this"
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalWeight;
+    // Bumped by every invalidation so a load that raced with a write is not cached
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public Optional<Course> findById(String id) {
+        long loadGeneration;
+        synchronized (this) {
+            Optional<Course> cached = lookup(id);
+            if (cached.isPresent()) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        Optional<Course> loaded = courseRepository.findById(id);
+        loaded.ifPresent(course -> put(id, course, loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * Cached course without loading it on a miss, for callers that load it themselves (the
+     * reactive API). Read generation() before the lookup and hand what was loaded to putLoaded.
+     */
+    public synchronized Optional<Course> getIfPresent(String id) {
+        Optional<Course> cached = lookup(id);
+        if (cached.isEmpty()) {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Dropped if the course was invalidated after loadGeneration was read
+    public void putLoaded(String id, Course course, long loadGeneration) {
+        put(id, course, loadGeneration);
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        invalidate(event.courseId());
+    }
+
+    public synchronized void invalidate(String id) {
+        generation++;
+        remove(id);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", entries.size());
+            stats.put("weightBytes", totalWeight);
+        }
+        stats.put("maxWeightBytes", maxWeight);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    // Guarded by "this"
+    private Optional<Course> lookup(String id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            if (System.nanoTime() < entry.expiresAt) {
+                hits.increment();
+                return Optional.of(entry.course);
+            }
+            remove(id);
+            expirations.increment();
+        }
+        return Optional.empty();
+    }
+
+    private synchronized void put(String id, Course course, long loadGeneration) {
+        long weight = weigh(course);
+        if (loadGeneration != generation || weight > maxWeight) {
+            return;
+        }
+        remove(id);
+        entries.put(id, new Entry(course, weight, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+        totalWeight += weight;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            totalWeight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    // Rough heap footprint: two bytes per char for the strings that dominate a course
+    static long weigh(Course course) {
+        long weight = 256 + chars(course.getTitle()) + chars(course.getDescription());
+        if (course.getContentList() != null) {
+            for (CourseContent content : course.getContentList()) {
+                weight += 128 + chars(content.getTitle()) + chars(content.getContent());
+            }
+        }
+        return weight;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+
+    private record Entry(Course course, long weight, long expiresAt) {}
+}
@@ -0,0 +1,358 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.CourseChanges;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.model.CourseTombstone;
+import com.example.newCourse.repository.CourseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The course change feed. changes() reads the courses written and deleted after a revision
+ * (see CourseRevisions), so a client holding the catalog as of one revision catches up by
+ * fetching only what changed since.
+ * <p>
+ * subscribe() pushes the same deltas as server-sent events while writes happen. One thread
+ * reads each delta once, when CourseChangedEvents arrive, and offers it to every subscriber's
+ * bounded queue; a virtual thread per subscriber writes its queue to the client. A subscriber
+ * whose queue fills up, because its client reads too slowly, is dropped rather than waited for
+ * or buffered without limit: its stream ends, and the browser's EventSource reconnects with the
+ * last revision it received and catches up with one read.
+ * <p>
+ * Tombstones are kept changes.tombstone-retention-days. A client further behind than that
+ * could miss deletes, so changes after a revision older than the newest tombstone purged
+ * answer 410 Gone, and the client loads the catalog again from revision 0.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CourseChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseChangeFeed.class);
+
+    public static final int MAX_LIMIT = 1000;
+    private static final long RECONNECT_MS = 3000;
+    private static final long PURGE_INTERVAL_HOURS = 1;
+    // Queued in place of the deltas of a subscriber that fell behind
+    private static final CourseChanges DROPPED = new CourseChanges();
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseRevisions revisions;
+
+    @Value("${changes.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${changes.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${changes.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${changes.stream-timeout-minutes:30}")
+    private long streamTimeoutMinutes;
+
+    @Value("${changes.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService broadcaster = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean broadcastPending = new AtomicBoolean();
+    private volatile long broadcastRevision = -1; // Written by the broadcaster thread only
+    private final AtomicLong purgedRevision = new AtomicLong(-1); // Not read from MongoDB yet
+
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        // Also picks up revisions written without an event, such as CourseRevisions.assignMissing
+        broadcaster.scheduleWithFixedDelay(this::requestBroadcast, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        broadcaster.scheduleWithFixedDelay(this::purgeTombstones, 0, PURGE_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    void stop() {
+        broadcaster.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * The courses written and deleted after revision {@code since}, at most {@code limit} of them
+     * in revision order. Reads stop at the committed revision, so no write still in flight is
+     * skipped. When hasMore is set, the returned revision is where the next page starts.
+     * Throws a 410 ResponseStatusException when deletes after {@code since} have been purged.
+     */
+    public CourseChanges changes(long since, int limit) {
+        checkRetained(since);
+        long upTo = revisions.committed();
+        CourseChanges changes = new CourseChanges();
+        changes.setSince(since);
+        changes.setRevision(Math.max(since, upTo));
+        if (upTo <= since) {
+            return changes;
+        }
+        // One extra row of each to learn whether more follow
+        List<CourseSummary> upserted = courseRepository.findChangedSummaries(since, upTo, limit + 1);
+        List<CourseTombstone> deleted = courseRepository.findDeleted(since, upTo, limit + 1);
+        if (upserted.size() + deleted.size() <= limit) {
+            changes.setUpserted(new ArrayList<>(upserted));
+            changes.setDeleted(new ArrayList<>(deleted));
+            return changes;
+        }
+        // Revisions are unique across both, so the page can end exactly at the last one taken
+        int u = 0;
+        int d = 0;
+        long last = since;
+        while (u + d < limit) {
+            if (d == deleted.size() || (u < upserted.size() && upserted.get(u).getRevision() < deleted.get(d).getRevision())) {
+                last = upserted.get(u++).getRevision();
+            } else {
+                last = deleted.get(d++).getRevision();
+            }
+        }
+        changes.setUpserted(new ArrayList<>(upserted.subList(0, u)));
+        changes.setDeleted(new ArrayList<>(deleted.subList(0, d)));
+        changes.setRevision(last);
+        changes.setHasMore(true);
+        return changes;
+    }
+
+    /**
+     * Streams the changes after {@code since}, or after the current revision when null, as
+     * "changes" events whose id is the revision they bring the client up to. Returns null when
+     * changes.max-subscribers clients are already subscribed, and throws like changes() when
+     * {@code since} is too old.
+     */
+    public SseEmitter subscribe(Long since) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        if (since != null) {
+            checkRetained(since);
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(streamTimeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter, since == null ? revisions.committed() : since);
+        // Registered before it catches up, so no delta broadcast meanwhile is missed
+        subscribers.add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        Thread.ofVirtual().name("course-change-stream").start(() -> stream(subscriber));
+        return emitter;
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        requestBroadcast();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("bufferSize", bufferSize);
+        stats.put("broadcastRevision", broadcastRevision);
+        stats.put("broadcasts", broadcasts.sum());
+        stats.put("eventsSent", eventsSent.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("purgedRevision", purgedRevision.get());
+        return stats;
+    }
+
+    // Removes the tombstones past the retention window; runs on the broadcaster thread
+    void purgeTombstones() {
+        try {
+            Instant cutoff = Instant.now().minus(tombstoneRetentionDays, ChronoUnit.DAYS);
+            long purged = courseRepository.purgeTombstones(cutoff);
+            purgedRevision.accumulateAndGet(purged, Math::max);
+        } catch (Exception e) {
+            log.warn("Could not purge course tombstones: {}", e.getMessage());
+        }
+    }
+
+    // Revision 0 is the whole catalog, which needs no tombstones
+    private void checkRetained(long since) {
+        long purged = purgedRevision.get();
+        if (purged < 0) {
+            purged = purgedRevision.accumulateAndGet(courseRepository.findPurgedRevision(), Math::max);
+        }
+        if (since > 0 && since < purged) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Deletes after revision " + since
+                    + " are no longer kept; load the catalog again with since=0");
+        }
+    }
+
+    private void requestBroadcast() {
+        // Writes arriving while a broadcast is pending share it
+        if (broadcastPending.compareAndSet(false, true)) {
+            try {
+                broadcaster.execute(this::broadcast);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private void broadcast() {
+        broadcastPending.set(false);
+        try {
+            if (broadcastRevision < 0 || subscribers.isEmpty()) {
+                // Nothing read before: subscribers catch up by themselves, and an empty delta at
+                // the current revision tells those that still lack something
+                broadcastRevision = revisions.committed();
+                CourseChanges current = new CourseChanges();
+                current.setSince(broadcastRevision);
+                current.setRevision(broadcastRevision);
+                subscribers.forEach(subscriber -> subscriber.offer(current));
+                return;
+            }
+            CourseChanges delta;
+            do {
+                delta = changes(broadcastRevision, MAX_LIMIT);
+                if (delta.getRevision() == broadcastRevision) {
+                    return;
+                }
+                // Also when empty (writes that matched nothing), so subscribers can tell they missed nothing
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(delta);
+                }
+                broadcasts.increment();
+                broadcastRevision = delta.getRevision();
+            } while (delta.isHasMore());
+        } catch (Exception e) {
+            log.warn("Could not read course changes after revision {}: {}", broadcastRevision, e.getMessage());
+        }
+    }
+
+    // Runs on the subscriber's own thread until its stream ends
+    private void stream(Subscriber subscriber) {
+        try {
+            catchUp(subscriber, true);
+            while (!subscriber.closed) {
+                CourseChanges delta = subscriber.queue.poll(heartbeatSeconds, TimeUnit.SECONDS);
+                if (delta == null) {
+                    // Keeps proxies from closing an idle stream
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (delta == DROPPED) {
+                    subscriber.emitter.complete();
+                    return;
+                } else if (delta.getSince() > subscriber.revision) {
+                    // Broadcast before this subscriber caught up, so it lacks what came in between
+                    catchUp(subscriber, false);
+                } else if (delta.getRevision() > subscriber.revision) {
+                    send(subscriber, after(delta, subscriber.revision), false);
+                }
+            }
+        } catch (IOException e) {
+            // The client went away; the container completes the stream
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Course change stream failed: {}", e.getMessage());
+            subscriber.emitter.complete();
+        } finally {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    // Reads what the subscriber lacks directly; the first event is sent even when empty, to
+    // tell the client the revision it is at
+    private void catchUp(Subscriber subscriber, boolean first) throws IOException {
+        CourseChanges page;
+        do {
+            page = changes(subscriber.revision, MAX_LIMIT);
+            send(subscriber, page, first);
+            first = false;
+        } while (page.isHasMore());
+    }
+
+    private void send(Subscriber subscriber, CourseChanges changes, boolean always) throws IOException {
+        if (always || !changes.getUpserted().isEmpty() || !changes.getDeleted().isEmpty()) {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name("changes")
+                    .id(Long.toString(changes.getRevision()))
+                    .reconnectTime(RECONNECT_MS)
+                    .data(changes, MediaType.APPLICATION_JSON));
+            eventsSent.increment();
+        }
+        subscriber.revision = changes.getRevision();
+    }
+
+    // The part of a broadcast delta the subscriber has not had yet
+    private static CourseChanges after(CourseChanges delta, long revision) {
+        if (delta.getSince() == revision) {
+            return delta;
+        }
+        CourseChanges changes = new CourseChanges();
+        changes.setSince(revision);
+        changes.setRevision(delta.getRevision());
+        changes.setUpserted(delta.getUpserted().stream().filter(course -> course.getRevision() > revision).toList());
+        changes.setDeleted(delta.getDeleted().stream().filter(course -> course.getRevision() > revision).toList());
+        return changes;
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<CourseChanges> queue = new ArrayBlockingQueue<>(bufferSize);
+        long revision; // The client has every change up to here; used by the subscriber's thread only
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, long revision) {
+            this.emitter = emitter;
+            this.revision = revision;
+        }
+
+        // Called by the broadcaster, which never waits for a subscriber
+        void offer(CourseChanges delta) {
+            if (!queue.offer(delta)) {
+                subscribers.remove(this);
+                queue.clear();
+                queue.offer(DROPPED);
+                dropped.increment();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.FacetFilter;
+import com.example.newCourse.model.FacetQuery;
+import com.example.newCourse.model.FacetResult;
+import com.example.newCourse.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps one compressed bitmap of course doc ids per category, level, language and tag, so
+ * filtering and facet counting are bitmap intersections instead of collection scans.
+ * Built from MongoDB at startup and kept current from CourseChangedEvent.
+ */
+@Service
+public class CourseFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseFacetIndex.class);
+
+    public static final List<String> FACETS = List.of("category", "level", "language", "tags");
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_VALUES_PER_FACET = 100;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Everything from here to deletedDuringRebuild is guarded by lock
+    private final Map<String, Map<String, CompressedBitmap>> bitmaps = new HashMap<>();
+    private final CompressedBitmap allDocs = new CompressedBitmap();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final ArrayDeque<Integer> freeDocIds = new ArrayDeque<>();
+    private Entry[] entries = new Entry[1024];
+    private int docIdLimit;
+    // Non-null while the startup rebuild runs, so it doesn't bring back courses deleted meanwhile
+    private Set<String> deletedDuringRebuild;
+
+    private volatile boolean ready;
+    private volatile long lastRebuildMillis;
+
+    public CourseFacetIndex() {
+        for (String facet : FACETS) {
+            bitmaps.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * Returns one page of matching course ids, the total number of matches and value
+     * counts for the requested facets. Matches are courses that satisfy every filter; a
+     * filter ORs (or with match "all", ANDs) values of its own facet only. Counts are disjunctive: a facet's own filters are
+     * left out when counting it, so picking "Beginner" still shows how many courses each
+     * other level would give.
+     */
+    public FacetResult query(FacetQuery query) {
+        List<FacetFilter> filters = query.getFilters() == null ? List.of() : query.getFilters();
+        for (FacetFilter filter : filters) {
+            checkFacet(filter.getFacet());
+            if (filter.getMatch() != null && !"any".equals(filter.getMatch()) && !"all".equals(filter.getMatch())) {
+                throw new IllegalArgumentException("match must be \"any\" or \"all\"");
+            }
+        }
+        List<String> countedFacets = query.getFacets() == null ? FACETS : query.getFacets();
+        countedFacets.forEach(CourseFacetIndex::checkFacet);
+        int offset = Math.max(0, query.getOffset());
+        int limit = Math.max(0, Math.min(query.getLimit(), MAX_LIMIT));
+
+        lock.readLock().lock();
+        try {
+            CompressedBitmap[] clauses = new CompressedBitmap[filters.size()];
+            for (int i = 0; i < clauses.length; i++) {
+                clauses[i] = evaluate(filters.get(i));
+            }
+            CompressedBitmap matches = intersect(filters, clauses, null);
+
+            FacetResult result = new FacetResult();
+            result.setTotal(matches.cardinality());
+            List<String> courseIds = result.getCourseIds();
+            int[] skipped = {0};
+            if (limit > 0) {
+                matches.forEach(docId -> {
+                    if (skipped[0] < offset) {
+                        skipped[0]++;
+                        return true;
+                    }
+                    courseIds.add(entries[docId].courseId());
+                    return courseIds.size() < limit;
+                });
+            }
+            for (String facet : countedFacets) {
+                boolean filtered = filters.stream().anyMatch(filter -> facet.equals(filter.getFacet()));
+                CompressedBitmap base = filtered ? intersect(filters, clauses, facet) : matches;
+                result.getFacets().put(facet, count(facet, base));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("courses", docIds.size());
+            Map<String, Integer> values = new LinkedHashMap<>();
+            for (String facet : FACETS) {
+                values.put(facet, bitmaps.get(facet).size());
+            }
+            stats.put("values", values);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("ready", ready);
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    // Partial updates (lessons, uploads, image variants) never touch facet fields, so only
+    // events carrying a saved course or a delete matter here
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (!event.deleted() && event.course() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.deleted()) {
+                remove(event.courseId());
+                if (deletedDuringRebuild != null) {
+                    deletedDuringRebuild.add(event.courseId());
+                }
+            } else {
+                put(toEntry(event.course()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "facet-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            deletedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int indexed = 0;
+        List<Entry> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        try (Stream<Course> courses = courseRepository.streamFacetFields()) {
+            for (Course course : (Iterable<Course>) courses::iterator) {
+                batch.add(toEntry(course));
+                if (batch.size() == REBUILD_BATCH_SIZE) {
+                    indexed += apply(batch);
+                    batch.clear();
+                }
+            }
+            indexed += apply(batch);
+            lastRebuildMillis = (System.nanoTime() - started) / 1_000_000;
+            ready = true;
+            log.info("Facet index built from {} courses in {} ms", indexed, lastRebuildMillis);
+        } catch (Exception e) {
+            log.warn("Facet index rebuild stopped after {} courses: {}", indexed, e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                deletedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private int apply(List<Entry> batch) {
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : batch) {
+                if (!deletedDuringRebuild.contains(entry.courseId())) {
+                    put(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return batch.size();
+    }
+
+    // Callers hold the write lock
+    private void put(Entry entry) {
+        Integer docId = docIds.get(entry.courseId());
+        if (docId != null) {
+            Long indexedVersion = entries[docId].version();
+            if (indexedVersion != null && entry.version() != null && entry.version() < indexedVersion) {
+                // Read before a write that has already been indexed
+                return;
+            }
+            unlink(docId);
+        } else {
+            docId = freeDocIds.isEmpty() ? docIdLimit++ : freeDocIds.pop();
+            if (docId == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            docIds.put(entry.courseId(), docId);
+            allDocs.add(docId);
+        }
+        entries[docId] = entry;
+        for (int f = 0; f < FACETS.size(); f++) {
+            Map<String, CompressedBitmap> facetBitmaps = bitmaps.get(FACETS.get(f));
+            for (String value : entry.values()[f]) {
+                facetBitmaps.computeIfAbsent(value, v -> new CompressedBitmap()).add(docId);
+            }
+        }
+    }
+
+    // Callers hold the write lock
+    private void remove(String courseId) {
+        Integer docId = docIds.remove(courseId);
+        if (docId != null) {
+            unlink(docId);
+            allDocs.remove(docId);
+            entries[docId] = null;
+            freeDocIds.push(docId);
+        }
+    }
+
+    private void unlink(int docId) {
+        String[][] values = entries[docId].values();
+        for (int f = 0; f < FACETS.size(); f++) {
+            Map<String, CompressedBitmap> facetBitmaps = bitmaps.get(FACETS.get(f));
+            for (String value : values[f]) {
+                CompressedBitmap bitmap = facetBitmaps.get(value);
+                if (bitmap != null && bitmap.remove(docId) && bitmap.isEmpty()) {
+                    facetBitmaps.remove(value);
+                }
+            }
+        }
+    }
+
+    // Courses matching one clause. May return an indexed bitmap itself, so results are never modified
+    private CompressedBitmap evaluate(FacetFilter filter) {
+        Map<String, CompressedBitmap> facetBitmaps = bitmaps.get(filter.getFacet());
+        List<String> values = filter.getValues() == null ? List.of() : filter.getValues();
+        if (values.isEmpty()) {
+            return allDocs;
+        }
+        if ("all".equals(filter.getMatch())) {
+            CompressedBitmap result = null;
+            for (String value : values) {
+                CompressedBitmap bitmap = facetBitmaps.get(value);
+                if (bitmap == null) {
+                    return new CompressedBitmap();
+                }
+                result = result == null ? bitmap : result.and(bitmap);
+            }
+            return result;
+        }
+        CompressedBitmap result = new CompressedBitmap();
+        for (String value : values) {
+            CompressedBitmap bitmap = facetBitmaps.get(value);
+            if (bitmap != null) {
+                result = result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    // Intersection of every clause except those on skippedFacet
+    private CompressedBitmap intersect(List<FacetFilter> filters, CompressedBitmap[] clauses, String skippedFacet) {
+        CompressedBitmap result = allDocs;
+        for (int i = 0; i < clauses.length; i++) {
+            if (!filters.get(i).getFacet().equals(skippedFacet)) {
+                result = result == allDocs ? clauses[i] : result.and(clauses[i]);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> count(String facet, CompressedBitmap base) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, CompressedBitmap> value : bitmaps.get(facet).entrySet()) {
+            int count = base == allDocs ? value.getValue().cardinality() : base.andCardinality(value.getValue());
+            if (count > 0) {
+                counts.add(Map.entry(value.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> count : counts.subList(0, Math.min(counts.size(), MAX_VALUES_PER_FACET))) {
+            top.put(count.getKey(), count.getValue());
+        }
+        return top;
+    }
+
+    private static void checkFacet(String facet) {
+        if (!FACETS.contains(facet)) {
+            throw new IllegalArgumentException("Unknown facet \"" + facet + "\", expected one of " + FACETS);
+        }
+    }
+
+    private static Entry toEntry(Course course) {
+        String[][] values = new String[FACETS.size()][];
+        values[0] = distinct(List.of(nullToEmpty(course.getCategory())));
+        values[1] = distinct(List.of(nullToEmpty(course.getLevel())));
+        values[2] = distinct(List.of(nullToEmpty(course.getLanguage())));
+        values[3] = distinct(course.getTags() == null ? List.of() : course.getTags());
+        return new Entry(course.getId(), course.getVersion(), values);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String[] distinct(List<String> values) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                distinct.add(value);
+            }
+        }
+        return distinct.toArray(new String[0]);
+    }
+
+    // The facet values a course was indexed under, by position in FACETS
+    private record Entry(String courseId, Long version, String[][] values) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.newCourse.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Hands out course revisions: a sequence number, increasing across the whole catalog, that
+ * every course write stores in the course (and a delete in its tombstone). Reading what is
+ * above a revision gives every course written or deleted since, which is how the change feed
+ * serves deltas (see CourseChangeFeed).
+ * <p>
+ * Writes finish out of order, so a reader must not go past a revision still being written or
+ * it would skip that write for good. committed() is the highest revision up to which every
+ * write has finished. The counter lives in this process: like the course cache and the
+ * in-memory indexes, it assumes a single instance writes the catalog.
+ */
+@Service
+public class CourseRevisions {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseRevisions.class);
+    private static final int ASSIGN_BATCH = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private long last = -1; // Not read from MongoDB yet
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    // Held while reading where revisions continue, so callers wait for MongoDB outside the monitor
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    // Runs a write with a new revision, which counts as in flight until the write returns
+    public <T> T write(LongFunction<T> write) {
+        long revision = next();
+        try {
+            return write.apply(revision);
+        } finally {
+            done(revision);
+        }
+    }
+
+    // A revision for a write; call done() once the write has finished, whatever its outcome
+    public long next() {
+        load();
+        synchronized (this) {
+            inFlight.add(++last);
+            return last;
+        }
+    }
+
+    public synchronized void done(long revision) {
+        inFlight.remove(revision);
+    }
+
+    // Every write up to this revision has finished, so reading up to it never misses one
+    public long committed() {
+        load();
+        synchronized (this) {
+            return inFlight.isEmpty() ? last : inFlight.first() - 1;
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("revision", last);
+        stats.put("committed", last < 0 || inFlight.isEmpty() ? last : inFlight.first() - 1);
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    // Gives courses without a revision one each: courses written before revisions existed,
+    // or inserted around the repository, as the load-test seeder does
+    @EventListener(ApplicationReadyEvent.class)
+    public void assignMissing() {
+        try {
+            long assigned = assignMissingRevisions();
+            if (assigned > 0) {
+                log.info("Gave {} courses their first revision", assigned);
+            }
+        } catch (Exception e) {
+            log.warn("Could not give courses a revision: {}", e.getMessage());
+        }
+    }
+
+    // Continues after the highest revision stored, which includes the record of purged
+    // tombstones; blocks on MongoDB once, normally at startup
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                long highest = Math.max(highest("courses"), highest("course_tombstones"));
+                synchronized (this) {
+                    last = highest;
+                }
+                loaded = true;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private long highest(String collection) {
+        Query query = Query.query(Criteria.where("revision").ne(null))
+                .with(Sort.by(Sort.Direction.DESC, "revision"))
+                .limit(1);
+        query.fields().include("revision");
+        Document top = mongoTemplate.findOne(query, Document.class, collection);
+        return top == null ? 0 : ((Number) top.get("revision")).longValue();
+    }
+
+    private long assignMissingRevisions() {
+        Query query = Query.query(Criteria.where("revision").exists(false));
+        query.fields().include("_id");
+        long assigned = 0;
+        List<Object> batch = new ArrayList<>(ASSIGN_BATCH);
+        try (Stream<Document> courses = mongoTemplate.stream(query, Document.class, "courses")) {
+            for (Iterator<Document> it = courses.iterator(); it.hasNext(); ) {
+                batch.add(it.next().get("_id"));
+                if (batch.size() == ASSIGN_BATCH || !it.hasNext()) {
+                    assigned += assign(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return assigned;
+    }
+
+    private int assign(List<Object> ids) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "courses");
+        List<Long> allocated = new ArrayList<>(ids.size());
+        try {
+            for (Object id : ids) {
+                long revision = next();
+                allocated.add(revision);
+                // A course written in the meantime already has a newer revision
+                bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("revision").exists(false)),
+                        new Update().set("revision", revision));
+            }
+            return bulk.execute().getModifiedCount();
+        } finally {
+            allocated.forEach(this::done);
+        }
+    }
+}
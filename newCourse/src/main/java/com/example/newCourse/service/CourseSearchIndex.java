@@ -0,0 +1,667 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.SearchResult;
+import com.example.newCourse.repository.CourseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over course titles, descriptions, tags and categories and over
+ * lesson titles and bodies (HTML stripped). A query matches courses containing every
+ * query word, the last word also matching as a prefix so results follow the user's typing.
+ * Hits are ranked by field-weighted, saturated term frequency times inverse document
+ * frequency.
+ * <p>
+ * The index is built from MongoDB once at startup and then follows CourseChangedEvent.
+ * Events that carry the saved course are applied on the publishing thread; the others, and
+ * saved courses with lesson bodies stored apart (LessonBodyStore), are coalesced and re-read
+ * from MongoDB on a background thread.
+ */
+@Service
+public class CourseSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    // Weight of one occurrence of a word in each field
+    private static final float TITLE_BOOST = 4f;
+    private static final float TAG_BOOST = 3f;
+    private static final float CATEGORY_BOOST = 2f;
+    private static final float LESSON_TITLE_BOOST = 1.5f;
+    private static final float DESCRIPTION_BOOST = 1f;
+    private static final float LESSON_CONTENT_BOOST = 0.5f;
+    // Term frequency saturation, as in BM25: repeating a word has diminishing returns
+    private static final float K1 = 1.2f;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_RESULTS = 100;
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "an", "and", "are", "as", "at", "be", "by", "for", "from", "in",
+            "is", "it", "of", "on", "or", "the", "to", "with");
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Everything from here to docIdLimit is guarded by lock
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final ArrayDeque<Integer> freeDocIds = new ArrayDeque<>();
+    private Doc[] docs = new Doc[1024];
+    private long postingCount;
+    // One past the highest doc id handed out; doc ids are dense so scoring can use arrays
+    private int docIdLimit;
+
+    private volatile boolean ready;
+    private volatile long lastRebuildMillis;
+
+    // Scoring arrays are reused across queries; the pool grows to the peak number of concurrent searches
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    private final Set<String> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    // Rebuilds and refreshes run one at a time, so a refresh always reads after the rebuild
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Returns up to {@code limit} courses matching every word of the query, best first.
+     */
+    public List<SearchResult> search(String queryText, int limit) {
+        List<String> terms = queryTerms(queryText);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int k = Math.max(1, Math.min(limit, MAX_RESULTS));
+
+        Scratch scratch = scratchPool.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        lock.readLock().lock();
+        int touchedCount = 0;
+        try {
+            // Each clause holds the postings of one query word; the last word expands to every indexed prefix match
+            List<List<Postings>> clauses = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                List<Postings> clause = i == terms.size() - 1 ? expandPrefix(terms.get(i)) : exact(terms.get(i));
+                if (clause.isEmpty()) {
+                    return List.of();
+                }
+                clauses.add(clause);
+            }
+            // Starting from the rarest clause keeps the candidate set small
+            clauses.sort(Comparator.comparingInt(CourseSearchIndex::clauseSize));
+
+            scratch.ensureCapacity(docIdLimit);
+            float[] scores = scratch.scores;
+            int[] matched = scratch.matched;
+            int[] touched = scratch.touched;
+            float liveDocs = docIds.size();
+            for (int c = 0; c < clauses.size(); c++) {
+                for (Postings clausePostings : clauses.get(c)) {
+                    float idf = idf(clausePostings.size, liveDocs);
+                    for (int j = 0; j < clausePostings.size; j++) {
+                        int doc = clausePostings.docs[j];
+                        // A doc stays a candidate only while it has matched every earlier clause
+                        if (matched[doc] == c) {
+                            if (c == 0) {
+                                touched[touchedCount++] = doc;
+                            }
+                            matched[doc] = c + 1;
+                            scores[doc] += idf * clausePostings.weights[j];
+                        } else if (matched[doc] == c + 1) {
+                            // Another expansion of the same prefix
+                            scores[doc] += idf * clausePostings.weights[j];
+                        }
+                    }
+                }
+            }
+
+            // Min-heap of the best k doc ids, worst on top. Plain ints: a query can match most
+            // of the catalog, and boxing every candidate cost more than the scoring.
+            int[] top = new int[k];
+            int topSize = 0;
+            int required = clauses.size();
+            for (int t = 0; t < touchedCount; t++) {
+                int doc = touched[t];
+                if (matched[doc] != required) {
+                    continue;
+                }
+                if (topSize < k) {
+                    top[topSize] = doc;
+                    siftUp(top, topSize++, scores);
+                } else if (ranksAbove(doc, top[0], scores)) {
+                    // Only docs that beat the current k-th best touch the heap
+                    top[0] = doc;
+                    siftDown(top, topSize, scores);
+                }
+            }
+            SearchResult[] ranked = new SearchResult[topSize];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                int doc = top[0];
+                top[0] = top[--topSize];
+                siftDown(top, topSize, scores);
+                ranked[i] = toResult(docs[doc], scores[doc], terms);
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+            scratch.reset(touchedCount);
+            scratchPool.offer(scratch);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("courses", docIds.size());
+            stats.put("terms", postings.size());
+            stats.put("postings", postingCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("ready", ready);
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        stats.put("pendingRefreshes", pendingRefresh.size());
+        return stats;
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.deleted()) {
+            lock.writeLock().lock();
+            try {
+                removeDoc(event.courseId());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // A refresh already reading this course would put it back; the re-read after it won't
+            scheduleRefresh(event.courseId());
+        } else if (event.course() != null && !LessonBodyStore.hasOffloadedBodies(event.course())) {
+            Prepared prepared = prepare(event.course());
+            lock.writeLock().lock();
+            try {
+                put(prepared);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } else {
+            scheduleRefresh(event.courseId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        worker.execute(this::rebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        int indexed = 0;
+        List<Prepared> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        try (Stream<Course> courses = courseRepository.streamForIndexing(null)) {
+            for (Course course : (Iterable<Course>) courses::iterator) {
+                // Tokenizing happens outside the lock; only applying a batch blocks searches
+                lessonBodyStore.inlineBodies(course);
+                batch.add(prepare(course));
+                if (batch.size() == REBUILD_BATCH_SIZE) {
+                    indexed += apply(batch, Set.of());
+                    batch.clear();
+                }
+            }
+            indexed += apply(batch, Set.of());
+            lastRebuildMillis = (System.nanoTime() - started) / 1_000_000;
+            ready = true;
+            log.info("Search index built from {} courses in {} ms", indexed, lastRebuildMillis);
+        } catch (Exception e) {
+            log.warn("Search index rebuild stopped after {} courses: {}", indexed, e.getMessage());
+        }
+    }
+
+    private void scheduleRefresh(String courseId) {
+        pendingRefresh.add(courseId);
+        if (refreshScheduled.compareAndSet(false, true)) {
+            worker.execute(this::drainRefreshes);
+        }
+    }
+
+    // Re-reads every course changed since the last drain with one query
+    private void drainRefreshes() {
+        refreshScheduled.set(false);
+        Set<String> ids = new HashSet<>();
+        for (Iterator<String> it = pendingRefresh.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Prepared> batch = new ArrayList<>(ids.size());
+        Set<String> missing = new HashSet<>(ids);
+        try (Stream<Course> courses = courseRepository.streamForIndexing(ids)) {
+            courses.forEach(course -> {
+                missing.remove(course.getId());
+                lessonBodyStore.inlineBodies(course);
+                batch.add(prepare(course));
+            });
+            apply(batch, missing);
+        } catch (Exception e) {
+            log.warn("Search index refresh of {} courses failed: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private int apply(List<Prepared> batch, Set<String> removed) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(this::put);
+            removed.forEach(this::removeDoc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return batch.size();
+    }
+
+    // Callers hold the write lock
+    private void put(Prepared prepared) {
+        Doc doc = prepared.doc;
+        Integer docId = docIds.get(doc.courseId);
+        if (docId != null) {
+            Long indexedVersion = docs[docId].version;
+            if (indexedVersion != null && doc.version != null && doc.version < indexedVersion) {
+                // Read before a write that has already been indexed
+                return;
+            }
+            unlink(docId);
+        } else {
+            docId = freeDocIds.isEmpty() ? docIdLimit++ : freeDocIds.pop();
+            if (docId == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            docIds.put(doc.courseId, docId);
+        }
+        docs[docId] = doc;
+        for (int i = 0; i < doc.terms.length; i++) {
+            if (postings.computeIfAbsent(doc.terms[i], term -> new Postings()).add(docId, prepared.weights[i])) {
+                postingCount++;
+            }
+        }
+    }
+
+    // Callers hold the write lock
+    private void removeDoc(String courseId) {
+        Integer docId = docIds.remove(courseId);
+        if (docId != null) {
+            unlink(docId);
+            docs[docId] = null;
+            freeDocIds.push(docId);
+        }
+    }
+
+    private void unlink(int docId) {
+        for (String term : docs[docId].terms) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null && termPostings.remove(docId)) {
+                postingCount--;
+                if (termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private List<Postings> exact(String term) {
+        Postings termPostings = postings.get(term);
+        return termPostings == null ? List.of() : List.of(termPostings);
+    }
+
+    private List<Postings> expandPrefix(String prefix) {
+        List<Postings> expansions = new ArrayList<>();
+        for (Postings termPostings : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            expansions.add(termPostings);
+            if (expansions.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        return expansions;
+    }
+
+    private static int clauseSize(List<Postings> clause) {
+        int size = 0;
+        for (Postings termPostings : clause) {
+            size += termPostings.size;
+        }
+        return size;
+    }
+
+    // Higher score first; equal scores keep the lower doc id
+    private static boolean ranksAbove(int a, int b, float[] scores) {
+        int byScore = Float.compare(scores[a], scores[b]);
+        return byScore != 0 ? byScore > 0 : a < b;
+    }
+
+    private static void siftUp(int[] heap, int index, float[] scores) {
+        int doc = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], doc, scores)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int doc = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksAbove(heap[child], heap[child + 1], scores)) {
+                child++;
+            }
+            if (!ranksAbove(doc, heap[child], scores)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+
+    private static float idf(int docFrequency, float docCount) {
+        return (float) Math.log(1 + (docCount - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    // Turns a course into its stored fields and weighted terms without touching the index
+    private static Prepared prepare(Course course) {
+        Map<String, float[]> frequencies = new HashMap<>();
+        addTerms(frequencies, course.getTitle(), false, TITLE_BOOST);
+        addTerms(frequencies, course.getDescription(), false, DESCRIPTION_BOOST);
+        addTerms(frequencies, course.getCategory(), false, CATEGORY_BOOST);
+        if (course.getTags() != null) {
+            for (String tag : course.getTags()) {
+                addTerms(frequencies, tag, false, TAG_BOOST);
+            }
+        }
+        List<String> lessonTitles = new ArrayList<>();
+        if (course.getContentList() != null) {
+            for (CourseContent content : course.getContentList()) {
+                addTerms(frequencies, content.getTitle(), false, LESSON_TITLE_BOOST);
+                addTerms(frequencies, content.getContent(), true, LESSON_CONTENT_BOOST);
+                if (content.getTitle() != null) {
+                    lessonTitles.add(content.getTitle());
+                }
+            }
+        }
+
+        String[] terms = new String[frequencies.size()];
+        float[] weights = new float[terms.length];
+        int i = 0;
+        for (Map.Entry<String, float[]> entry : frequencies.entrySet()) {
+            float frequency = entry.getValue()[0];
+            terms[i] = entry.getKey();
+            weights[i] = frequency * (K1 + 1) / (frequency + K1);
+            i++;
+        }
+        Doc doc = new Doc(course.getId(), course.getVersion(), course.getTitle(), course.getDescription(),
+                lessonTitles.toArray(new String[0]), terms);
+        return new Prepared(doc, weights);
+    }
+
+    private static void addTerms(Map<String, float[]> frequencies, String text, boolean html, float boost) {
+        tokenize(text, html, (term, start, end) -> frequencies.computeIfAbsent(term, t -> new float[1])[0] += boost);
+    }
+
+    private static List<String> queryTerms(String queryText) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(queryText, false, (term, start, end) -> terms.add(term));
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits, skipping stop words and
+     * single characters. In HTML mode tags and entities are skipped as well.
+     */
+    private static void tokenize(String text, boolean html, TokenSink sink) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char ch = text.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start >= MIN_TERM_LENGTH) {
+                    String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!STOP_WORDS.contains(term)) {
+                        sink.accept(term, start, i);
+                    }
+                }
+            } else if (html && ch == '<') {
+                int close = text.indexOf('>', i);
+                i = close < 0 ? length : close + 1;
+            } else if (html && ch == '&') {
+                int semicolon = text.indexOf(';', i);
+                i = semicolon < 0 || semicolon - i > 10 ? i + 1 : semicolon + 1;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static SearchResult toResult(Doc doc, float score, List<String> terms) {
+        SearchResult result = new SearchResult();
+        result.setCourseId(doc.courseId);
+        result.setTitle(doc.title);
+        result.setScore(score);
+        result.setHighlightedTitle(doc.title == null ? null : highlight(doc.title, 0, doc.title.length(), terms));
+        result.setSnippet(snippet(doc, terms));
+        return result;
+    }
+
+    // A window of the description, or failing that a lesson title, around the first match
+    private static String snippet(Doc doc, List<String> terms) {
+        String source = doc.description;
+        int match = firstMatch(source, terms);
+        for (int i = 0; match < 0 && i < doc.lessonTitles.length; i++) {
+            if (firstMatch(doc.lessonTitles[i], terms) >= 0) {
+                source = doc.lessonTitles[i];
+                match = firstMatch(source, terms);
+            }
+        }
+        if (source == null) {
+            return null;
+        }
+        int start = Math.max(0, match - SNIPPET_LENGTH / 3);
+        if (start > 0) {
+            int space = source.indexOf(' ', start);
+            start = space < 0 || space > match ? start : space + 1;
+        }
+        int end = Math.min(source.length(), start + SNIPPET_LENGTH);
+        if (end < source.length()) {
+            int space = source.lastIndexOf(' ', end);
+            end = space > Math.max(start, match) ? space : end;
+        }
+        return (start > 0 ? "…" : "") + highlight(source, start, end, terms)
+                + (end < source.length() ? "…" : "");
+    }
+
+    private static int firstMatch(String text, List<String> terms) {
+        int[] first = {-1};
+        tokenize(text, false, (term, start, end) -> {
+            if (first[0] < 0 && matches(term, terms)) {
+                first[0] = start;
+            }
+        });
+        return first[0];
+    }
+
+    // Escapes text[from, to) as HTML, wrapping words that match the query in <mark>
+    private static String highlight(String text, int from, int to, List<String> terms) {
+        String window = text.substring(from, to);
+        StringBuilder out = new StringBuilder(window.length() + 32);
+        int[] copied = {0};
+        tokenize(window, false, (term, start, end) -> {
+            if (matches(term, terms)) {
+                escape(window, copied[0], start, out);
+                out.append("<mark>");
+                escape(window, start, end, out);
+                out.append("</mark>");
+                copied[0] = end;
+            }
+        });
+        escape(window, copied[0], window.length(), out);
+        return out.toString();
+    }
+
+    private static boolean matches(String term, List<String> terms) {
+        int last = terms.size() - 1;
+        for (int i = 0; i < last; i++) {
+            if (terms.get(i).equals(term)) {
+                return true;
+            }
+        }
+        return term.startsWith(terms.get(last));
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(ch);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface TokenSink {
+        void accept(String term, int start, int end);
+    }
+
+    // What is kept per course: enough to render a result and to unlink its postings
+    private record Doc(String courseId, Long version, String title, String description,
+                       String[] lessonTitles, String[] terms) {
+    }
+
+    private record Prepared(Doc doc, float[] weights) {
+    }
+
+    // Doc ids containing a term, kept sorted so updates can find an entry by binary search
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        boolean add(int doc, float weight) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index >= 0) {
+                weights[index] = weight;
+                return false;
+            }
+            index = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docs, index, docs, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            docs[index] = doc;
+            weights[index] = weight;
+            size++;
+            return true;
+        }
+
+        boolean remove(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+
+    // Per-search accumulators indexed by doc id; all zero between searches
+    private static final class Scratch {
+        float[] scores = new float[0];
+        int[] matched = new int[0];
+        int[] touched = new int[0];
+
+        void ensureCapacity(int docCount) {
+            if (scores.length < docCount) {
+                int capacity = Math.max(docCount, scores.length * 2);
+                scores = new float[capacity];
+                matched = new int[capacity];
+                touched = new int[capacity];
+            }
+        }
+
+        void reset(int touchedCount) {
+            for (int t = 0; t < touchedCount; t++) {
+                scores[touched[t]] = 0;
+                matched[touched[t]] = 0;
+            }
+        }
+    }
+}
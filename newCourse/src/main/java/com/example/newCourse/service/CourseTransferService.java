@@ -0,0 +1,413 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseImportReport;
+import com.example.newCourse.repository.CourseRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Moves whole catalogs in and out as NDJSON, one course per line. Export writes courses
+ * straight from a MongoDB cursor. Import parses the body a line at a time on the request
+ * thread and hands valid courses to a writer thread, which inserts them in unordered bulk
+ * writes. The queue between the two is bounded: while the writer is behind, the request
+ * thread stops reading and TCP holds the client back. Memory stays constant either way,
+ * whatever the size of the file.
+ */
+@Service
+public class CourseTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseTransferService.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${imports.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${imports.max-record-chars:16777216}")
+    private int maxRecordChars;
+
+    @Value("${imports.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Writes every course as one line of JSON and returns how many were written. Long lesson
+     * bodies are put back inline, so each line is the complete course.
+     */
+    public long export(OutputStream out) throws IOException {
+        long exported = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // The servlet container flushes as its buffer fills, not after every course
+        try (SequenceWriter writer = objectMapper.writerFor(Course.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(generator);
+             Stream<Course> courses = courseRepository.streamAll()) {
+            for (Course course : (Iterable<Course>) courses::iterator) {
+                lessonBodyStore.inlineBodies(course);
+                if (course.getContentList() != null) {
+                    for (CourseContent lesson : course.getContentList()) {
+                        lesson.setContentRef(null);
+                        lesson.setContentLength(null);
+                    }
+                }
+                writer.write(course);
+                exported++;
+            }
+        }
+        if (exported > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return exported;
+    }
+
+    /**
+     * Imports one course per line. Each line is validated on its own, and a line that fails
+     * validation or insertion is reported without stopping the import. Courses keep the id
+     * they were exported with; an id already taken fails that line. Lines without an id get one.
+     */
+    public CourseImportReport importCourses(InputStream body) {
+        ImportRun run = new ImportRun();
+        CountingInputStream counted = new CountingInputStream(body);
+        BlockingQueue<Record> records = new ArrayBlockingQueue<>(batchSize * 2);
+        Thread writer = Thread.ofVirtual().name("course-import-writer").start(() -> writeRecords(run, records));
+        ObjectReader reader = objectMapper.readerFor(Course.class).with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        long started = System.nanoTime();
+        try {
+            LineReader lines = new LineReader(new InputStreamReader(counted, StandardCharsets.UTF_8), maxRecordChars);
+            long lineNumber = 0;
+            for (String line = lines.next(); line != null; line = lines.next()) {
+                lineNumber++;
+                if (!lines.tooLong && line.isBlank()) {
+                    continue;
+                }
+                run.records++;
+                if (lines.tooLong) {
+                    run.fail(lineNumber, "longer than " + maxRecordChars + " characters");
+                    continue;
+                }
+                Course course;
+                try {
+                    course = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    run.fail(lineNumber, e.getOriginalMessage());
+                    continue;
+                }
+                String invalid = prepare(course);
+                if (invalid != null) {
+                    run.fail(lineNumber, invalid);
+                    continue;
+                }
+                // Waits while the writer is behind
+                records.put(new Record(lineNumber, course));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.error = "interrupted";
+        } catch (Exception e) {
+            // Typically the client going away; what was read so far is still written
+            run.error = e.getMessage();
+        }
+
+        try {
+            records.put(Record.END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        CourseImportReport report = run.report(counted.count, System.nanoTime() - started);
+        log.info("Imported {} of {} courses in {} ms ({} courses/s){}", report.getImported(), report.getRecords(),
+                report.getElapsedMs(), Math.round(report.getCoursesPerSecond()),
+                report.getError() == null ? "" : ", stopped early: " + report.getError());
+        return report;
+    }
+
+    // Checks a parsed course and fills in what an insert needs; returns why it is invalid, or null
+    private static String prepare(Course course) {
+        if (course == null) {
+            return "not a course object";
+        }
+        if (course.getTitle() == null || course.getTitle().isBlank()) {
+            return "title is required";
+        }
+        if (course.getId() != null && course.getId().isBlank()) {
+            return "id must not be blank";
+        }
+        if (course.getContentList() == null) {
+            course.setContentList(new ArrayList<>());
+        }
+        if (course.getTags() == null) {
+            course.setTags(new ArrayList<>());
+        }
+        Set<String> lessonIds = new HashSet<>();
+        for (CourseContent lesson : course.getContentList()) {
+            if (lesson == null) {
+                return "contentList must not contain null";
+            }
+            if (lesson.getId() == null) {
+                lesson.setId(UUID.randomUUID().toString());
+            } else if (!lessonIds.add(lesson.getId())) {
+                return "lesson id " + lesson.getId() + " appears twice";
+            }
+        }
+        if (course.getId() == null) {
+            // Offloaded lesson bodies record their course, so it needs its id before it is inserted
+            course.setId(new ObjectId().toHexString());
+        }
+        return null;
+    }
+
+    private void writeRecords(ImportRun run, BlockingQueue<Record> records) {
+        List<Record> batch = new ArrayList<>(batchSize);
+        boolean done = false;
+        while (!done) {
+            try {
+                batch.add(records.take());
+                records.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done = true;
+            }
+            if (!batch.isEmpty() && batch.get(batch.size() - 1) == Record.END) {
+                batch.remove(batch.size() - 1);
+                done = true;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    flush(run, batch);
+                } catch (RuntimeException e) {
+                    // The writer must keep taking records, or the request thread would wait forever
+                    log.warn("Could not finish a batch of {} imported courses: {}", batch.size(), e.getMessage());
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(ImportRun run, List<Record> records) {
+        // Imported courses may point at files this instance already stores; a course whose
+        // files have been collected fails on its own, before anything of it is written
+        List<Record> batch = new ArrayList<>(records.size());
+        List<List<String>> files = new ArrayList<>(records.size());
+        for (Record record : records) {
+            List<String> paths = BlobStorageService.paths(record.course);
+            try {
+                blobStorageService.retainPaths(paths);
+            } catch (ResponseStatusException e) {
+                run.fail(record.line, e.getReason());
+                continue;
+            }
+            batch.add(record);
+            files.add(paths);
+        }
+        List<Course> courses = new ArrayList<>(batch.size());
+        List<List<String>> storedBodies = new ArrayList<>(batch.size());
+        Map<Integer, String> failures;
+        try {
+            for (Record record : batch) {
+                Course course = record.course;
+                lessonBodyStore.checkReferences(course.getId(), course.getContentList());
+                storedBodies.add(lessonBodyStore.offload(course.getId(), course.getContentList()));
+                courses.add(course);
+            }
+            failures = courseRepository.insertBulk(courses);
+        } catch (Exception e) {
+            failures = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                failures.put(i, e.getMessage());
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Course course = batch.get(i).course;
+            String failure = failures.get(i);
+            if (failure != null) {
+                run.fail(batch.get(i).line, failure);
+                if (i < storedBodies.size()) {
+                    lessonBodyStore.delete(storedBodies.get(i));
+                }
+                blobStorageService.releasePaths(files.get(i));
+                continue;
+            }
+            run.imported++;
+            try {
+                eventPublisher.publishEvent(CourseChangedEvent.saved(course));
+            } catch (Exception e) {
+                // The course is in; the rest of the batch still needs its bookkeeping
+                log.warn("Imported course {} but could not finish its bookkeeping: {}", course.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private record Record(long line, Course course) {
+        static final Record END = new Record(0, null);
+    }
+
+    // Counts are written by the request thread (records, failures while parsing) and the writer
+    // (imported, insert failures); failures are shared, so they are counted under the lock
+    private final class ImportRun {
+        volatile long records;
+        volatile long imported;
+        long failed;
+        final List<String> errors = new ArrayList<>();
+        volatile String error;
+
+        synchronized void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add("line " + line + ": " + message);
+            }
+        }
+
+        synchronized CourseImportReport report(long bytesRead, long elapsedNanos) {
+            CourseImportReport report = new CourseImportReport();
+            report.setRecords(records);
+            report.setImported(imported);
+            report.setFailed(failed);
+            report.setErrors(new ArrayList<>(errors));
+            report.setError(error);
+            report.setBytesRead(bytesRead);
+            report.setElapsedMs(elapsedNanos / 1_000_000);
+            double seconds = elapsedNanos / 1e9;
+            report.setCoursesPerSecond(seconds == 0 ? 0 : imported / seconds);
+            report.setMegabytesPerSecond(seconds == 0 ? 0 : bytesRead / 1e6 / seconds);
+            return report;
+        }
+    }
+
+    // Splits the body into lines, never holding more than maxChars of one; a longer line is
+    // skipped up to its end and flagged as tooLong
+    static final class LineReader {
+        private final Reader in;
+        private final int maxChars;
+        private final char[] buffer = new char[64 * 1024];
+        private int position;
+        private int limit;
+        private final StringBuilder line = new StringBuilder();
+        boolean tooLong;
+
+        LineReader(Reader in, int maxChars) {
+            this.in = in;
+            this.maxChars = maxChars;
+        }
+
+        // The next line without its line break, or null at the end of the body
+        String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(0, in.read(buffer, 0, buffer.length));
+                    position = 0;
+                    if (limit == 0) {
+                        return read ? finish() : null;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                if (!tooLong) {
+                    // One over, for a '\r' before the line break; finish() checks without it
+                    if ((long) line.length() + position - start > maxChars + 1L) {
+                        tooLong = true;
+                        line.setLength(0);
+                    } else {
+                        line.append(buffer, start, position - start);
+                    }
+                }
+                if (position < limit) {
+                    position++;
+                    return finish();
+                }
+            }
+        }
+
+        private String finish() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            if (line.length() > maxChars) {
+                tooLong = true;
+                line.setLength(0);
+            }
+            return line.toString();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.repository.CourseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Produces resized JPEG variants of course cover images in the background. Each
+ * original is decoded once and scaled to every variant width, on a fixed-size worker
+ * pool with a bounded queue so a burst of uploads cannot exhaust memory. Originals are
+ * only decoded when their dimensions are within images.max-pixels, so a small file that
+ * declares a huge image cannot exhaust it either.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    // Variant name -> maximum width in pixels; images are never upscaled
+    static final Map<String, Integer> VARIANT_WIDTHS = Map.of("thumbnail", 160, "card", 480, "hero", 1280);
+    private static final float JPEG_QUALITY = 0.82f;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${images.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${images.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${uploads.root:uploads}")
+    private Path uploadRoot = Paths.get("uploads");
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger backfillRunning = new AtomicInteger();
+    private final LongAdder unusable = new LongAdder();
+
+    public ImageVariantService(@Value("${images.workers:2}") int workers,
+                               @Value("${images.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues variant generation without waiting for it. If the queue is full the course
+     * simply keeps serving its original image until a backfill picks it up.
+     */
+    public void submit(String courseId, String imagePath) {
+        try {
+            executor.execute(() -> process(courseId, imagePath));
+        } catch (RejectedExecutionException e) {
+            log.warn("Image variant queue full, skipping course {}", courseId);
+        }
+    }
+
+    /**
+     * Generates variants for every course that has a cover image but none recorded yet.
+     * Runs on its own thread and feeds the worker pool only as fast as it drains.
+     * Returns false if a backfill is already running.
+     */
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(0, 1)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            int queued = 0;
+            try (Stream<Course> courses = courseRepository.streamCoursesMissingImageVariants()) {
+                for (Course course : (Iterable<Course>) courses::iterator) {
+                    String courseId = course.getId();
+                    String imagePath = course.getImagePath();
+                    executor.getQueue().put(() -> process(courseId, imagePath));
+                    queued++;
+                }
+                log.info("Image variant backfill queued {} courses", queued);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Image variant backfill stopped after {} courses: {}", queued, e.getMessage());
+            } finally {
+                backfillRunning.set(0);
+            }
+        }, "image-variants-backfill");
+        thread.setDaemon(true);
+        // Work put straight on the queue only runs once core threads exist
+        executor.prestartAllCoreThreads();
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("unusableOriginals", unusable.sum());
+        stats.put("backfillRunning", backfillRunning.get() == 1);
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfConfigured() {
+        if (backfillOnStartup) {
+            startBackfill();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void process(String courseId, String imagePath) {
+        try {
+            // Uploaded images live under uploads.root; other paths are taken from the working directory
+            Path original = imagePath.startsWith("/uploads/") ? uploadRoot.resolve(imagePath.substring("/uploads/".length()))
+                    : Paths.get(imagePath.startsWith("/") ? imagePath.substring(1) : imagePath);
+            Path variantDir = uploadRoot.resolve("variants");
+            String baseName = stripExtension(original.getFileName().toString());
+            Map<String, String> variants = new LinkedHashMap<>();
+            boolean allExist = true;
+            for (String variant : VARIANT_WIDTHS.keySet()) {
+                String fileName = baseName + "_" + variant + ".jpg";
+                variants.put(variant, "/uploads/variants/" + fileName);
+                allExist &= Files.exists(variantDir.resolve(fileName));
+            }
+
+            // Deduplicated originals share a name, so another course may have produced these already
+            if (!allExist) {
+                BufferedImage source = readImage(original, maxPixels);
+                Files.createDirectories(variantDir);
+                for (Map.Entry<String, Integer> variant : VARIANT_WIDTHS.entrySet()) {
+                    Path target = variantDir.resolve(baseName + "_" + variant.getKey() + ".jpg");
+                    writeJpeg(scale(source, variant.getValue()), target);
+                }
+            }
+
+            if (courseRepository.setImageVariants(courseId, imagePath, variants)) {
+                eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+            }
+        } catch (UnusableImageException e) {
+            // Recording no variants stops the backfill from trying again; the original is still served
+            unusable.increment();
+            log.warn("Cover image {} of course {} {}", imagePath, courseId, e.getMessage());
+            courseRepository.setImageVariants(courseId, imagePath, Map.of());
+        } catch (Exception e) {
+            log.warn("Could not create image variants for course {}: {}", courseId, e.getMessage());
+        }
+    }
+
+    // Reads the dimensions from the header first and only decodes images within maxPixels
+    static BufferedImage readImage(Path original, long maxPixels) throws IOException {
+        // ImageIO reports a missing file as an unreadable image; that one is worth retrying
+        if (!Files.isRegularFile(original)) {
+            throw new NoSuchFileException(original.toString());
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new UnusableImageException("is not a readable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new UnusableImageException("is " + width + "x" + height + ", over the limit of "
+                            + maxPixels + " pixels");
+                }
+                return reader.read(0);
+            } catch (IIOException e) {
+                throw new UnusableImageException("could not be decoded: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxWidth) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    // Written to a temporary name and moved into place so readers never see a partial file
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = target.resolveSibling(UUID.randomUUID() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    // An original that will never produce variants, however often it is retried
+    static final class UnusableImageException extends IOException {
+        UnusableImageException(String message) {
+            super(message);
+        }
+    }
+}
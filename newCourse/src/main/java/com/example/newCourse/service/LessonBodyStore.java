@@ -0,0 +1,288 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.LessonBody;
+import com.example.newCourse.repository.LessonBodyRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps lesson bodies longer than lessons.body-offload-chars out of course documents. Such a
+ * body goes to the lesson_bodies collection and the lesson keeps only contentRef and
+ * contentLength. Course reads, the course cache and every read-modify-write of a course then
+ * stay small, and no number of heavy lessons pushes a course towards MongoDB's 16 MB limit.
+ * The body is read back only for the per-lesson content endpoint and the search index.
+ * <p>
+ * Bodies are written before the lesson that refers to them. Callers release a body once no
+ * lesson refers to it any more, and delete the bodies offload() stored when the lesson write
+ * did not happen.
+ */
+@Service
+public class LessonBodyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LessonBodyStore.class);
+
+    @Autowired
+    private LessonBodyRepository lessonBodyRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${lessons.body-offload-chars:16384}")
+    private int offloadChars;
+
+    @Value("${lessons.stats-ttl-seconds:60}")
+    private long statsTtlSeconds;
+
+    private final LongAdder offloaded = new LongAdder();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    // Figures read from MongoDB by stats(); one caller at a time recomputes them once expired
+    private final ReentrantLock storedStatsLock = new ReentrantLock();
+    private volatile StoredStats storedStats;
+
+    public int offloadChars() {
+        return offloadChars;
+    }
+
+    /**
+     * Stores the body of each lesson longer than the threshold and replaces it with a reference.
+     * Lessons that have no id yet get one, since a body belongs to one lesson. Returns the
+     * references stored, for the caller to delete if the lessons are not written after all.
+     */
+    public List<String> offload(String courseId, Collection<CourseContent> lessons) {
+        Map<String, String> contentByLesson = new LinkedHashMap<>();
+        Map<String, CourseContent> lessonsById = new HashMap<>();
+        for (CourseContent lesson : lessons) {
+            if (lesson.getContent() != null && lesson.getContent().length() > offloadChars) {
+                if (lesson.getId() == null) {
+                    lesson.setId(UUID.randomUUID().toString());
+                }
+                contentByLesson.put(lesson.getId(), lesson.getContent());
+                lessonsById.put(lesson.getId(), lesson);
+            }
+        }
+        List<String> refs = new ArrayList<>(contentByLesson.size());
+        // The lessons change only once their bodies are safely stored
+        for (LessonBody body : store(courseId, contentByLesson)) {
+            CourseContent lesson = lessonsById.get(body.getLessonId());
+            lesson.setContent(null);
+            lesson.setContentRef(body.getId());
+            lesson.setContentLength(body.getLength());
+            refs.add(body.getId());
+        }
+        return refs;
+    }
+
+    // Writes the given bodies, by lesson id, and returns them with their new ids
+    public List<LessonBody> store(String courseId, Map<String, String> contentByLesson) {
+        List<LessonBody> bodies = new ArrayList<>(contentByLesson.size());
+        contentByLesson.forEach((lessonId, content) -> {
+            LessonBody body = new LessonBody();
+            body.setId(UUID.randomUUID().toString());
+            body.setCourseId(courseId);
+            body.setLessonId(lessonId);
+            body.setContent(content);
+            body.setLength(content.length());
+            bodies.add(body);
+        });
+        if (!bodies.isEmpty()) {
+            lessonBodyRepository.insert(bodies);
+            offloaded.add(bodies.size());
+        }
+        return bodies;
+    }
+
+    /**
+     * Drops references sent by a client unless they point at the stored body of that same
+     * lesson and come without content. That stops a lesson from adopting another lesson's body,
+     * which would be deleted from under it, while a lesson read and sent back unchanged keeps its body.
+     */
+    public void checkReferences(String courseId, Collection<CourseContent> lessons) {
+        for (CourseContent lesson : lessons) {
+            if (lesson.getContentRef() == null) {
+                lesson.setContentLength(null);
+                continue;
+            }
+            boolean own = lesson.getContent() == null && lesson.getId() != null
+                    && lessonBodyRepository.existsByIdAndCourseIdAndLessonId(lesson.getContentRef(), courseId, lesson.getId());
+            if (!own) {
+                lesson.setContentRef(null);
+                lesson.setContentLength(null);
+            }
+        }
+    }
+
+    /**
+     * The lesson with its body in place of the reference. The lesson itself is not modified,
+     * since it may be shared through the course cache.
+     */
+    public CourseContent withBody(CourseContent lesson) {
+        if (lesson.getContentRef() == null) {
+            return lesson;
+        }
+        CourseContent copy = new CourseContent();
+        BeanUtils.copyProperties(lesson, copy);
+        lessonBodyRepository.findById(lesson.getContentRef()).ifPresentOrElse(body -> {
+            copy.setContent(body.getContent());
+            loaded.increment();
+        }, () -> log.warn("Body {} of lesson {} is missing", lesson.getContentRef(), lesson.getId()));
+        return copy;
+    }
+
+    // Puts the bodies of a course read for processing back inline, with one query; never use on cached courses
+    public void inlineBodies(Course course) {
+        Map<String, CourseContent> byRef = new HashMap<>();
+        if (course.getContentList() != null) {
+            for (CourseContent lesson : course.getContentList()) {
+                if (lesson.getContentRef() != null) {
+                    byRef.put(lesson.getContentRef(), lesson);
+                }
+            }
+        }
+        if (byRef.isEmpty()) {
+            return;
+        }
+        for (LessonBody body : lessonBodyRepository.findAllById(byRef.keySet())) {
+            byRef.get(body.getId()).setContent(body.getContent());
+            loaded.increment();
+        }
+    }
+
+    public static boolean hasOffloadedBodies(Course course) {
+        return course.getContentList() != null
+                && course.getContentList().stream().anyMatch(lesson -> lesson.getContentRef() != null);
+    }
+
+    public void release(CourseContent lesson) {
+        if (lesson != null && lesson.getContentRef() != null) {
+            delete(List.of(lesson.getContentRef()));
+        }
+    }
+
+    // Releases the body a lesson had before an update, unless the update kept it
+    public void releaseReplaced(CourseContent previous, CourseContent current) {
+        if (previous != null && previous.getContentRef() != null
+                && !Objects.equals(previous.getContentRef(), current.getContentRef())) {
+            delete(List.of(previous.getContentRef()));
+        }
+    }
+
+    // Every body of a deleted course, as projected by CourseRepository.removeCourse
+    public void releaseAll(Course course) {
+        if (course.getContentList() != null) {
+            delete(course.getContentList().stream()
+                    .map(CourseContent::getContentRef)
+                    .filter(Objects::nonNull)
+                    .toList());
+        }
+    }
+
+    public void delete(Collection<String> refs) {
+        if (refs.isEmpty()) {
+            return;
+        }
+        try {
+            lessonBodyRepository.deleteAllById(refs);
+            released.add(refs.size());
+        } catch (Exception e) {
+            // Only costs space; the lessons no longer refer to these bodies
+            log.warn("Could not delete lesson bodies {}: {}", refs, e.getMessage());
+        }
+    }
+
+    /**
+     * Offloaded bodies and course document sizes, both read from MongoDB, plus this instance's
+     * counts since startup. inlineBodiesOverThreshold counts bodies still waiting for
+     * LessonBodyMigration. The MongoDB figures scan both collections, so they are reused for
+     * lessons.stats-ttl-seconds; storedStatsAgeSeconds says how old they are.
+     */
+    public Map<String, Object> stats() {
+        StoredStats stored = storedStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("offloadChars", offloadChars);
+        stats.putAll(stored.values());
+        stats.put("storedStatsAgeSeconds", (System.nanoTime() - stored.computedAt()) / 1_000_000_000L);
+        stats.put("offloaded", offloaded.sum());
+        stats.put("loaded", loaded.sum());
+        stats.put("released", released.sum());
+        return stats;
+    }
+
+    private StoredStats storedStats() {
+        StoredStats stored = storedStats;
+        if (stored != null && System.nanoTime() - stored.computedAt() < statsTtlSeconds * 1_000_000_000L) {
+            return stored;
+        }
+        storedStatsLock.lock();
+        try {
+            // Another caller may have recomputed them while this one waited
+            stored = storedStats;
+            if (stored == null || System.nanoTime() - stored.computedAt() >= statsTtlSeconds * 1_000_000_000L) {
+                stored = new StoredStats(readStoredStats(), System.nanoTime());
+                storedStats = stored;
+            }
+            return stored;
+        } finally {
+            storedStatsLock.unlock();
+        }
+    }
+
+    private Map<String, Object> readStoredStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Document bodies = first(mongoTemplate.getCollection("lesson_bodies").aggregate(List.of(
+                new Document("$group", new Document("_id", null)
+                        .append("count", new Document("$sum", 1))
+                        .append("totalChars", new Document("$sum", "$length"))
+                        .append("largestChars", new Document("$max", "$length"))))));
+        stats.put("bodies", bodies.getOrDefault("count", 0));
+        stats.put("bodyChars", bodies.getOrDefault("totalChars", 0));
+        stats.put("largestBodyChars", bodies.getOrDefault("largestChars", 0));
+
+        Document largeInline = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$contentList", List.of())))
+                .append("as", "lesson")
+                .append("cond", new Document("$gt", List.of(
+                        new Document("$strLenCP", new Document("$ifNull", List.of("$$lesson.content", ""))), offloadChars))));
+        Document courses = first(mongoTemplate.getCollection("courses").aggregate(List.of(
+                new Document("$project", new Document("size", new Document("$bsonSize", "$$ROOT"))
+                        .append("largeInline", new Document("$size", largeInline))),
+                new Document("$group", new Document("_id", null)
+                        .append("count", new Document("$sum", 1))
+                        .append("averageBytes", new Document("$avg", "$size"))
+                        .append("largestBytes", new Document("$max", "$size"))
+                        .append("largeInline", new Document("$sum", "$largeInline"))))));
+        stats.put("courses", courses.getOrDefault("count", 0));
+        stats.put("averageCourseBytes", Math.round(((Number) courses.getOrDefault("averageBytes", 0)).doubleValue()));
+        stats.put("largestCourseBytes", courses.getOrDefault("largestBytes", 0));
+        stats.put("inlineBodiesOverThreshold", courses.getOrDefault("largeInline", 0));
+        return stats;
+    }
+
+    private record StoredStats(Map<String, Object> values, long computedAt) {}
+
+    private static Document first(Iterable<Document> results) {
+        for (Document result : results) {
+            return result;
+        }
+        return new Document();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.newCourse.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-process counters, gauges and histograms, served in the Prometheus text format by
+ * GET /api/metrics. A metric is a name plus label values; asking for the same one again
+ * returns the same instance, so callers on hot paths may either keep it or look it up
+ * per call. Recording only touches LongAdders and never blocks.
+ */
+@Service
+public class MetricsRegistry {
+
+    private static final String PREFIX = "newcourse_";
+
+    // Upper bounds in seconds, from a fast cache hit to a stalled upload
+    public static final double[] LATENCY_BUCKETS = { 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1,
+            0.25, 0.5, 1, 2.5, 5, 10, 30 };
+    // Upper bounds in bytes, from a small lesson update to MongoDB's 16 MB document limit
+    public static final double[] SIZE_BUCKETS = { 256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304,
+            16777216 };
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, "counter", help).series
+                .computeIfAbsent(labelText(labels), key -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, "histogram", help).series
+                .computeIfAbsent(labelText(labels), key -> new Histogram(buckets));
+    }
+
+    // A histogram in seconds that records nanoseconds
+    public Histogram timer(String name, String help, String... labels) {
+        return histogram(name, help, LATENCY_BUCKETS, labels);
+    }
+
+    // Registers a gauge read at scrape time; registering the same name and labels again replaces it
+    public void gauge(String name, String help, Supplier<Number> value, String... labels) {
+        family(name, "gauge", help).series.put(labelText(labels), new Gauge(value));
+    }
+
+    /**
+     * Renders every metric, followed by the numeric entries of the given stats maps as
+     * gauges named {section}_{key}. The services' existing stats() maps are exported this way.
+     */
+    public String scrape(Map<String, Map<String, Object>> stats) {
+        StringBuilder out = new StringBuilder(16384);
+        new TreeMap<>(families).forEach((name, family) -> family.write(out, PREFIX + name));
+        stats.forEach((section, values) -> values.forEach((key, value) -> {
+            Number number = value instanceof Boolean flag ? (flag ? 1 : 0) : value instanceof Number n ? n : null;
+            if (number != null) {
+                String name = PREFIX + section + "_" + snakeCase(key);
+                out.append("# TYPE ").append(name).append(" gauge\n");
+                out.append(name).append(' ').append(format(number.doubleValue())).append('\n');
+            }
+        }));
+        return out.toString();
+    }
+
+    private Family family(String name, String type, String help) {
+        Family family = families.computeIfAbsent(name, key -> new Family(type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    // Label pairs as they appear between the braces, e.g. method="GET",route="/api/courses"
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            text.append(labels[i]).append("=\"")
+                    .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return text.toString();
+    }
+
+    private static String snakeCase(String key) {
+        return key.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String braces(String labels, String extra) {
+        if (labels.isEmpty() && extra.isEmpty()) {
+            return "";
+        }
+        return "{" + labels + (labels.isEmpty() || extra.isEmpty() ? "" : ",") + extra + "}";
+    }
+
+    private interface Metric {
+        void write(StringBuilder out, String name, String labels);
+    }
+
+    private static final class Family {
+        final String type;
+        final String help;
+        final Map<String, Metric> series = new ConcurrentHashMap<>();
+
+        Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+
+        void write(StringBuilder out, String name) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            new TreeMap<>(series).forEach((labels, metric) -> metric.write(out, name, labels));
+        }
+    }
+
+    public static final class Counter implements Metric {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            out.append(name).append(braces(labels, "")).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    private record Gauge(Supplier<Number> value) implements Metric {
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            Number current = value.get();
+            if (current != null) {
+                out.append(name).append(braces(labels, "")).append(' ').append(format(current.doubleValue())).append('\n');
+            }
+        }
+    }
+
+    public static final class Histogram implements Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds.clone();
+            this.buckets = new LongAdder[bounds.length + 1];
+            Arrays.setAll(buckets, i -> new LongAdder());
+        }
+
+        public void record(double value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sum.add(value);
+        }
+
+        public void recordNanos(long nanos) {
+            record(nanos / 1e9);
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i <= bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < bounds.length ? format(bounds[i]) : "+Inf";
+                out.append(name).append("_bucket").append(braces(labels, "le=\"" + le + "\""))
+                        .append(' ').append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum").append(braces(labels, "")).append(' ').append(format(sum.sum())).append('\n');
+            // From the buckets rather than count, so _count always equals the +Inf bucket
+            out.append(name).append("_count").append(braces(labels, "")).append(' ').append(cumulative).append('\n');
+        }
+    }
+}
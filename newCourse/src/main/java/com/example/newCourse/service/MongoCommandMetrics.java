@@ -0,0 +1,228 @@
+package com.example.newCourse.service;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.ByteBuf;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.OutputBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times every MongoDB command and tracks connection pool saturation, through the driver's
+ * listeners (registered by MetricsConfig). It also measures the documents commands carry:
+ * the reply to a read and the command itself for a write. Per thread totals of those sizes
+ * let RepositoryMetricsInterceptor attribute them to the repository call that sent them.
+ */
+@Service
+public class MongoCommandMetrics implements CommandListener, ConnectionPoolListener {
+
+    private static final Set<String> READ_COMMANDS = Set.of("find", "getMore", "aggregate", "distinct", "findAndModify");
+    private static final Set<String> WRITE_COMMANDS = Set.of("insert", "update", "delete", "findAndModify");
+
+    // [bytes read, bytes written] by commands sent from this thread so far
+    private static final ThreadLocal<long[]> THREAD_BYTES = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    // Sizing a write means encoding its command a second time; this turns that off
+    @Value("${metrics.mongo.document-sizes:true}")
+    private boolean documentSizes;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public static long bytesRead() {
+        return THREAD_BYTES.get()[0];
+    }
+
+    public static long bytesWritten() {
+        return THREAD_BYTES.get()[1];
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (documentSizes && WRITE_COMMANDS.contains(event.getCommandName())) {
+            long size = bsonSize(event.getCommand());
+            THREAD_BYTES.get()[1] += size;
+            RequestTrace.recordBytes(0, size);
+            metrics.histogram("mongodb_document_bytes", "Size of documents sent to and received from MongoDB",
+                    MetricsRegistry.SIZE_BUCKETS, "command", event.getCommandName(), "direction", "written").record(size);
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        commandTimer(event.getCommandName(), "success").recordNanos(nanos);
+        RequestTrace.record(RequestTrace.Phase.MONGO, nanos);
+        if (documentSizes && READ_COMMANDS.contains(event.getCommandName())) {
+            long size = bsonSize(event.getResponse());
+            THREAD_BYTES.get()[0] += size;
+            RequestTrace.recordBytes(size, 0);
+            metrics.histogram("mongodb_document_bytes", "Size of documents sent to and received from MongoDB",
+                    MetricsRegistry.SIZE_BUCKETS, "command", event.getCommandName(), "direction", "read").record(size);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        commandTimer(event.getCommandName(), "failure").recordNanos(nanos);
+        RequestTrace.record(RequestTrace.Phase.MONGO, nanos);
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        pool(event.getServerId().getAddress().toString()).maxSize = event.getSettings().getMaxSize();
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        pool(event.getConnectionId().getServerId().getAddress().toString()).open.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        pool(event.getConnectionId().getServerId().getAddress().toString()).open.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        pool(event.getServerId().getAddress().toString()).waiting.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        String server = event.getConnectionId().getServerId().getAddress().toString();
+        Pool pool = pool(server);
+        pool.waiting.decrementAndGet();
+        pool.inUse.incrementAndGet();
+        checkoutTimer(server, "success").recordNanos(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        String server = event.getServerId().getAddress().toString();
+        pool(server).waiting.decrementAndGet();
+        // TIMEOUT here means the pool was exhausted for mongodb.pool.max-wait-ms
+        checkoutTimer(server, event.getReason().name().toLowerCase()).recordNanos(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        pool(event.getConnectionId().getServerId().getAddress().toString()).inUse.decrementAndGet();
+    }
+
+    private MetricsRegistry.Histogram commandTimer(String command, String outcome) {
+        return metrics.timer("mongodb_command_seconds", "MongoDB command round trips, as timed by the driver",
+                "command", command, "outcome", outcome);
+    }
+
+    private MetricsRegistry.Histogram checkoutTimer(String server, String outcome) {
+        return metrics.timer("mongodb_pool_checkout_seconds", "Time spent waiting for a pooled MongoDB connection",
+                "server", server, "outcome", outcome);
+    }
+
+    private Pool pool(String server) {
+        return pools.computeIfAbsent(server, key -> {
+            Pool pool = new Pool();
+            metrics.gauge("mongodb_pool_max_size", "Connection pool limit", () -> pool.maxSize, "server", server);
+            metrics.gauge("mongodb_pool_open", "Open pooled connections", pool.open::get, "server", server);
+            metrics.gauge("mongodb_pool_in_use", "Pooled connections checked out", pool.inUse::get, "server", server);
+            metrics.gauge("mongodb_pool_waiting", "Threads waiting to check out a connection", pool.waiting::get, "server", server);
+            return pool;
+        });
+    }
+
+    // Encoded size; replies are already raw bytes, commands are re-encoded into a counter
+    private static long bsonSize(BsonDocument document) {
+        if (document instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        CountingOutput output = new CountingOutput();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(output)) {
+            new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        return output.getSize();
+    }
+
+    private static final class Pool {
+        volatile int maxSize;
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger waiting = new AtomicInteger();
+    }
+
+    // Counts encoded bytes without keeping them
+    private static final class CountingOutput extends OutputBuffer {
+        private int position;
+        private int size;
+
+        @Override
+        public void writeBytes(byte[] bytes, int offset, int length) {
+            position += length;
+            size = Math.max(size, position);
+        }
+
+        @Override
+        public void writeByte(int value) {
+            position++;
+            size = Math.max(size, position);
+        }
+
+        @Override
+        protected void write(int absolutePosition, int value) {
+            // Back-patched lengths don't change the size
+        }
+
+        @Override
+        public int getPosition() {
+            return position;
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public void truncateToPosition(int newPosition) {
+            position = newPosition;
+            size = newPosition;
+        }
+
+        @Override
+        public int pipe(OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ByteBuf> getByteBuffers() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
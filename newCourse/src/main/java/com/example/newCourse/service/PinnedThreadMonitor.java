@@ -0,0 +1,114 @@
+package com.example.newCourse.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches for virtual threads pinned to their carrier (blocking inside synchronized or native
+ * code) through the JFR jdk.VirtualThreadPinned event, and attributes each one to the first
+ * frame of this application on the stack. Only runs when virtual threads are enabled.
+ */
+@Service
+public class PinnedThreadMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.example.newCourse.";
+    private static final int MAX_SITES = 100;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${threads.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!virtualThreads) {
+            return;
+        }
+        try {
+            stream = new RecordingStream();
+            stream.enable(EVENT).withStackTrace().withThreshold(Duration.ofMillis(thresholdMs));
+            stream.onEvent(EVENT, this::onPinned);
+            stream.startAsync();
+        } catch (Exception e) {
+            stream = null;
+            log.warn("Could not start pinned virtual thread monitoring: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("monitoring", stream != null);
+        stats.put("thresholdMs", thresholdMs);
+        stats.put("pinnedEvents", events.sum());
+        stats.put("pinnedMillis", pinnedNanos.sum() / 1_000_000);
+        Map<String, Long> bySite = new LinkedHashMap<>();
+        sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entry -> bySite.put(entry.getKey(), entry.getValue().sum()));
+        stats.put("sites", bySite);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        events.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+        String site = siteOf(event);
+        // Bounded, so a library pinning from many places cannot grow the map without limit
+        if (!sites.containsKey(site) && sites.size() >= MAX_SITES) {
+            site = "(other)";
+        }
+        if (sites.computeIfAbsent(site, key -> new LongAdder()).sum() == 0) {
+            log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+        sites.get(site).increment();
+    }
+
+    // First frame in this application, or the top frame when the pin happened entirely in library code
+    private static String siteOf(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(unknown)";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return describe(frame);
+            }
+        }
+        return frames.isEmpty() ? "(unknown)" : describe(frames.get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
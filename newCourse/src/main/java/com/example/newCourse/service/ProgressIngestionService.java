@@ -0,0 +1,350 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.event.ProgressChangedEvent;
+import com.example.newCourse.model.ProgressEvent;
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.repository.ProgressRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Buffers progress updates in memory and writes them to the progress collection in bulk.
+ * Updates to the same (course, student, lesson) that arrive before a flush are coalesced,
+ * so a student clicking through a lesson costs one write rather than one per event.
+ * The buffer is flushed every flush interval, or sooner once it holds a full batch.
+ */
+@Service
+public class ProgressIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressIngestionService.class);
+
+    public static final Set<String> STATUSES = Set.of("Not Started", "In Progress", "Completed");
+
+    @Autowired
+    private ProgressRepository progressRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${progress.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${progress.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${progress.max-pending:100000}")
+    private int maxPending;
+
+    // Writers add under the read lock; the flusher swaps the map out under the write lock
+    private final ReadWriteLock bufferLock = new ReentrantReadWriteLock();
+    private volatile Map<String, StudentProgress> pending = new ConcurrentHashMap<>();
+    // The batch being written, still visible to reads until it is in MongoDB
+    private volatile Map<String, StudentProgress> flushing = Map.of();
+    // Held while a chunk is written and its ProgressChangedEvent handled
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Semaphore flushSignal = new Semaphore(0);
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void start() {
+        flusher = new Thread(this::flushLoop, "progress-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Buffers the events. Returns false without taking any of them when the buffer is full,
+     * which happens only if MongoDB falls behind; callers should retry shortly.
+     * Throws IllegalArgumentException if any event is incomplete.
+     */
+    public boolean submit(List<ProgressEvent> events) {
+        for (ProgressEvent event : events) {
+            validate(event);
+        }
+        if (pending.size() + events.size() > maxPending) {
+            flushSignal.release();
+            return false;
+        }
+        Instant now = Instant.now();
+        bufferLock.readLock().lock();
+        try {
+            Map<String, StudentProgress> buffer = pending;
+            for (ProgressEvent event : events) {
+                String lessonId = isBlank(event.getLessonId()) ? null : event.getLessonId();
+                StudentProgress progress = new StudentProgress();
+                progress.setId(progressId(event.getCourseId(), event.getStudentId(), lessonId));
+                progress.setCourseId(event.getCourseId());
+                progress.setStudentId(event.getStudentId());
+                progress.setLessonId(lessonId);
+                progress.setStatus(event.getStatus());
+                progress.setUpdatedAt(now);
+                if (buffer.put(progress.getId(), progress) != null) {
+                    coalesced.incrementAndGet();
+                }
+            }
+            received.addAndGet(events.size());
+            if (buffer.size() >= batchSize) {
+                flushSignal.release();
+            }
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+        return true;
+    }
+
+    // Stored progress of one student in one course, including updates not yet flushed
+    public List<StudentProgress> findForStudent(String courseId, String studentId) {
+        Map<String, StudentProgress> byId = new LinkedHashMap<>();
+        for (StudentProgress progress : progressRepository.findByCourseIdAndStudentId(courseId, studentId)) {
+            byId.put(progress.getId(), progress);
+        }
+        for (Map<String, StudentProgress> buffer : List.of(flushing, pending)) {
+            for (StudentProgress progress : buffer.values()) {
+                if (courseId.equals(progress.getCourseId()) && studentId.equals(progress.getStudentId())) {
+                    byId.put(progress.getId(), progress);
+                }
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    // Drops buffered and stored progress of a lesson that no longer exists
+    public void lessonRemoved(String courseId, String lessonId) {
+        whileNotWriting(() -> {
+            purge(progress -> courseId.equals(progress.getCourseId()) && lessonId.equals(progress.getLessonId()));
+            if (progressRepository.deleteByCourseIdAndLessonId(courseId, lessonId) > 0) {
+                eventPublisher.publishEvent(new ProgressChangedEvent(List.of(), Set.of(courseId), Instant.now()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action while no progress write is in flight, so whatever it reads from the
+     * progress collection matches the ProgressChangedEvents published so far exactly.
+     */
+    public <T> T whileNotWriting(Supplier<T> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.deleted()) {
+            whileNotWriting(() -> {
+                purge(progress -> event.courseId().equals(progress.getCourseId()));
+                return progressRepository.deleteByCourseId(event.courseId());
+            });
+        }
+    }
+
+    /**
+     * Removes matching updates from the buffer and from the batch being flushed. Called under
+     * the write lock, so no chunk is being written; chunks still to come skip what was removed.
+     */
+    private void purge(Predicate<StudentProgress> removed) {
+        bufferLock.writeLock().lock();
+        try {
+            for (Map<String, StudentProgress> buffer : List.of(pending, flushing)) {
+                if (!buffer.isEmpty()) {
+                    buffer.values().removeIf(removed);
+                }
+            }
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("received", received.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("written", written.get());
+        stats.put("flushes", flushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flushSignal.release();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // Key of one (course, student, lesson); course-level status uses an empty lesson part
+    public static String progressId(String courseId, String studentId, String lessonId) {
+        return courseId + "|" + studentId + "|" + (lessonId == null ? "" : lessonId);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                flushSignal.tryAcquire(flushIntervalMs, TimeUnit.MILLISECONDS);
+                flushSignal.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            flush();
+        }
+        // Whatever arrived before shutdown
+        flush();
+    }
+
+    private void flush() {
+        Map<String, StudentProgress> batch;
+        bufferLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            flushing = batch;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+        long started = System.nanoTime();
+        // Every entry of a flush is stamped with the same time, which analytics uses as its watermark
+        Instant writtenAt = Instant.now();
+        List<StudentProgress> chunk = new ArrayList<>(Math.min(batch.size(), batchSize));
+        Map<String, StudentProgress> unwritten = new HashMap<>(batch);
+        try {
+            for (StudentProgress progress : batch.values()) {
+                chunk.add(progress);
+                if (chunk.size() == batchSize) {
+                    write(batch, chunk, unwritten, writtenAt);
+                }
+            }
+            write(batch, chunk, unwritten, writtenAt);
+            flushes.incrementAndGet();
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            log.warn("Progress flush failed, keeping {} updates for the next attempt: {}", unwritten.size(), e.getMessage());
+            // Part of the failed bulk write may have been applied
+            Set<String> uncertain = new HashSet<>();
+            chunk.forEach(progress -> uncertain.add(progress.getCourseId()));
+            whileNotWriting(() -> {
+                requeue(batch, unwritten.values());
+                eventPublisher.publishEvent(new ProgressChangedEvent(List.of(), uncertain, writtenAt));
+                return null;
+            });
+        } finally {
+            flushing = Map.of();
+            lastFlushMillis = (System.nanoTime() - started) / 1_000_000;
+        }
+    }
+
+    // Reads the statuses being replaced first, so listeners get exact transitions
+    private void write(Map<String, StudentProgress> batch, List<StudentProgress> chunk,
+                       Map<String, StudentProgress> unwritten, Instant writtenAt) {
+        writeLock.lock();
+        try {
+            // Progress of lessons or courses deleted since the chunk was collected
+            chunk.removeIf(progress -> {
+                boolean purged = batch.get(progress.getId()) != progress;
+                if (purged) {
+                    unwritten.remove(progress.getId());
+                }
+                return purged;
+            });
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<String> ids = new ArrayList<>(chunk.size());
+            chunk.forEach(progress -> ids.add(progress.getId()));
+            Map<String, String> previous = progressRepository.findStatuses(ids);
+            chunk.forEach(progress -> progress.setUpdatedAt(writtenAt));
+            progressRepository.upsertAll(chunk, false);
+            List<ProgressChangedEvent.Change> changes = new ArrayList<>();
+            for (StudentProgress progress : chunk) {
+                String previousStatus = previous.get(progress.getId());
+                if (!progress.getStatus().equals(previousStatus)) {
+                    changes.add(new ProgressChangedEvent.Change(progress.getCourseId(), progress.getLessonId(),
+                            previousStatus, progress.getStatus()));
+                }
+            }
+            eventPublisher.publishEvent(new ProgressChangedEvent(changes, Set.of(), writtenAt));
+        } finally {
+            writeLock.unlock();
+        }
+        written.addAndGet(chunk.size());
+        chunk.forEach(progress -> unwritten.remove(progress.getId()));
+        chunk.clear();
+    }
+
+    // Puts failed updates back unless a newer update for the same key has arrived since, or they were purged
+    private void requeue(Map<String, StudentProgress> batch, Collection<StudentProgress> failed) {
+        bufferLock.readLock().lock();
+        try {
+            Map<String, StudentProgress> buffer = pending;
+            for (StudentProgress progress : failed) {
+                if (batch.get(progress.getId()) == progress) {
+                    buffer.putIfAbsent(progress.getId(), progress);
+                }
+            }
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+
+    private static void validate(ProgressEvent event) {
+        if (isBlank(event.getCourseId()) || isBlank(event.getStudentId())) {
+            throw new IllegalArgumentException("courseId and studentId are required");
+        }
+        if (!STATUSES.contains(event.getStatus())) {
+            throw new IllegalArgumentException("status must be one of " + STATUSES);
+        }
+        // '|' separates the parts of the progress id
+        if (event.getCourseId().contains("|") || event.getStudentId().contains("|")
+                || (event.getLessonId() != null && event.getLessonId().contains("|"))) {
+            throw new IllegalArgumentException("ids must not contain '|'");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.newCourse.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where one request spent its time: MongoDB commands, repository calls (which include the
+ * MongoDB time plus mapping documents to objects), JSON reading and writing, and file I/O
+ * under uploads/. Bound to the thread that serves the request (RequestMetricsFilter) and
+ * filled in by the instrumentation on that thread; work on other threads isn't attributed.
+ * Every static method does nothing when no request is being traced.
+ */
+public final class RequestTrace {
+
+    public enum Phase { MONGO, REPOSITORY, JSON, FILES }
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    // Spans kept per request; a request making more calls than this is summarized by the totals
+    private static final int MAX_SPANS = 20;
+
+    private final String requestId;
+    private final long[] nanos = new long[Phase.values().length];
+    private final int[] counts = new int[Phase.values().length];
+    private long bytesRead;
+    private long bytesWritten;
+    private final List<String> spans = new ArrayList<>();
+
+    private RequestTrace(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public static RequestTrace begin(String requestId) {
+        RequestTrace trace = new RequestTrace(requestId);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void record(Phase phase, long elapsedNanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.nanos[phase.ordinal()] += elapsedNanos;
+            trace.counts[phase.ordinal()]++;
+        }
+    }
+
+    // Document bytes received from and sent to MongoDB
+    public static void recordBytes(long read, long written) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.bytesRead += read;
+            trace.bytesWritten += written;
+        }
+    }
+
+    // One named step, e.g. a repository call, shown in the slow-request log
+    public static void span(String name, long elapsedNanos, String detail) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.spans.size() < MAX_SPANS) {
+            trace.spans.add(name + " " + millis(elapsedNanos) + " ms" + (detail.isEmpty() ? "" : " " + detail));
+        }
+    }
+
+    public String requestId() {
+        return requestId;
+    }
+
+    /**
+     * The breakdown of a finished request. "other" is the time outside MongoDB, mapping,
+     * JSON and file I/O: controller logic, the cache, filters and waiting on locks.
+     */
+    public Map<String, Object> breakdown(long totalNanos) {
+        long mongo = nanos[Phase.MONGO.ordinal()];
+        // Repository calls contain their MongoDB commands; what is left is mapping
+        long mapping = Math.max(0, nanos[Phase.REPOSITORY.ordinal()] - mongo);
+        long json = nanos[Phase.JSON.ordinal()];
+        long files = nanos[Phase.FILES.ordinal()];
+        Map<String, Object> breakdown = new LinkedHashMap<>();
+        breakdown.put("totalMs", millis(totalNanos));
+        breakdown.put("mongoMs", millis(mongo));
+        breakdown.put("mongoCommands", counts[Phase.MONGO.ordinal()]);
+        breakdown.put("mappingMs", millis(mapping));
+        breakdown.put("jsonMs", millis(json));
+        breakdown.put("filesMs", millis(files));
+        breakdown.put("otherMs", millis(Math.max(0, totalNanos - mongo - mapping - json - files)));
+        breakdown.put("documentBytesRead", bytesRead);
+        breakdown.put("documentBytesWritten", bytesWritten);
+        breakdown.put("spans", List.copyOf(spans));
+        return breakdown;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
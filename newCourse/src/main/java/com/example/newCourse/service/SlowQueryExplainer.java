@@ -0,0 +1,187 @@
+package com.example.newCourse.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diagnostic mode, on when mongodb.explain.slow-query-ms is above zero: each query slower than
+ * that is explained in the background, and the ones whose winning plan scanned the whole
+ * collection are logged and counted (newcourse_mongodb_collection_scans_total). Each query
+ * shape, the filter with its values left out, is explained once. Holding a copy of every
+ * query until it completes costs memory and time, so this is meant for investigations rather
+ * than normal running.
+ */
+@Service
+public class SlowQueryExplainer implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryExplainer.class);
+
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct", "findAndModify",
+            "update", "delete");
+    // Session and transaction fields the driver adds, which explain rejects inside its command
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber",
+            "autocommit", "startTransaction", "writeConcern", "$readPreference", "readConcern");
+    private static final int MAX_SHAPES = 1000;
+
+    @Value("${mongodb.explain.slow-query-ms:0}")
+    private long thresholdMs;
+
+    // Looked up lazily: the client is built with this listener registered
+    @Autowired
+    private ObjectProvider<MongoClient> mongoClient;
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    // Copies of explainable commands still running, by driver request id
+    private final Map<Integer, BsonDocument> running = new ConcurrentHashMap<>();
+    private final Set<String> explainedShapes = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (thresholdMs > 0 && EXPLAINABLE.contains(event.getCommandName())) {
+            // The event's document is only valid during this call
+            running.put(event.getRequestId(), event.getCommand().clone());
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        BsonDocument command = running.remove(event.getRequestId());
+        if (command == null || event.getElapsedTime(TimeUnit.MILLISECONDS) < thresholdMs) {
+            return;
+        }
+        String collection = command.get(event.getCommandName()).isString()
+                ? command.getString(event.getCommandName()).getValue() : "";
+        String shape = event.getCommandName() + " " + collection + " " + shape(filter(event.getCommandName(), command));
+        if (explainedShapes.size() >= MAX_SHAPES || !explainedShapes.add(shape)) {
+            return;
+        }
+        long elapsedMs = event.getElapsedTime(TimeUnit.MILLISECONDS);
+        executor.execute(() -> explain(event.getDatabaseName(), event.getCommandName(), collection, command,
+                shape, elapsedMs));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        running.remove(event.getRequestId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void explain(String database, String commandName, String collection, BsonDocument command,
+                         String shape, long elapsedMs) {
+        MongoClient client = mongoClient.getIfAvailable();
+        if (client == null) {
+            return;
+        }
+        BsonDocument explained = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!SESSION_FIELDS.contains(key)) {
+                explained.append(key, value);
+            }
+        });
+        try {
+            BsonDocument result = client.getDatabase(database).runCommand(new BsonDocument("explain", explained)
+                    .append("verbosity", new BsonString("queryPlanner")), BsonDocument.class);
+            if (scansCollection(result)) {
+                metrics.counter("mongodb_collection_scans_total", "Slow queries whose winning plan was a COLLSCAN",
+                        "command", commandName, "collection", collection).increment();
+                log.warn("Slow {} on {} ({} ms) scanned the whole collection; no index serves {}",
+                        commandName, collection, elapsedMs, shape);
+            }
+        } catch (Exception e) {
+            // Not every command can be explained, for example multi-statement updates
+            log.debug("Could not explain {}: {}", shape, e.getMessage());
+        }
+    }
+
+    // Looks through the winning plan, including the plans aggregate nests under its stages
+    private static boolean scansCollection(BsonValue value) {
+        if (value.isDocument()) {
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (entry.getKey().equals("rejectedPlans")) {
+                    continue;
+                }
+                if (entry.getKey().equals("stage") && entry.getValue().isString()
+                        && entry.getValue().asString().getValue().equals("COLLSCAN")) {
+                    return true;
+                }
+                if (scansCollection(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (value.isArray()) {
+            for (BsonValue element : value.asArray()) {
+                if (scansCollection(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static BsonValue filter(String commandName, BsonDocument command) {
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "distinct", "findAndModify" -> command.get("query");
+            case "update" -> first(command.get("updates"), "q");
+            case "delete" -> first(command.get("deletes"), "q");
+            case "aggregate" -> first(command.get("pipeline"), "$match");
+            default -> null;
+        };
+        return filter == null ? new BsonDocument() : filter;
+    }
+
+    private static BsonValue first(BsonValue array, String field) {
+        if (array instanceof BsonArray elements && !elements.isEmpty() && elements.get(0).isDocument()) {
+            return elements.get(0).asDocument().get(field);
+        }
+        return null;
+    }
+
+    // The filter's fields and operators in a stable order, with every value replaced by ?
+    private static String shape(BsonValue value) {
+        if (value.isDocument()) {
+            Map<String, String> fields = new TreeMap<>();
+            value.asDocument().forEach((key, field) -> fields.put(key, shape(field)));
+            return fields.toString();
+        }
+        if (value.isArray()) {
+            BsonArray elements = value.asArray();
+            return elements.isEmpty() ? "[]" : "[" + shape(elements.get(0)) + "]";
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.newCourse.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests slower than metrics.slow-request-ms, each with its RequestTrace breakdown.
+ * Each one is logged as a warning, and the most recent are kept for GET /api/metrics/slow-requests.
+ */
+@Service
+public class SlowRequestLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowRequestLog.class);
+
+    @Value("${metrics.slow-request-ms:1000}")
+    private long thresholdMs;
+
+    @Value("${metrics.slow-request-history:100}")
+    private int history;
+
+    private final Deque<Map<String, Object>> recent = new ArrayDeque<>();
+
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+    }
+
+    public void record(String method, String path, String route, int status, RequestTrace trace, long elapsedNanos) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("at", Instant.now().toString());
+        entry.put("requestId", trace.requestId());
+        entry.put("method", method);
+        entry.put("path", path);
+        entry.put("route", route);
+        entry.put("status", status);
+        Map<String, Object> breakdown = trace.breakdown(elapsedNanos);
+        entry.putAll(breakdown);
+        log.warn("Slow request {} {} -> {} [{}]: {}", method, path, status, trace.requestId(), breakdown);
+        synchronized (recent) {
+            recent.addFirst(entry);
+            while (recent.size() > history) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    // Newest first
+    public List<Map<String, Object>> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("thresholdMs", thresholdMs);
+        synchronized (recent) {
+            stats.put("kept", recent.size());
+        }
+        return stats;
+    }
+}
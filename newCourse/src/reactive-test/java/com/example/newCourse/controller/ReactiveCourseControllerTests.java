@@ -0,0 +1,163 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.repository.ReactiveCourseRepository;
+import com.example.newCourse.service.BlobStorageService;
+import com.example.newCourse.service.ContentGeneratorService;
+import com.example.newCourse.service.CourseCache;
+import com.example.newCourse.service.ImageVariantService;
+import com.example.newCourse.service.LessonBodyStore;
+import com.example.newCourse.service.ProgressIngestionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.web.reactive.context.AnnotationConfigReactiveWebApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveCourseControllerTests {
+
+    private ReactiveCourseRepository courseRepository;
+    private CourseCache courseCache;
+    private ApplicationEventPublisher eventPublisher;
+    private AnnotationConfigReactiveWebApplicationContext context;
+    private WebTestClient client;
+
+    // WebFlux for the controller alone; its collaborators are the mocks registered in setUp
+    @Configuration
+    @EnableWebFlux
+    static class TestConfig {
+    }
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(ReactiveCourseRepository.class);
+        courseCache = mock(CourseCache.class);
+        when(courseCache.generation()).thenReturn(5L);
+        when(courseCache.getIfPresent(any())).thenReturn(Optional.empty());
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        context = new AnnotationConfigReactiveWebApplicationContext();
+        // Registered as finished objects, so the mocks are not autowired in turn
+        ConfigurableListableBeanFactory beans = context.getBeanFactory();
+        beans.registerSingleton("courseRepository", courseRepository);
+        beans.registerSingleton("courseCache", courseCache);
+        beans.registerSingleton("contentGeneratorService", mock(ContentGeneratorService.class));
+        beans.registerSingleton("imageVariantService", mock(ImageVariantService.class));
+        beans.registerSingleton("blobStorageService", mock(BlobStorageService.class));
+        beans.registerSingleton("progressIngestionService", mock(ProgressIngestionService.class));
+        beans.registerSingleton("lessonBodyStore", mock(LessonBodyStore.class));
+        context.register(TestConfig.class, ReactiveCourseController.class);
+        context.refresh();
+        ReflectionTestUtils.setField(context.getBean(ReactiveCourseController.class), "eventPublisher", eventPublisher);
+        client = WebTestClient.bindToApplicationContext(context).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void listsAPageAndPointsAtTheNext() {
+        // Asked for one more than the page to learn that another follows
+        when(courseRepository.findSummaries(isNull(), eq("Beginner"), isNull(), eq("a"), eq(3)))
+                .thenReturn(Flux.just(summary("b"), summary("c"), summary("d")));
+        when(courseRepository.findSummaries(isNull(), isNull(), isNull(), eq("c"), eq(3)))
+                .thenReturn(Flux.just(summary("d")));
+
+        client.get().uri("/api/courses?cursor=a&limit=2&level=Beginner").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CourseController.NEXT_CURSOR_HEADER, "c")
+                .expectBodyList(CourseSummary.class).value(page ->
+                        assertEquals(List.of("b", "c"), page.stream().map(CourseSummary::getId).toList()));
+
+        client.get().uri("/api/courses?cursor=c&limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(CourseController.NEXT_CURSOR_HEADER)
+                .expectBodyList(CourseSummary.class).hasSize(1);
+    }
+
+    @Test
+    void getsACourseWithItsVersionAsETagAndCachesIt() {
+        Course course = course("c1", 3L);
+        when(courseRepository.findById("c1")).thenReturn(Mono.just(course));
+        when(courseRepository.findById("missing")).thenReturn(Mono.empty());
+
+        client.get().uri("/api/courses/c1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody(Course.class).value(body -> assertEquals("Title", body.getTitle()));
+        // Loaded under the generation read before the lookup
+        verify(courseCache).putLoaded("c1", course, 5L);
+
+        client.get().uri("/api/courses/missing").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void updatesTheVersionNamedByIfMatch() {
+        Course saved = course("c1", 4L);
+        saved.setTitle("Renamed");
+        when(courseRepository.updateDetails("c1", "Renamed", "Description", 3L)).thenReturn(Mono.just(saved));
+
+        client.put().uri("/api/courses/c1").header(HttpHeaders.IF_MATCH, "\"3\"").bodyValue(details("Renamed"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Course.class).value(body -> assertEquals(4L, body.getVersion()));
+        verify(eventPublisher, timeout(5_000)).publishEvent(CourseChangedEvent.saved(saved));
+    }
+
+    @Test
+    void aStaleIfMatchIsRefusedAndAMissingCourseIsNotFound() {
+        when(courseRepository.updateDetails(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(courseRepository.existsById("c1")).thenReturn(Mono.just(true));
+        when(courseRepository.existsById("missing")).thenReturn(Mono.just(false));
+
+        client.put().uri("/api/courses/c1").header(HttpHeaders.IF_MATCH, "\"2\"").bodyValue(details("Renamed"))
+                .exchange().expectStatus().isEqualTo(412);
+        client.put().uri("/api/courses/missing").header(HttpHeaders.IF_MATCH, "\"2\"").bodyValue(details("Renamed"))
+                .exchange().expectStatus().isNotFound();
+        // Without If-Match nothing matched means the course is gone
+        client.put().uri("/api/courses/c1").bodyValue(details("Renamed"))
+                .exchange().expectStatus().isNotFound();
+        verify(courseRepository).updateDetails("c1", "Renamed", "Description", 2L);
+        verify(courseRepository).updateDetails("c1", "Renamed", "Description", null);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    private static Map<String, String> details(String title) {
+        return Map.of("title", title, "description", "Description");
+    }
+
+    private static Course course(String id, Long version) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle("Title");
+        course.setDescription("Description");
+        course.setVersion(version);
+        return course;
+    }
+
+    private static CourseSummary summary(String id) {
+        CourseSummary summary = new CourseSummary();
+        summary.setId(id);
+        return summary;
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.repository.ReactiveCourseRepository;
+import com.example.newCourse.service.BlobStorageService;
+import com.example.newCourse.service.ContentGeneratorService;
+import com.example.newCourse.service.CourseCache;
+import com.example.newCourse.service.ImageVariantService;
+import com.example.newCourse.service.LessonBodyStore;
+import com.example.newCourse.service.ProgressIngestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * WebFlux version of CourseController, served instead of it when the app runs as a reactive
+ * web application (the "reactive" profile). Every endpoint answers exactly as its blocking
+ * counterpart does; reads and writes go through ReactiveCourseRepository, and the shared
+ * blocking services (blob storage, event listeners, lesson generation) run on the
+ * bounded-elastic scheduler so they never hold an event-loop thread.
+ * <p>
+ * Both list endpoints also stream as NDJSON when asked for application/x-ndjson.
+ */
+@RestController
+@RequestMapping("/api/courses")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCourseController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCourseController.class);
+
+    @Autowired
+    private ReactiveCourseRepository courseRepository;
+
+    @Autowired
+    private ContentGeneratorService contentGeneratorService;
+
+    @Autowired
+    private CourseCache courseCache;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private ProgressIngestionService progressIngestionService;
+
+    @Autowired
+    private LessonBodyStore lessonBodyStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<CourseSummary>>> getAllCourses(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "level", required = false) String level,
+            @RequestParam(value = "tags", required = false) List<String> tags) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to learn whether another page follows
+        return courseRepository.findSummaries(category, level, tags, cursor, pageSize + 1)
+                .collectList()
+                .map(summaries -> {
+                    if (summaries.size() <= pageSize) {
+                        return ResponseEntity.ok(summaries);
+                    }
+                    List<CourseSummary> page = summaries.subList(0, pageSize);
+                    return ResponseEntity.ok()
+                            .header(CourseController.NEXT_CURSOR_HEADER, page.get(pageSize - 1).getId())
+                            .body(page);
+                });
+    }
+
+    // Same filters and order as getAllCourses, one summary per line. Without a limit every
+    // match after the cursor is streamed, fetched from MongoDB only as fast as the client reads.
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CourseSummary> streamCourses(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "level", required = false) String level,
+            @RequestParam(value = "tags", required = false) List<String> tags) {
+        return courseRepository.findSummaries(category, level, tags, cursor, limit == null ? null : Math.max(1, limit));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Course>> getCourseById(@PathVariable String id) {
+        return findCached(id)
+                .map(course -> CourseController.cacheable(course).body(course))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @PostMapping
+    public Mono<Course> createCourse(@RequestBody Course course) {
+        course.setVersion(null);
+        List<CourseContent> lessons = course.getContentList() == null ? List.of() : course.getContentList();
+        if (course.getId() == null && !lessons.isEmpty()) {
+            // Offloaded lesson bodies record their course, so it needs its id before it is saved
+            course.setId(new ObjectId().toHexString());
+        }
+        // The posted course may point at files that are already stored
+        return writeLessons(course.getId(), lessons, BlobStorageService.paths(course),
+                        () -> courseRepository.save(course), saved -> true)
+                .flatMap(savedCourse -> blocking(() -> {
+                    eventPublisher.publishEvent(CourseChangedEvent.saved(savedCourse));
+                    return savedCourse;
+                }));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Course>> updateCourse(
+            @PathVariable String id,
+            @RequestBody Course updatedCourse,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CourseController.parseVersion(ifMatch);
+        // Only the title and description change, so concurrent lesson writes are kept
+        return courseRepository.updateDetails(id, updatedCourse.getTitle(), updatedCourse.getDescription(), expectedVersion)
+                .flatMap(savedCourse -> publish(CourseChangedEvent.saved(savedCourse))
+                        .thenReturn(ResponseEntity.ok(savedCourse)))
+                .switchIfEmpty(Mono.defer(() -> notMatched(courseRepository.existsById(id), expectedVersion)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteCourse(@PathVariable String id) {
+        return courseRepository.removeCourse(id)
+                .flatMap(removed -> blocking(() -> {
+                    eventPublisher.publishEvent(CourseChangedEvent.deleted(id));
+                    blobStorageService.releaseAll(removed);
+                    lessonBodyStore.releaseAll(removed);
+                    return ResponseEntity.ok("Course deleted successfully");
+                }))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Course not found"));
+    }
+
+    @GetMapping("/{courseId}/content")
+    public Mono<ResponseEntity<List<CourseContent>>> getCourseContent(@PathVariable String courseId) {
+        return findCached(courseId)
+                .map(course -> CourseController.cacheable(course).body(course.getContentList()))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    // One lesson per line; 404 when the course does not exist, as for the JSON form
+    @GetMapping(value = "/{courseId}/content", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<CourseContent>>> streamCourseContent(@PathVariable String courseId) {
+        return findCached(courseId)
+                .map(course -> CourseController.cacheable(course).body(Flux.fromIterable(
+                        course.getContentList() == null ? List.<CourseContent>of() : course.getContentList())))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @GetMapping("/{courseId}/content/{contentId}")
+    public Mono<ResponseEntity<CourseContent>> getLesson(@PathVariable String courseId, @PathVariable String contentId) {
+        return findCached(courseId)
+                .flatMap(course -> Mono.justOrEmpty(CourseController.findLesson(course, contentId))
+                        .flatMap(lesson -> blocking(() -> lessonBodyStore.withBody(lesson)))
+                        .map(lesson -> CourseController.cacheable(course).body(lesson)))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @PostMapping("/{courseId}/content")
+    public Mono<ResponseEntity<CourseContent>> addCourseContent(
+            @PathVariable String courseId,
+            @RequestBody CourseContent content,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CourseController.parseVersion(ifMatch);
+        content.setId(UUID.randomUUID().toString());
+        return writeLessons(courseId, List.of(content), BlobStorageService.paths(content),
+                        () -> courseRepository.pushContent(courseId, List.of(content), expectedVersion), added -> added)
+                .flatMap(added -> publish(CourseChangedEvent.modified(courseId)).thenReturn(added))
+                .flatMap(added -> added
+                        ? Mono.just(ResponseEntity.status(HttpStatus.CREATED).body(content))
+                        : notMatched(courseRepository.existsById(courseId), expectedVersion));
+    }
+
+    @PutMapping("/{courseId}/content/{contentId}")
+    public Mono<ResponseEntity<CourseContent>> updateCourseContent(
+            @PathVariable String courseId,
+            @PathVariable String contentId,
+            @RequestBody CourseContent updatedContent,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CourseController.parseVersion(ifMatch);
+        updatedContent.setId(contentId);
+        return writeLessons(courseId, List.of(updatedContent), BlobStorageService.paths(updatedContent),
+                        () -> courseRepository.replaceContent(courseId, updatedContent, expectedVersion), previous -> true)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(previous -> blocking(() -> {
+                    eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+                    previous.ifPresent(content -> {
+                        // The new files were retained before the write; unchanged ones keep their count
+                        blobStorageService.releaseAll(content);
+                        lessonBodyStore.releaseReplaced(content, updatedContent);
+                    });
+                    return previous.isPresent();
+                }))
+                .flatMap(replaced -> replaced
+                        ? Mono.just(ResponseEntity.ok(updatedContent))
+                        : notMatched(courseRepository.contentExists(courseId, contentId), expectedVersion));
+    }
+
+    @DeleteMapping("/{courseId}/content/{contentId}")
+    public Mono<ResponseEntity<Void>> deleteCourseContent(
+            @PathVariable String courseId,
+            @PathVariable String contentId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CourseController.parseVersion(ifMatch);
+        return courseRepository.pullContent(courseId, contentId, expectedVersion)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(removed -> blocking(() -> {
+                    eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+                    removed.ifPresent(content -> {
+                        blobStorageService.releaseAll(content);
+                        lessonBodyStore.release(content);
+                        progressIngestionService.lessonRemoved(courseId, contentId);
+                    });
+                    return removed.isPresent();
+                }))
+                .flatMap(pulled -> pulled
+                        ? Mono.just(ResponseEntity.noContent().<Void>build())
+                        : notMatched(courseRepository.contentExists(courseId, contentId), expectedVersion));
+    }
+
+    @PostMapping("/{courseId}/generate-content")
+    public Mono<ResponseEntity<List<CourseContent>>> generateCourseContent(@PathVariable String courseId) {
+        return courseRepository.findById(courseId)
+                .flatMap(course -> {
+                    // Generate content based on course details
+                    List<CourseContent> generatedContent = contentGeneratorService
+                            .generateContentForCourse(course.getTitle(), course.getCategory(), course.getLevel());
+
+                    // Append the generated lessons without rewriting the rest of the course
+                    return writeLessons(courseId, generatedContent, List.of(),
+                                    () -> courseRepository.pushContent(courseId, generatedContent, null), added -> added)
+                            .flatMap(added -> publish(CourseChangedEvent.modified(courseId))
+                                    .thenReturn(added
+                                            ? ResponseEntity.ok(generatedContent)
+                                            : ResponseEntity.status(HttpStatus.NOT_FOUND).<List<CourseContent>>build()));
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @PostMapping(consumes = { "multipart/form-data" })
+    public Mono<ResponseEntity<Course>> createCourseWithImage(
+            @RequestPart("title") String title,
+            @RequestPart("description") String description,
+            @RequestPart(value = "image", required = false) FilePart imageFile,
+            @RequestPart(value = "duration", required = false) String duration,
+            @RequestPart(value = "language", required = false) String language,
+            @RequestPart(value = "level", required = false) String level,
+            @RequestPart(value = "tags", required = false) String tagsJson) {
+        Course course = new Course();
+        course.setTitle(title);
+        course.setDescription(description);
+        course.setLevel(level);
+        course.setDuration(duration);
+        course.setLanguage(language);
+        course.setContentList(new ArrayList<>());
+
+        return Mono.fromCallable(() -> {
+                    // Handle tags
+                    if (tagsJson != null && !tagsJson.isEmpty()) {
+                        List<String> tags = new ObjectMapper().readValue(tagsJson, List.class);
+                        course.setTags(tags);
+                    }
+                    return course;
+                })
+                // Identical images are stored once, under their content hash
+                .flatMap(withTags -> imageFile == null || imageFile.filename().isEmpty()
+                        ? Mono.just(withTags)
+                        : store(imageFile, "images").map(imagePath -> {
+                            withTags.setImagePath(imagePath);
+                            return withTags;
+                        }))
+                .flatMap(courseRepository::save)
+                .flatMap(savedCourse -> blocking(() -> {
+                    eventPublisher.publishEvent(CourseChangedEvent.saved(savedCourse));
+                    if (savedCourse.getImagePath() != null) {
+                        // Resized variants are produced in the background; the response doesn't wait
+                        imageVariantService.submit(savedCourse.getId(), savedCourse.getImagePath());
+                    }
+                    return new ResponseEntity<>(savedCourse, HttpStatus.CREATED);
+                }))
+                .onErrorResume(e -> {
+                    log.error("Could not create course", e);
+                    return Mono.just(new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
+                });
+    }
+
+    @PostMapping("/{courseId}/content/{contentId}/video")
+    public Mono<ResponseEntity<CourseContent>> uploadLessonVideo(
+            @PathVariable String courseId,
+            @PathVariable String contentId,
+            @RequestPart("video") FilePart videoFile) {
+        return attachFile(courseId, contentId, videoFile, "videos", "videoUrl",
+                CourseContent::getVideoUrl, CourseContent::setVideoUrl);
+    }
+
+    @PostMapping("/{courseId}/content/{contentId}/resource")
+    public Mono<ResponseEntity<CourseContent>> uploadLessonResource(
+            @PathVariable String courseId,
+            @PathVariable String contentId,
+            @RequestPart("resource") FilePart resourceFile) {
+        return attachFile(courseId, contentId, resourceFile, "resources", "resourceUrl",
+                CourseContent::getResourceUrl, CourseContent::setResourceUrl);
+    }
+
+    // Stores the upload and points the lesson's property at it, releasing the file it replaced
+    private Mono<ResponseEntity<CourseContent>> attachFile(String courseId, String contentId, FilePart file,
+                                                           String directory, String property,
+                                                           Function<CourseContent, String> getter,
+                                                           BiConsumer<CourseContent, String> setter) {
+        // Make sure the lesson exists before writing anything to disk
+        return courseRepository.contentExists(courseId, contentId)
+                .flatMap(exists -> !exists
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).<CourseContent>build())
+                        : store(file, directory).flatMap(storedPath ->
+                                courseRepository.setContentProperty(courseId, contentId, property, storedPath)
+                                        .map(Optional::of)
+                                        .defaultIfEmpty(Optional.empty())
+                                        .flatMap(previous -> blocking(() -> {
+                                            eventPublisher.publishEvent(CourseChangedEvent.modified(courseId));
+                                            if (previous.isEmpty()) {
+                                                // Lesson was deleted while the file was uploading
+                                                blobStorageService.release(storedPath);
+                                                return ResponseEntity.status(HttpStatus.NOT_FOUND).<CourseContent>build();
+                                            }
+                                            CourseContent targetContent = previous.get();
+                                            blobStorageService.release(getter.apply(targetContent));
+                                            setter.accept(targetContent, storedPath);
+                                            return ResponseEntity.ok(targetContent);
+                                        }))))
+                .onErrorResume(e -> {
+                    log.error("Could not store {} for lesson {} of course {}", property, contentId, courseId, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<CourseContent>build());
+                });
+    }
+
+    // Spools the part to a temp file without blocking, then stores it like the blocking upload does
+    private Mono<String> store(FilePart part, String directory) {
+        String fileName = StringUtils.cleanPath(part.filename());
+        return Mono.usingWhen(
+                blocking(() -> Files.createTempFile("upload-", ".part")),
+                temp -> part.transferTo(temp).then(blocking(() -> {
+                    try (InputStream content = Files.newInputStream(temp)) {
+                        return blobStorageService.store(content, directory, fileName);
+                    }
+                })),
+                temp -> blocking(() -> Files.deleteIfExists(temp)));
+    }
+
+    // The course cache first; a miss is loaded without blocking and cached for both stacks
+    private Mono<Course> findCached(String id) {
+        return Mono.defer(() -> {
+            long loadGeneration = courseCache.generation();
+            Optional<Course> cached = courseCache.getIfPresent(id);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            return courseRepository.findById(id)
+                    .doOnNext(course -> courseCache.putLoaded(id, course, loadGeneration));
+        });
+    }
+
+    // 412 when the target exists but If-Match named another version, 404 otherwise
+    private static <T> Mono<ResponseEntity<T>> notMatched(Mono<Boolean> exists, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        }
+        return exists.map(found -> ResponseEntity.status(found ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND)
+                .<T>build());
+    }
+
+    // Listeners of CourseChangedEvent may touch MongoDB or the disk synchronously
+    private Mono<Void> publish(CourseChangedEvent event) {
+        return blocking(() -> {
+            eventPublisher.publishEvent(event);
+            return true;
+        }).then();
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // As CourseController.writeLessons: long bodies are stored and the files retained first, and
+    // both are undone unless the write succeeds; completing empty, as replaceContent does when
+    // nothing matched, is a failure
+    private <T> Mono<T> writeLessons(String courseId, List<CourseContent> lessons, List<String> files,
+                                     Supplier<Mono<T>> write, Predicate<T> written) {
+        return blocking(() -> {
+            lessonBodyStore.checkReferences(courseId, lessons);
+            blobStorageService.retainPaths(files);
+            try {
+                return lessonBodyStore.offload(courseId, lessons);
+            } catch (RuntimeException e) {
+                blobStorageService.releasePaths(files);
+                throw e;
+            }
+        }).flatMap(stored -> write.get()
+                .flatMap(result -> written.test(result) ? Mono.just(result) : undo(stored, files).thenReturn(result))
+                .switchIfEmpty(undo(stored, files).then(Mono.empty()))
+                .onErrorResume(e -> undo(stored, files).then(Mono.error(e))));
+    }
+
+    private Mono<Void> undo(List<String> bodyRefs, List<String> files) {
+        return bodyRefs.isEmpty() && files.isEmpty() ? Mono.empty() : blocking(() -> {
+            lessonBodyStore.delete(bodyRefs);
+            blobStorageService.releasePaths(files);
+            return true;
+        }).then();
+    }
+}
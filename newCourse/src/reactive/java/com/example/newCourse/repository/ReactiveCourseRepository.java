@@ -0,0 +1,12 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.Course;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCourseRepository extends ReactiveMongoRepository<Course, String>, ReactiveCourseRepositoryCustom {
+
+    // Implemented by ReactiveCourseRepositoryImpl, which gives every saved course a new revision
+    @Override
+    <S extends Course> Mono<S> save(S course);
+}
@@ -0,0 +1,38 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Non-blocking counterparts of CourseRepositoryCustom, issuing the same commands (see CourseQueries)
+public interface ReactiveCourseRepositoryCustom {
+
+    /**
+     * Course summaries ordered by id, after {@code afterId}; null filters are ignored, tags
+     * must all match. A null limit streams every match, batch by batch as it is consumed.
+     */
+    Flux<CourseSummary> findSummaries(String category, String level, List<String> tags,
+                                      String afterId, Integer limit);
+
+    // As in CourseRepositoryCustom, except that "nothing matched" is an empty Mono instead of null
+
+    <S extends Course> Mono<S> save(S course);
+
+    Mono<Boolean> pushContent(String courseId, List<CourseContent> contents, Long expectedVersion);
+
+    Mono<Course> updateDetails(String courseId, String title, String description, Long expectedVersion);
+
+    Mono<CourseContent> replaceContent(String courseId, CourseContent content, Long expectedVersion);
+
+    Mono<CourseContent> pullContent(String courseId, String contentId, Long expectedVersion);
+
+    Mono<CourseContent> setContentProperty(String courseId, String contentId, String property, Object value);
+
+    Mono<Boolean> contentExists(String courseId, String contentId);
+
+    Mono<Course> removeCourse(String courseId);
+}
@@ -0,0 +1,101 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.model.CourseTombstone;
+import com.example.newCourse.service.CourseRevisions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.LongFunction;
+
+public class ReactiveCourseRepositoryImpl implements ReactiveCourseRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private CourseRevisions revisions;
+
+    @Override
+    public Flux<CourseSummary> findSummaries(String category, String level, List<String> tags,
+                                             String afterId, Integer limit) {
+        return reactiveMongoTemplate.aggregate(CourseQueries.summaries(category, level, tags, afterId, limit),
+                Course.class, CourseSummary.class);
+    }
+
+    @Override
+    public <S extends Course> Mono<S> save(S course) {
+        return write(revision -> {
+            course.setRevision(revision);
+            return reactiveMongoTemplate.save(course);
+        });
+    }
+
+    @Override
+    public Mono<Boolean> pushContent(String courseId, List<CourseContent> contents, Long expectedVersion) {
+        return write(revision -> reactiveMongoTemplate.updateFirst(CourseQueries.course(courseId, expectedVersion),
+                        CourseQueries.push(contents, revision), Course.class)
+                .map(result -> result.getMatchedCount() > 0));
+    }
+
+    @Override
+    public Mono<Course> updateDetails(String courseId, String title, String description, Long expectedVersion) {
+        return write(revision -> reactiveMongoTemplate.findAndModify(CourseQueries.course(courseId, expectedVersion),
+                CourseQueries.details(title, description, revision), FindAndModifyOptions.options().returnNew(true),
+                Course.class));
+    }
+
+    @Override
+    public Mono<CourseContent> replaceContent(String courseId, CourseContent content, Long expectedVersion) {
+        return write(revision -> modifyLesson(courseId, content.getId(), expectedVersion,
+                CourseQueries.replace(content, revision)));
+    }
+
+    @Override
+    public Mono<CourseContent> pullContent(String courseId, String contentId, Long expectedVersion) {
+        return write(revision -> modifyLesson(courseId, contentId, expectedVersion,
+                CourseQueries.pull(contentId, revision)));
+    }
+
+    @Override
+    public Mono<CourseContent> setContentProperty(String courseId, String contentId, String property, Object value) {
+        return write(revision -> modifyLesson(courseId, contentId, null,
+                CourseQueries.setProperty(contentId, property, value, revision)));
+    }
+
+    @Override
+    public Mono<Boolean> contentExists(String courseId, String contentId) {
+        return reactiveMongoTemplate.exists(CourseQueries.contentExists(courseId, contentId), Course.class);
+    }
+
+    @Override
+    public Mono<Course> removeCourse(String courseId) {
+        return write(revision -> reactiveMongoTemplate.findAndRemove(CourseQueries.removal(courseId), Course.class)
+                .flatMap(removed -> reactiveMongoTemplate.upsert(CourseQueries.course(courseId, null),
+                                CourseQueries.tombstone(revision), CourseTombstone.class)
+                        .thenReturn(removed)));
+    }
+
+    // As CourseRevisions.write: the revision stays in flight until the write completes, fails or
+    // is cancelled. Only the first allocation reads where revisions continue, which blocks, and
+    // CourseRevisions.assignMissing normally does it at startup.
+    private <T> Mono<T> write(LongFunction<Mono<T>> write) {
+        return Mono.defer(() -> {
+            long revision = revisions.next();
+            return write.apply(revision).doFinally(signal -> revisions.done(revision));
+        });
+    }
+
+    private Mono<CourseContent> modifyLesson(String courseId, String contentId, Long expectedVersion, Update update) {
+        return reactiveMongoTemplate.findAndModify(CourseQueries.lesson(courseId, contentId, expectedVersion),
+                        update, Course.class)
+                .mapNotNull(CourseQueries::previousLesson);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.newCourse;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.net.InetSocketAddress;
+
+/**
+ * An in-memory MongoDB stand-in, started once per test JVM. Spring Boot tests point the
+ * application at it from a {@code @DynamicPropertySource} method:
+ * <pre>
+ * &#64;DynamicPropertySource
+ * static void mongo(DynamicPropertyRegistry registry) {
+ *     MongoStandIn.register(registry);
+ * }
+ * </pre>
+ */
+public final class MongoStandIn {
+
+    private static MongoServer server;
+    private static String uri;
+
+    private MongoStandIn() {
+    }
+
+    public static void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", MongoStandIn::uri);
+    }
+
+    public static synchronized String uri() {
+        if (server == null) {
+            server = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = server.bind();
+            uri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/coursesdb";
+            Runtime.getRuntime().addShutdownHook(new Thread(server::shutdownNow));
+        }
+        return uri;
+    }
+}
@@ -2,10 +2,17 @@ package com.example.newCourse;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
 @SpringBootTest
 class NewCourseApplicationTests {
 
+	@DynamicPropertySource
+	static void mongo(DynamicPropertyRegistry registry) {
+		MongoStandIn.register(registry);
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,149 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.MongoStandIn;
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.LessonBody;
+import com.example.newCourse.repository.LessonBodyRepository;
+import com.example.newCourse.service.CourseRevisions;
+import com.example.newCourse.service.LessonBodyStore;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LessonBodyMigrationTests {
+
+    private static final int OFFLOAD_CHARS = 100;
+    private static final String LONG = "x".repeat(OFFLOAD_CHARS + 1);
+    private static final String SHORT = "y".repeat(OFFLOAD_CHARS);
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private LessonBodyRepository lessonBodyRepository;
+    private LessonBodyStore lessonBodyStore;
+    private ApplicationEventPublisher eventPublisher;
+    private LessonBodyMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(MongoStandIn.uri());
+        mongoTemplate = new MongoTemplate(client, "bodies-" + UUID.randomUUID());
+        lessonBodyRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(LessonBodyRepository.class);
+
+        lessonBodyStore = spy(new LessonBodyStore());
+        ReflectionTestUtils.setField(lessonBodyStore, "lessonBodyRepository", lessonBodyRepository);
+        ReflectionTestUtils.setField(lessonBodyStore, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(lessonBodyStore, "offloadChars", OFFLOAD_CHARS);
+        CourseRevisions revisions = new CourseRevisions();
+        ReflectionTestUtils.setField(revisions, "mongoTemplate", mongoTemplate);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        migration = new LessonBodyMigration();
+        ReflectionTestUtils.setField(migration, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(migration, "lessonBodyStore", lessonBodyStore);
+        ReflectionTestUtils.setField(migration, "revisions", revisions);
+        ReflectionTestUtils.setField(migration, "eventPublisher", eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void movesOnlyBodiesOverTheThresholdAndASecondRunMovesNothing() {
+        mongoTemplate.insert(new Document("_id", "c1").append("version", 3L).append("contentList", List.of(
+                lesson("l1", LONG), lesson("l2", SHORT), lesson("l3", LONG + "z"),
+                // Without an id a lesson cannot be targeted, so it stays inline
+                new Document("title", "untargetable").append("content", LONG))), "courses");
+        mongoTemplate.insert(new Document("_id", "c2").append("contentList", List.of(lesson("l1", SHORT))), "courses");
+
+        migration.run(null);
+
+        List<Document> lessons = lessons("c1");
+        assertBodyMoved(lessons.get(0), "c1", "l1", LONG);
+        assertEquals(SHORT, lessons.get(1).getString("content"));
+        assertNull(lessons.get(1).get("contentRef"));
+        assertBodyMoved(lessons.get(2), "c1", "l3", LONG + "z");
+        assertEquals(LONG, lessons.get(3).getString("content"));
+        assertEquals(4L, course("c1").getLong("version"));
+        assertNotNull(course("c1").get("revision"));
+        assertEquals(List.of(lesson("l1", SHORT)), lessons("c2"));
+        assertEquals(2, lessonBodyRepository.count());
+        verify(eventPublisher).publishEvent(CourseChangedEvent.modified("c1"));
+
+        // Nothing left over the threshold that can move, so nothing is stored twice
+        migration.run(null);
+        assertEquals(2, lessonBodyRepository.count());
+        assertEquals(4L, course("c1").getLong("version"));
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void aCourseEditedMeanwhileKeepsItsBodiesAndTheStoredCopiesAreDeleted() {
+        mongoTemplate.insert(new Document("_id", "c1").append("version", 1L)
+                .append("contentList", List.of(lesson("l1", LONG))), "courses");
+        // An edit lands between reading the course and switching it over
+        List<LessonBody> stored = new ArrayList<>();
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<LessonBody> bodies = (List<LessonBody>) invocation.callRealMethod();
+            stored.addAll(bodies);
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("c1")), new Update().inc("version", 1), "courses");
+            return bodies;
+        }).when(lessonBodyStore).store(eq("c1"), any());
+
+        migration.run(null);
+
+        assertEquals(1, stored.size());
+        assertEquals(LONG, lessons("c1").get(0).getString("content"));
+        assertNull(lessons("c1").get(0).get("contentRef"));
+        assertEquals(0, lessonBodyRepository.count());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+        // The next startup finds the course unchanged and moves the body
+        doCallRealMethod().when(lessonBodyStore).store(any(), any());
+        migration.run(null);
+        assertBodyMoved(lessons("c1").get(0), "c1", "l1", LONG);
+    }
+
+    private void assertBodyMoved(Document lesson, String courseId, String lessonId, String content) {
+        assertNull(lesson.get("content"));
+        assertEquals(content.length(), lesson.getInteger("contentLength"));
+        LessonBody body = lessonBodyRepository.findById(lesson.getString("contentRef")).orElseThrow();
+        assertEquals(courseId, body.getCourseId());
+        assertEquals(lessonId, body.getLessonId());
+        assertEquals(content, body.getContent());
+        assertEquals(content.length(), body.getLength());
+    }
+
+    private Document course(String id) {
+        return mongoTemplate.findById(id, Document.class, "courses");
+    }
+
+    private List<Document> lessons(String courseId) {
+        return course(courseId).getList("contentList", Document.class);
+    }
+
+    private static Document lesson(String id, String content) {
+        return new Document("_id", id).append("title", id).append("content", content);
+    }
+}
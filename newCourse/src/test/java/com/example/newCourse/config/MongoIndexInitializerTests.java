@@ -0,0 +1,100 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.repository.CourseRepository;
+import com.example.newCourse.repository.ProgressRepository;
+import com.example.newCourse.repository.ProgressRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class MongoIndexInitializerTests {
+
+    // The indexes the stubbed server lists
+    private final List<IndexInfo> listed = new ArrayList<>();
+    private IndexOperations indexOperations;
+    private MongoIndexInitializer initializer;
+
+    @BeforeEach
+    void setUp() {
+        indexOperations = mock(IndexOperations.class);
+        when(indexOperations.getIndexInfo()).thenAnswer(invocation -> List.copyOf(listed));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.indexOps(StudentProgress.class)).thenReturn(indexOperations);
+
+        // Progress indexes go through the real repository code; course indexes are all present
+        ProgressRepositoryImpl progressIndexes = new ProgressRepositoryImpl();
+        ReflectionTestUtils.setField(progressIndexes, "mongoTemplate", mongoTemplate);
+        ProgressRepository progressRepository = mock(ProgressRepository.class);
+        when(progressRepository.ensureIndexes()).thenAnswer(invocation -> progressIndexes.ensureIndexes());
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        when(courseRepository.ensureIndexes()).thenReturn(List.of());
+
+        initializer = new MongoIndexInitializer();
+        ReflectionTestUtils.setField(initializer, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(initializer, "progressRepository", progressRepository);
+    }
+
+    @Test
+    void createsEachIndexAndAcceptsThemListedUnderAnyName(CapturedOutput output) {
+        listed.add(index("courseId_1_studentId_1", "courseId", "studentId"));
+        listed.add(index("by hand", "courseId", "lessonId"));
+        listed.add(index("updatedAt_1", "updatedAt"));
+
+        initializer.run(null);
+        verify(indexOperations, times(3)).ensureIndex(any(Index.class));
+        assertTrue(output.getOut().contains("Verified course and progress indexes"));
+    }
+
+    @Test
+    void reportsAnIndexTheServerDoesNotList(CapturedOutput output) {
+        listed.add(index("courseId_1_studentId_1", "courseId", "studentId"));
+        listed.add(index("updatedAt_1", "updatedAt"));
+        // Refused, say because one on the same keys exists with other options, and not listed
+        doThrow(new IllegalStateException("index options conflict")).when(indexOperations)
+                .ensureIndex(argThat(index -> index.getIndexKeys().containsKey("lessonId")));
+
+        initializer.run(null);
+        assertTrue(output.getOut().contains("Missing MongoDB indexes"));
+        assertTrue(output.getOut().contains("progress {courseId: 1, lessonId: 1}: index options conflict"));
+
+        ReflectionTestUtils.setField(initializer, "required", true);
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> initializer.run(null));
+        assertEquals("Missing MongoDB indexes: [progress {courseId: 1, lessonId: 1}: index options conflict]",
+                failure.getMessage());
+    }
+
+    @Test
+    void aServerThatCannotBeAskedCountsAsMissingIndexes() {
+        when(indexOperations.getIndexInfo()).thenThrow(new IllegalStateException("not authorized"));
+        ReflectionTestUtils.setField(initializer, "required", true);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> initializer.run(null));
+        assertTrue(failure.getMessage().contains("could not check indexes: not authorized"));
+    }
+
+    private static IndexInfo index(String name, String... keys) {
+        List<IndexField> fields = new ArrayList<>();
+        for (String key : keys) {
+            fields.add(IndexField.create(key, Sort.Direction.ASC));
+        }
+        return new IndexInfo(fields, name, false, false, null);
+    }
+}
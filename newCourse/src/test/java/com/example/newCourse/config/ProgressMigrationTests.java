@@ -0,0 +1,123 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.MongoStandIn;
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.repository.ProgressRepository;
+import com.example.newCourse.repository.ProgressRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressMigrationTests {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ProgressRepository progressRepository;
+    private ProgressMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(MongoStandIn.uri());
+        mongoTemplate = new MongoTemplate(client, "migration-" + UUID.randomUUID());
+        ProgressRepositoryImpl custom = new ProgressRepositoryImpl();
+        ReflectionTestUtils.setField(custom, "mongoTemplate", mongoTemplate);
+        progressRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(ProgressRepository.class, RepositoryFragments.just(custom));
+
+        migration = new ProgressMigration();
+        ReflectionTestUtils.setField(migration, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(migration, "progressRepository", progressRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void mapsLegacyStatusesAndKeepsWhatCannotBeMigrated() {
+        mongoTemplate.insert(new Document("_id", "course-a").append("progressList", List.of(
+                entry("Alice", "Completed"),
+                entry("Bob", "in_progress"),
+                entry("Carol", " DONE "),
+                entry("Dave|Smith", "Completed"),
+                entry("Eve", "abandoned"),
+                entry("", "Completed"))), "courses");
+        mongoTemplate.insert(new Document("_id", "course-b").append("progressList", List.of(
+                entry("Alice", "not started"),
+                entry("Frank", "Completed"))), "courses");
+        // Recorded since the list was embedded, so the migration must not replace it
+        StudentProgress recorded = new StudentProgress();
+        recorded.setId("course-b|Frank|");
+        recorded.setCourseId("course-b");
+        recorded.setStudentId("Frank");
+        recorded.setStatus("In Progress");
+        recorded.setUpdatedAt(Instant.now());
+        progressRepository.save(recorded);
+
+        Map<String, Long> counts = migration.migrateProgressLists();
+        assertEquals(1L, counts.get("courses"));
+        assertEquals(5L, counts.get("entries"));
+        assertEquals(3L, counts.get("skippedEntries"));
+        assertEquals(1L, counts.get("coursesWithSkipped"));
+
+        assertEquals("Completed", status("course-a|Alice|"));
+        assertEquals("In Progress", status("course-a|Bob|"));
+        assertEquals("Completed", status("course-a|Carol|"));
+        assertEquals("Not Started", status("course-b|Alice|"));
+        assertEquals("In Progress", status("course-b|Frank|"));
+        assertEquals(5, progressRepository.count());
+
+        // Only the entries that could not be stored are left in place
+        assertNull(course("course-b").get("progressList"));
+        assertEquals(List.of(entry("Dave|Smith", "Completed"), entry("Eve", "abandoned"), entry("", "Completed")),
+                course("course-a").getList("progressList", Document.class));
+
+        // A second run finds nothing new to move and loses nothing
+        Map<String, Long> again = migration.migrateProgressLists();
+        assertEquals(0L, again.get("courses"));
+        assertEquals(0L, again.get("entries"));
+        assertEquals(3L, again.get("skippedEntries"));
+        assertEquals(3, course("course-a").getList("progressList", Document.class).size());
+        assertEquals(5, progressRepository.count());
+    }
+
+    @Test
+    void canonicalStatusAcceptsCurrentAndLegacySpellings() {
+        assertEquals("Not Started", ProgressMigration.canonicalStatus("Not Started"));
+        assertEquals("Not Started", ProgressMigration.canonicalStatus("NOT_STARTED"));
+        assertEquals("In Progress", ProgressMigration.canonicalStatus("in-progress"));
+        assertEquals("In Progress", ProgressMigration.canonicalStatus("Started"));
+        assertEquals("Completed", ProgressMigration.canonicalStatus("complete"));
+        assertNull(ProgressMigration.canonicalStatus("abandoned"));
+        assertNull(ProgressMigration.canonicalStatus(null));
+        assertNull(ProgressMigration.canonicalStatus(3));
+    }
+
+    private String status(String id) {
+        return progressRepository.findById(id).map(StudentProgress::getStatus).orElse(null);
+    }
+
+    private Document course(String id) {
+        return mongoTemplate.findById(id, Document.class, "courses");
+    }
+
+    private static Document entry(String student, String status) {
+        return new Document("studentName", student).append("status", status);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.newCourse.config;
+
+import com.example.newCourse.service.MetricsRegistry;
+import com.example.newCourse.service.SlowRequestLog;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class RequestMetricsFilterTests {
+
+    private static final String METRIC = "newcourse_http_server_requests_seconds";
+
+    private MetricsRegistry metrics;
+    private SlowRequestLog slowRequestLog;
+    private MockMvc mockMvc;
+
+    @RestController
+    static class TestController {
+
+        @GetMapping("/things/{id}")
+        String thing(@PathVariable String id) {
+            if (id.equals("missing")) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            return id;
+        }
+
+        @GetMapping("/slow")
+        String slow() throws InterruptedException {
+            Thread.sleep(60);
+            return "slow";
+        }
+
+        @GetMapping("/broken")
+        String broken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        metrics = new MetricsRegistry();
+        slowRequestLog = new SlowRequestLog();
+        ReflectionTestUtils.setField(slowRequestLog, "thresholdMs", 50L);
+        ReflectionTestUtils.setField(slowRequestLog, "history", 10);
+        RequestMetricsFilter filter = new RequestMetricsFilter();
+        ReflectionTestUtils.setField(filter, "metrics", metrics);
+        ReflectionTestUtils.setField(filter, "slowRequestLog", slowRequestLog);
+        mockMvc = MockMvcBuilders.standaloneSetup(new TestController()).addFilters(filter).build();
+    }
+
+    @Test
+    void countsRequestsByRouteTemplateAndStatus() throws Exception {
+        assertEquals(200, perform("/things/a").getStatus());
+        assertEquals(200, perform("/things/b").getStatus());
+        assertEquals(404, perform("/things/missing").getStatus());
+        assertEquals(404, perform("/nowhere").getStatus());
+
+        String scraped = metrics.scrape(Map.of());
+        // One series per route, whatever the id
+        assertTrue(scraped.contains(METRIC + "_count{method=\"GET\",route=\"/things/{id}\",status=\"200\"} 2"), scraped);
+        assertTrue(scraped.contains(METRIC + "_count{method=\"GET\",route=\"/things/{id}\",status=\"404\"} 1"), scraped);
+        assertTrue(scraped.contains(METRIC + "_count{method=\"GET\",route=\"unmatched\",status=\"404\"} 1"), scraped);
+        assertFalse(scraped.contains("/things/a"));
+    }
+
+    @Test
+    void anExceptionEscapingTheChainIsCountedAsA500() {
+        assertThrows(ServletException.class, () -> perform("/broken"));
+
+        assertTrue(metrics.scrape(Map.of())
+                .contains(METRIC + "_count{method=\"GET\",route=\"/broken\",status=\"500\"} 1"));
+    }
+
+    @Test
+    void timesEachRequestAndLogsTheSlowOnes() throws Exception {
+        MockHttpServletResponse slow = perform("/slow");
+        perform("/things/a");
+
+        String scraped = metrics.scrape(Map.of());
+        String labels = "method=\"GET\",route=\"/slow\",status=\"200\"";
+        // Slept 60 ms, so it lands above the 50 ms bucket
+        assertTrue(scraped.contains(METRIC + "_bucket{" + labels + ",le=\"0.05\"} 0"), scraped);
+        assertTrue(scraped.contains(METRIC + "_bucket{" + labels + ",le=\"+Inf\"} 1"), scraped);
+        assertTrue(sum(scraped, labels) >= 0.06, scraped);
+
+        List<Map<String, Object>> recent = slowRequestLog.recent();
+        assertEquals(1, recent.size());
+        assertEquals("/slow", recent.get(0).get("route"));
+        assertEquals(200, recent.get(0).get("status"));
+        assertEquals(slow.getHeader(RequestMetricsFilter.REQUEST_ID_HEADER), recent.get(0).get("requestId"));
+    }
+
+    @Test
+    void keepsAUsableRequestIdAndReplacesOthers() throws Exception {
+        assertEquals("client-42", mockMvc.perform(get("/things/a").header(RequestMetricsFilter.REQUEST_ID_HEADER, "client-42"))
+                .andReturn().getResponse().getHeader(RequestMetricsFilter.REQUEST_ID_HEADER));
+        String replaced = mockMvc.perform(get("/things/a").header(RequestMetricsFilter.REQUEST_ID_HEADER, "bad id\n"))
+                .andReturn().getResponse().getHeader(RequestMetricsFilter.REQUEST_ID_HEADER);
+        assertNotEquals("bad id\n", replaced);
+        assertEquals(36, replaced.length());
+    }
+
+    private MockHttpServletResponse perform(String path) throws Exception {
+        return mockMvc.perform(get(path)).andReturn().getResponse();
+    }
+
+    private static double sum(String scraped, String labels) {
+        String prefix = METRIC + "_sum{" + labels + "} ";
+        return scraped.lines().filter(line -> line.startsWith(prefix))
+                .mapToDouble(line -> Double.parseDouble(line.substring(prefix.length())))
+                .findFirst().orElse(0);
+    }
+}
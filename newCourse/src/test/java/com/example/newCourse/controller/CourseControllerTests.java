@@ -0,0 +1,164 @@
+package com.example.newCourse.controller;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.LessonBody;
+import com.example.newCourse.repository.CourseRepository;
+import com.example.newCourse.repository.LessonBodyRepository;
+import com.example.newCourse.service.BlobStorageService;
+import com.example.newCourse.service.LessonBodyStore;
+import com.example.newCourse.service.ProgressIngestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+class CourseControllerTests {
+
+    private static final String LONG = "x".repeat(101);
+    private static final String VIDEO = "/uploads/videos/clip.mp4";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // The lesson_bodies collection, kept in memory by the mocked repository
+    private final Map<String, LessonBody> bodies = new ConcurrentHashMap<>();
+    private CourseRepository courseRepository;
+    private BlobStorageService blobStorageService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LessonBodyRepository lessonBodyRepository = mock(LessonBodyRepository.class);
+        when(lessonBodyRepository.insert(anyList())).thenAnswer(invocation -> {
+            List<LessonBody> inserted = invocation.getArgument(0);
+            inserted.forEach(body -> bodies.put(body.getId(), body));
+            return inserted;
+        });
+        doAnswer(invocation -> {
+            bodies.keySet().removeAll((Collection<String>) invocation.getArgument(0));
+            return null;
+        }).when(lessonBodyRepository).deleteAllById(any());
+        LessonBodyStore lessonBodyStore = new LessonBodyStore();
+        ReflectionTestUtils.setField(lessonBodyStore, "lessonBodyRepository", lessonBodyRepository);
+        ReflectionTestUtils.setField(lessonBodyStore, "offloadChars", 100);
+
+        courseRepository = mock(CourseRepository.class);
+        blobStorageService = mock(BlobStorageService.class);
+        CourseController controller = new CourseController();
+        ReflectionTestUtils.setField(controller, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(controller, "blobStorageService", blobStorageService);
+        ReflectionTestUtils.setField(controller, "lessonBodyStore", lessonBodyStore);
+        ReflectionTestUtils.setField(controller, "progressIngestionService", mock(ProgressIngestionService.class));
+        ReflectionTestUtils.setField(controller, "eventPublisher", mock(ApplicationEventPublisher.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void addedLessonKeepsItsOffloadedBody() throws Exception {
+        when(courseRepository.pushContent(eq("c1"), anyList(), isNull())).thenReturn(true);
+
+        MockHttpServletResponse response = perform(post("/api/courses/c1/content"), lesson(null, LONG));
+        assertEquals(201, response.getStatus());
+        CourseContent added = objectMapper.readValue(response.getContentAsString(), CourseContent.class);
+        assertNull(added.getContent());
+        assertEquals(LONG, bodies.get(added.getContentRef()).getContent());
+        verify(blobStorageService).retainPaths(List.of(VIDEO));
+        verify(blobStorageService, never()).releasePaths(any());
+    }
+
+    @Test
+    void bodyAndFilesAreReleasedWhenTheLessonIsNotWritten() throws Exception {
+        // The course changed since the client read it
+        when(courseRepository.pushContent(eq("c1"), anyList(), eq(7L))).thenReturn(false);
+        when(courseRepository.existsById("c1")).thenReturn(true);
+
+        MockHttpServletResponse response = perform(post("/api/courses/c1/content").header(HttpHeaders.IF_MATCH, "\"7\""),
+                lesson(null, LONG));
+        assertEquals(412, response.getStatus());
+        assertTrue(bodies.isEmpty());
+        verify(blobStorageService).releasePaths(List.of(VIDEO));
+    }
+
+    @Test
+    void bodyAndFilesAreReleasedWhenTheLessonWriteFails() throws Exception {
+        when(courseRepository.replaceContent(eq("c1"), any(), isNull())).thenThrow(new IllegalStateException("down"));
+
+        assertThrows(ServletException.class, () -> perform(put("/api/courses/c1/content/l1"), lesson(null, LONG)));
+        assertTrue(bodies.isEmpty());
+        verify(blobStorageService).releasePaths(List.of(VIDEO));
+    }
+
+    @Test
+    void replacedAndDeletedLessonsReleaseTheirBodies() throws Exception {
+        bodies.put("old", new LessonBody());
+        CourseContent previous = lesson("l1", null);
+        previous.setContentRef("old");
+        when(courseRepository.replaceContent(eq("c1"), any(), isNull())).thenReturn(previous);
+
+        MockHttpServletResponse replaced = perform(put("/api/courses/c1/content/l1"), lesson(null, LONG));
+        assertEquals(200, replaced.getStatus());
+        String current = objectMapper.readValue(replaced.getContentAsString(), CourseContent.class).getContentRef();
+        assertEquals(List.of(current), List.copyOf(bodies.keySet()));
+        verify(blobStorageService).releaseAll(previous);
+
+        CourseContent removed = lesson("l1", null);
+        removed.setContentRef(current);
+        when(courseRepository.pullContent("c1", "l1", null)).thenReturn(removed);
+        assertEquals(204, perform(delete("/api/courses/c1/content/l1"), null).getStatus());
+        assertTrue(bodies.isEmpty());
+    }
+
+    @Test
+    void deletedCourseReleasesEveryBody() throws Exception {
+        bodies.put("b1", new LessonBody());
+        bodies.put("b2", new LessonBody());
+        bodies.put("other", new LessonBody());
+        CourseContent first = lesson("l1", null);
+        first.setContentRef("b1");
+        CourseContent second = lesson("l2", null);
+        second.setContentRef("b2");
+        Course removed = new Course();
+        removed.setContentList(List.of(first, lesson("l3", "inline"), second));
+        when(courseRepository.removeCourse("c1")).thenReturn(removed);
+
+        assertEquals(200, perform(delete("/api/courses/c1"), null).getStatus());
+        assertEquals(List.of("other"), List.copyOf(bodies.keySet()));
+        verify(blobStorageService).releaseAll(removed);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        RequestBuilder builder = body == null ? request
+                : request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsBytes(body));
+        return mockMvc.perform(builder).andReturn().getResponse();
+    }
+
+    private static CourseContent lesson(String id, String content) {
+        CourseContent lesson = new CourseContent();
+        lesson.setId(id);
+        lesson.setTitle("Lesson");
+        lesson.setContent(content);
+        lesson.setVideoUrl(VIDEO);
+        return lesson;
+    }
+}
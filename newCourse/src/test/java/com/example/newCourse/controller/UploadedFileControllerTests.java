@@ -0,0 +1,177 @@
+package com.example.newCourse.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+
+class UploadedFileControllerTests {
+
+    private static final String VIDEO = "/uploads/videos/clip.mp4";
+
+    @TempDir
+    Path uploadRoot;
+
+    private MockMvc mockMvc;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UploadedFileController controller = new UploadedFileController();
+        ReflectionTestUtils.setField(controller, "uploadRoot", uploadRoot);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.createDirectories(uploadRoot.resolve("videos"));
+        Files.write(uploadRoot.resolve("videos/clip.mp4"), content);
+        Files.createDirectories(uploadRoot.resolve("parts"));
+        Files.write(uploadRoot.resolve("parts/unfinished.part"), content);
+    }
+
+    @Test
+    void wholeFileWithoutRange() throws Exception {
+        MockHttpServletResponse response = perform(get(VIDEO));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("video/mp4", response.getContentType());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void singleRange() throws Exception {
+        MockHttpServletResponse response = perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=100-199"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), response.getContentAsByteArray());
+    }
+
+    @Test
+    void suffixAndOpenEndedRanges() throws Exception {
+        MockHttpServletResponse suffix = perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=-10"));
+        assertEquals("bytes 990-999/1000", suffix.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 990, 1000), suffix.getContentAsByteArray());
+
+        MockHttpServletResponse openEnded = perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=995-"));
+        assertEquals("bytes 995-999/1000", openEnded.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void multipleRangesAreSentAsMultipart() throws Exception {
+        MockHttpServletResponse response = perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=0-9,500-509"));
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(body.contains("Content-Range: bytes 0-9/1000"));
+        assertTrue(body.contains("Content-Range: bytes 500-509/1000"));
+        assertEquals(response.getContentAsByteArray().length, response.getContentLengthLong());
+    }
+
+    @Test
+    void rangeBeyondTheEndIsNotSatisfiable() throws Exception {
+        MockHttpServletResponse response = perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=1000-1100"));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void unsatisfiableRangesAreDroppedFromASet() throws Exception {
+        MockHttpServletResponse response = perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=0-9,2000-2100"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 0-9/1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void malformedOrOverlappingRangesGetTheWholeFile() throws Exception {
+        assertEquals(200, perform(get(VIDEO).header(HttpHeaders.RANGE, "lines=1-2")).getStatus());
+        assertEquals(200, perform(get(VIDEO).header(HttpHeaders.RANGE, "bytes=0-999,0-999")).getStatus());
+    }
+
+    @Test
+    void ifRangeWithTheCurrentEtagHonoursTheRange() throws Exception {
+        String etag = perform(head(VIDEO)).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = perform(get(VIDEO)
+                .header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, etag));
+
+        assertEquals(206, response.getStatus());
+    }
+
+    @Test
+    void ifRangeWithAStaleValidatorGetsTheWholeFile() throws Exception {
+        String etag = perform(head(VIDEO)).getHeader(HttpHeaders.ETAG);
+
+        assertEquals(200, perform(get(VIDEO)
+                .header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\"")).getStatus());
+        // If-Range needs a strong match, so a weak tag never applies the range
+        assertEquals(200, perform(get(VIDEO)
+                .header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "W/" + etag)).getStatus());
+        assertEquals(200, perform(get(VIDEO)
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:00 GMT")).getStatus());
+    }
+
+    @Test
+    void ifNoneMatchAcceptsListsWeakTagsAndStar() throws Exception {
+        String etag = perform(head(VIDEO)).getHeader(HttpHeaders.ETAG);
+
+        assertEquals(304, perform(get(VIDEO).header(HttpHeaders.IF_NONE_MATCH, etag)).getStatus());
+        assertEquals(304, perform(get(VIDEO)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag)).getStatus());
+        assertEquals(304, perform(get(VIDEO).header(HttpHeaders.IF_NONE_MATCH, "W/" + etag)).getStatus());
+        assertEquals(304, perform(get(VIDEO).header(HttpHeaders.IF_NONE_MATCH, "*")).getStatus());
+        assertEquals(200, perform(get(VIDEO).header(HttpHeaders.IF_NONE_MATCH, "\"other\"")).getStatus());
+    }
+
+    @Test
+    void headSendsNoBody() throws Exception {
+        MockHttpServletResponse response = perform(head(VIDEO).header(HttpHeaders.RANGE, "bytes=0-9"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void otherPublicDirectoriesAreServed() throws Exception {
+        Files.createDirectories(uploadRoot.resolve("variants"));
+        Files.write(uploadRoot.resolve("variants/cover-card.jpg"), content);
+
+        MockHttpServletResponse response = perform(get("/uploads/variants/cover-card.jpg"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/jpeg", response.getContentType());
+    }
+
+    @Test
+    void unfinishedUploadsAndMissingFilesAreNotServed() throws Exception {
+        assertEquals(404, perform(get("/uploads/parts/unfinished.part")).getStatus());
+        assertEquals(404, perform(get("/uploads/videos/missing.mp4")).getStatus());
+        assertEquals(404, perform(get("/uploads/videos/..%2Fparts%2Funfinished.part")).getStatus());
+    }
+
+    private MockHttpServletResponse perform(
+            org.springframework.test.web.servlet.RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
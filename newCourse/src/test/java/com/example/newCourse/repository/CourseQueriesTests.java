@@ -0,0 +1,91 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.MongoStandIn;
+import com.example.newCourse.model.CourseSummary;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseQueriesTests {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    // Every course stored, in the order MongoDB sorts their ids
+    private final List<String> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(MongoStandIn.uri());
+        mongoTemplate = new MongoTemplate(client, "queries-" + UUID.randomUUID());
+        // Seeded and imported courses keep their string ids, created ones get ObjectIds
+        for (int i = 0; i < 5; i++) {
+            insert("lt-course-00000" + i, i % 2 == 0 ? "math" : "art");
+        }
+        insert("z-imported", "math");
+        for (int i = 0; i < 5; i++) {
+            ObjectId id = new ObjectId();
+            mongoTemplate.insert(new Document("_id", id).append("title", "created " + i)
+                    .append("category", i % 2 == 0 ? "math" : "art"), "courses");
+            ids.add(id.toHexString());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void pagesCrossFromStringIdsToObjectIds() {
+        for (int limit : new int[] {1, 2, 3, 6, 11, 20}) {
+            assertEquals(ids, pageThrough(null, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void filteredPagesCrossFromStringIdsToObjectIds() {
+        List<String> math = pageThrough("math", 2);
+        assertEquals(List.of("lt-course-000000", "lt-course-000002", "lt-course-000004", "z-imported",
+                ids.get(6), ids.get(8), ids.get(10)), math);
+    }
+
+    @Test
+    void objectIdCursorSkipsEveryStringId() {
+        List<CourseSummary> page = summaries(null, ids.get(7), 10);
+        assertEquals(ids.subList(8, 11), page.stream().map(CourseSummary::getId).toList());
+    }
+
+    private List<String> pageThrough(String category, int limit) {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        List<CourseSummary> page;
+        do {
+            page = summaries(category, cursor, limit);
+            page.forEach(course -> seen.add(course.getId()));
+            cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).getId();
+        } while (page.size() == limit);
+        return seen;
+    }
+
+    private List<CourseSummary> summaries(String category, String afterId, int limit) {
+        return mongoTemplate.aggregate(CourseQueries.summaries(category, null, null, afterId, limit),
+                "courses", CourseSummary.class).getMappedResults();
+    }
+
+    private void insert(String id, String category) {
+        mongoTemplate.insert(new Document("_id", id).append("title", id).append("category", category), "courses");
+        ids.add(id);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.newCourse.repository;
+
+import com.example.newCourse.MongoStandIn;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CourseRepositoryConcurrencyTests {
+
+    private static final int WRITERS = 32;
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        MongoStandIn.register(registry);
+    }
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private final List<String> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        courseRepository.deleteAllById(createdIds);
+    }
+
+    @Test
+    void concurrentLessonAddsAreAllKept() throws Exception {
+        Course course = newCourse(0);
+
+        runConcurrently(i -> courseRepository.pushContent(course.getId(), List.of(lesson("Lesson " + i)), null));
+
+        Course reloaded = courseRepository.findById(course.getId()).orElseThrow();
+        assertEquals(WRITERS, reloaded.getContentList().size());
+        assertEquals(course.getVersion() + WRITERS, reloaded.getVersion());
+    }
+
+    @Test
+    void concurrentEditsToDifferentLessonsAreAllKept() throws Exception {
+        Course course = newCourse(WRITERS);
+        List<CourseContent> lessons = course.getContentList();
+
+        runConcurrently(i -> {
+            CourseContent edited = lesson("Edited " + i);
+            edited.setId(lessons.get(i).getId());
+            assertNotNull(courseRepository.replaceContent(course.getId(), edited, null));
+            assertNotNull(courseRepository.setContentProperty(
+                    course.getId(), edited.getId(), "videoUrl", "/uploads/videos/" + i));
+        });
+
+        Course reloaded = courseRepository.findById(course.getId()).orElseThrow();
+        Set<String> titles = reloaded.getContentList().stream()
+                .map(CourseContent::getTitle).collect(Collectors.toSet());
+        for (int i = 0; i < WRITERS; i++) {
+            assertTrue(titles.contains("Edited " + i));
+        }
+        assertTrue(reloaded.getContentList().stream().allMatch(c -> c.getVideoUrl() != null));
+        assertEquals(course.getVersion() + 2L * WRITERS, reloaded.getVersion());
+    }
+
+    @Test
+    void lessonUpdateWithStaleVersionIsRejected() {
+        Course course = newCourse(2);
+        CourseContent first = course.getContentList().get(0);
+        CourseContent second = course.getContentList().get(1);
+
+        first.setTitle("First edit");
+        assertNotNull(courseRepository.replaceContent(course.getId(), first, course.getVersion()));
+        second.setTitle("Based on stale copy");
+        assertNull(courseRepository.replaceContent(course.getId(), second, course.getVersion()));
+        assertNull(courseRepository.pullContent(course.getId(), second.getId(), course.getVersion()));
+
+        Course reloaded = courseRepository.findById(course.getId()).orElseThrow();
+        assertEquals(2, reloaded.getContentList().size());
+        assertEquals("First edit", reloaded.getContentList().get(0).getTitle());
+    }
+
+    @Test
+    void staleWholeDocumentSaveIsRejected() {
+        Course course = newCourse(0);
+        Course firstCopy = courseRepository.findById(course.getId()).orElseThrow();
+        Course secondCopy = courseRepository.findById(course.getId()).orElseThrow();
+
+        firstCopy.setTitle("First writer");
+        courseRepository.save(firstCopy);
+        secondCopy.setTitle("Second writer");
+
+        assertThrows(OptimisticLockingFailureException.class, () -> courseRepository.save(secondCopy));
+        assertEquals("First writer", courseRepository.findById(course.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void detailsUpdateKeepsConcurrentLessonAdds() throws Exception {
+        Course course = newCourse(0);
+
+        runConcurrently(i -> {
+            if (i % 2 == 0) {
+                courseRepository.pushContent(course.getId(), List.of(lesson("Lesson " + i)), null);
+            } else {
+                assertNotNull(courseRepository.updateDetails(course.getId(), "Title " + i, "Description " + i, null));
+            }
+        });
+
+        Course reloaded = courseRepository.findById(course.getId()).orElseThrow();
+        assertEquals(WRITERS / 2, reloaded.getContentList().size());
+        assertTrue(reloaded.getTitle().startsWith("Title "));
+        assertEquals(course.getVersion() + WRITERS, reloaded.getVersion());
+        assertNull(courseRepository.updateDetails(course.getId(), "Stale", null, course.getVersion()));
+    }
+
+    private Course newCourse(int lessons) {
+        Course course = new Course();
+        course.setTitle("Concurrency " + UUID.randomUUID());
+        for (int i = 0; i < lessons; i++) {
+            course.getContentList().add(lesson("Lesson " + i));
+        }
+        Course saved = courseRepository.save(course);
+        createdIds.add(saved.getId());
+        return saved;
+    }
+
+    private static CourseContent lesson(String title) {
+        CourseContent content = new CourseContent();
+        content.setId(UUID.randomUUID().toString());
+        content.setTitle(title);
+        content.setContentType("text");
+        return content;
+    }
+
+    private interface Writer {
+        void write(int index) throws Exception;
+    }
+
+    // Starts all writers at once so their updates genuinely overlap
+    private static void runConcurrently(Writer writer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    writer.write(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.service.AdmissionLimiter.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionLimiterTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void queuesBeyondTheLimitAndAdmitsWaitersInArrivalOrder() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("test", 2, 2, 5_000, 0);
+        assertEquals(Outcome.ADMITTED, limiter.acquire());
+        assertEquals(Outcome.ADMITTED, limiter.acquire());
+
+        Future<Outcome> first = executor.submit(limiter::acquire);
+        awaitQueued(limiter, 1);
+        Future<Outcome> second = executor.submit(limiter::acquire);
+        awaitQueued(limiter, 2);
+        // The queue is full, so the next one is turned away without waiting
+        assertEquals(Outcome.QUEUE_FULL, limiter.acquire());
+
+        limiter.release(MS);
+        assertEquals(Outcome.ADMITTED, first.get(5, TimeUnit.SECONDS));
+        assertFalse(second.isDone());
+        assertEquals(2, limiter.getActive());
+        assertEquals(1, limiter.getQueued());
+
+        limiter.release(MS);
+        assertEquals(Outcome.ADMITTED, second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getQueued());
+        assertEquals(4L, limiter.stats().get("admitted"));
+        assertEquals(1L, limiter.stats().get("rejectedQueueFull"));
+    }
+
+    @Test
+    void waitersTimeOutAfterMaxWait() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("test", 1, 5, 100, 0);
+        assertEquals(Outcome.ADMITTED, limiter.acquire());
+
+        long started = System.nanoTime();
+        assertEquals(Outcome.TIMED_OUT, limiter.acquire());
+        assertTrue(System.nanoTime() - started >= 100 * MS);
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getActive());
+        assertEquals(1L, limiter.stats().get("rejectedTimedOut"));
+
+        // Without a wait, a request that cannot run at once is turned away at once
+        AdmissionLimiter noWait = new AdmissionLimiter("test", 1, 5, 0, 0);
+        assertEquals(Outcome.ADMITTED, noWait.acquire());
+        assertEquals(Outcome.TIMED_OUT, noWait.acquire());
+        // Nor is there a queue without maxQueued
+        AdmissionLimiter noQueue = new AdmissionLimiter("test", 1, 0, 5_000, 0);
+        assertEquals(Outcome.ADMITTED, noQueue.acquire());
+        assertEquals(Outcome.QUEUE_FULL, noQueue.acquire());
+    }
+
+    @Test
+    void interruptedWaiterLeavesTheQueueAndTheNextOneIsAdmitted() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("test", 1, 2, 5_000, 0);
+        assertEquals(Outcome.ADMITTED, limiter.acquire());
+        Future<Outcome> interrupted = executor.submit(limiter::acquire);
+        awaitQueued(limiter, 1);
+        Future<Outcome> next = executor.submit(limiter::acquire);
+        awaitQueued(limiter, 2);
+
+        interrupted.cancel(true);
+        awaitQueued(limiter, 1);
+        limiter.release(MS);
+        assertEquals(Outcome.ADMITTED, next.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getActive());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void limitShrinksByAQuarterOverTheTargetLatency() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("test", 8, 0, 0, 10);
+        // Each round is as many completions as the limit at its start
+        for (int expected : new int[] {6, 5, 4, 3, 2, 1, 1}) {
+            int round = limiter.getLimit();
+            for (int i = 0; i < round; i++) {
+                assertEquals(Outcome.ADMITTED, limiter.acquire());
+            }
+            for (int i = 0; i < round; i++) {
+                limiter.release(20 * MS);
+            }
+            assertEquals(expected, limiter.getLimit());
+        }
+        assertEquals(Outcome.ADMITTED, limiter.acquire());
+        assertEquals(Outcome.QUEUE_FULL, limiter.acquire());
+        limiter.release(20 * MS);
+    }
+
+    @Test
+    void limitGrowsByOnlyOneUnderTheTargetAndOnlyWhenReached() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("test", 8, 0, 0, 10);
+        for (int i = 0; i < 8; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 8; i++) {
+            limiter.release(50 * MS);
+        }
+        assertEquals(6, limiter.getLimit());
+
+        // Fast, but one at a time, so the limit was never in the way
+        for (int i = 0; i < 12; i++) {
+            assertEquals(Outcome.ADMITTED, limiter.acquire());
+            limiter.release(MS);
+        }
+        assertEquals(6, limiter.getLimit());
+
+        // Fast and at the limit: one more per round, up to maxConcurrent
+        for (int expected : new int[] {7, 8, 8}) {
+            int round = limiter.getLimit();
+            for (int i = 0; i < round; i++) {
+                assertEquals(Outcome.ADMITTED, limiter.acquire());
+            }
+            for (int i = 0; i < round; i++) {
+                limiter.release(MS);
+            }
+            assertEquals(expected, limiter.getLimit());
+        }
+    }
+
+    private static void awaitQueued(AdmissionLimiter limiter, int queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (limiter.getQueued() != queued) {
+            assertTrue(System.currentTimeMillis() < deadline, "expected " + queued + " queued");
+            Thread.sleep(1);
+        }
+    }
+}
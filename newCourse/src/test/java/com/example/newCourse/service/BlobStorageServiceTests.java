@@ -0,0 +1,194 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.StoredBlob;
+import com.example.newCourse.repository.BlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BlobStorageServiceTests {
+
+    @TempDir
+    Path uploadRoot;
+
+    // The blobs collection, kept in memory by the mocked repository
+    private final Map<String, StoredBlob> blobs = new ConcurrentHashMap<>();
+    private BlobRepository blobRepository;
+    private BlobStorageService service;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        blobRepository = mock(BlobRepository.class);
+        when(blobRepository.addReference(any(), any(), anyLong())).thenAnswer(invocation -> blobs.compute(
+                invocation.getArgument(0), (path, blob) -> {
+                    if (blob == null) {
+                        blob = new StoredBlob();
+                        blob.setPath(path);
+                        blob.setDigest(invocation.getArgument(1));
+                        blob.setSize(invocation.getArgument(2));
+                    }
+                    blob.setRefCount(blob.getRefCount() + 1);
+                    return blob;
+                }).getRefCount());
+        when(blobRepository.addReferenceIfPresent(any())).thenAnswer(invocation -> blobs.computeIfPresent(
+                invocation.getArgument(0), (path, blob) -> {
+                    blob.setRefCount(blob.getRefCount() + 1);
+                    return blob;
+                }) != null);
+        when(blobRepository.removeReference(any())).thenAnswer(invocation -> blobs.computeIfPresent(
+                invocation.getArgument(0), (path, blob) -> {
+                    blob.setRefCount(blob.getRefCount() - 1);
+                    return blob;
+                }));
+        when(blobRepository.deleteIfUnreferenced(any())).thenAnswer(invocation -> {
+            StoredBlob blob = blobs.get(invocation.<String>getArgument(0));
+            return blob != null && blob.getRefCount() <= 0 && blobs.remove(blob.getPath(), blob);
+        });
+        when(blobRepository.findUnreferenced()).thenAnswer(invocation ->
+                blobs.values().stream().filter(blob -> blob.getRefCount() <= 0).toList());
+
+        service = new BlobStorageService();
+        ReflectionTestUtils.setField(service, "blobRepository", blobRepository);
+        ReflectionTestUtils.setField(service, "metrics", new MetricsRegistry());
+        ReflectionTestUtils.setField(service, "uploadRoot", uploadRoot);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void identicalUploadsShareOneFile() throws Exception {
+        String first = store("same bytes", "clip.mp4");
+        String second = store("same bytes", "copy.MP4");
+
+        assertEquals(first, second);
+        assertTrue(first.matches("/uploads/videos/[0-9a-f]{64}\\.mp4"));
+        assertEquals(2, blobs.get(first).getRefCount());
+        try (var files = Files.list(uploadRoot.resolve("videos"))) {
+            assertEquals(1, files.count());
+        }
+        // The temporary copies were moved or deleted
+        try (var parts = Files.list(uploadRoot.resolve("parts"))) {
+            assertEquals(0, parts.count());
+        }
+    }
+
+    @Test
+    void fileIsDeletedWithItsLastReference() throws Exception {
+        String path = store("content", "image.png");
+        service.retain(path);
+        Path variant = Files.createDirectories(uploadRoot.resolve("variants"))
+                .resolve(fileOf(path).getFileName().toString().replace(".png", "_card.jpg"));
+        Files.writeString(variant, "resized");
+
+        service.release(path);
+        assertTrue(Files.exists(fileOf(path)));
+
+        service.release(path);
+        assertFalse(Files.exists(fileOf(path)));
+        assertFalse(Files.exists(variant));
+        assertFalse(blobs.containsKey(path));
+    }
+
+    @Test
+    void retainingACollectedBlobFails() throws Exception {
+        String path = store("content", "clip.mp4");
+        service.release(path);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.retain(path));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertFalse(blobs.containsKey(path));
+    }
+
+    @Test
+    void untrackedPathsAreRetainedAndReleasedAsNoOps() {
+        service.retain("/uploads/videos/1b4e28ba-2fa1-11d2-883f-0016cb7b1c3d_clip.mp4");
+        service.retain("https://cdn.example.com/clip.mp4");
+        service.retain(null);
+        service.release("/uploads/videos/1b4e28ba-2fa1-11d2-883f-0016cb7b1c3d_clip.mp4");
+
+        verify(blobRepository, never()).deleteIfUnreferenced(any());
+    }
+
+    @Test
+    void retainPathsTakesAllReferencesOrNone() throws Exception {
+        String kept = store("kept", "clip.mp4");
+        String collected = store("collected", "notes.pdf");
+        service.release(collected);
+
+        assertThrows(ResponseStatusException.class, () -> service.retainPaths(List.of(kept, collected)));
+        assertEquals(1, blobs.get(kept).getRefCount());
+
+        service.retainPaths(List.of(kept, kept));
+        assertEquals(3, blobs.get(kept).getRefCount());
+    }
+
+    @Test
+    void collectGarbageRemovesBlobsLeftWithoutReferences() throws Exception {
+        String orphan = store("orphan", "clip.mp4");
+        String used = store("used", "clip.mp4");
+        // As if the process died between dropping the reference and deleting the file
+        blobs.get(orphan).setRefCount(0);
+
+        assertEquals(1, service.collectGarbage());
+        assertFalse(Files.exists(fileOf(orphan)));
+        assertTrue(Files.exists(fileOf(used)));
+        assertEquals(0, service.collectGarbage());
+    }
+
+    @Test
+    void releasesOfDifferentPathsDoNotWaitForEachOther() throws Exception {
+        String slow = store("slow", "clip.mp4");
+        String fast = store("fast", "notes.pdf");
+        assertNotEquals(Math.floorMod(slow.hashCode(), 64), Math.floorMod(fast.hashCode(), 64));
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch finishSlow = new CountDownLatch(1);
+        when(blobRepository.removeReference(slow)).thenAnswer(invocation -> {
+            slowStarted.countDown();
+            finishSlow.await();
+            return blobs.get(slow);
+        });
+
+        Future<?> slowRelease = executor.submit(() -> service.release(slow));
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        // Holds the slow path's lock while the other release runs to completion
+        executor.submit(() -> service.release(fast)).get(5, TimeUnit.SECONDS);
+        assertFalse(Files.exists(fileOf(fast)));
+
+        finishSlow.countDown();
+        slowRelease.get(5, TimeUnit.SECONDS);
+    }
+
+    private String store(String content, String fileName) throws IOException {
+        return service.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "videos", fileName);
+    }
+
+    private Path fileOf(String path) {
+        return uploadRoot.resolve(path.substring("/uploads/".length()));
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.UploadRequest;
+import com.example.newCourse.model.UploadStatus;
+import com.example.newCourse.repository.CourseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChunkedUploadServiceTests {
+
+    private static final int CHUNK = 4;
+
+    @TempDir
+    Path partDir;
+
+    private ChunkedUploadService service;
+    private CourseRepository courseRepository;
+    private BlobStorageService blobStorageService;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        when(courseRepository.contentExists(any(), any())).thenReturn(true);
+        when(courseRepository.setContentProperty(any(), any(), any(), any())).thenReturn(new CourseContent());
+        blobStorageService = mock(BlobStorageService.class);
+
+        service = new ChunkedUploadService();
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "blobStorageService", blobStorageService);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "partDir", partDir);
+        ReflectionTestUtils.setField(service, "defaultChunkSize", CHUNK);
+        ReflectionTestUtils.setField(service, "maxChunkSize", 1024);
+        ReflectionTestUtils.setField(service, "maxChunkCount", 100);
+        ReflectionTestUtils.setField(service, "maxTotalSize", 1000L);
+        ReflectionTestUtils.setField(service, "maxSessions", 2);
+        ReflectionTestUtils.setField(service, "sessionTtlHours", 24L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void chunksAreWrittenInAnyOrderAndCompleted() throws Exception {
+        when(blobStorageService.storeFile(any(), eq("videos"), eq("clip.mp4"))).thenReturn("/uploads/videos/x.mp4");
+        UploadStatus status = service.init(request(10));
+        byte[] file = "0123456789".getBytes();
+
+        service.writeChunk(status.getUploadId(), 2, sha256(file, 8, 10), new ByteArrayInputStream(file, 8, 2));
+        service.writeChunk(status.getUploadId(), 0, sha256(file, 0, 4), new ByteArrayInputStream(file, 0, 4));
+        assertEquals(List.of(0, 2), service.status(status.getUploadId()).getReceivedChunks());
+        service.writeChunk(status.getUploadId(), 1, sha256(file, 4, 8), new ByteArrayInputStream(file, 4, 4));
+
+        assertArrayEquals(file, Files.readAllBytes(partDir.resolve(status.getUploadId() + ".part")));
+        assertEquals("/uploads/videos/x.mp4", service.complete(status.getUploadId()).getVideoUrl());
+        assertThrows(ResponseStatusException.class, () -> service.status(status.getUploadId()));
+    }
+
+    @Test
+    void storedFileIsReleasedWhenTheLessonIsNotPointedAtIt() throws Exception {
+        when(blobStorageService.storeFile(any(), eq("videos"), eq("clip.mp4"))).thenReturn("/uploads/videos/x.mp4");
+        byte[] file = "0123".getBytes();
+
+        UploadStatus failed = service.init(request(4));
+        service.writeChunk(failed.getUploadId(), 0, sha256(file, 0, 4), new ByteArrayInputStream(file));
+        when(courseRepository.setContentProperty(any(), any(), any(), any())).thenThrow(new IllegalStateException("down"));
+        assertThrows(IllegalStateException.class, () -> service.complete(failed.getUploadId()));
+        verify(blobStorageService).release("/uploads/videos/x.mp4");
+
+        UploadStatus deleted = service.init(request(4));
+        service.writeChunk(deleted.getUploadId(), 0, sha256(file, 0, 4), new ByteArrayInputStream(file));
+        doReturn(null).when(courseRepository).setContentProperty(any(), any(), any(), any());
+        assertStatus(HttpStatus.NOT_FOUND, () -> service.complete(deleted.getUploadId()));
+        verify(blobStorageService, times(2)).release("/uploads/videos/x.mp4");
+    }
+
+    @Test
+    void chunkWithTheWrongChecksumIsLeftMissing() throws Exception {
+        UploadStatus status = service.init(request(8));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                service.writeChunk(status.getUploadId(), 0, "00", new ByteArrayInputStream(new byte[CHUNK])));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+        assertTrue(service.status(status.getUploadId()).getReceivedChunks().isEmpty());
+    }
+
+    @Test
+    void oversizedUploadIsRejected() {
+        assertStatus(HttpStatus.PAYLOAD_TOO_LARGE, () -> service.init(request(1001)));
+    }
+
+    @Test
+    void uploadWithTooManyChunksIsRejected() {
+        UploadRequest request = request(1000);
+        request.setChunkSize(1);
+
+        assertStatus(HttpStatus.BAD_REQUEST, () -> service.init(request));
+    }
+
+    @Test
+    void sessionCountIsLimited() throws Exception {
+        service.init(request(8));
+        service.init(request(8));
+
+        assertStatus(HttpStatus.SERVICE_UNAVAILABLE, () -> service.init(request(8)));
+    }
+
+    @Test
+    void concurrentWriteOfTheSameChunkIsRejected() throws Exception {
+        UploadStatus status = service.init(request(8));
+        BlockingStream first = new BlockingStream();
+        Future<UploadStatus> firstWrite = executor.submit(() ->
+                service.writeChunk(status.getUploadId(), 0, sha256(new byte[CHUNK], 0, CHUNK), first));
+        first.reading.await();
+
+        assertStatus(HttpStatus.CONFLICT, () -> service.writeChunk(status.getUploadId(), 0,
+                sha256(new byte[CHUNK], 0, CHUNK), new ByteArrayInputStream(new byte[CHUNK])));
+        // Another chunk of the same upload may still be written meanwhile
+        service.writeChunk(status.getUploadId(), 1, sha256(new byte[CHUNK], 0, CHUNK),
+                new ByteArrayInputStream(new byte[CHUNK]));
+        // Completion is refused while a chunk is in flight
+        assertStatus(HttpStatus.CONFLICT, () -> service.complete(status.getUploadId()));
+
+        first.release.complete(null);
+        assertEquals(List.of(0, 1), firstWrite.get().getReceivedChunks());
+    }
+
+    @Test
+    void chunksAreRejectedOnceCompletionHasStarted() throws Exception {
+        UploadStatus status = service.init(request(4));
+        service.writeChunk(status.getUploadId(), 0, sha256(new byte[CHUNK], 0, CHUNK),
+                new ByteArrayInputStream(new byte[CHUNK]));
+        CountDownLatch storing = new CountDownLatch(1);
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        when(blobStorageService.storeFile(any(), any(), any())).thenAnswer(invocation -> {
+            storing.countDown();
+            stored.get();
+            return "/uploads/videos/x.mp4";
+        });
+        Future<CourseContent> completion = executor.submit(() -> service.complete(status.getUploadId()));
+        storing.await();
+
+        assertStatus(HttpStatus.CONFLICT, () -> service.writeChunk(status.getUploadId(), 0,
+                sha256(new byte[CHUNK], 0, CHUNK), new ByteArrayInputStream(new byte[CHUNK])));
+        assertStatus(HttpStatus.CONFLICT, () -> service.complete(status.getUploadId()));
+
+        stored.complete(null);
+        assertNotNull(completion.get());
+    }
+
+    @Test
+    void sweepDeletesPartFilesNoSessionOwns() throws Exception {
+        UploadStatus live = service.init(request(8));
+        Path orphan = Files.write(partDir.resolve("left-by-a-restart.part"), new byte[8]);
+        Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minusSeconds(60)));
+        Path spooling = Files.write(partDir.resolve("in-progress.upload"), new byte[8]);
+        Files.setLastModifiedTime(spooling, FileTime.from(Instant.now().plusSeconds(60)));
+
+        service.sweep();
+
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(spooling));
+        assertTrue(Files.exists(partDir.resolve(live.getUploadId() + ".part")));
+    }
+
+    @Test
+    void sweepExpiresIdleSessions() throws Exception {
+        UploadStatus status = service.init(request(8));
+        ReflectionTestUtils.setField(service, "sessionTtlHours", -1L);
+
+        service.sweep();
+
+        assertFalse(Files.exists(partDir.resolve(status.getUploadId() + ".part")));
+        assertStatus(HttpStatus.NOT_FOUND, () -> service.status(status.getUploadId()));
+    }
+
+    private static UploadRequest request(long totalSize) {
+        UploadRequest request = new UploadRequest();
+        request.setCourseId("course");
+        request.setContentId("lesson");
+        request.setKind("video");
+        request.setFileName("clip.mp4");
+        request.setTotalSize(totalSize);
+        return request;
+    }
+
+    private static String sha256(byte[] bytes, int from, int to) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(bytes, from, to - from);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void assertStatus(HttpStatus expected, org.junit.jupiter.api.function.Executable call) {
+        assertEquals(expected, assertThrows(ResponseStatusException.class, call).getStatusCode());
+    }
+
+    // A chunk body that stalls until released, so a second write can overlap it
+    private static final class BlockingStream extends InputStream {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CompletableFuture<Void> release = new CompletableFuture<>();
+        private int remaining = CHUNK;
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            reading.countDown();
+            release.join();
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = Math.min(length, remaining);
+            remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.MongoStandIn;
+import com.example.newCourse.event.ProgressChangedEvent;
+import com.example.newCourse.model.ProgressEvent;
+import com.example.newCourse.repository.AnalyticsCheckpointRepository;
+import com.example.newCourse.repository.ProgressRepository;
+import com.example.newCourse.repository.ProgressRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CompletionAnalyticsServiceTests {
+
+    private static final List<String> STATUSES = List.of("Not Started", "In Progress", "Completed");
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ProgressRepository progressRepository;
+    private AnalyticsCheckpointRepository checkpointRepository;
+    private ProgressIngestionService ingestion;
+    private ApplicationEventPublisher eventPublisher;
+    // The analytics instance progress events are delivered to
+    private final AtomicReference<CompletionAnalyticsService> listener = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        // A database of its own, so tests never see each other's progress
+        client = MongoClients.create(MongoStandIn.uri());
+        mongoTemplate = new MongoTemplate(client, "analytics-" + UUID.randomUUID());
+        ProgressRepositoryImpl custom = new ProgressRepositoryImpl();
+        ReflectionTestUtils.setField(custom, "mongoTemplate", mongoTemplate);
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        progressRepository = factory.getRepository(ProgressRepository.class, RepositoryFragments.just(custom));
+        checkpointRepository = factory.getRepository(AnalyticsCheckpointRepository.class);
+
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof ProgressChangedEvent event) {
+                listener.get().onProgressChanged(event);
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        ingestion = new ProgressIngestionService();
+        ReflectionTestUtils.setField(ingestion, "progressRepository", progressRepository);
+        ReflectionTestUtils.setField(ingestion, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(ingestion, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(ingestion, "batchSize", 1000);
+        ReflectionTestUtils.setField(ingestion, "maxPending", 100_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestion.shutdown();
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void incrementalCountersMatchARecount() throws Exception {
+        CompletionAnalyticsService analytics = analytics();
+        ReflectionTestUtils.invokeMethod(analytics, "recover");
+        ingestion.start();
+
+        // Students move back and forth between statuses over several flushes
+        Random random = new Random(13);
+        for (int round = 0; round < 5; round++) {
+            List<ProgressEvent> events = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int lesson = random.nextInt(4);
+                events.add(event("course-" + random.nextInt(4), "student-" + random.nextInt(20),
+                        lesson == 0 ? null : "lesson-" + lesson, STATUSES.get(random.nextInt(3))));
+            }
+            assertTrue(ingestion.submit(events));
+            awaitFlushed();
+        }
+
+        for (int course = 0; course < 4; course++) {
+            Map<String, Object> verified = analytics.verify("course-" + course);
+            assertEquals(true, verified.get("consistent"), verified.toString());
+        }
+        assertEquals(0, analytics.recomputeAll().get("mismatched"));
+    }
+
+    @Test
+    void recoversFromACheckpointTakenBetweenTheChunksOfAFlush() throws Exception {
+        CompletionAnalyticsService analytics = analytics();
+        ReflectionTestUtils.invokeMethod(analytics, "recover");
+        ReflectionTestUtils.setField(ingestion, "batchSize", 2);
+
+        // Checkpoints as soon as the first chunk is counted, before the others are written
+        AtomicBoolean checkpointed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof ProgressChangedEvent event) {
+                analytics.onProgressChanged(event);
+                if (!event.changes().isEmpty() && checkpointed.compareAndSet(false, true)) {
+                    ReflectionTestUtils.invokeMethod(analytics, "checkpoint");
+                }
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        // Three chunks in one flush, each with courses of its own
+        List<ProgressEvent> events = new ArrayList<>();
+        for (int course = 0; course < 6; course++) {
+            events.add(event("course-" + course, "student-1", "lesson-1", "Completed"));
+        }
+        assertTrue(ingestion.submit(events));
+        ingestion.start();
+        awaitFlushed();
+        assertTrue(checkpointed.get());
+
+        // A restart after that checkpoint still counts the chunks written after it
+        CompletionAnalyticsService restarted = analytics();
+        ReflectionTestUtils.invokeMethod(restarted, "recover");
+        for (int course = 0; course < 6; course++) {
+            Map<String, Object> verified = restarted.verify("course-" + course);
+            assertEquals(true, verified.get("consistent"), verified.toString());
+        }
+        assertEquals(0, restarted.recomputeAll().get("mismatched"));
+    }
+
+    private CompletionAnalyticsService analytics() {
+        CompletionAnalyticsService analytics = new CompletionAnalyticsService();
+        ReflectionTestUtils.setField(analytics, "progressRepository", progressRepository);
+        ReflectionTestUtils.setField(analytics, "checkpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(analytics, "courseCache", mock(CourseCache.class));
+        ReflectionTestUtils.setField(analytics, "progressIngestionService", ingestion);
+        listener.set(analytics);
+        return analytics;
+    }
+
+    private void awaitFlushed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        // Every update received is written once, unless a later one in the same buffer replaced it
+        while (written() != (Long) ingestion.stats().get("received") - (Long) ingestion.stats().get("coalesced")) {
+            assertTrue(System.currentTimeMillis() < deadline, "progress not flushed");
+            Thread.sleep(5);
+        }
+    }
+
+    private long written() {
+        return (Long) ingestion.stats().get("written");
+    }
+
+    private static ProgressEvent event(String courseId, String studentId, String lessonId, String status) {
+        ProgressEvent event = new ProgressEvent();
+        event.setCourseId(courseId);
+        event.setStudentId(studentId);
+        event.setLessonId(lessonId);
+        event.setStatus(status);
+        return event;
+    }
+}
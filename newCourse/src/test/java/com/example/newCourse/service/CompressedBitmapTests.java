@@ -0,0 +1,144 @@
+package com.example.newCourse.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTests {
+
+    // Values per chunk at which a chunk switches from a sorted array to a bitmap
+    private static final int ARRAY_MAX = 4096;
+
+    @Test
+    void addAndRemoveAcrossTheArrayToBitmapSwitch() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        // Every other value of the first chunk, so the chunk fills up past ARRAY_MAX
+        for (int i = 0; i <= ARRAY_MAX; i++) {
+            assertTrue(bitmap.add(i * 2));
+            expected.set(i * 2);
+        }
+        assertFalse(bitmap.add(ARRAY_MAX * 2));
+        assertEquals(ARRAY_MAX + 1, bitmap.cardinality());
+        assertValues(expected, bitmap);
+
+        // Back under the threshold, and down to nothing
+        assertTrue(bitmap.remove(0));
+        expected.clear(0);
+        assertFalse(bitmap.remove(0));
+        assertFalse(bitmap.remove(1));
+        assertEquals(ARRAY_MAX, bitmap.cardinality());
+        assertValues(expected, bitmap);
+        assertTrue(bitmap.add(1));
+        expected.set(1);
+        assertValues(expected, bitmap);
+
+        for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1)) {
+            assertTrue(bitmap.remove(value));
+        }
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.cardinality());
+        assertFalse(bitmap.contains(2));
+    }
+
+    @Test
+    void valuesInDifferentChunksStayOrdered() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int[] values = {Integer.MAX_VALUE, 5 << 16, 65535, 65536, 0, 3 << 16 | 7, 1 << 20};
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertEquals(List.of(0, 65535, 65536, 3 << 16 | 7, 5 << 16, 1 << 20, Integer.MAX_VALUE), visited);
+
+        // Emptying a chunk in the middle drops it
+        bitmap.remove(65536);
+        assertFalse(bitmap.contains(65536));
+        assertTrue(bitmap.contains(3 << 16 | 7));
+        visited.clear();
+        bitmap.forEach(value -> {
+            visited.add(value);
+            return visited.size() < 3;
+        });
+        assertEquals(List.of(0, 65535, 3 << 16 | 7), visited);
+    }
+
+    @Test
+    void setOperationsMatchBitSetForEveryContainerPairing() {
+        Random random = new Random(7);
+        // Sparse chunks stay arrays, dense ones become bitmaps; chunk 1 is dense in one operand only
+        int[][] densities = {{100, 100}, {100, 30_000}, {30_000, 100}, {30_000, 40_000}, {ARRAY_MAX, ARRAY_MAX}};
+        for (int[] density : densities) {
+            BitSet leftBits = new BitSet();
+            BitSet rightBits = new BitSet();
+            CompressedBitmap left = random(random, density[0], leftBits);
+            CompressedBitmap right = random(random, density[1], rightBits);
+
+            BitSet and = (BitSet) leftBits.clone();
+            and.and(rightBits);
+            BitSet or = (BitSet) leftBits.clone();
+            or.or(rightBits);
+
+            assertValues(and, left.and(right));
+            assertValues(and, right.and(left));
+            assertEquals(and.cardinality(), left.andCardinality(right));
+            assertEquals(and.cardinality(), right.andCardinality(left));
+            assertValues(or, left.or(right));
+            assertValues(or, right.or(left));
+            // The operands are left as they were
+            assertValues(leftBits, left);
+            assertValues(rightBits, right);
+        }
+    }
+
+    @Test
+    void resultsOfSetOperationsCanBeModified() {
+        CompressedBitmap dense = new CompressedBitmap();
+        for (int i = 0; i < ARRAY_MAX * 2; i++) {
+            dense.add(i);
+        }
+        CompressedBitmap union = dense.or(new CompressedBitmap());
+        union.remove(0);
+        assertTrue(dense.contains(0));
+
+        // An intersection small enough to be an array again, then grown past the threshold
+        CompressedBitmap small = new CompressedBitmap();
+        small.add(1);
+        CompressedBitmap intersection = dense.and(small);
+        for (int i = 0; i <= ARRAY_MAX; i++) {
+            intersection.add(10_000 + i * 2);
+        }
+        assertEquals(ARRAY_MAX + 2, intersection.cardinality());
+        assertFalse(dense.contains(10_000));
+        assertEquals(1, small.cardinality());
+    }
+
+    // Values spread over three chunks; chunk 1 gets "perChunk" random values
+    private static CompressedBitmap random(Random random, int perChunk, BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int chunk : new int[] {0, 1, 3}) {
+            int count = chunk == 1 ? perChunk : 50;
+            for (int i = 0; i < count; i++) {
+                int value = chunk << 16 | random.nextInt(1 << 16);
+                bitmap.add(value);
+                bits.set(value);
+            }
+        }
+        return bitmap;
+    }
+
+    private static void assertValues(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        List<Integer> expectedValues = new ArrayList<>();
+        expected.stream().forEach(expectedValues::add);
+        List<Integer> actualValues = new ArrayList<>();
+        actual.forEach(actualValues::add);
+        assertEquals(expectedValues, actualValues);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.GenerationJobRequest;
+import com.example.newCourse.model.GenerationJobStatus;
+import com.example.newCourse.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ContentGenerationJobServiceTests {
+
+    private ContentGenerationJobService service;
+    private CourseRepository courseRepository;
+    private LessonBodyStore lessonBodyStore;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        lessonBodyStore = mock(LessonBodyStore.class);
+        ContentGeneratorService contentGeneratorService = mock(ContentGeneratorService.class);
+        when(contentGeneratorService.generateContentForCourse(any(), any(), any()))
+                .thenAnswer(invocation -> List.of(new CourseContent()));
+
+        service = new ContentGenerationJobService();
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "contentGeneratorService", contentGeneratorService);
+        ReflectionTestUtils.setField(service, "lessonBodyStore", lessonBodyStore);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "defaultConcurrency", 4);
+        ReflectionTestUtils.setField(service, "maxConcurrency", 4);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+    }
+
+    @Test
+    void emptyFilterIsRejectedUnlessAllIsSet() throws Exception {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.start(new GenerationJobRequest()));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verifyNoInteractions(courseRepository);
+
+        when(courseRepository.streamForGeneration(any(), any(), any(), any())).thenReturn(Stream.empty());
+        GenerationJobRequest all = new GenerationJobRequest();
+        all.setAll(true);
+        assertEquals("COMPLETED", awaitFinished(service.start(all).getId()).getState());
+    }
+
+    @Test
+    void onlyMatchedCoursesCountAsWrittenAndTheOthersLoseTheirBodies() throws Exception {
+        when(courseRepository.streamForGeneration(any(), any(), any(), any()))
+                .thenReturn(Stream.of(course("kept"), course("deleted")));
+        when(lessonBodyStore.offload(any(), any())).thenAnswer(invocation -> List.of("body-" + invocation.getArgument(0)));
+        // The two courses may be flushed together or one at a time
+        when(courseRepository.pushContentBulk(any())).thenAnswer(invocation -> {
+            Map<String, ?> byCourse = invocation.getArgument(0);
+            return byCourse.containsKey("kept") ? Set.of("kept") : Set.of();
+        });
+        GenerationJobRequest request = new GenerationJobRequest();
+        request.setCourseIds(List.of("kept", "deleted"));
+
+        GenerationJobStatus status = awaitFinished(service.start(request).getId());
+
+        assertEquals(2, status.getSucceeded());
+        assertEquals(1, status.getWritten());
+        assertEquals(1, status.getFailed());
+        assertEquals(List.of("deleted: course no longer exists"), status.getFailures());
+        verify(lessonBodyStore).delete(List.of("body-deleted"));
+        verify(lessonBodyStore, never()).delete(List.of("body-kept"));
+    }
+
+    @Test
+    void failedBulkWriteDeletesEveryStoredBody() throws Exception {
+        when(courseRepository.streamForGeneration(any(), any(), any(), any()))
+                .thenReturn(Stream.of(course("a"), course("b")));
+        when(lessonBodyStore.offload(any(), any())).thenAnswer(invocation -> List.of("body-" + invocation.getArgument(0)));
+        when(courseRepository.pushContentBulk(any())).thenThrow(new IllegalStateException("write failed"));
+        GenerationJobRequest request = new GenerationJobRequest();
+        request.setCategory("Programming");
+
+        GenerationJobStatus status = awaitFinished(service.start(request).getId());
+
+        assertEquals(0, status.getWritten());
+        assertEquals(2, status.getFailed());
+        verify(lessonBodyStore).delete(List.of("body-a"));
+        verify(lessonBodyStore).delete(List.of("body-b"));
+    }
+
+    private GenerationJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        GenerationJobStatus status = service.status(jobId);
+        while (status.getFinishedAt() == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "job did not finish");
+            Thread.sleep(10);
+            status = service.status(jobId);
+        }
+        return status;
+    }
+
+    private static Course course(String id) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle("Course " + id);
+        return course;
+    }
+}
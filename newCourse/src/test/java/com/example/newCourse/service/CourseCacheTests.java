@@ -0,0 +1,158 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CourseCacheTests {
+
+    private CourseRepository courseRepository;
+    private CourseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        cache = new CourseCache();
+        ReflectionTestUtils.setField(cache, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(cache, "maxWeight", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+    }
+
+    @Test
+    void secondReadIsServedFromTheCache() {
+        stored("a");
+
+        assertTrue(cache.findById("a").isPresent());
+        assertTrue(cache.findById("a").isPresent());
+
+        verify(courseRepository, times(1)).findById("a");
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void missingCourseIsNotCached() {
+        when(courseRepository.findById("gone")).thenReturn(Optional.empty());
+
+        assertTrue(cache.findById("gone").isEmpty());
+        assertTrue(cache.findById("gone").isEmpty());
+
+        verify(courseRepository, times(2)).findById("gone");
+        assertEquals(0, cache.stats().get("size"));
+    }
+
+    @Test
+    void leastRecentlyUsedCourseIsEvictedOverTheWeightBudget() {
+        long weight = CourseCache.weigh(course("a"));
+        ReflectionTestUtils.setField(cache, "maxWeight", 2 * weight);
+        stored("a");
+        stored("b");
+        stored("c");
+
+        cache.findById("a");
+        cache.findById("b");
+        cache.findById("a"); // b is now the least recently used
+        cache.findById("c");
+
+        assertEquals(2, cache.stats().get("size"));
+        assertEquals(2 * weight, cache.stats().get("weightBytes"));
+        assertEquals(1L, cache.stats().get("evictions"));
+        cache.findById("a");
+        cache.findById("b");
+        verify(courseRepository, times(1)).findById("a");
+        verify(courseRepository, times(2)).findById("b");
+    }
+
+    @Test
+    void courseHeavierThanTheBudgetIsNotCached() {
+        ReflectionTestUtils.setField(cache, "maxWeight", CourseCache.weigh(course("a")) - 1);
+        stored("a");
+
+        cache.findById("a");
+        cache.findById("a");
+
+        verify(courseRepository, times(2)).findById("a");
+        assertEquals(0L, cache.stats().get("weightBytes"));
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        stored("a");
+
+        cache.findById("a");
+        cache.findById("a");
+
+        verify(courseRepository, times(2)).findById("a");
+        assertEquals(1L, cache.stats().get("expirations"));
+        assertEquals(1, cache.stats().get("size"));
+    }
+
+    @Test
+    void invalidationDropsTheEntry() {
+        stored("a");
+        cache.findById("a");
+
+        cache.invalidate("a");
+        cache.findById("a");
+
+        verify(courseRepository, times(2)).findById("a");
+        assertEquals(CourseCache.weigh(course("a")), cache.stats().get("weightBytes"));
+    }
+
+    @Test
+    void loadThatRacedWithAWriteIsNotCached() {
+        when(courseRepository.findById("a")).thenAnswer(invocation -> {
+            // A writer invalidates the course while it is being read
+            cache.invalidate("a");
+            return Optional.of(course("a"));
+        });
+
+        assertTrue(cache.findById("a").isPresent());
+
+        assertEquals(0, cache.stats().get("size"));
+    }
+
+    @Test
+    void putLoadedIsDroppedAfterAnInvalidation() {
+        long generation = cache.generation();
+        cache.invalidate("a");
+        cache.putLoaded("a", course("a"), generation);
+        assertTrue(cache.getIfPresent("a").isEmpty());
+
+        cache.putLoaded("a", course("a"), cache.generation());
+        assertTrue(cache.getIfPresent("a").isPresent());
+    }
+
+    @Test
+    void clearEmptiesTheCache() {
+        stored("a");
+        stored("b");
+        cache.findById("a");
+        cache.findById("b");
+
+        cache.clear();
+
+        assertEquals(0, cache.stats().get("size"));
+        assertEquals(0L, cache.stats().get("weightBytes"));
+    }
+
+    private void stored(String id) {
+        when(courseRepository.findById(id)).thenReturn(Optional.of(course(id)));
+    }
+
+    private static Course course(String id) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle("Course " + id);
+        course.setDescription("Description of course " + id);
+        return course;
+    }
+}
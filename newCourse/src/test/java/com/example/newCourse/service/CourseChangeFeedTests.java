@@ -0,0 +1,197 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.CourseChanges;
+import com.example.newCourse.model.CourseSummary;
+import com.example.newCourse.model.CourseTombstone;
+import com.example.newCourse.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseChangeFeedTests {
+
+    // The courses and tombstones collections, kept in memory by the mocked repository
+    private final List<CourseSummary> courses = new ArrayList<>();
+    private final List<CourseTombstone> tombstones = new ArrayList<>();
+    private CourseRepository courseRepository;
+    private CourseRevisions revisions;
+    private CourseChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        // Nothing stored yet, so revisions start at 1
+        revisions = new CourseRevisions();
+        ReflectionTestUtils.setField(revisions, "mongoTemplate", mock(MongoTemplate.class));
+
+        courseRepository = mock(CourseRepository.class);
+        when(courseRepository.findChangedSummaries(anyLong(), anyLong(), anyInt())).thenAnswer(invocation ->
+                between(courses, CourseSummary::getRevision, invocation.getArgument(0),
+                        invocation.getArgument(1), invocation.getArgument(2)));
+        when(courseRepository.findDeleted(anyLong(), anyLong(), anyInt())).thenAnswer(invocation ->
+                between(tombstones, CourseTombstone::getRevision, invocation.getArgument(0),
+                        invocation.getArgument(1), invocation.getArgument(2)));
+
+        feed = new CourseChangeFeed();
+        ReflectionTestUtils.setField(feed, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(feed, "revisions", revisions);
+        ReflectionTestUtils.setField(feed, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(feed, "tombstoneRetentionDays", 30L);
+    }
+
+    @Test
+    void pagesMergeUpsertsAndDeletesInRevisionOrder() {
+        save("a");
+        delete("b");
+        save("c");
+        save("d");
+        delete("e");
+        // Written again, so only its latest revision is a change
+        save("a");
+
+        CourseChanges first = feed.changes(0, 2);
+        assertEquals(0, first.getSince());
+        assertEquals(3, first.getRevision());
+        assertTrue(first.isHasMore());
+        assertEquals(List.of("c"), ids(first.getUpserted()));
+        assertEquals(List.of("b"), deletedIds(first.getDeleted()));
+
+        CourseChanges second = feed.changes(first.getRevision(), 2);
+        assertEquals(5, second.getRevision());
+        assertTrue(second.isHasMore());
+        assertEquals(List.of("d"), ids(second.getUpserted()));
+        assertEquals(List.of("e"), deletedIds(second.getDeleted()));
+
+        // The rest fits, so the page ends at the committed revision
+        CourseChanges third = feed.changes(second.getRevision(), 2);
+        assertEquals(6, third.getRevision());
+        assertFalse(third.isHasMore());
+        assertEquals(List.of("a"), ids(third.getUpserted()));
+        assertTrue(third.getDeleted().isEmpty());
+
+        CourseChanges none = feed.changes(third.getRevision(), 2);
+        assertEquals(6, none.getRevision());
+        assertTrue(none.getUpserted().isEmpty() && none.getDeleted().isEmpty());
+    }
+
+    @Test
+    void pagingFromAnyRevisionSeesEveryChangeOnce() {
+        for (int i = 0; i < 25; i++) {
+            if (i % 3 == 2) {
+                delete("course-" + i);
+            } else {
+                save("course-" + i);
+            }
+        }
+        for (int limit : new int[] {1, 4, 7, 25, 100}) {
+            for (long since : new long[] {0, 5, 24}) {
+                List<Long> seen = new ArrayList<>();
+                CourseChanges page;
+                long revision = since;
+                do {
+                    page = feed.changes(revision, limit);
+                    assertTrue(page.getUpserted().size() + page.getDeleted().size() <= limit);
+                    page.getUpserted().forEach(course -> seen.add(course.getRevision()));
+                    page.getDeleted().forEach(course -> seen.add(course.getRevision()));
+                    revision = page.getRevision();
+                } while (page.isHasMore());
+
+                assertEquals(25, revision);
+                assertEquals(25 - since, seen.size(), "limit " + limit + " since " + since);
+                assertEquals(seen.stream().sorted().distinct().toList(), seen.stream().sorted().toList());
+                assertTrue(seen.stream().allMatch(seenRevision -> seenRevision > since));
+            }
+        }
+    }
+
+    @Test
+    void readsStopAtAWriteStillInFlight() {
+        save("a");
+        long inFlight = revisions.next();
+        save("b");
+
+        CourseChanges changes = feed.changes(0, 10);
+        assertEquals(inFlight - 1, changes.getRevision());
+        assertEquals(List.of("a"), ids(changes.getUpserted()));
+        assertFalse(changes.isHasMore());
+
+        revisions.done(inFlight);
+        assertEquals(List.of("b"), ids(feed.changes(changes.getRevision(), 10).getUpserted()));
+    }
+
+    @Test
+    void revisionsOlderThanThePurgedTombstonesAreGone() {
+        for (int i = 0; i < 6; i++) {
+            save("course-" + i);
+        }
+        when(courseRepository.findPurgedRevision()).thenReturn(2L);
+        when(courseRepository.purgeTombstones(any())).thenReturn(4L);
+
+        // Read from MongoDB on first use
+        assertEquals(HttpStatus.GONE, assertThrows(ResponseStatusException.class,
+                () -> feed.changes(1, 10)).getStatusCode());
+        assertEquals(4, feed.changes(2, 10).getUpserted().size());
+
+        feed.purgeTombstones();
+        assertEquals(HttpStatus.GONE, assertThrows(ResponseStatusException.class,
+                () -> feed.changes(3, 10)).getStatusCode());
+        assertEquals(HttpStatus.GONE, assertThrows(ResponseStatusException.class,
+                () -> feed.subscribe(3L)).getStatusCode());
+        assertEquals(2, feed.changes(4, 10).getUpserted().size());
+        // The whole catalog needs no tombstones
+        assertEquals(6, feed.changes(0, 10).getUpserted().size());
+        assertEquals(4L, feed.stats().get("purgedRevision"));
+
+        // A purge that fails, or reports less, never lowers what is gone
+        when(courseRepository.purgeTombstones(any())).thenReturn(3L).thenThrow(new IllegalStateException("down"));
+        feed.purgeTombstones();
+        feed.purgeTombstones();
+        assertEquals(4L, feed.stats().get("purgedRevision"));
+    }
+
+    private void save(String id) {
+        revisions.write(revision -> {
+            CourseSummary course = new CourseSummary();
+            course.setId(id);
+            course.setRevision(revision);
+            courses.removeIf(existing -> existing.getId().equals(id));
+            return courses.add(course);
+        });
+    }
+
+    private void delete(String id) {
+        revisions.write(revision -> {
+            CourseTombstone tombstone = new CourseTombstone();
+            tombstone.setId(id);
+            tombstone.setRevision(revision);
+            courses.removeIf(existing -> existing.getId().equals(id));
+            return tombstones.add(tombstone);
+        });
+    }
+
+    private static <T> List<T> between(List<T> stored, ToLongFunction<T> revision, long after, long upTo, int limit) {
+        return stored.stream()
+                .filter(entry -> revision.applyAsLong(entry) > after && revision.applyAsLong(entry) <= upTo)
+                .sorted((a, b) -> Long.compare(revision.applyAsLong(a), revision.applyAsLong(b)))
+                .limit(limit)
+                .toList();
+    }
+
+    private static List<String> ids(List<CourseSummary> courses) {
+        return courses.stream().map(CourseSummary::getId).toList();
+    }
+
+    private static List<String> deletedIds(List<CourseTombstone> tombstones) {
+        return tombstones.stream().map(CourseTombstone::getId).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.FacetFilter;
+import com.example.newCourse.model.FacetQuery;
+import com.example.newCourse.model.FacetResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseFacetIndexTests {
+
+    private CourseFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourseFacetIndex();
+        save("java-1", "Programming", "Beginner", List.of("java", "backend"));
+        save("java-2", "Programming", "Advanced", List.of("java", "backend", "spring"));
+        save("react-1", "Web Development", "Beginner", List.of("javascript", "frontend"));
+        save("react-2", "Web Development", "Intermediate", List.of("javascript", "frontend", "backend"));
+        save("pottery", "Arts", "Beginner", List.of());
+    }
+
+    @Test
+    void clausesAreAndedAndValuesWithinAClauseOred() {
+        FacetResult result = index.query(query(
+                filter("category", "any", "Programming", "Web Development"),
+                filter("level", "any", "Beginner", "Intermediate")));
+
+        assertEquals(3, result.getTotal());
+        assertEquals(List.of("java-1", "react-1", "react-2"), result.getCourseIds());
+    }
+
+    @Test
+    void allMatchRequiresEveryValue() {
+        assertEquals(List.of("java-2"), index.query(query(filter("tags", "all", "java", "spring"))).getCourseIds());
+        assertEquals(List.of("java-1", "java-2", "react-2"),
+                index.query(query(filter("tags", "any", "backend", "nope"))).getCourseIds());
+        assertEquals(0, index.query(query(filter("tags", "all", "java", "nope"))).getTotal());
+    }
+
+    @Test
+    void countsLeaveOutTheCountedFacetsOwnClause() {
+        FacetResult result = index.query(query(
+                filter("level", "any", "Beginner"),
+                filter("category", "any", "Programming")));
+
+        assertEquals(List.of("java-1"), result.getCourseIds());
+        // Levels among Programming courses, categories among Beginner courses
+        assertEquals(Map.of("Beginner", 1, "Advanced", 1), result.getFacets().get("level"));
+        assertEquals(Map.of("Programming", 1, "Web Development", 1, "Arts", 1), result.getFacets().get("category"));
+        // Facets without a clause are counted over the matches
+        assertEquals(Map.of("java", 1, "backend", 1), result.getFacets().get("tags"));
+    }
+
+    @Test
+    void pagesFollowDocIdOrder() {
+        FacetQuery page = query();
+        page.setOffset(1);
+        page.setLimit(2);
+        FacetResult result = index.query(page);
+
+        assertEquals(5, result.getTotal());
+        assertEquals(List.of("java-2", "react-1"), result.getCourseIds());
+    }
+
+    @Test
+    void deletesAndUpdatesMoveCoursesBetweenValues() {
+        index.onCourseChanged(CourseChangedEvent.deleted("java-1"));
+        save("react-1", "Web Development", "Advanced", List.of("javascript"), 2L);
+        // A re-read older than the indexed version is ignored
+        save("react-1", "Web Development", "Beginner", List.of("javascript"), 1L);
+
+        FacetResult result = index.query(query(filter("level", "any", "Beginner")));
+        assertEquals(List.of("pottery"), result.getCourseIds());
+        assertEquals(Map.of("java", 1, "javascript", 2, "frontend", 1, "backend", 2, "spring", 1),
+                index.query(query()).getFacets().get("tags"));
+
+        // The freed doc id is reused
+        save("new", "Arts", "Beginner", List.of());
+        assertEquals(List.of("new", "java-2", "react-1", "react-2", "pottery"), index.query(query()).getCourseIds());
+    }
+
+    @Test
+    void unknownFacetsAndMatchModesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.query(query(filter("author", "any", "x"))));
+        assertThrows(IllegalArgumentException.class, () -> index.query(query(filter("tags", "none", "java"))));
+    }
+
+    private void save(String id, String category, String level, List<String> tags) {
+        save(id, category, level, tags, 1L);
+    }
+
+    private void save(String id, String category, String level, List<String> tags, Long version) {
+        Course course = new Course();
+        course.setId(id);
+        course.setVersion(version);
+        course.setCategory(category);
+        course.setLevel(level);
+        course.setLanguage("English");
+        course.setTags(tags);
+        index.onCourseChanged(CourseChangedEvent.saved(course));
+    }
+
+    private static FacetQuery query(FacetFilter... filters) {
+        FacetQuery query = new FacetQuery();
+        query.setFilters(List.of(filters));
+        return query;
+    }
+
+    private static FacetFilter filter(String facet, String match, String... values) {
+        FacetFilter filter = new FacetFilter();
+        filter.setFacet(facet);
+        filter.setMatch(match);
+        filter.setValues(List.of(values));
+        return filter;
+    }
+}
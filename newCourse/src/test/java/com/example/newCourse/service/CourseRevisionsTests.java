@@ -0,0 +1,63 @@
+package com.example.newCourse.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseRevisionsTests {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void continuesAfterTheHighestRevisionStoredWithoutHoldingTheMonitor() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch finishReading = new CountDownLatch(1);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("courses"))).thenAnswer(invocation -> {
+            reading.countDown();
+            finishReading.await();
+            return new Document("revision", 41L);
+        });
+        // The purge record counts as well
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("course_tombstones")))
+                .thenReturn(new Document("revision", 57L));
+        CourseRevisions revisions = new CourseRevisions();
+        ReflectionTestUtils.setField(revisions, "mongoTemplate", mongoTemplate);
+
+        Future<Long> first = executor.submit(revisions::next);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        // Neither stats nor done waits for MongoDB; a second writer waits for the same read
+        Future<Map<String, Object>> stats = executor.submit(revisions::stats);
+        assertEquals(-1L, stats.get(5, TimeUnit.SECONDS).get("revision"));
+        executor.submit(() -> revisions.done(1)).get(5, TimeUnit.SECONDS);
+        Future<Long> second = executor.submit(revisions::next);
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        finishReading.countDown();
+        assertEquals(Set.of(58L, 59L), Set.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS)));
+        // Both writes are still in flight
+        assertEquals(57L, revisions.committed());
+        verify(mongoTemplate, times(2)).findOne(any(Query.class), eq(Document.class), anyString());
+    }
+}
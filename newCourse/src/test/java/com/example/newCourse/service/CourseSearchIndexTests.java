@@ -0,0 +1,150 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.SearchResult;
+import com.example.newCourse.repository.CourseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseSearchIndexTests {
+
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Deletes schedule a re-read; the course is gone from MongoDB as well
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        when(courseRepository.streamForIndexing(any())).thenAnswer(invocation -> Stream.empty());
+        index = new CourseSearchIndex();
+        ReflectionTestUtils.setField(index, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(index, "lessonBodyStore", mock(LessonBodyStore.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void matchesInHeavierFieldsRankFirst() {
+        save(course("lesson", 1L, "Cloud Operations", "Running services.", "Deploying to kubernetes clusters"));
+        save(course("title", 1L, "Kubernetes Basics", "Containers in production.", null));
+        save(course("description", 1L, "Cloud Native", "Kubernetes from the ground up.", null));
+
+        assertEquals(List.of("title", "description", "lesson"), ids(index.search("kubernetes", 10)));
+    }
+
+    @Test
+    void repeatedWordsSaturateAndEveryWordMustMatch() {
+        save(course("once", 1L, "Spring", "Spring and MongoDB.", null));
+        save(course("many", 1L, "Spring", "Spring spring spring spring spring.", null));
+        save(course("other", 1L, "Other", "MongoDB aggregation.", null));
+
+        List<SearchResult> hits = index.search("spring", 10);
+        assertEquals(List.of("many", "once"), ids(hits));
+        // Four more occurrences add far less than the first ones
+        assertTrue(hits.get(0).getScore() < hits.get(1).getScore() * 2);
+
+        // Every word has to match
+        assertEquals(List.of("once"), ids(index.search("spring mongodb", 10)));
+    }
+
+    @Test
+    void lastWordAlsoMatchesAsPrefix() {
+        save(course("k8s", 1L, "Kubernetes Basics", null, null));
+        save(course("kotlin", 1L, "Kotlin Basics", null, null));
+        save(course("java", 1L, "Java Basics", null, null));
+
+        assertEquals(List.of("k8s"), ids(index.search("kube", 10)));
+        assertEquals(List.of("kotlin"), ids(index.search("basics kot", 10)));
+        // Only the last word is a prefix
+        assertTrue(index.search("kube basics", 10).isEmpty());
+        assertEquals("<mark>Kubernetes</mark> Basics", index.search("kube", 10).get(0).getHighlightedTitle());
+    }
+
+    @Test
+    void deletedAndUpdatedCoursesLeaveNoStalePostings() {
+        save(course("a", 1L, "Python Fundamentals", null, null));
+        save(course("b", 1L, "Python for Data Science", null, null));
+
+        index.onCourseChanged(CourseChangedEvent.deleted("a"));
+        assertEquals(List.of("b"), ids(index.search("python", 10)));
+
+        save(course("b", 2L, "Rust for Data Science", null, null));
+        assertTrue(index.search("python", 10).isEmpty());
+        assertEquals(List.of("b"), ids(index.search("rust", 10)));
+
+        // A re-read older than the indexed version is ignored
+        save(course("b", 1L, "Python for Data Science", null, null));
+        assertTrue(index.search("python", 10).isEmpty());
+
+        // The freed doc id is reused by the next course
+        save(course("c", 1L, "Go Fundamentals", null, null));
+        assertEquals(List.of("c"), ids(index.search("fundamentals", 10)));
+        assertEquals(2, index.stats().get("courses"));
+    }
+
+    @Test
+    void lessonHtmlIsStrippedAndSnippetsAreEscaped() {
+        save(course("html", 1L, "Frontend", "Use <b>react</b> & hooks",
+                "<div class=\"layout\">Components &amp; props</div>"));
+
+        assertTrue(index.search("div", 10).isEmpty());
+        assertTrue(index.search("layout", 10).isEmpty());
+        assertEquals(List.of("html"), ids(index.search("components", 10)));
+        assertEquals("Use &lt;b&gt;<mark>react</mark>&lt;/b&gt; &amp; hooks",
+                index.search("react", 10).get(0).getSnippet());
+    }
+
+    @Test
+    void limitKeepsTheBestHits() {
+        for (int i = 0; i < 20; i++) {
+            save(course("d" + i, 1L, "Course " + i, "testing", null));
+        }
+        save(course("best", 1L, "Testing Masterclass", "testing", null));
+
+        List<SearchResult> hits = index.search("testing", 3);
+        assertEquals(3, hits.size());
+        assertEquals("best", hits.get(0).getCourseId());
+        // Equal scores keep the lower doc id, i.e. the course indexed first
+        assertEquals(List.of("d0", "d1"), ids(hits.subList(1, 3)));
+        List<SearchResult> all = index.search("testing", 100);
+        assertEquals(21, all.size());
+        assertEquals("d19", all.get(20).getCourseId());
+        assertTrue(index.search("the of", 10).isEmpty());
+    }
+
+    private void save(Course course) {
+        index.onCourseChanged(CourseChangedEvent.saved(course));
+    }
+
+    private static List<String> ids(List<SearchResult> hits) {
+        return hits.stream().map(SearchResult::getCourseId).toList();
+    }
+
+    private static Course course(String id, Long version, String title, String description, String lessonBody) {
+        Course course = new Course();
+        course.setId(id);
+        course.setVersion(version);
+        course.setTitle(title);
+        course.setDescription(description);
+        if (lessonBody != null) {
+            CourseContent lesson = new CourseContent();
+            lesson.setId(id + "-lesson");
+            lesson.setContent(lessonBody);
+            course.getContentList().add(lesson);
+        }
+        return course;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseImportReport;
+import com.example.newCourse.repository.CourseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseTransferServiceTests {
+
+    @Test
+    void linesAreSplitOnLineBreaksWithCarriageReturnsDropped() throws IOException {
+        assertEquals(List.of("a", "", "b", "c"), lines("a\n\r\nb\r\nc", 10));
+        assertEquals(List.of("a"), lines("a\n", 10));
+        assertEquals(List.of(""), lines("\n", 10));
+        assertEquals(List.of(), lines("", 10));
+        // Only the '\r' right before the line break
+        assertEquals(List.of("a\rb", "c\r"), lines("a\rb\nc\r\r\n", 10));
+    }
+
+    @Test
+    void linesLongerThanTheLimitAreSkippedAndFlagged() throws IOException {
+        CourseTransferService.LineReader reader = new CourseTransferService.LineReader(
+                new StringReader("12345\n123456\r\n1234567890\nok\n12345\r\n"), 5);
+        assertLine(reader, "12345", false);
+        assertLine(reader, "", true);
+        assertLine(reader, "", true);
+        // The reader carries on after a line that was too long
+        assertLine(reader, "ok", false);
+        // The '\r' of a line break does not count towards the limit
+        assertLine(reader, "12345", false);
+        assertNull(reader.next());
+    }
+
+    @Test
+    void linesSpanningManyReadsAreJoinedWithoutHoldingMoreThanTheLimit() throws IOException {
+        // Longer than the reader's buffer, arriving a few characters at a time
+        String longLine = "x".repeat(200_000);
+        String body = longLine + "\n" + "y".repeat(1_000_000) + "\r\n" + "z";
+        CourseTransferService.LineReader reader = new CourseTransferService.LineReader(trickle(body, 7_000), 200_000);
+        assertLine(reader, longLine, false);
+        assertLine(reader, "", true);
+        assertLine(reader, "z", false);
+        assertNull(reader.next());
+        // A line too long is dropped as it is read, not kept until its end
+        StringBuilder held = (StringBuilder) ReflectionTestUtils.getField(reader, "line");
+        assertTrue(held.capacity() <= 200_002 * 2 + 2, "held " + held.capacity());
+    }
+
+    @Test
+    void importReportsLinesOverMaxRecordCharsAndImportsTheRest() {
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        CourseTransferService service = new CourseTransferService();
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "lessonBodyStore", mock(LessonBodyStore.class));
+        ReflectionTestUtils.setField(service, "blobStorageService", mock(BlobStorageService.class));
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "maxRecordChars", 40);
+        ReflectionTestUtils.setField(service, "maxReportedErrors", 10);
+
+        String body = "{\"title\":\"Short\"}\n"
+                + "{\"title\":\"" + "Long".repeat(20) + "\"}\n"
+                + "\n"
+                + "{\"title\":\"Also short\"}\r\n";
+        CourseImportReport report = service.importCourses(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, report.getRecords());
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(List.of("line 2: longer than 40 characters"), report.getErrors());
+        assertNull(report.getError());
+        ArgumentCaptor<List<Course>> inserted = ArgumentCaptor.captor();
+        verify(courseRepository, atLeastOnce()).insertBulk(inserted.capture());
+        assertEquals(List.of("Short", "Also short"),
+                inserted.getAllValues().stream().flatMap(List::stream).map(Course::getTitle).toList());
+    }
+
+    private static List<String> lines(String body, int maxChars) throws IOException {
+        CourseTransferService.LineReader reader = new CourseTransferService.LineReader(new StringReader(body), maxChars);
+        List<String> lines = new ArrayList<>();
+        for (String line = reader.next(); line != null; line = reader.next()) {
+            assertFalse(reader.tooLong);
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static void assertLine(CourseTransferService.LineReader reader, String expected, boolean tooLong) throws IOException {
+        assertEquals(expected, reader.next());
+        assertEquals(tooLong, reader.tooLong);
+    }
+
+    // Hands out at most "chunk" characters per read, as a network body would
+    private static Reader trickle(String body, int chunk) {
+        StringReader in = new StringReader(body);
+        return new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return in.read(buffer, offset, Math.min(length, chunk));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
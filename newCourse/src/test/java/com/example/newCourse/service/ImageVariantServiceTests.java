@@ -0,0 +1,112 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.repository.CourseRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageVariantServiceTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void imageWithinTheLimitIsDecoded() throws Exception {
+        Path png = image(200, 100);
+
+        BufferedImage image = ImageVariantService.readImage(png, 20_000);
+
+        assertEquals(200, image.getWidth());
+        assertEquals(100, image.getHeight());
+    }
+
+    @Test
+    void imageOverTheLimitIsRejectedBeforeDecoding() throws Exception {
+        Path png = image(200, 100);
+
+        assertThrows(ImageVariantService.UnusableImageException.class,
+                () -> ImageVariantService.readImage(png, 19_999));
+    }
+
+    @Test
+    void tinyFileDeclaringAHugeImageIsRejected() throws Exception {
+        // Only a PNG header: decoding it would need 40 GB of pixels, checking it needs none
+        Path bomb = Files.write(dir.resolve("bomb.png"), pngHeader(100_000, 100_000));
+
+        Exception e = assertThrows(ImageVariantService.UnusableImageException.class,
+                () -> ImageVariantService.readImage(bomb, 40_000_000));
+        assertTrue(e.getMessage().contains("100000x100000"));
+    }
+
+    @Test
+    void fileThatIsNoImageIsRejected() throws Exception {
+        Path text = Files.writeString(dir.resolve("notes.png"), "not an image");
+
+        assertThrows(ImageVariantService.UnusableImageException.class,
+                () -> ImageVariantService.readImage(text, 40_000_000));
+    }
+
+    @Test
+    void unusableOriginalIsRecordedSoTheBackfillSkipsIt() throws Exception {
+        Path bomb = Files.write(dir.resolve("bomb.png"), pngHeader(100_000, 100_000));
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        ImageVariantService service = new ImageVariantService(1, 1);
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "maxPixels", 40_000_000L);
+        // Stored like an uploaded image path, relative to the working directory
+        String imagePath = "/" + Path.of("").toAbsolutePath().relativize(bomb);
+        try {
+            service.process("course", imagePath);
+            service.process("course", "/uploads/images/missing.png");
+
+            verify(courseRepository).setImageVariants("course", imagePath, Map.of());
+            verify(courseRepository, never()).setImageVariants(eq("course"), eq("/uploads/images/missing.png"), any());
+            assertEquals(1L, service.stats().get("unusableOriginals"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private Path image(int width, int height) throws Exception {
+        Path png = dir.resolve(width + "x" + height + ".png");
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", png.toFile());
+        return png;
+    }
+
+    // PNG signature and IHDR chunk of an 8-bit RGB image of the given size, with no image data
+    private static byte[] pngHeader(int width, int height) throws Exception {
+        ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(ihdr);
+        fields.write("IHDR".getBytes(StandardCharsets.US_ASCII));
+        fields.writeInt(width);
+        fields.writeInt(height);
+        fields.write(new byte[] { 8, 2, 0, 0, 0 });
+        CRC32 crc = new CRC32();
+        crc.update(ihdr.toByteArray());
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' });
+        out.writeInt(13);
+        out.write(ihdr.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return png.toByteArray();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.model.Course;
+import com.example.newCourse.model.CourseContent;
+import com.example.newCourse.model.LessonBody;
+import com.example.newCourse.repository.LessonBodyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LessonBodyStoreTests {
+
+    private MongoTemplate mongoTemplate;
+    private LessonBodyRepository lessonBodyRepository;
+    private LessonBodyStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Aggregations over empty collections
+        mongoTemplate = mock(MongoTemplate.class, RETURNS_DEEP_STUBS);
+        lessonBodyRepository = mock(LessonBodyRepository.class);
+        store = new LessonBodyStore();
+        ReflectionTestUtils.setField(store, "lessonBodyRepository", lessonBodyRepository);
+        ReflectionTestUtils.setField(store, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(store, "offloadChars", 16384);
+        ReflectionTestUtils.setField(store, "statsTtlSeconds", 60L);
+    }
+
+    @Test
+    void storedStatsAreReusedWithinTheTtlAndCountsStayCurrent() {
+        Map<String, Object> first = store.stats();
+        assertEquals(0, first.get("bodies"));
+        assertEquals(0L, first.get("released"));
+        verify(mongoTemplate, times(2)).getCollection(any());
+
+        store.delete(List.of("a", "b"));
+        Map<String, Object> second = store.stats();
+        // No new scans, but this instance's counts are up to date
+        verify(mongoTemplate, times(2)).getCollection(any());
+        assertEquals(2L, second.get("released"));
+        assertEquals(0L, second.get("storedStatsAgeSeconds"));
+
+        ReflectionTestUtils.setField(store, "statsTtlSeconds", 0L);
+        store.stats();
+        verify(mongoTemplate, times(4)).getCollection(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void offloadsOnlyBodiesOverTheThreshold() {
+        CourseContent shortLesson = lesson("short", "x".repeat(16384));
+        CourseContent longLesson = lesson("long", "y".repeat(16385));
+        CourseContent newLesson = lesson(null, "z".repeat(20000));
+
+        List<String> refs = store.offload("c1", List.of(shortLesson, longLesson, newLesson));
+
+        ArgumentCaptor<List<LessonBody>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(lessonBodyRepository).insert(inserted.capture());
+        assertEquals(refs, inserted.getValue().stream().map(LessonBody::getId).toList());
+        assertEquals(2, refs.size());
+
+        assertEquals(16384, shortLesson.getContent().length());
+        assertNull(shortLesson.getContentRef());
+        assertNull(longLesson.getContent());
+        assertEquals(refs.get(0), longLesson.getContentRef());
+        assertEquals(16385, longLesson.getContentLength());
+        // A body belongs to one lesson, so a new lesson gets its id first
+        assertNotNull(newLesson.getId());
+        assertEquals(refs.get(1), newLesson.getContentRef());
+        LessonBody body = inserted.getValue().get(1);
+        assertEquals("c1", body.getCourseId());
+        assertEquals(newLesson.getId(), body.getLessonId());
+        assertEquals("z".repeat(20000), body.getContent());
+        assertEquals(20000, body.getLength());
+        assertEquals(2L, store.stats().get("offloaded"));
+    }
+
+    @Test
+    void aFailedInsertLeavesTheLessonsInline() {
+        when(lessonBodyRepository.insert(anyList())).thenThrow(new IllegalStateException("down"));
+        CourseContent lesson = lesson("long", "y".repeat(16385));
+
+        assertThrows(IllegalStateException.class, () -> store.offload("c1", List.of(lesson)));
+        assertEquals(16385, lesson.getContent().length());
+        assertNull(lesson.getContentRef());
+    }
+
+    @Test
+    void releasesBodiesNoLessonRefersToAnyMore() {
+        CourseContent inline = lesson("inline", "short");
+        CourseContent previous = lesson("l1", null);
+        previous.setContentRef("body-1");
+        CourseContent kept = lesson("l1", null);
+        kept.setContentRef("body-1");
+
+        // Replaced by a lesson still pointing at the same body, or one without a body at all
+        store.releaseReplaced(previous, kept);
+        store.releaseReplaced(null, inline);
+        store.release(inline);
+        store.release(null);
+        verify(lessonBodyRepository, never()).deleteAllById(any());
+
+        store.releaseReplaced(previous, inline);
+        verify(lessonBodyRepository).deleteAllById(List.of("body-1"));
+        store.release(kept);
+        verify(lessonBodyRepository, times(2)).deleteAllById(List.of("body-1"));
+
+        Course course = new Course();
+        CourseContent other = lesson("l2", null);
+        other.setContentRef("body-2");
+        course.setContentList(List.of(kept, inline, other));
+        store.releaseAll(course);
+        verify(lessonBodyRepository).deleteAllById(List.of("body-1", "body-2"));
+        assertEquals(4L, store.stats().get("released"));
+
+        // A failed delete only costs space, and is not counted
+        doThrow(new IllegalStateException("down")).when(lessonBodyRepository).deleteAllById(any());
+        store.release(kept);
+        assertEquals(4L, store.stats().get("released"));
+    }
+
+    @Test
+    void keepsOnlyReferencesToTheLessonsOwnBody() {
+        when(lessonBodyRepository.existsByIdAndCourseIdAndLessonId("body-1", "c1", "l1")).thenReturn(true);
+        CourseContent own = lesson("l1", null);
+        own.setContentRef("body-1");
+        own.setContentLength(99);
+        CourseContent borrowed = lesson("l2", null);
+        borrowed.setContentRef("body-1");
+        borrowed.setContentLength(99);
+        // Sent with new content, so the old body is replaced rather than kept
+        CourseContent rewritten = lesson("l1", "new");
+        rewritten.setContentRef("body-1");
+        CourseContent inline = lesson("l3", "text");
+        inline.setContentLength(99);
+
+        store.checkReferences("c1", List.of(own, borrowed, rewritten, inline));
+        assertEquals("body-1", own.getContentRef());
+        assertEquals(99, own.getContentLength());
+        assertNull(borrowed.getContentRef());
+        assertNull(borrowed.getContentLength());
+        assertNull(rewritten.getContentRef());
+        assertNull(inline.getContentLength());
+    }
+
+    private static CourseContent lesson(String id, String content) {
+        CourseContent lesson = new CourseContent();
+        lesson.setId(id);
+        lesson.setContent(content);
+        return lesson;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.newCourse.service;
+
+import com.example.newCourse.event.CourseChangedEvent;
+import com.example.newCourse.model.ProgressEvent;
+import com.example.newCourse.model.StudentProgress;
+import com.example.newCourse.repository.ProgressRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProgressIngestionServiceTests {
+
+    // The progress collection, kept in memory by the mocked repository
+    private final Map<String, StudentProgress> stored = new ConcurrentHashMap<>();
+    private ProgressRepository progressRepository;
+    private ProgressIngestionService service;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        progressRepository = mock(ProgressRepository.class);
+        when(progressRepository.findStatuses(any())).thenReturn(Map.of());
+        when(progressRepository.upsertAll(any(), anyBoolean())).thenAnswer(invocation -> {
+            Collection<StudentProgress> progress = invocation.getArgument(0);
+            progress.forEach(entry -> stored.put(entry.getId(), entry));
+            return progress.size();
+        });
+        when(progressRepository.deleteByCourseIdAndLessonId(any(), any())).thenAnswer(invocation -> {
+            String courseId = invocation.getArgument(0);
+            String lessonId = invocation.getArgument(1);
+            return stored.values().removeIf(entry ->
+                    courseId.equals(entry.getCourseId()) && lessonId.equals(entry.getLessonId())) ? 1L : 0L;
+        });
+        when(progressRepository.deleteByCourseId(any())).thenAnswer(invocation -> {
+            String courseId = invocation.getArgument(0);
+            return stored.values().removeIf(entry -> courseId.equals(entry.getCourseId())) ? 1L : 0L;
+        });
+
+        service = new ProgressIngestionService();
+        ReflectionTestUtils.setField(service, "progressRepository", progressRepository);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(service, "batchSize", 1);
+        ReflectionTestUtils.setField(service, "maxPending", 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void lessonRemovedDuringAFlushIsNotWrittenAfterItsDelete() throws Exception {
+        CountDownLatch firstChunkWriting = new CountDownLatch(1);
+        CountDownLatch finishFirstChunk = new CountDownLatch(1);
+        Map<String, String> firstChunk = new ConcurrentHashMap<>();
+        when(progressRepository.findStatuses(any())).thenAnswer(invocation -> {
+            if (firstChunk.isEmpty()) {
+                Collection<String> ids = invocation.getArgument(0);
+                ids.forEach(id -> firstChunk.put(id, id));
+                firstChunkWriting.countDown();
+                finishFirstChunk.await();
+            }
+            return Map.of();
+        });
+        service.start();
+        assertTrue(service.submit(List.of(event("lesson-1"), event("lesson-2"))));
+        assertTrue(firstChunkWriting.await(5, TimeUnit.SECONDS));
+
+        // Both updates are in the batch being flushed; remove the lesson of the one still waiting
+        String waiting = firstChunk.containsKey(ProgressIngestionService.progressId("course", "student", "lesson-1"))
+                ? "lesson-2" : "lesson-1";
+        Future<?> removal = executor.submit(() -> service.lessonRemoved("course", waiting));
+        ReentrantLock writeLock = (ReentrantLock) ReflectionTestUtils.getField(service, "writeLock");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!writeLock.hasQueuedThreads()) {
+            assertTrue(System.currentTimeMillis() < deadline, "removal did not wait for the write");
+            Thread.sleep(1);
+        }
+        finishFirstChunk.countDown();
+        removal.get(5, TimeUnit.SECONDS);
+        service.shutdown();
+
+        assertEquals(Set.of(ProgressIngestionService.progressId("course", "student",
+                waiting.equals("lesson-1") ? "lesson-2" : "lesson-1")), stored.keySet());
+    }
+
+    @Test
+    void deletedCourseLosesBufferedAndStoredProgress() throws Exception {
+        ReflectionTestUtils.setField(service, "batchSize", 1000);
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 60_000L);
+        service.start();
+        assertTrue(service.submit(List.of(event("lesson-1"))));
+        service.onCourseChanged(CourseChangedEvent.deleted("course"));
+        assertTrue(service.findForStudent("course", "student").isEmpty());
+
+        service.shutdown();
+        assertTrue(stored.isEmpty());
+        verify(progressRepository).deleteByCourseId("course");
+        verify(progressRepository, never()).upsertAll(any(), anyBoolean());
+    }
+
+    private static ProgressEvent event(String lessonId) {
+        ProgressEvent event = new ProgressEvent();
+        event.setCourseId("course");
+        event.setStudentId("student");
+        event.setLessonId(lessonId);
+        event.setStatus("Completed");
+        return event;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.newCourse.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class SlowQueryExplainerTests {
+
+    private static final String COLLSCAN_PLAN = "{queryPlanner: {winningPlan: {stage: 'LIMIT', inputStage: {stage: 'COLLSCAN'}},"
+            + " rejectedPlans: []}}";
+    private static final String IXSCAN_PLAN = "{queryPlanner: {winningPlan: {stage: 'FETCH', inputStage: {stage: 'IXSCAN'}},"
+            + " rejectedPlans: [{stage: 'COLLSCAN'}]}}";
+
+    private MongoDatabase database;
+    private MetricsRegistry metrics;
+    private SlowQueryExplainer explainer;
+    private int requestId;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        database = mock(MongoDatabase.class);
+        MongoClient client = mock(MongoClient.class);
+        when(client.getDatabase("coursesdb")).thenReturn(database);
+        ObjectProvider<MongoClient> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(client);
+        metrics = new MetricsRegistry();
+
+        explainer = new SlowQueryExplainer();
+        ReflectionTestUtils.setField(explainer, "thresholdMs", 100L);
+        ReflectionTestUtils.setField(explainer, "mongoClient", provider);
+        ReflectionTestUtils.setField(explainer, "metrics", metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        explainer.shutdown();
+    }
+
+    @Test
+    void explainsASlowQueryAndLogsItsCollectionScan(CapturedOutput output) throws Exception {
+        explainWith(COLLSCAN_PLAN);
+        run("find", "{find: 'courses', filter: {level: 'Beginner', tags: {$all: ['java']}}, limit: 51,"
+                + " $db: 'coursesdb', lsid: {id: 1}}", 250);
+
+        awaitScans("find", "courses", 1);
+        awaitExplained();
+        assertTrue(output.getOut().contains("Slow find on courses (250 ms) scanned the whole collection"));
+        assertTrue(output.getOut().contains("{level=?, tags={$all=[?]}}"));
+        // Explained without the session fields the driver added
+        ArgumentCaptor<Bson> explain = ArgumentCaptor.forClass(Bson.class);
+        verify(database).runCommand(explain.capture(), eq(BsonDocument.class));
+        BsonDocument sent = explain.getValue().toBsonDocument();
+        assertEquals("queryPlanner", sent.getString("verbosity").getValue());
+        assertEquals(BsonDocument.parse("{find: 'courses', filter: {level: 'Beginner', tags: {$all: ['java']}}, limit: 51}"),
+                sent.getDocument("explain"));
+    }
+
+    @Test
+    void explainsEachShapeOnceAndOnlyOverTheThreshold(CapturedOutput output) throws Exception {
+        explainWith(COLLSCAN_PLAN);
+        run("find", "{find: 'courses', filter: {category: 'Math'}, $db: 'coursesdb'}", 99);
+        run("find", "{find: 'courses', filter: {category: 'Math'}, $db: 'coursesdb'}", 100);
+        // The same shape with other values
+        run("find", "{find: 'courses', filter: {category: 'Art'}, $db: 'coursesdb'}", 300);
+        run("aggregate", "{aggregate: 'progress', pipeline: [{$match: {courseId: 'c1'}}, {$group: {_id: '$status'}}],"
+                + " $db: 'coursesdb'}", 150);
+
+        awaitScans("aggregate", "progress", 1);
+        awaitScans("find", "courses", 1);
+        awaitExplained();
+        verify(database, times(2)).runCommand(any(Bson.class), eq(BsonDocument.class));
+        assertFalse(output.getOut().contains("(99 ms)"));
+        assertFalse(output.getOut().contains("(300 ms)"));
+    }
+
+    @Test
+    void aSlowQueryServedByAnIndexIsNotReported(CapturedOutput output) throws Exception {
+        explainWith(IXSCAN_PLAN);
+        run("find", "{find: 'courses', filter: {_id: {$gt: 'a'}}, $db: 'coursesdb'}", 500);
+        // Writes run through the same path, but are neither explained nor counted
+        run("insert", "{insert: 'courses', documents: [{_id: 'b'}], $db: 'coursesdb'}", 500);
+
+        verify(database, timeout(5_000)).runCommand(any(Bson.class), eq(BsonDocument.class));
+        awaitExplained();
+        assertFalse(output.getOut().contains("scanned the whole collection"));
+        assertFalse(metrics.scrape(Map.of()).contains("mongodb_collection_scans_total{"));
+        verifyNoMoreInteractions(database);
+    }
+
+    private void explainWith(String plan) {
+        when(database.runCommand(any(Bson.class), eq(BsonDocument.class))).thenReturn(BsonDocument.parse(plan));
+    }
+
+    // Reports one command to the listener the way the driver does, started then succeeded
+    private void run(String commandName, String command, long elapsedMs) {
+        int id = ++requestId;
+        CommandStartedEvent started = mock(CommandStartedEvent.class);
+        when(started.getCommandName()).thenReturn(commandName);
+        when(started.getRequestId()).thenReturn(id);
+        when(started.getCommand()).thenReturn(BsonDocument.parse(command));
+        explainer.commandStarted(started);
+
+        CommandSucceededEvent succeeded = mock(CommandSucceededEvent.class);
+        when(succeeded.getCommandName()).thenReturn(commandName);
+        when(succeeded.getRequestId()).thenReturn(id);
+        when(succeeded.getDatabaseName()).thenReturn("coursesdb");
+        when(succeeded.getElapsedTime(TimeUnit.MILLISECONDS)).thenReturn(elapsedMs);
+        explainer.commandSucceeded(succeeded);
+    }
+
+    // Lets the explain already queued finish, including its logging
+    private void awaitExplained() throws InterruptedException {
+        explainer.shutdown();
+        assertTrue(((ExecutorService) ReflectionTestUtils.getField(explainer, "executor"))
+                .awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitScans(String command, String collection, int scans) throws InterruptedException {
+        String line = "newcourse_mongodb_collection_scans_total{command=\"" + command + "\",collection=\""
+                + collection + "\"} " + scans;
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!metrics.scrape(Map.of()).contains(line)) {
+            assertTrue(System.currentTimeMillis() < deadline, "expected " + line);
+            Thread.sleep(5);
+        }
+    }
+}